@@ -0,0 +1,47 @@
+package com.krainet.authservice.config;
+
+import com.krainet.common.transport.EventPublisher;
+import com.krainet.common.transport.InMemoryEventTransport;
+import com.krainet.common.transport.JournalEventTransport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Local {@link EventPublisher}s for deployments that run the notification service in the same
+ * JVM. The Kafka publisher is {@link com.krainet.authservice.service.event.UserEventDispatcher}.
+ */
+@Slf4j
+@Configuration
+public class EventTransportConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.events.transport", havingValue = "in-memory")
+    public EventPublisher inMemoryEventPublisher(
+            String userEventsTopic,
+            @Value("${app.events.in-memory.capacity:8192}") int capacity) {
+        log.info("Publishing user events to in-memory channel '{}'", userEventsTopic);
+        return InMemoryEventTransport.channel(userEventsTopic, capacity).publisher();
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.events.transport", havingValue = "journal")
+    public JournalEventTransport journalEventTransport(
+            @Value("${app.events.journal.directory:./data/event-transport}") String directory,
+            @Value("${app.events.journal.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${app.events.journal.fsync:false}") boolean fsync) throws IOException {
+        log.info("Publishing user events to local journal {}", directory);
+        return JournalEventTransport.open(Path.of(directory), segmentSizeMb * 1024 * 1024, fsync);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.events.transport", havingValue = "journal")
+    public EventPublisher journalEventPublisher(JournalEventTransport journalEventTransport) {
+        return journalEventTransport.publisher();
+    }
+}
@@ -1,19 +1,31 @@
 package com.krainet.authservice.config;
 
 import com.krainet.common.event.UserEvent;
+import com.krainet.common.event.UserState;
+import com.krainet.common.journal.EventJournal;
+import com.krainet.common.serialization.UserEventSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 
+@Slf4j
 @Configuration
 public class KafkaConfig {
 
@@ -23,25 +35,86 @@ public class KafkaConfig {
     @Value("${kafka.topic.user-events:user-events}")
     private String userEventsTopic;
 
+    @Value("${kafka.producer.profile:throughput}")
+    private String producerProfile;
+
+    @Value("${kafka.producer.event-format:json}")
+    private String eventFormat;
+
+    @Value("${kafka.producer.max-block-ms:5000}")
+    private long maxBlockMs;
+
+    @Value("${kafka.topic.user-state:user-state}")
+    private String userStateTopic;
+
     @Bean
     public Map<String, Object> producerConfigs() {
         Map<String, Object> props = new HashMap<>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
-        props.put(JsonSerializer.TYPE_MAPPINGS, "userEvent:com.krainet.common.event.UserEvent");
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, UserEventSerializer.class);
+        props.put(UserEventSerializer.FORMAT_CONFIG, eventFormat);
+        // Fail fast when the broker is unreachable so events go to the journal instead of blocking the sender
+        props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMs);
+
+        ProducerProfile profile = ProducerProfile.fromName(producerProfile);
+        profile.applyTo(props);
+        log.info("Using Kafka producer profile: {}", profile.getProfileName());
         return props;
     }
 
     @Bean
-    public ProducerFactory<String, UserEvent> producerFactory() {
-        return new DefaultKafkaProducerFactory<>(producerConfigs());
+    public ProducerFactory<String, UserEvent> producerFactory(MeterRegistry meterRegistry) {
+        DefaultKafkaProducerFactory<String, UserEvent> producerFactory =
+                new DefaultKafkaProducerFactory<>(producerConfigs());
+        // Binds the client's own metrics (batch-size-avg, record-size-avg, compression-rate-avg, ...)
+        producerFactory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return producerFactory;
+    }
+
+    @Bean
+    public KafkaTemplate<String, UserEvent> kafkaTemplate(ProducerFactory<String, UserEvent> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
     }
 
     @Bean
-    public KafkaTemplate<String, UserEvent> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    @ConditionalOnProperty(name = "kafka.user-state.enabled", havingValue = "true", matchIfMissing = true)
+    public ProducerFactory<String, UserState> userStateProducerFactory(MeterRegistry meterRegistry) {
+        DefaultKafkaProducerFactory<String, UserState> producerFactory = new DefaultKafkaProducerFactory<>(
+                producerConfigs(), new StringSerializer(), new JsonSerializer<UserState>().noTypeInfo());
+        producerFactory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return producerFactory;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "kafka.user-state.enabled", havingValue = "true", matchIfMissing = true)
+    public KafkaTemplate<String, UserState> userStateKafkaTemplate(ProducerFactory<String, UserState> userStateProducerFactory) {
+        return new KafkaTemplate<>(userStateProducerFactory);
+    }
+
+    /**
+     * Log-compacted topic holding the latest {@link UserState} per user; created on startup if missing.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "kafka.user-state.enabled", havingValue = "true", matchIfMissing = true)
+    public NewTopic userStateTopicDefinition(
+            @Value("${kafka.user-state.partitions:6}") int partitions,
+            @Value("${kafka.user-state.replicas:1}") short replicas) {
+        return TopicBuilder.name(userStateTopic)
+                .partitions(partitions)
+                .replicas(replicas)
+                .compact()
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "kafka.producer.journal.enabled", havingValue = "true", matchIfMissing = true)
+    public EventJournal eventJournal(
+            @Value("${kafka.producer.journal.directory:./data/event-journal}") String directory,
+            @Value("${kafka.producer.journal.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${kafka.producer.journal.fsync:false}") boolean fsync) throws IOException {
+        log.info("Opening event journal in {}", directory);
+        return EventJournal.open(Path.of(directory), segmentSizeMb * 1024 * 1024, fsync);
     }
 
     @Bean
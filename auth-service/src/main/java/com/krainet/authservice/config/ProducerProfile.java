@@ -0,0 +1,75 @@
+package com.krainet.authservice.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Named Kafka producer tuning profiles, selected per deployment with {@code kafka.producer.profile}.
+ */
+public enum ProducerProfile {
+
+    /**
+     * Sends every record as soon as it is produced: no lingering, no compression and
+     * leader-only acknowledgement. A single in-flight request keeps per-key ordering
+     * without idempotence.
+     */
+    LOW_LATENCY("low-latency", Map.of(
+            ProducerConfig.LINGER_MS_CONFIG, 0,
+            ProducerConfig.BATCH_SIZE_CONFIG, 16_384,
+            ProducerConfig.COMPRESSION_TYPE_CONFIG, "none",
+            ProducerConfig.ACKS_CONFIG, "1",
+            ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false,
+            ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 1
+    )),
+
+    /**
+     * Trades a few milliseconds of latency for large compressed batches. Idempotence with
+     * {@code acks=all} keeps ordering and avoids duplicates with five requests in flight.
+     */
+    THROUGHPUT("throughput", Map.of(
+            ProducerConfig.LINGER_MS_CONFIG, 20,
+            ProducerConfig.BATCH_SIZE_CONFIG, 131_072,
+            ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4",
+            ProducerConfig.ACKS_CONFIG, "all",
+            ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+            ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5,
+            ProducerConfig.BUFFER_MEMORY_CONFIG, 67_108_864L
+    ));
+
+    private final String profileName;
+    private final Map<String, Object> settings;
+
+    ProducerProfile(String profileName, Map<String, Object> settings) {
+        this.profileName = profileName;
+        this.settings = settings;
+    }
+
+    public String getProfileName() {
+        return profileName;
+    }
+
+    /**
+     * Adds this profile's producer settings to the given configuration map.
+     *
+     * @param props the producer configuration to extend
+     */
+    public void applyTo(Map<String, Object> props) {
+        props.putAll(settings);
+    }
+
+    /**
+     * Resolves a profile by its configuration name, e.g. {@code low-latency}.
+     *
+     * @param name the profile name
+     * @return the matching profile
+     * @throws IllegalArgumentException if no profile has that name
+     */
+    public static ProducerProfile fromName(String name) {
+        return Arrays.stream(values())
+                .filter(profile -> profile.profileName.equalsIgnoreCase(name) || profile.name().equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown Kafka producer profile: " + name));
+    }
+}
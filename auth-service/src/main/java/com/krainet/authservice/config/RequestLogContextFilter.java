@@ -0,0 +1,67 @@
+package com.krainet.authservice.config;
+
+import com.krainet.common.logging.LogContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Starts the {@link LogContext} of every request before any other filter runs, so all of the
+ * request's log lines carry its {@code requestId} and {@code traceId}.
+ *
+ * <p>The request ID is taken from an {@code X-Request-Id} header and the trace ID from a W3C
+ * {@code traceparent} header when the caller sends them; otherwise they are generated. The request
+ * ID is echoed in the response. A sampled fraction of requests ({@code app.logging.debug-sample-rate})
+ * keeps its DEBUG logs.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestLogContextFilter extends OncePerRequestFilter {
+
+    static final String REQUEST_ID_HEADER = "X-Request-Id";
+    static final String TRACEPARENT_HEADER = "traceparent";
+
+    private static final Pattern REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+    private static final Pattern TRACEPARENT = Pattern.compile("[0-9a-f]{2}-([0-9a-f]{32})-[0-9a-f]{16}-[0-9a-f]{2}");
+
+    private final double debugSampleRate;
+
+    public RequestLogContextFilter(@Value("${app.logging.debug-sample-rate:0.01}") double debugSampleRate) {
+        this.debugSampleRate = debugSampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId != null && !REQUEST_ID.matcher(requestId).matches()) {
+            requestId = null;
+        }
+        LogContext.begin(requestId, traceId(request.getHeader(TRACEPARENT_HEADER)), false, debugSampleRate);
+        try {
+            response.setHeader(REQUEST_ID_HEADER, MDC.get(LogContext.REQUEST_ID));
+            filterChain.doFilter(request, response);
+        } finally {
+            LogContext.end();
+        }
+    }
+
+    private static String traceId(String traceparent) {
+        if (traceparent == null) {
+            return null;
+        }
+        Matcher matcher = TRACEPARENT.matcher(traceparent);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+}
@@ -45,6 +45,7 @@ public class SecurityConfig {
                     "/webjars/**",
                     "/actuator/health"
                 ).permitAll()
+                .requestMatchers("/actuator/flightrecording/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             );
 
@@ -0,0 +1,111 @@
+package com.krainet.authservice.config;
+
+import com.krainet.common.sql.SqlStatementCounter;
+import com.krainet.common.sql.SqlStatementType;
+import com.krainet.common.sql.SqlStatistics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts and times the SQL statements of every request, from authentication to the response.
+ *
+ * <p>Per request, the statement count is recorded in {@code krainet.sql.statements} and the time
+ * spent in the database in {@code krainet.sql.time}, both tagged with the method and URI pattern.
+ * A statement executed {@code app.sql.statistics.repeated-statement-threshold} times or more in
+ * one request is logged as a likely N+1 query and counted in {@code krainet.sql.repeated}. With
+ * {@code app.sql.statistics.response-headers}, meant for development only, the counts are also
+ * sent as {@code X-Sql-*} response headers; the response body is buffered for that.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.sql.statistics.enabled", havingValue = "true", matchIfMissing = true)
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    static final String STATEMENTS_HEADER = "X-Sql-Statements";
+    static final String SELECTS_HEADER = "X-Sql-Selects";
+    static final String TIME_HEADER = "X-Sql-Time-Ms";
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean responseHeaders;
+    private final int repeatedStatementThreshold;
+
+    public SqlStatisticsFilter(
+            MeterRegistry meterRegistry,
+            @Value("${app.sql.statistics.response-headers:false}") boolean responseHeaders,
+            @Value("${app.sql.statistics.repeated-statement-threshold:3}") int repeatedStatementThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.responseHeaders = responseHeaders;
+        this.repeatedStatementThreshold = repeatedStatementThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper buffered = responseHeaders ? new ContentCachingResponseWrapper(response) : null;
+        SqlStatistics statistics = SqlStatementCounter.begin();
+        try {
+            filterChain.doFilter(request, buffered != null ? buffered : response);
+        } finally {
+            SqlStatementCounter.end(statistics);
+            record(request, statistics);
+            if (buffered != null) {
+                buffered.setHeader(STATEMENTS_HEADER, Integer.toString(statistics.total()));
+                buffered.setHeader(SELECTS_HEADER, Integer.toString(statistics.count(SqlStatementType.SELECT)));
+                buffered.setHeader(TIME_HEADER, Long.toString(statistics.time(TimeUnit.MILLISECONDS)));
+                buffered.copyBodyToResponse();
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatistics statistics) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : UNKNOWN_URI;
+        String method = request.getMethod();
+        DistributionSummary.builder("krainet.sql.statements")
+                .description("SQL statements executed per HTTP request")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(statistics.total());
+        Timer.builder("krainet.sql.time")
+                .description("Time spent executing SQL statements per HTTP request")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(statistics.time(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+
+        Map<String, Integer> repeated = statistics.repeated(repeatedStatementThreshold);
+        if (repeated.isEmpty()) {
+            return;
+        }
+        Counter.builder("krainet.sql.repeated")
+                .description("HTTP requests that executed the same SQL statement repeatedly")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .increment();
+        for (Map.Entry<String, Integer> statement : repeated.entrySet()) {
+            log.warn("{} {} executed the same statement {} times, possibly an N+1 query: {}",
+                    method, uri, statement.getValue(), statement.getKey());
+        }
+    }
+}
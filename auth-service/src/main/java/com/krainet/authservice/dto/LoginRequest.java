@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Data
 @Builder
@@ -16,5 +17,6 @@ public class LoginRequest {
     private String username;
     
     @NotBlank(message = "Password is required")
+    @ToString.Exclude
     private String password;
 }
@@ -0,0 +1,24 @@
+package com.krainet.authservice.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for the verification of a JWT's signature and expiry.
+ */
+@Name("com.krainet.auth.JwtVerification")
+@Label("JWT Verification")
+@Category({"Krainet", "Auth"})
+@StackTrace(false)
+public class JwtVerificationEvent extends jdk.jfr.Event {
+
+    @Label("Valid")
+    public boolean valid;
+
+    @Label("Failure")
+    @Description("Simple name of the exception that rejected the token")
+    public String failure;
+}
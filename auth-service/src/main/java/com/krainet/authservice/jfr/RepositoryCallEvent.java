@@ -0,0 +1,25 @@
+package com.krainet.authservice.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for a call to a Spring Data repository, including its queries.
+ */
+@Name("com.krainet.auth.RepositoryCall")
+@Label("Repository Call")
+@Category({"Krainet", "Persistence"})
+@StackTrace(false)
+public class RepositoryCallEvent extends jdk.jfr.Event {
+
+    @Label("Repository")
+    public String repository;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Failed")
+    public boolean failed;
+}
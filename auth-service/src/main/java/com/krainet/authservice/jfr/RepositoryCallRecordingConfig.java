@@ -0,0 +1,32 @@
+package com.krainet.authservice.jfr;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Records a {@link RepositoryCallEvent} for every repository call.
+ */
+@Configuration
+public class RepositoryCallRecordingConfig {
+
+    /**
+     * Adds a {@link RepositoryCallInterceptor} to every Spring Data repository as it is created,
+     * so inherited methods such as {@code save} are recorded as well as declared queries.
+     */
+    @Bean
+    public static BeanPostProcessor repositoryCallRecorder() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, information) -> proxyFactory.addAdvice(
+                                    new RepositoryCallInterceptor(information.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package com.krainet.authservice.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for loading a user's details to authenticate a request or a login.
+ */
+@Name("com.krainet.auth.UserDetailsLoad")
+@Label("User Details Load")
+@Category({"Krainet", "Auth"})
+@StackTrace(false)
+public class UserDetailsLoadEvent extends jdk.jfr.Event {
+
+    @Label("Username")
+    public String username;
+
+    @Label("Found")
+    public boolean found;
+}
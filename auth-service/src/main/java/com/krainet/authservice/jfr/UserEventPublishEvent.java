@@ -0,0 +1,28 @@
+package com.krainet.authservice.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for handing a user event to the event transport. Covers building the
+ * event and the hand-off, not the asynchronous send that follows.
+ */
+@Name("com.krainet.auth.UserEventPublish")
+@Label("User Event Publish")
+@Category({"Krainet", "Kafka"})
+@StackTrace(false)
+public class UserEventPublishEvent extends jdk.jfr.Event {
+
+    @Label("Event Type")
+    public String eventType;
+
+    @Label("Event ID")
+    public String eventId;
+
+    @Label("Accepted")
+    @Description("Whether the transport accepted the event rather than dropping it")
+    public boolean accepted;
+}
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -29,6 +30,7 @@ public class User implements UserDetails {
     private String username;
     
     @Column(nullable = false)
+    @ToString.Exclude
     private String password;
     
     @Column(unique = true, nullable = false)
@@ -47,6 +49,14 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private boolean enabled = true;
     
+    /**
+     * Optimistic-lock version, incremented on every update. Also stamped on user events as
+     * their per-user sequence number.
+     */
+    @Version
+    @Column(nullable = false)
+    private long version;
+    
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority("RO_" + role.name()));
@@ -1,9 +1,11 @@
 package com.krainet.authservice.repository;
 
 import com.krainet.authservice.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -17,4 +19,9 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     boolean existsByUsername(String username);
     
     boolean existsByEmail(String email);
+    
+    /**
+     * Keyset page of users ordered by ID, for walking the whole table without offsets.
+     */
+    List<User> findByIdGreaterThanOrderByIdAsc(UUID afterId, Limit limit);
 }
@@ -1,5 +1,6 @@
 package com.krainet.authservice.security;
 
+import com.krainet.authservice.jfr.UserDetailsLoadEvent;
 import com.krainet.authservice.model.User;
 import com.krainet.authservice.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -26,12 +27,21 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         log.debug("Authenticating user with username: {}", username);
-        
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> {
-                    log.error("User not found with username: {}", username);
-                    return new UsernameNotFoundException("User not found with username: " + username);
-                });
+
+        UserDetailsLoadEvent event = new UserDetailsLoadEvent();
+        event.begin();
+        User user;
+        try {
+            user = userRepository.findByUsername(username)
+                    .orElseThrow(() -> {
+                        log.error("User not found with username: {}", username);
+                        return new UsernameNotFoundException("User not found with username: " + username);
+                    });
+            event.found = true;
+        } finally {
+            event.username = username;
+            event.commit();
+        }
 
         return new org.springframework.security.core.userdetails.User(
                 user.getUsername(),
@@ -1,5 +1,6 @@
 package com.krainet.authservice.security;
 
+import com.krainet.authservice.jfr.JwtVerificationEvent;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -140,6 +141,8 @@ public class JwtTokenProvider {
 
     public boolean validateJwtToken(String authToken) {
         log.trace("Validating JWT token");
+        JwtVerificationEvent event = new JwtVerificationEvent();
+        event.begin();
         try {
             Claims claims = Jwts.parserBuilder()
                 .setSigningKey(getSignInKey())
@@ -149,20 +152,28 @@ public class JwtTokenProvider {
                 
             log.debug("Successfully validated JWT token for subject: {}, issued at: {}, expires at: {}", 
                     claims.getSubject(), claims.getIssuedAt(), claims.getExpiration());
-                    
+
+            event.valid = true;
             return true;
         } catch (MalformedJwtException e) {
+            event.failure = e.getClass().getSimpleName();
             log.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
+            event.failure = e.getClass().getSimpleName();
             log.error("JWT token is expired: {}", e.getMessage());
             log.debug("Expired token details - Subject: {}, Expiration: {}", 
                     e.getClaims().getSubject(), e.getClaims().getExpiration());
         } catch (UnsupportedJwtException e) {
+            event.failure = e.getClass().getSimpleName();
             log.error("JWT token is unsupported: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
+            event.failure = e.getClass().getSimpleName();
             log.error("JWT claims string is empty: {}", e.getMessage());
         } catch (Exception e) {
+            event.failure = e.getClass().getSimpleName();
             log.error("Unexpected error during token validation: {}", e.getMessage(), e);
+        } finally {
+            event.commit();
         }
         return false;
     }
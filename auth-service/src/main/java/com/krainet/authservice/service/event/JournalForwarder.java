@@ -0,0 +1,184 @@
+package com.krainet.authservice.service.event;
+
+import com.krainet.common.event.UserEvent;
+import com.krainet.common.journal.EventJournal;
+import com.krainet.common.journal.JournalCorruptionException;
+import com.krainet.common.journal.JournalRecord;
+import com.krainet.common.serialization.UserEventBinaryCodec;
+import com.krainet.common.serialization.UserEventHeaders;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Replays events stored in the {@link EventJournal} during a Kafka outage.
+ *
+ * <p>Every retry interval the forwarder sends the next batch of journaled events and waits for
+ * the broker to acknowledge all of them before committing the journal past the batch, which
+ * also deletes fully forwarded segments. A failed batch is retried from the same position on the
+ * next run, so delivery is at-least-once. Only a batch the broker does not acknowledge in time is
+ * retried; a record that fails its CRC check or cannot be decoded would fail the same way on every
+ * run, so it is logged as corrupt, counted and skipped.
+ *
+ * <p>Replayed events are marked with the {@link UserEventHeaders#REPLAYED_HEADER} header: newer
+ * events for the same user may have reached the topic while they waited, so consumers must not
+ * drop them as stale.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kafka.producer.journal.enabled", havingValue = "true", matchIfMissing = true)
+public class JournalForwarder implements SmartLifecycle {
+
+    private final EventJournal eventJournal;
+    private final KafkaTemplate<String, UserEvent> kafkaTemplate;
+    private final String userEventsTopic;
+    private final long retryIntervalMs;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+    private final Counter forwardedEvents;
+    private final Counter skippedEvents;
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    public JournalForwarder(
+            EventJournal eventJournal,
+            KafkaTemplate<String, UserEvent> kafkaTemplate,
+            String userEventsTopic,
+            MeterRegistry meterRegistry,
+            @Value("${kafka.producer.journal.retry-interval-ms:5000}") long retryIntervalMs,
+            @Value("${kafka.producer.journal.batch-size:500}") int batchSize,
+            @Value("${kafka.producer.journal.send-timeout-ms:30000}") long sendTimeoutMs) {
+        this.eventJournal = eventJournal;
+        this.kafkaTemplate = kafkaTemplate;
+        this.userEventsTopic = userEventsTopic;
+        this.retryIntervalMs = retryIntervalMs;
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+
+        Gauge.builder("krainet.events.journal.pending", eventJournal, EventJournal::pendingBytes)
+                .description("Bytes of journaled user events not yet forwarded to Kafka")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.forwardedEvents = Counter.builder("krainet.events.journal.forwarded")
+                .description("Journaled user events forwarded to Kafka")
+                .register(meterRegistry);
+        this.skippedEvents = Counter.builder("krainet.events.journal.skipped")
+                .description("Journaled user events skipped because they were corrupt or undecodable")
+                .register(meterRegistry);
+    }
+
+    void forwardPending() {
+        try {
+            long position = eventJournal.committedPosition();
+            while (running) {
+                List<JournalRecord> records;
+                try {
+                    records = eventJournal.read(position, batchSize);
+                } catch (JournalCorruptionException e) {
+                    log.error("Skipping corrupt journaled user events from position {} to {}: {}",
+                            e.position(), e.resumePosition(), e.getMessage());
+                    skippedEvents.increment();
+                    position = e.resumePosition();
+                    eventJournal.commit(position);
+                    continue;
+                }
+                if (records.isEmpty()) {
+                    return;
+                }
+
+                List<CompletableFuture<?>> sends = new ArrayList<>(records.size());
+                for (JournalRecord record : records) {
+                    UserEvent event = decode(record);
+                    if (event != null) {
+                        ProducerRecord<String, UserEvent> replay =
+                                new ProducerRecord<>(userEventsTopic, event.getUserId().toString(), event);
+                        UserEventHeaders.markReplayed(replay.headers());
+                        sends.add(kafkaTemplate.send(replay));
+                    }
+                }
+                CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                        .get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+
+                position = records.get(records.size() - 1).nextPosition();
+                eventJournal.commit(position);
+                forwardedEvents.increment(sends.size());
+                log.info("Forwarded {} journaled user events to Kafka", sends.size());
+            }
+        } catch (ExecutionException | TimeoutException | KafkaException e) {
+            log.warn("Kafka still unavailable for journaled events, retrying in {} ms: {}", retryIntervalMs, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Forwarding journaled user events failed, retrying in {} ms", retryIntervalMs, e);
+        }
+    }
+
+    /**
+     * Decodes a journaled event, or returns {@code null} after logging it if it cannot be
+     * decoded or has no user ID to key it by.
+     */
+    private UserEvent decode(JournalRecord record) {
+        try {
+            UserEvent event = UserEventBinaryCodec.decode(record.payload());
+            if (event.getUserId() != null) {
+                return event;
+            }
+            log.error("Skipping journaled {} event {} at position {} without a user ID",
+                    event.getEventType(), event.getEventId(), record.position());
+        } catch (IllegalArgumentException e) {
+            log.error("Skipping undecodable journaled user event at position {}: {}", record.position(), e.getMessage());
+        }
+        skippedEvents.increment();
+        return null;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-journal-forwarder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::forwardPending, retryIntervalMs, retryIntervalMs, TimeUnit.MILLISECONDS);
+        if (eventJournal.hasPending()) {
+            log.info("Event journal holds {} bytes of undelivered events, forwarding will resume", eventJournal.pendingBytes());
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(sendTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
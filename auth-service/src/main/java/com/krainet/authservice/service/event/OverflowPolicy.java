@@ -0,0 +1,43 @@
+package com.krainet.authservice.service.event;
+
+import java.util.Arrays;
+
+/**
+ * What {@link UserEventDispatcher} does when its ring buffer is full.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Parks the request thread until the drain thread frees a slot, up to the configured
+     * block timeout, after which the event is dropped.
+     */
+    BLOCK("block"),
+
+    /**
+     * Discards the oldest buffered event to make room for the new one.
+     */
+    DROP_OLDEST("drop-oldest"),
+
+    /**
+     * Moves the event to a second, larger buffer that the drain thread empties after the ring. The
+     * event is dropped only when that buffer is full as well.
+     */
+    SPILL("spill");
+
+    private final String policyName;
+
+    OverflowPolicy(String policyName) {
+        this.policyName = policyName;
+    }
+
+    public String getPolicyName() {
+        return policyName;
+    }
+
+    public static OverflowPolicy fromName(String name) {
+        return Arrays.stream(values())
+                .filter(policy -> policy.policyName.equalsIgnoreCase(name) || policy.name().equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown event buffer overflow policy: " + name));
+    }
+}
@@ -0,0 +1,263 @@
+package com.krainet.authservice.service.event;
+
+import com.krainet.common.concurrent.RingBuffer;
+import com.krainet.common.event.UserEvent;
+import com.krainet.common.journal.EventJournal;
+import com.krainet.common.serialization.UserEventBinaryCodec;
+import com.krainet.common.serialization.UserEventHeaders;
+import com.krainet.common.transport.EventPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Kafka {@link EventPublisher}: hands user events from request threads to Kafka through a
+ * lock-free {@link RingBuffer}.
+ *
+ * <p>Request threads only claim a slot in the buffer. A single drain thread takes events off in
+ * batches and passes them to {@link KafkaTemplate}, which does the actual batching on the wire.
+ * When the buffer is full the configured {@link OverflowPolicy} decides what happens.
+ *
+ * <p>If an {@link EventJournal} is configured, events that Kafka rejects are appended to it, and
+ * while the journal still holds unforwarded events new ones are appended behind them.
+ * {@link JournalForwarder} replays them once the broker is reachable again. A send fails
+ * asynchronously, so events handed to Kafka after the failed one may reach the topic before it is
+ * replayed: per-user order holds only while Kafka accepts events. Replayed events are marked so
+ * that consumers do not drop them as stale.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.events.transport", havingValue = "kafka", matchIfMissing = true)
+public class UserEventDispatcher implements EventPublisher, SmartLifecycle {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final KafkaTemplate<String, UserEvent> kafkaTemplate;
+    private final String userEventsTopic;
+    private final UserEventMetrics userEventMetrics;
+    private final EventJournal eventJournal;
+    private final RingBuffer<UserEvent> ringBuffer;
+    private final RingBuffer<UserEvent> spillBuffer;
+    private final AtomicBoolean drainerWaiting = new AtomicBoolean();
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final long blockTimeoutNanos;
+    private final Counter droppedEvents;
+    private final Counter spilledEvents;
+
+    private volatile boolean running;
+    private volatile Thread drainThread;
+
+    public UserEventDispatcher(
+            KafkaTemplate<String, UserEvent> kafkaTemplate,
+            String userEventsTopic,
+            UserEventMetrics userEventMetrics,
+            MeterRegistry meterRegistry,
+            ObjectProvider<EventJournal> eventJournal,
+            @Value("${kafka.producer.buffer.capacity:8192}") int capacity,
+            @Value("${kafka.producer.buffer.overflow-policy:block}") String overflowPolicy,
+            @Value("${kafka.producer.buffer.spill-capacity:65536}") int spillCapacity,
+            @Value("${kafka.producer.buffer.batch-size:256}") int batchSize,
+            @Value("${kafka.producer.buffer.block-timeout-ms:1000}") long blockTimeoutMs) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.userEventsTopic = userEventsTopic;
+        this.userEventMetrics = userEventMetrics;
+        this.eventJournal = eventJournal.getIfAvailable();
+        this.ringBuffer = new RingBuffer<>(capacity);
+        this.overflowPolicy = OverflowPolicy.fromName(overflowPolicy);
+        this.spillBuffer = new RingBuffer<>(this.overflowPolicy == OverflowPolicy.SPILL ? spillCapacity : 1);
+        this.batchSize = batchSize;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+
+        Gauge.builder("krainet.events.buffer.occupancy", ringBuffer, RingBuffer::size)
+                .description("User events waiting in the publish ring buffer")
+                .register(meterRegistry);
+        Gauge.builder("krainet.events.buffer.capacity", ringBuffer, RingBuffer::capacity)
+                .description("Capacity of the publish ring buffer")
+                .register(meterRegistry);
+        Gauge.builder("krainet.events.buffer.spill.size", spillBuffer, RingBuffer::size)
+                .description("User events waiting in the overflow spill buffer")
+                .register(meterRegistry);
+        this.droppedEvents = Counter.builder("krainet.events.buffer.dropped")
+                .description("User events discarded because the publish buffers were full")
+                .tag("policy", this.overflowPolicy.getPolicyName())
+                .register(meterRegistry);
+        this.spilledEvents = Counter.builder("krainet.events.buffer.spilled")
+                .description("User events moved to the overflow spill buffer")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues an event for publishing without taking any lock.
+     *
+     * @param event the event to publish
+     * @return {@code false} if the event was dropped
+     */
+    @Override
+    public boolean publish(UserEvent event) {
+        // Keep FIFO order while older events are still waiting in the spill buffer
+        boolean accepted = spillBuffer.isEmpty() && ringBuffer.offer(event);
+        if (!accepted) {
+            accepted = handleOverflow(event);
+        }
+        if (accepted) {
+            wakeDrainer();
+        }
+        return accepted;
+    }
+
+    private boolean handleOverflow(UserEvent event) {
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                while (!ringBuffer.offer(event)) {
+                    UserEvent dropped = ringBuffer.poll();
+                    if (dropped != null) {
+                        droppedEvents.increment();
+                        log.warn("Event buffer full, dropped oldest {} event {}", dropped.getEventType(), dropped.getEventId());
+                    }
+                }
+                return true;
+            case SPILL:
+                if (!spillBuffer.offer(event)) {
+                    droppedEvents.increment();
+                    log.error("Event buffer and spill buffer full, dropped {} event {}",
+                            event.getEventType(), event.getEventId());
+                    return false;
+                }
+                spilledEvents.increment();
+                return true;
+            case BLOCK:
+            default:
+                long deadline = System.nanoTime() + blockTimeoutNanos;
+                while (!ringBuffer.offer(event)) {
+                    if (System.nanoTime() - deadline >= 0) {
+                        droppedEvents.increment();
+                        log.error("Event buffer full for {} ms, dropped {} event {}",
+                                TimeUnit.NANOSECONDS.toMillis(blockTimeoutNanos), event.getEventType(), event.getEventId());
+                        return false;
+                    }
+                    wakeDrainer();
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                }
+                return true;
+        }
+    }
+
+    private void wakeDrainer() {
+        if (drainerWaiting.get() && drainerWaiting.compareAndSet(true, false)) {
+            LockSupport.unpark(drainThread);
+        }
+    }
+
+    private void drainLoop() {
+        List<UserEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            if (drainBatch(batch) == 0) {
+                drainerWaiting.set(true);
+                // Re-check after announcing the wait so a concurrent dispatch is never missed
+                if (ringBuffer.isEmpty() && spillBuffer.isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                drainerWaiting.set(false);
+            }
+        }
+        while (drainBatch(batch) > 0) {
+            // Flush whatever is left after stop() before the producer is closed
+        }
+        kafkaTemplate.flush();
+    }
+
+    private int drainBatch(List<UserEvent> batch) {
+        batch.clear();
+        ringBuffer.drainTo(batch, batchSize);
+        spillBuffer.drainTo(batch, batchSize - batch.size());
+        for (UserEvent event : batch) {
+            send(event);
+        }
+        return batch.size();
+    }
+
+    private void send(UserEvent event) {
+        if (eventJournal != null && eventJournal.hasPending()) {
+            journal(event);
+            return;
+        }
+        userEventMetrics.recordPublished(UserEventHeaders.committedAt(event));
+        long startNanos = System.nanoTime();
+        try {
+            kafkaTemplate.send(userEventsTopic, event.getUserId().toString(), event)
+                    .whenComplete((result, ex) -> {
+                        if (ex == null) {
+                            userEventMetrics.recordSuccess(event.getEventType(), startNanos,
+                                    result.getRecordMetadata().serializedValueSize());
+                            log.debug("Successfully published {} event for user {}", event.getEventType(), event.getUsername());
+                        } else {
+                            userEventMetrics.recordFailure(event.getEventType(), ex);
+                            log.error("Failed to publish {} event for user {}", event.getEventType(), event.getUsername(), ex);
+                            journal(event);
+                        }
+                    });
+        } catch (Exception e) {
+            userEventMetrics.recordFailure(event.getEventType(), e);
+            log.error("Error publishing {} event for user {}: {}", event.getEventType(), event.getUsername(), e.getMessage(), e);
+            journal(event);
+        }
+    }
+
+    private void journal(UserEvent event) {
+        if (eventJournal == null) {
+            return;
+        }
+        try {
+            eventJournal.append(UserEventBinaryCodec.encode(event));
+            log.debug("Journaled {} event {} for later delivery", event.getEventType(), event.getEventId());
+        } catch (Exception e) {
+            log.error("Failed to journal {} event {}, event is lost", event.getEventType(), event.getEventId(), e);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        Thread thread = new Thread(this::drainLoop, "user-event-dispatcher");
+        thread.setDaemon(true);
+        drainThread = thread;
+        thread.start();
+        log.info("Started user event dispatcher (capacity: {}, overflow policy: {}, batch size: {})",
+                ringBuffer.capacity(), overflowPolicy.getPolicyName(), batchSize);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = drainThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.info("Stopped user event dispatcher");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
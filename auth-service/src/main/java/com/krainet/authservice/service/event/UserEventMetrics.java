@@ -0,0 +1,101 @@
+package com.krainet.authservice.service.event;
+
+import com.krainet.common.event.EventType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for user event publishing, pre-registered per {@link EventType}
+ * so the send callback never has to look meters up by name.
+ *
+ * <p>{@code krainet.events.stage.latency} times the producer's part of the end-to-end path:
+ * stage {@code published} from saving the user change until the event is handed to the producer,
+ * and stage {@code acked} from there until the broker acknowledged it. The notification service
+ * records the later stages under the same name.
+ */
+@Component
+public class UserEventMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<EventType, Timer> sendLatency = new EnumMap<>(EventType.class);
+    private final Map<EventType, DistributionSummary> recordSize = new EnumMap<>(EventType.class);
+    private final Timer publishedStage;
+    private final Timer ackedStage;
+
+    public UserEventMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (EventType eventType : EventType.values()) {
+            sendLatency.put(eventType, Timer.builder("krainet.events.send.latency")
+                    .description("Time from send() until the broker acknowledged the record")
+                    .tag("eventType", eventType.name())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            recordSize.put(eventType, DistributionSummary.builder("krainet.events.record.size")
+                    .description("Serialized size of published user event values")
+                    .baseUnit("bytes")
+                    .tag("eventType", eventType.name())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        publishedStage = stageTimer(meterRegistry, "published");
+        ackedStage = stageTimer(meterRegistry, "acked");
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("krainet.events.stage.latency")
+                .description("Time user events spend in each stage from the user change to the email")
+                .tag("stage", stage)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records the time from saving the user change until its event is handed to the producer.
+     *
+     * @param committedAt the epoch millisecond the change was saved, or {@code -1} if unknown
+     */
+    public void recordPublished(long committedAt) {
+        if (committedAt >= 0) {
+            publishedStage.record(Math.max(0, System.currentTimeMillis() - committedAt), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Records a successful send.
+     *
+     * @param eventType the type of the published event
+     * @param startNanos {@link System#nanoTime()} taken before the send
+     * @param serializedValueSize the value size reported in the record metadata
+     */
+    public void recordSuccess(EventType eventType, long startNanos, int serializedValueSize) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        sendLatency.get(eventType).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        ackedStage.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (serializedValueSize >= 0) {
+            recordSize.get(eventType).record(serializedValueSize);
+        }
+    }
+
+    /**
+     * Records a failed send.
+     *
+     * @param eventType the type of the event that could not be published
+     * @param ex the failure reported by the producer
+     */
+    public void recordFailure(EventType eventType, Throwable ex) {
+        Counter.builder("krainet.events.send.errors")
+                .description("User events the producer failed to publish")
+                .tag("eventType", eventType.name())
+                .tag("exception", ex.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -1,37 +1,57 @@
 package com.krainet.authservice.service.event;
 
+import com.krainet.authservice.jfr.UserEventPublishEvent;
 import com.krainet.authservice.model.User;
 import com.krainet.common.event.EventType;
 import com.krainet.common.event.UserEvent;
+import com.krainet.common.logging.LogContext;
+import com.krainet.common.transport.EventPublisher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
 import java.util.UUID;
 
 /**
- * Service responsible for producing user-related events to Kafka.
+ * Service responsible for producing user-related events to the configured
+ * {@link com.krainet.common.transport.EventTransport}.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserEventProducer {
 
-    private final KafkaTemplate<String, UserEvent> kafkaTemplate;
-    private final String userEventsTopic;
+    private final EventPublisher eventPublisher;
 
     /**
-     * Publishes a user event to Kafka asynchronously.
+     * Publishes a user event asynchronously.
      *
      * @param eventType the type of user event
      * @param user the user this event is about
      */
-    @Async
     public void publishUserEvent(EventType eventType, User user) {
+        publishUserEvent(eventType, user, null, null);
+    }
+
+    /**
+     * Publishes a single user event describing several changes made by one update.
+     * The event is built on the calling thread, where the security context is available,
+     * and handed to the {@link EventPublisher} for sending.
+     *
+     * @param eventType the type of user event
+     * @param user the user this event is about, in its updated state
+     * @param changedFields bitmask of {@link com.krainet.common.event.ChangedField}s, or null
+     * @param previousValues values of the changed fields before the update, or null
+     */
+    public void publishUserEvent(EventType eventType, User user, Integer changedFields,
+                                 Map<String, String> previousValues) {
+        UserEventPublishEvent publishEvent = new UserEventPublishEvent();
+        publishEvent.begin();
+        publishEvent.eventType = eventType.name();
         try {
             // Get the current authenticated user (initiator)
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -40,15 +60,11 @@ public class UserEventProducer {
 
             if (authentication != null && authentication.isAuthenticated() && !"anonymousUser".equals(authentication.getPrincipal())) {
                 Object principal = authentication.getPrincipal();
-                if (principal instanceof org.springframework.security.core.userdetails.UserDetails) {
-                    org.springframework.security.core.userdetails.UserDetails userDetails =
-                            (org.springframework.security.core.userdetails.UserDetails) principal;
+                if (principal instanceof UserDetails userDetails) {
                     initiatorUsername = userDetails.getUsername();
-                    // If the user object has an ID, you can extract it here
-                    // This assumes your UserDetails implementation has a method to get the ID
-                    if (userDetails instanceof org.springframework.security.core.userdetails.User) {
-                        // Adjust this based on how you store user ID in your UserDetails
-                        initiatorId = UUID.fromString(userDetails.getUsername()); // This is just an example
+                    // Only the domain user carries the ID; other principals leave it unset
+                    if (principal instanceof User initiator) {
+                        initiatorId = initiator.getId();
                     }
                 }
             }
@@ -62,22 +78,24 @@ public class UserEventProducer {
                             user.getRole().name(),
                             initiatorId,
                             initiatorUsername)
+                    .enabled(user.isEnabled())
+                    .sequence(user.getVersion())
+                    .changedFields(changedFields)
+                    .previousValues(previousValues)
+                    // Carries the request's trace ID and log sampling decision to the consumers
+                    .metadata(LogContext.eventMetadata())
                     .build();
 
-            // Send the event to Kafka
-            kafkaTemplate.send(userEventsTopic, user.getId().toString(), event)
-                    .whenComplete((result, ex) -> {
-                        if (ex == null) {
-                            log.debug("Successfully published {} event for user {}", eventType, user.getUsername());
-                        } else {
-                            log.error("Failed to publish {} event for user {}", eventType, user.getUsername(), ex);
-                        }
-                    });
-            
-            log.info("Published {} event for user {}", eventType, user.getUsername());
-            
+            publishEvent.eventId = event.getEventId();
+            if (eventPublisher.publish(event)) {
+                publishEvent.accepted = true;
+                log.info("Published {} event for user {}", eventType, user.getUsername());
+            }
+
         } catch (Exception e) {
             log.error("Error publishing {} event for user {}: {}", eventType, user.getUsername(), e.getMessage(), e);
+        } finally {
+            publishEvent.commit();
         }
     }
 }
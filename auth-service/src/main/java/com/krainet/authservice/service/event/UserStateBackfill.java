@@ -0,0 +1,127 @@
+package com.krainet.authservice.service.event;
+
+import com.krainet.authservice.model.User;
+import com.krainet.authservice.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One-shot job that publishes the current state of every user to the {@code user-state} topic,
+ * for seeding the topic or repairing it after snapshots were lost.
+ *
+ * <p>Enabled with {@code kafka.user-state.backfill.enabled=true}; it runs once on startup on its
+ * own thread. Users are read in keyset pages ordered by ID, each page is sent as one batch and
+ * the next page is only read once the broker has acknowledged the previous one, so memory use
+ * stays flat however large the table is.
+ *
+ * <p>A user deleted while the backfill runs must not be brought back by a snapshot sent after
+ * its tombstone. Each page is re-read right before it is sent, so users deleted since the page
+ * was read are skipped, and once the page is acknowledged users deleted in the meantime get a
+ * tombstone of their own. A delete committed after that re-check publishes its tombstone after
+ * the snapshot, so the topic always ends with the tombstone.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kafka.user-state.backfill.enabled", havingValue = "true")
+public class UserStateBackfill implements ApplicationRunner {
+
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+
+    private final UserRepository userRepository;
+    private final UserStatePublisher userStatePublisher;
+    private final int batchSize;
+    private final long batchTimeoutMs;
+
+    public UserStateBackfill(
+            UserRepository userRepository,
+            UserStatePublisher userStatePublisher,
+            @Value("${kafka.user-state.backfill.batch-size:5000}") int batchSize,
+            @Value("${kafka.user-state.backfill.batch-timeout-ms:60000}") long batchTimeoutMs) {
+        this.userRepository = userRepository;
+        this.userStatePublisher = userStatePublisher;
+        this.batchSize = batchSize;
+        this.batchTimeoutMs = batchTimeoutMs;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Thread thread = new Thread(this::backfill, "user-state-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void backfill() {
+        log.info("Starting user state backfill (batch size: {})", batchSize);
+        long startNanos = System.nanoTime();
+        long published = 0;
+        UUID afterId = FIRST_ID;
+        try {
+            List<User> page;
+            while (!(page = userRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(batchSize))).isEmpty()) {
+                List<User> current = reread(page);
+                CompletableFuture<?>[] sends = current.stream()
+                        .map(user -> userStatePublisher.sendNow(UserStatePublisher.toState(user)))
+                        .toArray(CompletableFuture[]::new);
+                CompletableFuture.allOf(sends).get(batchTimeoutMs, TimeUnit.MILLISECONDS);
+                tombstoneDeleted(current);
+
+                published += current.size();
+                afterId = page.get(page.size() - 1).getId();
+                log.info("User state backfill published {} users (last ID: {})", published, afterId);
+            }
+            long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            log.info("User state backfill finished: {} users in {} ms ({} users/s)",
+                    published, elapsedMs, published * 1000 / elapsedMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("User state backfill interrupted after {} users (last ID: {})", published, afterId);
+        } catch (Exception e) {
+            log.error("User state backfill failed after {} users (last ID: {})", published, afterId, e);
+        }
+    }
+
+    /**
+     * Returns the current state of the users of a page that still exist, in page order.
+     */
+    private List<User> reread(List<User> page) {
+        Map<UUID, User> current = userRepository.findAllById(page.stream().map(User::getId).toList()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return page.stream()
+                .map(user -> current.get(user.getId()))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Sends tombstones for the users whose snapshots were just sent but who have been deleted since.
+     */
+    private void tombstoneDeleted(List<User> sent) throws Exception {
+        Set<UUID> remaining = userRepository.findAllById(sent.stream().map(User::getId).toList()).stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        List<UUID> deleted = sent.stream().map(User::getId).filter(id -> !remaining.contains(id)).toList();
+        if (deleted.isEmpty()) {
+            return;
+        }
+        log.info("Publishing tombstones again for {} users deleted during the backfill", deleted.size());
+        CompletableFuture<?>[] tombstones = deleted.stream()
+                .map(userStatePublisher::sendTombstoneNow)
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(tombstones).get(batchTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,161 @@
+package com.krainet.authservice.service.event;
+
+import com.krainet.authservice.model.User;
+import com.krainet.common.event.UserState;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the full state of a user to the log-compacted {@code user-state} topic, keyed by
+ * user ID, and a tombstone when the user is deleted.
+ *
+ * <p>Snapshots are handed to a single sender thread so request threads never wait on broker
+ * metadata and snapshots of one user reach the topic in the order they were taken. Inside a
+ * transaction, they are handed over only once it commits, so a rolled-back change is never
+ * published.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "kafka.user-state.enabled", havingValue = "true", matchIfMissing = true)
+public class UserStatePublisher {
+
+    private final KafkaTemplate<String, UserState> userStateKafkaTemplate;
+    private final String userStateTopic;
+    private final ThreadPoolExecutor sender;
+    private final Counter rejectedSnapshots;
+
+    public UserStatePublisher(
+            KafkaTemplate<String, UserState> userStateKafkaTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${kafka.topic.user-state:user-state}") String userStateTopic,
+            @Value("${kafka.user-state.queue-capacity:10000}") int queueCapacity) {
+        this.userStateKafkaTemplate = userStateKafkaTemplate;
+        this.userStateTopic = userStateTopic;
+        this.sender = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "user-state-publisher");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> rejectSnapshot());
+        this.rejectedSnapshots = Counter.builder("krainet.user-state.rejected")
+                .description("User state snapshots dropped because the send queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Creates the snapshot of a user's current state.
+     *
+     * @param user the user, after the change has been flushed
+     * @return the snapshot
+     */
+    public static UserState toState(User user) {
+        return UserState.builder()
+                .userId(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .userRole(user.getRole().name())
+                .enabled(user.isEnabled())
+                .sequence(user.getVersion())
+                .build();
+    }
+
+    /**
+     * Publishes the current state of a user.
+     *
+     * @param user the user, after the change has been flushed
+     */
+    public void publishState(User user) {
+        UserState state = toState(user);
+        afterCommit(() -> send(state.getUserId(), state));
+    }
+
+    /**
+     * Publishes a tombstone so compaction removes the user from the topic.
+     *
+     * @param userId the ID of the deleted user
+     */
+    public void publishTombstone(UUID userId) {
+        afterCommit(() -> send(userId, null));
+    }
+
+    /**
+     * Sends a snapshot directly from the calling thread, for bulk jobs that apply their own
+     * back-pressure.
+     *
+     * @param state the snapshot
+     * @return the send future
+     */
+    CompletableFuture<SendResult<String, UserState>> sendNow(UserState state) {
+        return userStateKafkaTemplate.send(userStateTopic, state.getUserId().toString(), state);
+    }
+
+    /**
+     * Sends a tombstone directly from the calling thread, for bulk jobs that apply their own
+     * back-pressure.
+     *
+     * @param userId the ID of the deleted user
+     * @return the send future
+     */
+    CompletableFuture<SendResult<String, UserState>> sendTombstoneNow(UUID userId) {
+        return userStateKafkaTemplate.send(userStateTopic, userId.toString(), null);
+    }
+
+    private void afterCommit(Runnable send) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            sender.execute(send);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                sender.execute(send);
+            }
+        });
+    }
+
+    private void send(UUID userId, UserState state) {
+        try {
+            userStateKafkaTemplate.send(userStateTopic, userId.toString(), state)
+                    .whenComplete((result, ex) -> {
+                        if (ex != null) {
+                            log.error("Failed to publish {} for user {}", state != null ? "state" : "tombstone", userId, ex);
+                        }
+                    });
+        } catch (Exception e) {
+            log.error("Error publishing {} for user {}: {}", state != null ? "state" : "tombstone", userId, e.getMessage(), e);
+        }
+    }
+
+    private void rejectSnapshot() {
+        rejectedSnapshots.increment();
+        log.warn("User state send queue is full, dropping snapshot; run the backfill to repair the topic");
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        sender.shutdown();
+        if (!sender.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("User state publisher did not drain {} queued snapshots", sender.getQueue().size());
+        }
+        userStateKafkaTemplate.flush();
+    }
+}
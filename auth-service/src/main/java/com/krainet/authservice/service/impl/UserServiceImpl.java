@@ -10,9 +10,12 @@ import com.krainet.authservice.model.User;
 import com.krainet.authservice.repository.UserRepository;
 import com.krainet.authservice.service.UserService;
 import com.krainet.authservice.service.event.UserEventProducer;
+import com.krainet.authservice.service.event.UserStatePublisher;
+import com.krainet.common.event.ChangedField;
 import com.krainet.common.event.EventType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -20,7 +23,10 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 
 @Slf4j
@@ -34,7 +40,7 @@ public class UserServiceImpl implements UserService {
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
     private final UserEventProducer userEventProducer;
-    private final UserService userService;
+    private final ObjectProvider<UserStatePublisher> userStatePublisher;
     
     @Override
     @Transactional
@@ -67,6 +73,7 @@ public class UserServiceImpl implements UserService {
         // Publish user created event
         try {
             userEventProducer.publishUserEvent(EventType.USER_CREATED, savedUser);
+            userStatePublisher.ifAvailable(publisher -> publisher.publishState(savedUser));
         } catch (Exception e) {
             log.error("Failed to publish USER_CREATED event for user {}", savedUser.getUsername(), e);
             // Don't fail the operation if event publishing fails
@@ -91,7 +98,7 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional(readOnly = true)
     public UserDto getCurrentUser() {
-        User user = userService.getCurrentUserEntity();
+        User user = getCurrentUserEntity();
         return userMapper.toDto(user);
     }
 
@@ -173,6 +180,57 @@ public class UserServiceImpl implements UserService {
         return false;
     }
 
+    /**
+     * Copies the fields tracked for change events before the user is modified.
+     * @param user The user about to be updated
+     * @return A detached copy holding the current profile values
+     */
+    private User snapshotProfile(User user) {
+        return User.builder()
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .role(user.getRole())
+                .enabled(user.isEnabled())
+                .build();
+    }
+
+    /**
+     * Compares profile fields before and after an update.
+     * @param before The snapshot taken before the update
+     * @param after The updated user
+     * @param previousValues Receives the previous value of every changed field
+     * @return The bitmask of changed profile fields
+     */
+    private int collectProfileChanges(User before, User after, Map<String, String> previousValues) {
+        int changedFields = 0;
+        changedFields |= trackChange(ChangedField.USERNAME, before.getUsername(), after.getUsername(), previousValues);
+        changedFields |= trackChange(ChangedField.EMAIL, before.getEmail(), after.getEmail(), previousValues);
+        changedFields |= trackChange(ChangedField.FIRST_NAME, before.getFirstName(), after.getFirstName(), previousValues);
+        changedFields |= trackChange(ChangedField.LAST_NAME, before.getLastName(), after.getLastName(), previousValues);
+        changedFields |= trackChange(ChangedField.ROLE, before.getRole(), after.getRole(), previousValues);
+        return changedFields;
+    }
+
+    /**
+     * Logs the state of a user after an update has been saved.
+     * @param user The updated user
+     * @param id The ID the update was requested for
+     */
+    private void logUserUpdateCompletion(User user, UUID id) {
+        log.info("Successfully updated user with ID: {}, username: {}, role: {}, enabled: {}",
+                id, user.getUsername(), user.getRole(), user.isEnabled());
+    }
+
+    private int trackChange(ChangedField field, Object before, Object after, Map<String, String> previousValues) {
+        if (Objects.equals(before, after)) {
+            return 0;
+        }
+        previousValues.put(field.name(), before != null ? before.toString() : "");
+        return field.bit();
+    }
+
     @Override
     @Transactional
     public UserDto updateUser(UUID id, UpdateUserRequest updateUserRequest) {
@@ -191,6 +249,8 @@ public class UserServiceImpl implements UserService {
         validateUsernameUpdate(existingUser, updateUserRequest.getUsername());
         validateEmailUpdate(existingUser, updateUserRequest.getEmail());
         
+        User previousState = snapshotProfile(existingUser);
+        
         // Update user fields from DTO
         log.debug("Updating user fields from DTO");
         userMapper.updateUserFromDto(updateUserRequest, existingUser);
@@ -199,21 +259,27 @@ public class UserServiceImpl implements UserService {
         boolean passwordChanged = updateUserPassword(existingUser, updateUserRequest.getPassword());
         boolean enabledStatusChanged = updateUserEnabledStatus(existingUser, updateUserRequest.getEnabled());
         
-        User updatedUser = userRepository.save(existingUser);
+        // Flush so the incremented version is available as the event sequence
+        User updatedUser = userRepository.saveAndFlush(existingUser);
         logUserUpdateCompletion(updatedUser, id);
         
-        // Publish appropriate events
+        // Publish a single event carrying every change made by this update
+        Map<String, String> previousValues = new HashMap<>();
+        int changedFields = collectProfileChanges(previousState, updatedUser, previousValues);
+        if (passwordChanged) {
+            changedFields |= ChangedField.PASSWORD.bit();
+        }
+        if (enabledStatusChanged) {
+            changedFields |= ChangedField.ENABLED.bit();
+            previousValues.put(ChangedField.ENABLED.name(), String.valueOf(previousState.isEnabled()));
+        }
+        
         try {
-            userEventProducer.publishUserEvent(EventType.USER_UPDATED, updatedUser);
-            
-            // Publish additional events if needed
-            if (passwordChanged) {
-                userEventProducer.publishUserEvent(EventType.USER_PASSWORD_CHANGED, updatedUser);
-            }
-            if (enabledStatusChanged) {
-                EventType eventType = updatedUser.isEnabled() ? 
-                        EventType.USER_ACCOUNT_ENABLED : EventType.USER_ACCOUNT_DISABLED;
-                userEventProducer.publishUserEvent(eventType, updatedUser);
+            if (changedFields != 0) {
+                userEventProducer.publishUserEvent(EventType.USER_UPDATED, updatedUser, changedFields, previousValues);
+                userStatePublisher.ifAvailable(publisher -> publisher.publishState(updatedUser));
+            } else {
+                log.debug("No changes detected for user ID: {}, skipping event", id);
             }
         } catch (Exception e) {
             log.error("Failed to publish user update events for user {}", updatedUser.getUsername(), e);
@@ -239,6 +305,12 @@ public class UserServiceImpl implements UserService {
         
         userRepository.deleteById(id);
         log.info("Successfully deleted user with ID: {}", id);
+        
+        try {
+            userStatePublisher.ifAvailable(publisher -> publisher.publishTombstone(id));
+        } catch (Exception e) {
+            log.error("Failed to publish user state tombstone for user {}", id, e);
+        }
     }
 
     @Override
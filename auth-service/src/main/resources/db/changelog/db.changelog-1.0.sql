@@ -58,3 +58,13 @@ begin
         values (user_id, 'testuser', 'user@example.com', hashed_pw, 'Test', 'User', 'USER', true, true, true, true);
     end if;
 end $$;
+
+-- changeset system:4
+-- Row version used for optimistic locking and as the per-user event sequence
+do $$
+begin
+    if not exists (select 1 from information_schema.columns
+                   where table_name = 'users' and column_name = 'version') then
+        alter table users add column version bigint not null default 0;
+    end if;
+end $$;
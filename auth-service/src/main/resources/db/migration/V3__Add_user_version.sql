@@ -0,0 +1,2 @@
+-- Row version used for optimistic locking and as the per-user event sequence
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
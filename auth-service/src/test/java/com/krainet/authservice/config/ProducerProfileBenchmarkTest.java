@@ -0,0 +1,98 @@
+package com.krainet.authservice.config;
+
+import com.krainet.common.event.EventType;
+import com.krainet.common.event.UserEvent;
+import com.krainet.common.serialization.UserEventSerializer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaZKBroker;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Publishes a fixed number of user events through each {@link ProducerProfile} against an
+ * embedded broker and reports events/sec. Run with {@code -Dbenchmark=true}; the value format is
+ * chosen with {@code -Dbenchmark.format=json|binary}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ProducerProfileBenchmarkTest {
+
+    private static final String TOPIC = "user-events-benchmark";
+
+    private static final int WARMUP_EVENTS = 5_000;
+    private static final int MEASURED_EVENTS = Integer.getInteger("benchmark.events", 100_000);
+
+    private static EmbeddedKafkaBroker broker;
+
+    @BeforeAll
+    static void startBroker() {
+        broker = new EmbeddedKafkaZKBroker(1, false, 6, TOPIC);
+        broker.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ProducerProfile.class)
+    void publishThroughput(ProducerProfile profile) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, UserEventSerializer.class);
+        props.put(UserEventSerializer.FORMAT_CONFIG, System.getProperty("benchmark.format", "json"));
+        profile.applyTo(props);
+
+        DefaultKafkaProducerFactory<String, UserEvent> producerFactory = new DefaultKafkaProducerFactory<>(props);
+        try {
+            KafkaTemplate<String, UserEvent> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+
+            publish(kafkaTemplate, WARMUP_EVENTS);
+
+            long start = System.nanoTime();
+            publish(kafkaTemplate, MEASURED_EVENTS);
+            long elapsedNanos = System.nanoTime() - start;
+
+            double eventsPerSecond = MEASURED_EVENTS / (elapsedNanos / 1_000_000_000.0);
+            System.out.printf("Producer profile %-12s (%s) %,10d events in %,6d ms -> %,12.0f events/sec%n",
+                    profile.getProfileName(), props.get(UserEventSerializer.FORMAT_CONFIG), MEASURED_EVENTS,
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), eventsPerSecond);
+            assertTrue(eventsPerSecond > 0);
+        } finally {
+            producerFactory.destroy();
+        }
+    }
+
+    private void publish(KafkaTemplate<String, UserEvent> kafkaTemplate, int count) {
+        EventType[] eventTypes = {EventType.USER_CREATED, EventType.USER_UPDATED, EventType.USER_PASSWORD_CHANGED};
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[count];
+        for (int i = 0; i < count; i++) {
+            UUID userId = UUID.randomUUID();
+            UserEvent event = UserEvent.builder(
+                    eventTypes[i % eventTypes.length],
+                    userId,
+                    "user" + i,
+                    "user" + i + "@example.com",
+                    "USER"
+            ).build();
+            futures[i] = kafkaTemplate.send(TOPIC, userId.toString(), event);
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+}
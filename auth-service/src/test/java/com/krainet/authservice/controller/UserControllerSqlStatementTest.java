@@ -0,0 +1,135 @@
+package com.krainet.authservice.controller;
+
+import com.krainet.authservice.model.Role;
+import com.krainet.authservice.model.User;
+import com.krainet.authservice.repository.UserRepository;
+import com.krainet.common.sql.SqlStatementAssertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Query budgets for the user endpoints, counted per request against an in-memory database.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser(roles = "ADMIN")
+class UserControllerSqlStatementTest {
+
+    private static final int USERS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < USERS; i++) {
+            users.add(userRepository.save(User.builder()
+                    .username("user" + i)
+                    .password("{noop}password")
+                    .email("user" + i + "@example.com")
+                    .firstName("First" + i)
+                    .lastName("Last" + i)
+                    .role(Role.USER)
+                    .enabled(true)
+                    .build()));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        SqlStatementAssertions.stop();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void getAllUsers_OneSelectWhateverTheNumberOfUsers() throws Exception {
+        // Given
+        SqlStatementAssertions.reset();
+
+        // When
+        mockMvc.perform(get("/api/v1/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(USERS));
+
+        // Then
+        SqlStatementAssertions.assertSelectCount(1);
+        SqlStatementAssertions.assertTotalCount(1);
+    }
+
+    @Test
+    void updateUser_ProfileChange_OneSelectAndOneUpdate() throws Exception {
+        // Given
+        User user = users.get(0);
+        SqlStatementAssertions.reset();
+
+        // When
+        mockMvc.perform(put("/api/v1/users/{id}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Renamed\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.firstName").value("Renamed"));
+
+        // Then
+        SqlStatementAssertions.assertSelectCount(1);
+        SqlStatementAssertions.assertUpdateCount(1);
+        SqlStatementAssertions.assertTotalCount(2);
+    }
+
+    @Test
+    void updateUser_NewUsername_AlsoChecksAvailability() throws Exception {
+        // Given
+        User user = users.get(0);
+        SqlStatementAssertions.reset();
+
+        // When
+        mockMvc.perform(put("/api/v1/users/{id}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"renamed\"}"))
+                .andExpect(status().isOk());
+
+        // Then
+        SqlStatementAssertions.assertSelectCount(2);
+        SqlStatementAssertions.assertUpdateCount(1);
+    }
+
+    @Test
+    void deleteUser_OneSelectAndOneDelete() throws Exception {
+        // Given
+        User user = users.get(0);
+        SqlStatementAssertions.reset();
+
+        // When
+        mockMvc.perform(delete("/api/v1/users/{id}", user.getId()))
+                .andExpect(status().isNoContent());
+
+        // Then
+        SqlStatementAssertions.assertSelectCount(1);
+        SqlStatementAssertions.assertDeleteCount(1);
+        SqlStatementAssertions.assertTotalCount(2);
+        assertFalse(userRepository.existsById(user.getId()));
+    }
+}
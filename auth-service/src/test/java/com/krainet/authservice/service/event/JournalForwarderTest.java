@@ -0,0 +1,146 @@
+package com.krainet.authservice.service.event;
+
+import com.krainet.common.event.EventType;
+import com.krainet.common.event.UserEvent;
+import com.krainet.common.journal.EventJournal;
+import com.krainet.common.serialization.UserEventBinaryCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JournalForwarderTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private KafkaTemplate<String, UserEvent> kafkaTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private EventJournal journal;
+    private JournalForwarder forwarder;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        journal = EventJournal.open(directory, SEGMENT_SIZE, false);
+        forwarder = new JournalForwarder(journal, kafkaTemplate, "user-events", meterRegistry, 3_600_000, 10, 1_000);
+        forwarder.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        forwarder.stop();
+        journal.close();
+    }
+
+    @Test
+    void forwardPending_CorruptRecord_SkippedAndTheRestForwarded() throws IOException {
+        // Given
+        UserEvent first = event();
+        UserEvent last = event();
+        journal.append(UserEventBinaryCodec.encode(first));
+        long corrupt = journal.append(UserEventBinaryCodec.encode(event()));
+        journal.append(UserEventBinaryCodec.encode(last));
+        flipPayloadByte(corrupt);
+        sendsSucceed();
+
+        // When
+        forwarder.forwardPending();
+
+        // Then
+        assertEquals(List.of(first.getEventId(), last.getEventId()), sentEventIds());
+        assertEquals(journal.writePosition(), journal.committedPosition());
+        assertEquals(1, meterRegistry.counter("krainet.events.journal.skipped").count());
+    }
+
+    @Test
+    void forwardPending_UndecodableOrKeylessRecord_SkippedAndTheRestForwarded() throws IOException {
+        // Given
+        UserEvent valid = event();
+        UserEvent withoutUserId = new UserEvent();
+        withoutUserId.setEventId(UUID.randomUUID().toString());
+        withoutUserId.setEventType(EventType.USER_UPDATED);
+        journal.append(new byte[]{UserEventBinaryCodec.CURRENT_VERSION, (byte) 0xFF});
+        journal.append(UserEventBinaryCodec.encode(withoutUserId));
+        journal.append(UserEventBinaryCodec.encode(valid));
+        sendsSucceed();
+
+        // When
+        forwarder.forwardPending();
+
+        // Then
+        assertEquals(List.of(valid.getEventId()), sentEventIds());
+        assertFalse(journal.hasPending());
+        assertEquals(2, meterRegistry.counter("krainet.events.journal.skipped").count());
+    }
+
+    @Test
+    void forwardPending_BrokerDoesNotAcknowledge_KeepsRecordsForTheNextRun() throws IOException {
+        // Given
+        journal.append(UserEventBinaryCodec.encode(event()));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(new CompletableFuture<>());
+
+        // When
+        forwarder.forwardPending();
+
+        // Then
+        assertEquals(0, journal.committedPosition());
+        assertTrue(journal.hasPending());
+        assertEquals(0, meterRegistry.counter("krainet.events.journal.skipped").count());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void sendsSucceed() {
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> sentEventIds() {
+        ArgumentCaptor<ProducerRecord<String, UserEvent>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, atLeast(0)).send(sent.capture());
+        return sent.getAllValues().stream().map(record -> record.value().getEventId()).toList();
+    }
+
+    /**
+     * Corrupts the payload of the record that ends at the given position.
+     */
+    private void flipPayloadByte(long recordEnd) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory.resolve(String.format("%020d.seg", 0)),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, recordEnd - 1);
+            value.put(0, (byte) (value.get(0) ^ 0xFF)).rewind();
+            channel.write(value, recordEnd - 1);
+        }
+    }
+
+    private static UserEvent event() {
+        return UserEvent.builder(EventType.USER_UPDATED, UUID.randomUUID(), "testuser", "test@example.com", "USER")
+                .build();
+    }
+}
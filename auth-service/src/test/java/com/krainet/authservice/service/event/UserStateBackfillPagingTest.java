@@ -0,0 +1,66 @@
+package com.krainet.authservice.service.event;
+
+import com.krainet.authservice.model.Role;
+import com.krainet.authservice.model.User;
+import com.krainet.authservice.repository.UserRepository;
+import com.krainet.common.event.UserState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the backfill's keyset paging against the database, where the ID order comes from the query.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UserStateBackfillPagingTest {
+
+    private static final int USERS = 7;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void backfill_PagesSmallerThanTable_PublishesEveryUserOnceInIdOrder() {
+        // Given
+        for (int i = 0; i < USERS; i++) {
+            userRepository.save(User.builder()
+                    .username("user" + i)
+                    .password("{noop}password")
+                    .email("user" + i + "@example.com")
+                    .firstName("First" + i)
+                    .lastName("Last" + i)
+                    .role(Role.USER)
+                    .enabled(true)
+                    .build());
+        }
+        List<UUID> idOrder = userRepository.findAll(Sort.by("id")).stream().map(User::getId).toList();
+        UserStatePublisher publisher = mock(UserStatePublisher.class);
+        when(publisher.sendNow(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        new UserStateBackfill(userRepository, publisher, 3, 1_000).backfill();
+
+        // Then
+        ArgumentCaptor<UserState> sent = ArgumentCaptor.forClass(UserState.class);
+        verify(publisher, times(USERS)).sendNow(sent.capture());
+        assertEquals(idOrder, sent.getAllValues().stream().map(UserState::getUserId).toList());
+    }
+}
@@ -0,0 +1,137 @@
+package com.krainet.authservice.service.event;
+
+import com.krainet.authservice.model.Role;
+import com.krainet.authservice.model.User;
+import com.krainet.authservice.repository.UserRepository;
+import com.krainet.common.event.UserState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserStateBackfillTest {
+
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserStatePublisher userStatePublisher;
+
+    @Test
+    void backfill_ReadsKeysetPagesAfterLastIdUntilEmpty() {
+        // Given
+        List<User> users = List.of(user(1), user(2), user(3), user(4), user(5));
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(FIRST_ID, Limit.of(2))).thenReturn(users.subList(0, 2));
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(users.get(1).getId(), Limit.of(2))).thenReturn(users.subList(2, 4));
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(users.get(3).getId(), Limit.of(2))).thenReturn(users.subList(4, 5));
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(users.get(4).getId(), Limit.of(2))).thenReturn(List.of());
+        stillExist(users);
+        when(userStatePublisher.sendNow(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        new UserStateBackfill(userRepository, userStatePublisher, 2, 1_000).backfill();
+
+        // Then
+        ArgumentCaptor<UserState> sent = ArgumentCaptor.forClass(UserState.class);
+        verify(userStatePublisher, times(5)).sendNow(sent.capture());
+        assertEquals(users.stream().map(User::getId).toList(),
+                sent.getAllValues().stream().map(UserState::getUserId).toList());
+        verify(userRepository, times(4)).findByIdGreaterThanOrderByIdAsc(any(), eq(Limit.of(2)));
+    }
+
+    @Test
+    void backfill_PageNotAcknowledged_StopsBeforeNextPage() {
+        // Given
+        List<User> page = List.of(user(1), user(2));
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(FIRST_ID, Limit.of(2))).thenReturn(page);
+        stillExist(page);
+        when(userStatePublisher.sendNow(any()))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Broker unavailable")));
+
+        // When
+        new UserStateBackfill(userRepository, userStatePublisher, 2, 1_000).backfill();
+
+        // Then
+        verify(userStatePublisher, times(2)).sendNow(any());
+        verify(userRepository, times(1)).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
+
+    @Test
+    void backfill_UserDeletedBeforeSend_SkippedAndNoTombstone() {
+        // Given
+        List<User> page = List.of(user(1), user(2));
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(FIRST_ID, Limit.of(2))).thenReturn(page);
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(page.get(1).getId(), Limit.of(2))).thenReturn(List.of());
+        stillExist(List.of(page.get(1)));
+        when(userStatePublisher.sendNow(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        new UserStateBackfill(userRepository, userStatePublisher, 2, 1_000).backfill();
+
+        // Then
+        ArgumentCaptor<UserState> sent = ArgumentCaptor.forClass(UserState.class);
+        verify(userStatePublisher).sendNow(sent.capture());
+        assertEquals(page.get(1).getId(), sent.getValue().getUserId());
+        verify(userStatePublisher, never()).sendTombstoneNow(any());
+    }
+
+    @Test
+    void backfill_UserDeletedWhileSnapshotInFlight_TombstonedAfterIt() {
+        // Given
+        List<User> page = List.of(user(1), user(2));
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(FIRST_ID, Limit.of(2))).thenReturn(page);
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(page.get(1).getId(), Limit.of(2))).thenReturn(List.of());
+        when(userRepository.findAllById(any()))
+                .thenReturn(page)
+                .thenReturn(List.of(page.get(1)));
+        when(userStatePublisher.sendNow(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(userStatePublisher.sendTombstoneNow(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        new UserStateBackfill(userRepository, userStatePublisher, 2, 1_000).backfill();
+
+        // Then
+        InOrder order = inOrder(userStatePublisher);
+        order.verify(userStatePublisher, times(2)).sendNow(any());
+        order.verify(userStatePublisher).sendTombstoneNow(page.get(0).getId());
+        verifyNoMoreInteractions(userStatePublisher);
+    }
+
+    private void stillExist(List<User> users) {
+        when(userRepository.findAllById(any())).thenAnswer(invocation -> {
+            Iterable<UUID> ids = invocation.getArgument(0);
+            List<UUID> requested = new ArrayList<>();
+            ids.forEach(requested::add);
+            return users.stream().filter(user -> requested.contains(user.getId())).toList();
+        });
+    }
+
+    private static User user(int index) {
+        User user = User.builder()
+                .id(new UUID(0L, index))
+                .username("user" + index)
+                .email("user" + index + "@example.com")
+                .role(Role.USER)
+                .enabled(true)
+                .build();
+        user.setVersion(index);
+        return user;
+    }
+}
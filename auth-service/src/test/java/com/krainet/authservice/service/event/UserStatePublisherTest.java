@@ -0,0 +1,115 @@
+package com.krainet.authservice.service.event;
+
+import com.krainet.authservice.model.Role;
+import com.krainet.authservice.model.User;
+import com.krainet.common.event.UserState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserStatePublisherTest {
+
+    private static final String TOPIC = "user-state";
+
+    @Mock
+    private KafkaTemplate<String, UserState> kafkaTemplate;
+
+    private UserStatePublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new UserStatePublisher(kafkaTemplate, new SimpleMeterRegistry(), TOPIC, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void publishState_NoTransaction_SendsSnapshotKeyedByUserId() throws InterruptedException {
+        // Given
+        User user = user();
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(new CompletableFuture<>());
+
+        // When
+        publisher.publishState(user);
+        publisher.shutdown();
+
+        // Then
+        ArgumentCaptor<UserState> state = ArgumentCaptor.forClass(UserState.class);
+        verify(kafkaTemplate).send(eq(TOPIC), eq(user.getId().toString()), state.capture());
+        assertEquals("alice", state.getValue().getUsername());
+        assertEquals(3L, state.getValue().getSequence());
+    }
+
+    @Test
+    void publishState_InTransaction_SentOnlyAfterCommit() throws InterruptedException {
+        // Given
+        User user = user();
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(new CompletableFuture<>());
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        publisher.publishState(user);
+        user.setUsername("renamed-before-commit");
+
+        // Then
+        verify(kafkaTemplate, after(100).never()).send(anyString(), anyString(), any());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        publisher.shutdown();
+        ArgumentCaptor<UserState> state = ArgumentCaptor.forClass(UserState.class);
+        verify(kafkaTemplate).send(eq(TOPIC), eq(user.getId().toString()), state.capture());
+        assertEquals("alice", state.getValue().getUsername());
+    }
+
+    @Test
+    void publishTombstone_TransactionRolledBack_NothingSent() throws InterruptedException {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        publisher.publishTombstone(UUID.randomUUID());
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        publisher.shutdown();
+
+        // Then
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), isNull());
+    }
+
+    private static User user() {
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .username("alice")
+                .email("alice@example.com")
+                .firstName("Alice")
+                .lastName("Smith")
+                .role(Role.USER)
+                .enabled(true)
+                .build();
+        user.setVersion(3);
+        return user;
+    }
+}
@@ -0,0 +1,37 @@
+package com.krainet.common.event;
+
+/**
+ * User fields that can change in a single update. A {@link UserEvent} carries the set of
+ * changed fields as a bitmask built from {@link #bit()}.
+ * The bit is derived from the ordinal, so new constants must only be appended.
+ */
+public enum ChangedField {
+    USERNAME,
+    EMAIL,
+    FIRST_NAME,
+    LAST_NAME,
+    ROLE,
+    PASSWORD,
+    ENABLED;
+
+    /**
+     * Mask of the fields that describe the user's profile (everything except credentials and status).
+     */
+    public static final int PROFILE_FIELDS = mask(USERNAME, EMAIL, FIRST_NAME, LAST_NAME, ROLE);
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public boolean isSet(int mask) {
+        return (mask & bit()) != 0;
+    }
+
+    public static int mask(ChangedField... fields) {
+        int mask = 0;
+        for (ChangedField field : fields) {
+            mask |= field.bit();
+        }
+        return mask;
+    }
+}
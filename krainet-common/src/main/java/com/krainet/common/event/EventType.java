@@ -2,6 +2,7 @@ package com.krainet.common.event;
 
 /**
  * Enum representing different types of user events that can be published to Kafka.
+ * The binary event format stores the ordinal, so new constants must only be appended.
  */
 public enum EventType {
     USER_CREATED,
@@ -9,6 +9,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Map;
 import java.util.UUID;
 
@@ -33,7 +34,7 @@ public class UserEvent {
     private EventType eventType;
     
     /**
-     * Timestamp when the event occurred
+     * Timestamp when the event occurred, in UTC
      */
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
     private LocalDateTime timestamp;
@@ -68,11 +69,45 @@ public class UserEvent {
      */
     private String initiatorUsername;
     
+    /**
+     * Whether the user's account is enabled after this event
+     */
+    private Boolean enabled;
+    
+    /**
+     * Bitmask of {@link ChangedField}s modified by the update this event describes,
+     * or {@code null} for events that do not track individual changes
+     */
+    private Integer changedFields;
+    
+    /**
+     * Values of the changed fields before the update, keyed by {@link ChangedField} name.
+     * Credentials are never included.
+     */
+    private Map<String, String> previousValues;
+    
+    /**
+     * Per-user sequence number, taken from the user's row version. It increases with every
+     * change to the user, so a consumer can drop any event whose sequence is not above the
+     * highest one it has already handled for that user. {@code null} from older producers.
+     */
+    private Long sequence;
+    
     /**
      * Additional metadata about the event
      */
     private Map<String, Object> metadata;
     
+    /**
+     * Checks whether the given field is marked as changed in this event.
+     *
+     * @param field the field to check
+     * @return true if the event carries a changed-fields mask with that field set
+     */
+    public boolean hasChanged(ChangedField field) {
+        return changedFields != null && field.isSet(changedFields);
+    }
+    
     /**
      * Creates a new UserEvent with the given type and user details.
      *
@@ -82,7 +117,7 @@ public class UserEvent {
     private static UserEventBuilder builder() {
         return new UserEventBuilder()
                 .eventId(UUID.randomUUID().toString())
-                .timestamp(LocalDateTime.now());
+                .timestamp(LocalDateTime.now(ZoneOffset.UTC));
     }
     
     public static UserEventBuilder builder(EventType eventType, UUID userId, String username, String email, String userRole) {
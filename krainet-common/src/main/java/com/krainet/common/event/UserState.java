@@ -0,0 +1,45 @@
+package com.krainet.common.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Full current state of a user, published to the log-compacted {@code user-state} topic keyed
+ * by user ID. A deleted user is represented by a tombstone (a record with a {@code null} value),
+ * so the compacted topic always holds exactly one snapshot per existing user.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class UserState {
+    /**
+     * ID of the user
+     */
+    private UUID userId;
+
+    private String username;
+
+    private String email;
+
+    private String firstName;
+
+    private String lastName;
+
+    private String userRole;
+
+    private boolean enabled;
+
+    /**
+     * Per-user sequence of the change this snapshot reflects, matching {@link UserEvent#getSequence()}
+     */
+    private long sequence;
+}
@@ -0,0 +1,39 @@
+package com.krainet.common.instrumentation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Applies the {@link MethodTimingInterceptor} to every controller and service method of a service.
+ *
+ * <p>Services import this class and set {@code app.instrumentation.base-package} to their root
+ * package; methods in its {@code controller} and {@code service} subpackages are timed.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.instrumentation.enabled", havingValue = "true", matchIfMissing = true)
+public class InstrumentationConfig {
+
+    @Bean
+    public static Advisor methodTimingAdvisor(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${app.instrumentation.base-package}") String basePackage,
+            @Value("${app.instrumentation.sample-rate:0.001}") double sampleRate,
+            @Value("${app.instrumentation.slow-threshold-ms:500}") long slowThresholdMs) {
+        AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+        pointcut.setExpression(instrumentedMethods(basePackage));
+        return new DefaultPointcutAdvisor(pointcut,
+                new MethodTimingInterceptor(meterRegistry::getObject, sampleRate, slowThresholdMs));
+    }
+
+    static String instrumentedMethods(String basePackage) {
+        return "execution(* " + basePackage + ".controller..*(..)) || "
+                + "execution(* " + basePackage + ".service..*(..))";
+    }
+}
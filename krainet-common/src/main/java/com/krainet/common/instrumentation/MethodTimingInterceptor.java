@@ -0,0 +1,148 @@
+package com.krainet.common.instrumentation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+
+import java.lang.reflect.Method;
+import java.time.temporal.TemporalAccessor;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Times controller and service methods into one Micrometer timer per method and outcome.
+ *
+ * <p>The timers are looked up by {@link Method}, so a call that is neither slow nor sampled
+ * allocates nothing beyond what the proxy itself does. Arguments are logged only for calls over the
+ * slow threshold (at WARN) and for a sampled fraction of the rest (at DEBUG). Values of parameters
+ * whose names look like credentials are masked, and objects other than simple values are logged by
+ * type only, so request bodies and their passwords never reach the log.
+ */
+@Slf4j
+public class MethodTimingInterceptor implements MethodInterceptor {
+
+    static final String TIMER_NAME = "krainet.method.duration";
+
+    private static final Pattern SENSITIVE_NAME = Pattern.compile("(?i).*(password|secret|token|credential).*");
+    private static final int MAX_VALUE_LENGTH = 64;
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+
+    private final Supplier<MeterRegistry> meterRegistry;
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final ConcurrentMap<Method, MethodTimers> timers = new ConcurrentHashMap<>();
+
+    /**
+     * @param meterRegistry   supplies the registry when a method is first called; advisors are
+     *                        created before the registry is fully configured
+     * @param sampleRate      fraction of calls, from 0 to 1, whose arguments are logged
+     * @param slowThresholdMs calls taking at least this long are always logged
+     */
+    public MethodTimingInterceptor(Supplier<MeterRegistry> meterRegistry, double sampleRate, long slowThresholdMs) {
+        this.meterRegistry = meterRegistry;
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        MethodTimers methodTimers = timers.get(invocation.getMethod());
+        if (methodTimers == null) {
+            methodTimers = timers.computeIfAbsent(invocation.getMethod(), this::register);
+        }
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            long elapsedNanos = System.nanoTime() - start;
+            methodTimers.success.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            logIfSlowOrSampled(methodTimers, invocation.getArguments(), elapsedNanos, null);
+            return result;
+        } catch (Throwable e) {
+            long elapsedNanos = System.nanoTime() - start;
+            methodTimers.failure.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            logIfSlowOrSampled(methodTimers, invocation.getArguments(), elapsedNanos, e);
+            throw e;
+        }
+    }
+
+    private void logIfSlowOrSampled(MethodTimers methodTimers, Object[] args, long elapsedNanos, Throwable failure) {
+        if (elapsedNanos >= slowThresholdNanos) {
+            if (log.isWarnEnabled()) {
+                log.warn("Slow call {}({}) took {} ms{}", methodTimers.label, describe(methodTimers.parameterNames, args),
+                        TimeUnit.NANOSECONDS.toMillis(elapsedNanos), outcome(failure));
+            }
+        } else if (sampleRate > 0 && log.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.debug("Sampled call {}({}) took {} ms{}", methodTimers.label, describe(methodTimers.parameterNames, args),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), outcome(failure));
+        }
+    }
+
+    private static String outcome(Throwable failure) {
+        return failure == null ? "" : " and failed with " + failure.getClass().getSimpleName() + ": " + failure.getMessage();
+    }
+
+    private MethodTimers register(Method method) {
+        String className = method.getDeclaringClass().getSimpleName();
+        MeterRegistry registry = meterRegistry.get();
+        return new MethodTimers(
+                className + "." + method.getName(),
+                PARAMETER_NAMES.getParameterNames(method),
+                timer(registry, className, method.getName(), "success"),
+                timer(registry, className, method.getName(), "failure"));
+    }
+
+    private static Timer timer(MeterRegistry registry, String className, String methodName, String outcome) {
+        return Timer.builder(TIMER_NAME)
+                .description("Time spent in controller and service methods")
+                .tag("class", className)
+                .tag("method", methodName)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Renders arguments for the log as {@code name=value} pairs, masking credentials and showing
+     * anything but simple values by type only.
+     */
+    static String describe(String[] parameterNames, Object[] args) {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                description.append(", ");
+            }
+            String name = parameterNames != null && i < parameterNames.length ? parameterNames[i] : "arg" + i;
+            description.append(name).append('=');
+            Object arg = args[i];
+            if (arg == null) {
+                description.append("null");
+            } else if (SENSITIVE_NAME.matcher(name).matches()) {
+                description.append("****");
+            } else if (isSimpleValue(arg)) {
+                String value = arg.toString();
+                description.append(value.length() > MAX_VALUE_LENGTH ? value.substring(0, MAX_VALUE_LENGTH) + "..." : value);
+            } else {
+                description.append('<').append(arg.getClass().getSimpleName()).append('>');
+            }
+        }
+        return description.toString();
+    }
+
+    private static boolean isSimpleValue(Object arg) {
+        return arg instanceof CharSequence || arg instanceof Number || arg instanceof Boolean
+                || arg instanceof Character || arg instanceof Enum<?> || arg instanceof UUID
+                || arg instanceof TemporalAccessor;
+    }
+
+    private record MethodTimers(String label, String[] parameterNames, Timer success, Timer failure) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.krainet.common.jfr;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * The continuous flight recording and the {@link FlightRecordingEndpoint} that takes recordings on
+ * demand. Services import this class and add their own events.
+ */
+@Configuration
+public class FlightRecordingConfig {
+
+    @Bean(destroyMethod = "close")
+    public FlightRecordings flightRecordings(
+            @Value("${app.jfr.continuous.enabled:true}") boolean continuous,
+            @Value("${app.jfr.continuous.max-age-minutes:15}") long maxAgeMinutes,
+            @Value("${app.jfr.continuous.max-size-mb:100}") long maxSizeMb) {
+        FlightRecordings recordings = new FlightRecordings();
+        if (continuous) {
+            recordings.startContinuous(Duration.ofMinutes(maxAgeMinutes), maxSizeMb * 1024 * 1024);
+        }
+        return recordings;
+    }
+
+    @Bean
+    public FlightRecordingEndpoint flightRecordingEndpoint(FlightRecordings flightRecordings) {
+        return new FlightRecordingEndpoint(flightRecordings);
+    }
+}
@@ -0,0 +1,94 @@
+package com.krainet.common.jfr;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Actuator endpoint ({@code /actuator/flightrecording}) for taking Java Flight Recorder
+ * recordings on demand:
+ *
+ * <ul>
+ *     <li>{@code GET} lists the recordings, including the continuous one;</li>
+ *     <li>{@code POST} with optional {@code name}, {@code settings} ({@code default} or
+ *     {@code profile}) and {@code durationSeconds} starts a recording;</li>
+ *     <li>{@code GET /{id}} downloads what a recording holds so far, to open in JDK Mission Control;</li>
+ *     <li>{@code DELETE /{id}} stops a recording and discards it.</li>
+ * </ul>
+ */
+@Endpoint(id = "flightrecording")
+@RequiredArgsConstructor
+public class FlightRecordingEndpoint {
+
+    private final FlightRecordings recordings;
+
+    @ReadOperation
+    public List<FlightRecordings.Summary> recordings() {
+        return recordings.list();
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<FlightRecordings.Summary> start(@Nullable String name, @Nullable String settings,
+                                                              @Nullable Long durationSeconds) {
+        try {
+            return new WebEndpointResponse<>(recordings.start(
+                    name != null ? name : "on-demand",
+                    settings != null ? settings : FlightRecordings.DEFAULT_SETTINGS,
+                    durationSeconds != null ? Duration.ofSeconds(durationSeconds) : null));
+        } catch (IllegalArgumentException e) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump(@Selector long id) throws IOException {
+        Path file = recordings.dump(id);
+        if (file == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return new WebEndpointResponse<>(new DumpResource(file));
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<Void> stop(@Selector long id) {
+        return new WebEndpointResponse<>(recordings.stop(id)
+                ? WebEndpointResponse.STATUS_NO_CONTENT : WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+
+    /**
+     * A dump file that is deleted once it has been read.
+     */
+    private static final class DumpResource extends FileSystemResource {
+
+        DumpResource(Path file) {
+            super(file);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(getFile().toPath(), StandardOpenOption.DELETE_ON_CLOSE);
+        }
+
+        @Override
+        public ReadableByteChannel readableChannel() throws IOException {
+            return FileChannel.open(getFile().toPath(), StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE);
+        }
+    }
+}
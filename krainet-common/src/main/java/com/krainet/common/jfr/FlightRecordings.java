@@ -0,0 +1,167 @@
+package com.krainet.common.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Starts, dumps and stops Java Flight Recorder recordings on demand.
+ *
+ * <p>Besides recordings started for a fixed duration, a continuous recording can keep the last
+ * few minutes of events in a bounded on-disk buffer, so a dump taken right after an incident
+ * already covers it. Recordings use one of the JDK's settings files: {@code default}, designed for
+ * continuous use at about 1% overhead, or the more detailed {@code profile}. The application's own
+ * events are enabled in both.
+ *
+ * <p>Only recordings started through this class can be dumped or stopped with it.
+ */
+@Slf4j
+public class FlightRecordings implements AutoCloseable {
+
+    public static final String CONTINUOUS = "continuous";
+    public static final String DEFAULT_SETTINGS = "default";
+
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+
+    /**
+     * Starts the continuous recording, unless the JVM has no flight recorder.
+     *
+     * @param maxAge  how long events are kept
+     * @param maxSize how many bytes of events are kept
+     * @return the recording, or {@code null} if flight recording is not available
+     */
+    public Summary startContinuous(Duration maxAge, long maxSize) {
+        if (!FlightRecorder.isAvailable()) {
+            log.warn("Flight recording is not available in this JVM; no continuous recording is kept");
+            return null;
+        }
+        Recording recording = newRecording(CONTINUOUS, DEFAULT_SETTINGS);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSize);
+        return start(recording);
+    }
+
+    /**
+     * Starts a recording.
+     *
+     * @param name     the recording's name
+     * @param settings the JDK settings file to use, {@code default} or {@code profile}
+     * @param duration how long to record, or {@code null} to record until stopped
+     * @return the started recording
+     * @throws IllegalArgumentException if there is no such settings file
+     * @throws IllegalStateException    if flight recording is not available
+     */
+    public Summary start(String name, String settings, Duration duration) {
+        if (!FlightRecorder.isAvailable()) {
+            throw new IllegalStateException("Flight recording is not available in this JVM");
+        }
+        Recording recording = newRecording(name, settings);
+        recording.setDuration(duration);
+        return start(recording);
+    }
+
+    /**
+     * Lists the recordings started here that were not stopped yet, running or finished.
+     */
+    public List<Summary> list() {
+        List<Summary> summaries = new ArrayList<>(recordings.size());
+        for (Recording recording : recordings.values()) {
+            summaries.add(Summary.of(recording));
+        }
+        summaries.sort((a, b) -> Long.compare(a.id(), b.id()));
+        return summaries;
+    }
+
+    /**
+     * Writes the events recorded so far to a new temporary file. The caller owns the file.
+     *
+     * @param id the recording's ID
+     * @return the file, or {@code null} if there is no such recording
+     * @throws IOException if the file cannot be written
+     */
+    public Path dump(long id) throws IOException {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            return null;
+        }
+        Path file = Files.createTempFile("recording-" + id + "-", ".jfr");
+        try {
+            recording.dump(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return file;
+    }
+
+    /**
+     * Stops a recording and discards its events.
+     *
+     * @param id the recording's ID
+     * @return whether there was such a recording
+     */
+    public boolean stop(long id) {
+        Recording recording = recordings.remove(id);
+        if (recording == null) {
+            return false;
+        }
+        recording.close();
+        log.info("Closed flight recording {} ({})", id, recording.getName());
+        return true;
+    }
+
+    @Override
+    public void close() {
+        for (Long id : List.copyOf(recordings.keySet())) {
+            stop(id);
+        }
+    }
+
+    private static Recording newRecording(String name, String settings) {
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown flight recording settings: " + settings, e);
+        }
+        Recording recording = new Recording(configuration);
+        recording.setName(name);
+        recording.setToDisk(true);
+        return recording;
+    }
+
+    private Summary start(Recording recording) {
+        recording.start();
+        recordings.put(recording.getId(), recording);
+        log.info("Started flight recording {} ({})", recording.getId(), recording.getName());
+        return Summary.of(recording);
+    }
+
+    /**
+     * A recording's state, for listing.
+     *
+     * @param duration the configured duration, {@code null} for recordings that run until stopped
+     * @param size     bytes written to disk so far
+     */
+    public record Summary(long id, String name, RecordingState state, Instant startTime, Duration duration,
+                          long size) {
+
+        static Summary of(Recording recording) {
+            return new Summary(recording.getId(), recording.getName(), recording.getState(),
+                    recording.getStartTime(), recording.getDuration(), recording.getSize());
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.krainet.common.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of opaque records stored in memory-mapped segment files.
+ *
+ * <p>Every record is written as {@code [int length][int crc32c][payload]} followed by a zero
+ * length marking the current end, so a torn write is detected on recovery and overwritten.
+ * When a record does not fit in the active segment a roll marker ({@code -1}) is written and a
+ * new segment is started. Positions are global: a segment file is named after the position of
+ * its first byte and covers exactly {@code segmentSize} positions.
+ *
+ * <p>Readers track their own position and {@link #commit(long) commit} it once records are
+ * handled; the committed position is checkpointed to disk and segments wholly before it are
+ * deleted. All methods are synchronized; the journal is meant for a single writer path and a
+ * single forwarding reader.
+ */
+public final class EventJournal implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "journal.checkpoint";
+    private static final int HEADER_SIZE = 8;
+    private static final int END_MARKER = 0;
+    private static final int ROLL_MARKER = -1;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean fsync;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final CRC32C crc = new CRC32C();
+
+    private long writePosition;
+    private long committedPosition;
+
+    private EventJournal(Path directory, int segmentSize, boolean fsync) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Opens (or creates) a journal in the given directory and recovers its write position.
+     *
+     * @param directory the directory holding the segment files
+     * @param segmentSize the size of each segment file in bytes
+     * @param fsync whether to force every append to disk instead of relying on the page cache
+     * @return the opened journal
+     * @throws IOException if the directory or segments cannot be read
+     */
+    public static EventJournal open(Path directory, int segmentSize, boolean fsync) throws IOException {
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("Journal segment size must be at least 1024 bytes: " + segmentSize);
+        }
+        Files.createDirectories(directory);
+        EventJournal journal = new EventJournal(directory, segmentSize, fsync);
+        journal.recover();
+        return journal;
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param payload the record payload
+     * @return the position after the record
+     * @throws IOException if a new segment cannot be created
+     */
+    public synchronized long append(byte[] payload) throws IOException {
+        int recordSize = HEADER_SIZE + payload.length;
+        if (recordSize + 4 > segmentSize) {
+            throw new IllegalArgumentException("Journal record of " + payload.length + " bytes exceeds the segment size");
+        }
+        Segment segment = activeSegment();
+        int offset = (int) (writePosition - segment.base);
+        if (offset + recordSize + 4 > segmentSize) {
+            segment.buffer.putInt(offset, ROLL_MARKER);
+            force(segment);
+            segment = createSegment(segment.base + segmentSize);
+            offset = 0;
+            writePosition = segment.base;
+        }
+
+        crc.reset();
+        crc.update(payload);
+        MappedByteBuffer buffer = segment.buffer;
+        // Terminate first so the length only becomes visible once the payload is in place
+        buffer.putInt(offset + recordSize, END_MARKER);
+        buffer.put(offset + HEADER_SIZE, payload);
+        buffer.putInt(offset + 4, (int) crc.getValue());
+        buffer.putInt(offset, payload.length);
+        force(segment);
+
+        writePosition += recordSize;
+        return writePosition;
+    }
+
+    /**
+     * Reads up to {@code maxRecords} records starting at the given position.
+     *
+     * @param fromPosition the position to start at, normally the committed position or the
+     *                     {@code nextPosition} of the last record read
+     * @param maxRecords the maximum number of records to return
+     * @return the records, empty if there are none after the position; stops short of a corrupt
+     *         record so that the records before it can still be handled
+     * @throws JournalCorruptionException if the record at the start position is corrupt
+     */
+    public synchronized List<JournalRecord> read(long fromPosition, int maxRecords) {
+        List<JournalRecord> records = new ArrayList<>();
+        long position = Math.max(fromPosition, committedPosition);
+        while (records.size() < maxRecords && position < writePosition) {
+            Map.Entry<Long, Segment> entry = segments.floorEntry(position);
+            if (entry == null) {
+                break;
+            }
+            Segment segment = entry.getValue();
+            int offset = (int) (position - segment.base);
+            if (offset + HEADER_SIZE > segmentSize) {
+                position = segment.base + segmentSize;
+                continue;
+            }
+            int length = segment.buffer.getInt(offset);
+            if (length == ROLL_MARKER || length == END_MARKER) {
+                position = segment.base + segmentSize;
+                continue;
+            }
+            if (length < 0 || offset + HEADER_SIZE + length > segmentSize) {
+                if (records.isEmpty()) {
+                    throw new JournalCorruptionException("Journal record at position " + position
+                            + " has an invalid length " + length, position, segment.base + segmentSize);
+                }
+                break;
+            }
+            byte[] payload = new byte[length];
+            segment.buffer.get(offset + HEADER_SIZE, payload);
+            crc.reset();
+            crc.update(payload);
+            long nextPosition = position + HEADER_SIZE + length;
+            if ((int) crc.getValue() != segment.buffer.getInt(offset + 4)) {
+                if (records.isEmpty()) {
+                    throw new JournalCorruptionException("Journal record at position " + position
+                            + " failed its CRC check", position, nextPosition);
+                }
+                break;
+            }
+            records.add(new JournalRecord(position, nextPosition, payload));
+            position = nextPosition;
+        }
+        return records;
+    }
+
+    /**
+     * Marks everything before the given position as handled, checkpoints it and deletes
+     * segments that are no longer needed.
+     *
+     * @param position the {@code nextPosition} of the last handled record
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public synchronized void commit(long position) throws IOException {
+        if (position <= committedPosition) {
+            return;
+        }
+        committedPosition = Math.min(position, writePosition);
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.writeString(temp, Long.toString(committedPosition), StandardCharsets.US_ASCII);
+        Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        while (segments.size() > 1 && segments.firstKey() + segmentSize <= committedPosition) {
+            Segment segment = segments.pollFirstEntry().getValue();
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        }
+    }
+
+    /**
+     * Returns whether there are appended records that have not been committed yet.
+     */
+    public synchronized boolean hasPending() {
+        return readableFrom(committedPosition);
+    }
+
+    /**
+     * Returns the number of journal bytes between the committed and the write position.
+     */
+    public synchronized long pendingBytes() {
+        return readableFrom(committedPosition) ? writePosition - committedPosition : 0;
+    }
+
+    public synchronized long committedPosition() {
+        return committedPosition;
+    }
+
+    public synchronized long writePosition() {
+        return writePosition;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.buffer.force();
+            segment.channel.close();
+        }
+        segments.clear();
+    }
+
+    private boolean readableFrom(long position) {
+        // A committed position may point at a roll marker or a segment end; skip over those
+        while (position < writePosition) {
+            Map.Entry<Long, Segment> entry = segments.floorEntry(position);
+            if (entry == null) {
+                return false;
+            }
+            int offset = (int) (position - entry.getKey());
+            if (offset + HEADER_SIZE <= segmentSize) {
+                int length = entry.getValue().buffer.getInt(offset);
+                if (length > 0) {
+                    return true;
+                }
+            }
+            position = entry.getKey() + segmentSize;
+        }
+        return false;
+    }
+
+    private void recover() throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (Files.exists(checkpoint)) {
+            committedPosition = Long.parseLong(Files.readString(checkpoint, StandardCharsets.US_ASCII).trim());
+        }
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long base = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            if (base + segmentSize <= committedPosition) {
+                Files.deleteIfExists(file);
+            } else {
+                segments.put(base, mapSegment(file, base));
+            }
+        }
+
+        if (segments.isEmpty()) {
+            long base = committedPosition - Math.floorMod(committedPosition, (long) segmentSize);
+            createSegment(base);
+            writePosition = Math.max(base, committedPosition);
+            return;
+        }
+
+        // Find the end of the last segment, stopping at the first torn or corrupt record
+        Segment last = segments.lastEntry().getValue();
+        int offset = (int) Math.max(0, committedPosition - last.base);
+        while (offset + HEADER_SIZE <= segmentSize) {
+            int length = last.buffer.getInt(offset);
+            if (length <= 0 || offset + HEADER_SIZE + length > segmentSize) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            last.buffer.get(offset + HEADER_SIZE, payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != last.buffer.getInt(offset + 4)) {
+                break;
+            }
+            offset += HEADER_SIZE + length;
+        }
+        if (offset + 4 <= segmentSize) {
+            last.buffer.putInt(offset, END_MARKER);
+        }
+        writePosition = last.base + offset;
+        committedPosition = Math.min(committedPosition, writePosition);
+    }
+
+    private Segment activeSegment() throws IOException {
+        if (segments.isEmpty()) {
+            return createSegment(writePosition - Math.floorMod(writePosition, (long) segmentSize));
+        }
+        return segments.lastEntry().getValue();
+    }
+
+    private Segment createSegment(long base) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", base, SEGMENT_SUFFIX));
+        Segment segment = mapSegment(path, base);
+        segments.put(base, segment);
+        return segment;
+    }
+
+    private Segment mapSegment(Path path, long base) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        return new Segment(base, path, channel, buffer);
+    }
+
+    private void force(Segment segment) {
+        if (fsync) {
+            segment.buffer.force();
+        }
+    }
+
+    private record Segment(long base, Path path, FileChannel channel, MappedByteBuffer buffer) {
+    }
+}
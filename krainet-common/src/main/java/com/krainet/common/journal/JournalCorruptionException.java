@@ -0,0 +1,33 @@
+package com.krainet.common.journal;
+
+/**
+ * Thrown by {@link EventJournal#read(long, int)} when the record at the read position is
+ * corrupt. Readers that would rather lose the record than stop can commit
+ * {@link #resumePosition()} and read on from there.
+ */
+public class JournalCorruptionException extends IllegalStateException {
+
+    private final long position;
+    private final long resumePosition;
+
+    public JournalCorruptionException(String message, long position, long resumePosition) {
+        super(message);
+        this.position = position;
+        this.resumePosition = resumePosition;
+    }
+
+    /**
+     * Returns the position of the corrupt record.
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Returns the first position after the corrupt record that may hold a readable one: the end
+     * of the record if its length is plausible, otherwise the end of its segment.
+     */
+    public long resumePosition() {
+        return resumePosition;
+    }
+}
@@ -0,0 +1,11 @@
+package com.krainet.common.journal;
+
+/**
+ * A record read back from an {@link EventJournal}.
+ *
+ * @param position the journal position the record starts at
+ * @param nextPosition the position of the following record; commit this once the record is handled
+ * @param payload the record payload
+ */
+public record JournalRecord(long position, long nextPosition, byte[] payload) {
+}
@@ -0,0 +1,165 @@
+package com.krainet.common.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Encodes log events as one JSON object per line:
+ *
+ * <pre>{@code
+ * {"@timestamp":"2024-03-01T12:00:00.123Z","level":"INFO","service":"auth-service","thread":"http-nio-8080-exec-1",
+ *  "logger":"com.krainet...","message":"...","requestId":"...","traceId":"...","exception":"..."}
+ * }</pre>
+ *
+ * <p>Every MDC entry becomes a top-level field. Each thread writes into its own reused character
+ * and byte buffers rather than building intermediate strings, so beyond the event's own message
+ * the only per-event allocation is the returned array. Buffers grown by an unusually large event
+ * are given up again afterwards.
+ */
+public class JsonLogEncoder extends EncoderBase<ILoggingEvent> {
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    private String service;
+
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        Buffers buffer = buffers.get();
+        StringBuilder json = buffer.chars;
+        json.setLength(0);
+
+        json.append("{\"@timestamp\":\"");
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(event.getTimeStamp()), json);
+        json.append('"');
+        field(json, "level", event.getLevel().toString());
+        if (service != null) {
+            field(json, "service", service);
+        }
+        field(json, "thread", event.getThreadName());
+        field(json, "logger", event.getLoggerName());
+        field(json, "message", event.getFormattedMessage());
+        Map<String, String> mdc = event.getMDCPropertyMap();
+        if (mdc != null) {
+            for (Map.Entry<String, String> entry : mdc.entrySet()) {
+                field(json, entry.getKey(), entry.getValue());
+            }
+        }
+        IThrowableProxy throwable = event.getThrowableProxy();
+        if (throwable != null) {
+            field(json, "exception", ThrowableProxyUtil.asString(throwable));
+        }
+        json.append("}\n");
+
+        byte[] encoded = buffer.utf8(json);
+        buffer.trim();
+        return encoded;
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+
+    private static void field(StringBuilder json, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        json.append(",\"");
+        escape(json, name);
+        json.append("\":\"");
+        escape(json, value);
+        json.append('"');
+    }
+
+    private static void escape(StringBuilder json, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public void setService(String service) {
+        this.service = service;
+    }
+
+    private static final class Buffers {
+
+        StringBuilder chars = new StringBuilder(INITIAL_BUFFER_SIZE);
+        byte[] bytes = new byte[INITIAL_BUFFER_SIZE * 3];
+
+        /**
+         * Encodes the characters as UTF-8 into the reused byte buffer and returns an exact copy.
+         */
+        byte[] utf8(CharSequence text) {
+            int length = text.length();
+            if (bytes.length < length * 3) {
+                bytes = new byte[length * 3];
+            }
+            int position = 0;
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    bytes[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[position++] = (byte) (0xC0 | (c >> 6));
+                    bytes[position++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    bytes[position++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    bytes[position++] = '?';
+                } else {
+                    bytes[position++] = (byte) (0xE0 | (c >> 12));
+                    bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            return Arrays.copyOf(bytes, position);
+        }
+
+        void trim() {
+            if (chars.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+                chars = new StringBuilder(INITIAL_BUFFER_SIZE);
+            }
+            if (bytes.length > MAX_RETAINED_BUFFER_SIZE * 3) {
+                bytes = new byte[INITIAL_BUFFER_SIZE * 3];
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.krainet.common.logging;
+
+import org.slf4j.MDC;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Request-scoped logging context: puts the request and trace IDs into the MDC and decides whether
+ * the request's DEBUG logs are kept.
+ *
+ * <p>A sampled request's DEBUG events from {@code com.krainet} loggers pass the
+ * {@link SampledDebugFilter} even when those loggers run at INFO, so a fraction of requests is
+ * logged in full. The trace ID and sampling decision travel with user events in their
+ * {@link com.krainet.common.event.UserEvent#getMetadata() metadata}, so the notifications a request
+ * causes are logged at the same detail under the same trace ID.
+ */
+public final class LogContext {
+
+    public static final String REQUEST_ID = "requestId";
+    public static final String TRACE_ID = "traceId";
+    public static final String SAMPLED = "sampled";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final ThreadLocal<Boolean> SAMPLED_REQUEST = new ThreadLocal<>();
+
+    private LogContext() {
+    }
+
+    /**
+     * Starts the logging context of a request on the current thread.
+     *
+     * @param requestId  the request ID, or {@code null} to generate one
+     * @param traceId    the trace ID, or {@code null} to generate one
+     * @param sampled    {@code true} to keep the request's DEBUG logs regardless of the rate
+     * @param sampleRate fraction of other requests, from 0 to 1, whose DEBUG logs are kept
+     * @return whether the request's DEBUG logs are kept
+     */
+    public static boolean begin(String requestId, String traceId, boolean sampled, double sampleRate) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        boolean keepDebug = sampled || (sampleRate > 0 && random.nextDouble() < sampleRate);
+        MDC.put(REQUEST_ID, requestId != null ? requestId : randomHex(random, 1));
+        MDC.put(TRACE_ID, traceId != null ? traceId : randomHex(random, 2));
+        if (keepDebug) {
+            MDC.put(SAMPLED, "true");
+            SAMPLED_REQUEST.set(Boolean.TRUE);
+        }
+        return keepDebug;
+    }
+
+    /**
+     * Clears the logging context of the current thread.
+     */
+    public static void end() {
+        MDC.remove(REQUEST_ID);
+        MDC.remove(TRACE_ID);
+        MDC.remove(SAMPLED);
+        SAMPLED_REQUEST.remove();
+    }
+
+    /**
+     * Tells whether the current thread's request keeps its DEBUG logs.
+     */
+    public static boolean isSampled() {
+        return SAMPLED_REQUEST.get() != null;
+    }
+
+    /**
+     * Returns the current trace ID and sampling decision as user event metadata.
+     *
+     * @return the metadata, or {@code null} outside a request
+     */
+    public static Map<String, Object> eventMetadata() {
+        String traceId = MDC.get(TRACE_ID);
+        if (traceId == null) {
+            return null;
+        }
+        Map<String, Object> metadata = new HashMap<>(4);
+        metadata.put(TRACE_ID, traceId);
+        if (isSampled()) {
+            metadata.put(SAMPLED, Boolean.TRUE);
+        }
+        return metadata;
+    }
+
+    /**
+     * Starts the logging context for handling a user event, continuing the trace of the request
+     * that caused it.
+     *
+     * @param eventId    the event ID, used as the request ID
+     * @param metadata   the event's metadata, may be {@code null}
+     * @param sampleRate fraction of events without a sampled request whose DEBUG logs are kept
+     * @return whether the event's DEBUG logs are kept
+     */
+    public static boolean beginEvent(String eventId, Map<String, Object> metadata, double sampleRate) {
+        Object traceId = metadata != null ? metadata.get(TRACE_ID) : null;
+        boolean sampled = metadata != null && Boolean.TRUE.equals(metadata.get(SAMPLED));
+        return begin(eventId, traceId != null ? traceId.toString() : null, sampled, sampleRate);
+    }
+
+    private static String randomHex(ThreadLocalRandom random, int longs) {
+        char[] chars = new char[longs * 16];
+        for (int i = 0; i < longs; i++) {
+            long value = random.nextLong();
+            for (int j = 15; j >= 0; j--) {
+                chars[i * 16 + j] = HEX[(int) (value & 0xF)];
+                value >>>= 4;
+            }
+        }
+        return new String(chars);
+    }
+}
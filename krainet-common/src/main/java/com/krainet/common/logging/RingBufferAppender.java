@@ -0,0 +1,263 @@
+package com.krainet.common.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+import com.krainet.common.concurrent.RingBuffer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands log events to a single writer thread through a lock-free {@link RingBuffer}, so logging
+ * threads never wait on the attached appenders' I/O.
+ *
+ * <p>When the buffer is full, events below WARN are dropped at once; WARN and ERROR events wait up
+ * to {@link #setBlockTimeoutMs blockTimeoutMs} for room before they are dropped too. The writer
+ * reports how many events were dropped in a WARN event of its own, at most once a second. On
+ * stop, whatever is buffered is written for up to {@link #setMaxFlushTimeMs maxFlushTimeMs}.
+ *
+ * <pre>{@code
+ * <appender name="Async" class="com.krainet.common.logging.RingBufferAppender">
+ *     <capacity>8192</capacity>
+ *     <appender-ref ref="File"/>
+ * </appender>
+ * }</pre>
+ */
+public class RingBufferAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long DROP_REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private final AtomicBoolean writerWaiting = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private int capacity = 8192;
+    private int batchSize = 256;
+    private long blockTimeoutMs = 100;
+    private long maxFlushTimeMs = 1000;
+    private boolean includeCallerData;
+
+    private RingBuffer<ILoggingEvent> ringBuffer;
+    private volatile boolean running;
+    private volatile Thread writerThread;
+    private long lastDropReport;
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (!appenders.iteratorForAppenders().hasNext()) {
+            addError("No appender attached to " + getName());
+            return;
+        }
+        ringBuffer = new RingBuffer<>(capacity);
+        running = true;
+        Thread thread = new Thread(this::writeLoop, "log-writer-" + getName());
+        thread.setDaemon(true);
+        writerThread = thread;
+        thread.start();
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        running = false;
+        Thread thread = writerThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(maxFlushTimeMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (thread.isAlive()) {
+                addWarn("Log writer did not flush " + ringBuffer.size() + " events within " + maxFlushTimeMs + " ms");
+            }
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        // Capture the formatted message, MDC and thread name before another thread reads them
+        event.prepareForDeferredProcessing();
+        if (includeCallerData) {
+            event.getCallerData();
+        }
+        if (!ringBuffer.offer(event) && !offerWhenFull(event)) {
+            dropped.incrementAndGet();
+            return;
+        }
+        wakeWriter();
+    }
+
+    private boolean offerWhenFull(ILoggingEvent event) {
+        if (!event.getLevel().isGreaterOrEqual(Level.WARN)) {
+            return false;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+        while (!ringBuffer.offer(event)) {
+            if (System.nanoTime() - deadline >= 0 || !running) {
+                return false;
+            }
+            wakeWriter();
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+        return true;
+    }
+
+    private void wakeWriter() {
+        if (writerWaiting.get() && writerWaiting.compareAndSet(true, false)) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    private void writeLoop() {
+        List<ILoggingEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            if (writeBatch(batch) == 0) {
+                writerWaiting.set(true);
+                // Re-check after announcing the wait so a concurrent append is never missed
+                if (ringBuffer.isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                writerWaiting.set(false);
+            }
+        }
+        while (writeBatch(batch) > 0) {
+            // Flush whatever is left after stop()
+        }
+        reportDropped(true);
+    }
+
+    private int writeBatch(List<ILoggingEvent> batch) {
+        batch.clear();
+        ringBuffer.drainTo(batch, batchSize);
+        for (ILoggingEvent event : batch) {
+            appenders.appendLoopOnAppenders(event);
+        }
+        reportDropped(false);
+        return batch.size();
+    }
+
+    /**
+     * Reports the events dropped since the last report, at most once a second unless forced.
+     */
+    private void reportDropped(boolean force) {
+        long now = System.nanoTime();
+        if (!force && now - lastDropReport < DROP_REPORT_INTERVAL_NANOS) {
+            return;
+        }
+        long count = dropped.getAndSet(0);
+        if (count == 0) {
+            return;
+        }
+        lastDropReport = now;
+        LoggerContext loggerContext = (LoggerContext) getContext();
+        LoggingEvent report = new LoggingEvent(RingBufferAppender.class.getName(),
+                loggerContext.getLogger(RingBufferAppender.class), Level.WARN,
+                "Log buffer of appender {} was full, dropped {} events", null, new Object[]{getName(), count});
+        appenders.appendLoopOnAppenders(report);
+    }
+
+    /**
+     * Returns the number of buffered events not yet written.
+     */
+    public int getQueueSize() {
+        return ringBuffer != null ? ringBuffer.size() : 0;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getBlockTimeoutMs() {
+        return blockTimeoutMs;
+    }
+
+    public void setBlockTimeoutMs(long blockTimeoutMs) {
+        this.blockTimeoutMs = blockTimeoutMs;
+    }
+
+    public long getMaxFlushTimeMs() {
+        return maxFlushTimeMs;
+    }
+
+    public void setMaxFlushTimeMs(long maxFlushTimeMs) {
+        this.maxFlushTimeMs = maxFlushTimeMs;
+    }
+
+    public boolean isIncludeCallerData() {
+        return includeCallerData;
+    }
+
+    public void setIncludeCallerData(boolean includeCallerData) {
+        this.includeCallerData = includeCallerData;
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        appenders.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
@@ -0,0 +1,39 @@
+package com.krainet.common.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+/**
+ * Lets DEBUG events of {@link LogContext#isSampled() sampled} requests through for loggers under
+ * {@link #setLoggerPrefix a prefix}, whatever those loggers' level. Everything else is left to the
+ * normal level checks, so unsampled requests pay only for a thread-local lookup per DEBUG call.
+ *
+ * <pre>{@code
+ * <turboFilter class="com.krainet.common.logging.SampledDebugFilter">
+ *     <loggerPrefix>com.krainet</loggerPrefix>
+ * </turboFilter>
+ * }</pre>
+ */
+public class SampledDebugFilter extends TurboFilter {
+
+    private String loggerPrefix = "com.krainet";
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level == null || level.levelInt != Level.DEBUG_INT || !LogContext.isSampled()) {
+            return FilterReply.NEUTRAL;
+        }
+        return logger.getName().startsWith(loggerPrefix) ? FilterReply.ACCEPT : FilterReply.NEUTRAL;
+    }
+
+    public String getLoggerPrefix() {
+        return loggerPrefix;
+    }
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+}
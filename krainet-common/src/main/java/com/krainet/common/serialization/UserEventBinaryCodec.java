@@ -0,0 +1,456 @@
+package com.krainet.common.serialization;
+
+import com.krainet.common.event.EventType;
+import com.krainet.common.event.UserEvent;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact, versioned binary encoding of {@link UserEvent}.
+ *
+ * <p>Layout (version 3), all numbers big-endian:
+ * <pre>
+ * byte     version
+ * short    presence flags, one bit per optional field
+ * [long, long]  eventId as a UUID, or [varint, utf8] when it is not a UUID
+ * byte     eventType ordinal
+ * long     timestamp in epoch microseconds (the local date-time read as UTC)
+ * long, long    userId
+ * varint, utf8  username, email, userRole
+ * long, long    initiatorUserId
+ * varint, utf8  initiatorUsername
+ * varint        metadata entry count, then per entry a key string and a tagged value
+ * varint        changedFields bitmask
+ * varint        previousValues entry count, then per entry a key and a value string
+ * varlong       sequence
+ * </pre>
+ * Absent fields take no space and the enabled flag lives entirely in the presence flags.
+ * Metadata values are written as strings, longs, doubles or booleans; integral numbers
+ * therefore decode as {@link Long} and any other type as its {@code toString()}.
+ *
+ * <p>Version 2 is identical without the sequence, and version 1 additionally lacks the enabled
+ * flags, changedFields and previousValues. Both are still accepted by {@link #decode}.
+ *
+ * <p>Version 3 uses all sixteen presence flags. The next field therefore needs version 4, which
+ * writes the presence flags as a varint instead of a short: bits 0-15 keep their meaning, new
+ * fields take bit 16 and up, and their values follow the sequence. {@link #decode} keeps reading a
+ * short for versions 1-3. Consumers must be able to read version 4 before producers write it.
+ */
+public final class UserEventBinaryCodec {
+
+    public static final byte VERSION_1 = 1;
+    public static final byte VERSION_2 = 2;
+    public static final byte VERSION_3 = 3;
+    public static final byte CURRENT_VERSION = VERSION_3;
+
+    private static final int EVENT_ID_UUID = 1;
+    private static final int EVENT_ID_STRING = 1 << 1;
+    private static final int EVENT_TYPE = 1 << 2;
+    private static final int TIMESTAMP = 1 << 3;
+    private static final int USER_ID = 1 << 4;
+    private static final int USERNAME = 1 << 5;
+    private static final int EMAIL = 1 << 6;
+    private static final int USER_ROLE = 1 << 7;
+    private static final int INITIATOR_USER_ID = 1 << 8;
+    private static final int INITIATOR_USERNAME = 1 << 9;
+    private static final int METADATA = 1 << 10;
+    private static final int ENABLED_PRESENT = 1 << 11;
+    private static final int ENABLED_TRUE = 1 << 12;
+    private static final int CHANGED_FIELDS = 1 << 13;
+    private static final int PREVIOUS_VALUES = 1 << 14;
+    private static final int SEQUENCE = 1 << 15;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_LONG = 2;
+    private static final byte TAG_DOUBLE = 3;
+    private static final byte TAG_BOOLEAN = 4;
+
+    private static final EventType[] EVENT_TYPES = EventType.values();
+    // Maps read from a record start no larger than this and grow if the entries really are there
+    private static final int MAX_INITIAL_MAP_CAPACITY = 64;
+
+    private UserEventBinaryCodec() {
+    }
+
+    /**
+     * Encodes an event with the current format version.
+     *
+     * @param event the event to encode
+     * @return the encoded bytes
+     */
+    public static byte[] encode(UserEvent event) {
+        UUID eventUuid = parseUuid(event.getEventId());
+
+        int flags = 0;
+        if (eventUuid != null) {
+            flags |= EVENT_ID_UUID;
+        } else if (event.getEventId() != null) {
+            flags |= EVENT_ID_STRING;
+        }
+        flags |= flag(event.getEventType(), EVENT_TYPE)
+                | flag(event.getTimestamp(), TIMESTAMP)
+                | flag(event.getUserId(), USER_ID)
+                | flag(event.getUsername(), USERNAME)
+                | flag(event.getEmail(), EMAIL)
+                | flag(event.getUserRole(), USER_ROLE)
+                | flag(event.getInitiatorUserId(), INITIATOR_USER_ID)
+                | flag(event.getInitiatorUsername(), INITIATOR_USERNAME)
+                | flag(event.getMetadata(), METADATA)
+                | flag(event.getEnabled(), ENABLED_PRESENT)
+                | (Boolean.TRUE.equals(event.getEnabled()) ? ENABLED_TRUE : 0)
+                | flag(event.getChangedFields(), CHANGED_FIELDS)
+                | flag(event.getPreviousValues(), PREVIOUS_VALUES)
+                | flag(event.getSequence(), SEQUENCE);
+
+        Writer out = new Writer(128);
+        out.writeByte(CURRENT_VERSION);
+        out.writeShort(flags);
+        if ((flags & EVENT_ID_UUID) != 0) {
+            out.writeUuid(eventUuid);
+        } else if ((flags & EVENT_ID_STRING) != 0) {
+            out.writeString(event.getEventId());
+        }
+        if ((flags & EVENT_TYPE) != 0) {
+            out.writeByte(event.getEventType().ordinal());
+        }
+        if ((flags & TIMESTAMP) != 0) {
+            out.writeLong(toEpochMicros(event.getTimestamp()));
+        }
+        if ((flags & USER_ID) != 0) {
+            out.writeUuid(event.getUserId());
+        }
+        if ((flags & USERNAME) != 0) {
+            out.writeString(event.getUsername());
+        }
+        if ((flags & EMAIL) != 0) {
+            out.writeString(event.getEmail());
+        }
+        if ((flags & USER_ROLE) != 0) {
+            out.writeString(event.getUserRole());
+        }
+        if ((flags & INITIATOR_USER_ID) != 0) {
+            out.writeUuid(event.getInitiatorUserId());
+        }
+        if ((flags & INITIATOR_USERNAME) != 0) {
+            out.writeString(event.getInitiatorUsername());
+        }
+        if ((flags & METADATA) != 0) {
+            writeMetadata(out, event.getMetadata());
+        }
+        if ((flags & CHANGED_FIELDS) != 0) {
+            out.writeVarInt(event.getChangedFields());
+        }
+        if ((flags & PREVIOUS_VALUES) != 0) {
+            writeStringMap(out, event.getPreviousValues());
+        }
+        if ((flags & SEQUENCE) != 0) {
+            out.writeVarLong(event.getSequence());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes an event written by any supported format version.
+     *
+     * @param data the encoded bytes
+     * @return the decoded event
+     * @throws IllegalArgumentException if the data is truncated or has an unsupported version
+     */
+    public static UserEvent decode(byte[] data) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        try {
+            byte version = in.get();
+            if (version < VERSION_1 || version > CURRENT_VERSION) {
+                throw new IllegalArgumentException("Unsupported user event binary version: " + version);
+            }
+            int flags = in.getShort() & 0xFFFF;
+
+            UserEvent event = new UserEvent();
+            if ((flags & EVENT_ID_UUID) != 0) {
+                event.setEventId(readUuid(in).toString());
+            } else if ((flags & EVENT_ID_STRING) != 0) {
+                event.setEventId(readString(in));
+            }
+            if ((flags & EVENT_TYPE) != 0) {
+                int ordinal = in.get() & 0xFF;
+                event.setEventType(ordinal < EVENT_TYPES.length ? EVENT_TYPES[ordinal] : EventType.UNKNOWN);
+            }
+            if ((flags & TIMESTAMP) != 0) {
+                event.setTimestamp(fromEpochMicros(in.getLong()));
+            }
+            if ((flags & USER_ID) != 0) {
+                event.setUserId(readUuid(in));
+            }
+            if ((flags & USERNAME) != 0) {
+                event.setUsername(readString(in));
+            }
+            if ((flags & EMAIL) != 0) {
+                event.setEmail(readString(in));
+            }
+            if ((flags & USER_ROLE) != 0) {
+                event.setUserRole(readString(in));
+            }
+            if ((flags & INITIATOR_USER_ID) != 0) {
+                event.setInitiatorUserId(readUuid(in));
+            }
+            if ((flags & INITIATOR_USERNAME) != 0) {
+                event.setInitiatorUsername(readString(in));
+            }
+            if ((flags & METADATA) != 0) {
+                event.setMetadata(readMetadata(in));
+            }
+            if ((flags & ENABLED_PRESENT) != 0) {
+                event.setEnabled((flags & ENABLED_TRUE) != 0);
+            }
+            if ((flags & CHANGED_FIELDS) != 0) {
+                event.setChangedFields(readVarInt(in));
+            }
+            if ((flags & PREVIOUS_VALUES) != 0) {
+                event.setPreviousValues(readStringMap(in));
+            }
+            if ((flags & SEQUENCE) != 0) {
+                event.setSequence(readVarLong(in));
+            }
+            return event;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated user event binary record", e);
+        }
+    }
+
+    /**
+     * Returns whether the data starts with a binary format version this codec can read.
+     *
+     * @param data the record value
+     * @return {@code true} if the data looks like a binary-encoded event
+     */
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] >= VERSION_1 && data[0] <= CURRENT_VERSION;
+    }
+
+    private static int flag(Object value, int flag) {
+        return value != null ? flag : 0;
+    }
+
+    private static UUID parseUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            // Only use the compact form when it round-trips to the exact same string
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long toEpochMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(
+                Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000,
+                ZoneOffset.UTC);
+    }
+
+    private static void writeMetadata(Writer out, Map<String, Object> metadata) {
+        out.writeVarInt(metadata.size());
+        for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+            out.writeString(entry.getKey());
+            Object value = entry.getValue();
+            if (value == null) {
+                out.writeByte(TAG_NULL);
+            } else if (value instanceof Boolean b) {
+                out.writeByte(TAG_BOOLEAN);
+                out.writeByte(b ? 1 : 0);
+            } else if (value instanceof Long || value instanceof Integer
+                    || value instanceof Short || value instanceof Byte) {
+                out.writeByte(TAG_LONG);
+                out.writeLong(((Number) value).longValue());
+            } else if (value instanceof Double || value instanceof Float) {
+                out.writeByte(TAG_DOUBLE);
+                out.writeLong(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+            } else {
+                out.writeByte(TAG_STRING);
+                out.writeString(value.toString());
+            }
+        }
+    }
+
+    private static Map<String, Object> readMetadata(ByteBuffer in) {
+        // Every entry takes at least a key length and a tag byte
+        int size = readCount(in, 2);
+        Map<String, Object> metadata = new LinkedHashMap<>(initialCapacity(size));
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            byte tag = in.get();
+            Object value = switch (tag) {
+                case TAG_NULL -> null;
+                case TAG_STRING -> readString(in);
+                case TAG_LONG -> in.getLong();
+                case TAG_DOUBLE -> Double.longBitsToDouble(in.getLong());
+                case TAG_BOOLEAN -> in.get() != 0;
+                default -> throw new IllegalArgumentException("Unknown metadata value tag: " + tag);
+            };
+            metadata.put(key, value);
+        }
+        return metadata;
+    }
+
+    private static void writeStringMap(Writer out, Map<String, String> map) {
+        out.writeVarInt(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            out.writeString(entry.getKey());
+            out.writeString(entry.getValue() != null ? entry.getValue() : "");
+        }
+    }
+
+    private static Map<String, String> readStringMap(ByteBuffer in) {
+        // Every entry takes at least a key length and a value length
+        int size = readCount(in, 2);
+        Map<String, String> map = new LinkedHashMap<>(initialCapacity(size));
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readString(in));
+        }
+        return map;
+    }
+
+    private static UUID readUuid(ByteBuffer in) {
+        return new UUID(in.getLong(), in.getLong());
+    }
+
+    /**
+     * Reads a map entry count and rejects one that is negative or could not fit in the bytes left.
+     */
+    private static int readCount(ByteBuffer in, int minEntryBytes) {
+        int count = readVarInt(in);
+        if (count < 0 || count > in.remaining() / minEntryBytes) {
+            throw new IllegalArgumentException("Entry count " + count + " exceeds remaining bytes");
+        }
+        return count;
+    }
+
+    /**
+     * Returns a map capacity for the count without letting untrusted input size the table.
+     */
+    private static int initialCapacity(int count) {
+        return Math.min(Math.max(4, count * 2), MAX_INITIAL_MAP_CAPACITY);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = readVarInt(in);
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("String length " + length + " exceeds remaining bytes");
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varlong");
+    }
+
+    /**
+     * Minimal growable big-endian byte writer.
+     */
+    private static final class Writer {
+
+        private byte[] buffer;
+        private int position;
+
+        Writer(int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeShort(int value) {
+            ensureCapacity(2);
+            buffer[position++] = (byte) (value >>> 8);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeUuid(UUID uuid) {
+            writeLong(uuid.getMostSignificantBits());
+            writeLong(uuid.getLeastSignificantBits());
+        }
+
+        void writeVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int additional) {
+            if (position + additional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additional));
+            }
+        }
+    }
+}
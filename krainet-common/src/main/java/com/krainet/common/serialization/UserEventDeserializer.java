@@ -0,0 +1,51 @@
+package com.krainet.common.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.krainet.common.event.UserEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+
+/**
+ * Kafka deserializer for {@link UserEvent} that reads both JSON and the compact binary format.
+ *
+ * <p>The format is taken from the {@link UserEventFormat#CONTENT_TYPE_HEADER} header. Records
+ * without the header (written before the header was introduced) are recognised by their first
+ * byte, so consumers can be upgraded before producers switch format.
+ */
+public class UserEventDeserializer implements Deserializer<UserEvent> {
+
+    private final ObjectMapper objectMapper = UserEventObjectMapper.INSTANCE;
+
+    @Override
+    public UserEvent deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        Header contentType = headers != null ? headers.lastHeader(UserEventFormat.CONTENT_TYPE_HEADER) : null;
+        UserEventFormat format = contentType != null ? UserEventFormat.fromContentType(contentType.value()) : null;
+        if (format == null) {
+            format = UserEventBinaryCodec.isBinary(data) ? UserEventFormat.BINARY : UserEventFormat.JSON;
+        }
+        return decode(format, data);
+    }
+
+    @Override
+    public UserEvent deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    private UserEvent decode(UserEventFormat format, byte[] data) {
+        try {
+            if (format == UserEventFormat.BINARY) {
+                return UserEventBinaryCodec.decode(data);
+            }
+            return objectMapper.readValue(data, UserEvent.class);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new SerializationException("Can't deserialize " + format.getFormatName() + " user event", e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.krainet.common.serialization;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Wire formats for {@link com.krainet.common.event.UserEvent} records. The format of every record
+ * is announced in the {@link #CONTENT_TYPE_HEADER} header so JSON and binary producers and
+ * consumers can be rolled out side by side.
+ */
+public enum UserEventFormat {
+
+    JSON("json", "application/json"),
+    BINARY("binary", "application/x-krainet-user-event");
+
+    /**
+     * Kafka record header carrying the content type of the value.
+     */
+    public static final String CONTENT_TYPE_HEADER = "krainet.content-type";
+
+    private final String formatName;
+    private final String contentType;
+    private final byte[] contentTypeBytes;
+
+    UserEventFormat(String formatName, String contentType) {
+        this.formatName = formatName;
+        this.contentType = contentType;
+        this.contentTypeBytes = contentType.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public String getFormatName() {
+        return formatName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    byte[] contentTypeBytes() {
+        return contentTypeBytes;
+    }
+
+    /**
+     * Resolves a format from its configuration name ({@code json} or {@code binary}).
+     *
+     * @param name the format name
+     * @return the matching format
+     * @throws IllegalArgumentException if no format has that name
+     */
+    public static UserEventFormat fromName(String name) {
+        return Arrays.stream(values())
+                .filter(format -> format.formatName.equalsIgnoreCase(name) || format.name().equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown user event format: " + name));
+    }
+
+    /**
+     * Resolves a format from a content type header value.
+     *
+     * @param contentTypeBytes the raw header value
+     * @return the matching format, or {@code null} if the content type is not recognised
+     */
+    static UserEventFormat fromContentType(byte[] contentTypeBytes) {
+        for (UserEventFormat format : values()) {
+            if (Arrays.equals(format.contentTypeBytes, contentTypeBytes)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,208 @@
+package com.krainet.common.serialization;
+
+import com.krainet.common.event.EventType;
+import com.krainet.common.event.UserEvent;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Kafka record headers that describe a {@link UserEvent} without decoding its value, so a
+ * consumer can route or drop records from the headers alone, and the times the event passed the
+ * producer's stages, so a consumer can tell where end-to-end latency comes from. They are written
+ * by {@link UserEventSerializer} next to the {@link UserEventFormat#CONTENT_TYPE_HEADER} header.
+ * Values are ASCII text so the headers stay readable in Kafka tooling.
+ */
+public final class UserEventHeaders {
+
+    /**
+     * Header carrying the {@link EventType} name.
+     */
+    public static final String EVENT_TYPE_HEADER = "krainet.event-type";
+
+    /**
+     * Header carrying {@code true} when no other user initiated the event: the user acted on
+     * their own account, or there was no authenticated initiator.
+     */
+    public static final String SELF_INITIATED_HEADER = "krainet.self-initiated";
+
+    /**
+     * Header carrying the {@link com.krainet.common.event.ChangedField} bitmask in decimal;
+     * absent when the event does not track individual changes.
+     */
+    public static final String CHANGED_FIELDS_HEADER = "krainet.changed-fields";
+
+    /**
+     * Header carrying the epoch millisecond the user change was saved, taken from the event's
+     * UTC timestamp.
+     */
+    public static final String COMMITTED_AT_HEADER = "krainet.committed-at";
+
+    /**
+     * Header carrying the epoch millisecond the record was handed to the producer.
+     */
+    public static final String PUBLISHED_AT_HEADER = "krainet.published-at";
+
+    /**
+     * Header carrying {@code true} on events the producer journaled during a Kafka outage and
+     * forwarded later. Such an event may arrive after newer events for the same user. Unlike the
+     * other headers it is set by the sender, not by {@link #stamp}.
+     */
+    public static final String REPLAYED_HEADER = "krainet.replayed";
+
+    private static final EventType[] EVENT_TYPES = EventType.values();
+    private static final byte[][] EVENT_TYPE_BYTES = new byte[EVENT_TYPES.length][];
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+
+    static {
+        for (EventType eventType : EVENT_TYPES) {
+            EVENT_TYPE_BYTES[eventType.ordinal()] = ascii(eventType.name());
+        }
+    }
+
+    private UserEventHeaders() {
+    }
+
+    /**
+     * Replaces the routing headers with the ones describing the given event.
+     *
+     * @param headers the record's headers
+     * @param event the event being written
+     */
+    public static void stamp(Headers headers, UserEvent event) {
+        headers.remove(EVENT_TYPE_HEADER);
+        headers.remove(SELF_INITIATED_HEADER);
+        headers.remove(CHANGED_FIELDS_HEADER);
+        headers.remove(COMMITTED_AT_HEADER);
+        headers.remove(PUBLISHED_AT_HEADER);
+        if (event.getEventType() != null) {
+            headers.add(EVENT_TYPE_HEADER, EVENT_TYPE_BYTES[event.getEventType().ordinal()]);
+        }
+        boolean selfInitiated = event.getInitiatorUserId() == null || event.getInitiatorUserId().equals(event.getUserId());
+        headers.add(SELF_INITIATED_HEADER, selfInitiated ? TRUE : FALSE);
+        if (event.getChangedFields() != null) {
+            headers.add(CHANGED_FIELDS_HEADER, ascii(Integer.toString(event.getChangedFields())));
+        }
+        long committedAt = committedAt(event);
+        if (committedAt >= 0) {
+            headers.add(COMMITTED_AT_HEADER, ascii(Long.toString(committedAt)));
+        }
+        headers.add(PUBLISHED_AT_HEADER, ascii(Long.toString(System.currentTimeMillis())));
+    }
+
+    /**
+     * Marks a record as replayed from the producer's journal.
+     *
+     * @param headers the record's headers
+     */
+    public static void markReplayed(Headers headers) {
+        headers.remove(REPLAYED_HEADER);
+        headers.add(REPLAYED_HEADER, TRUE);
+    }
+
+    /**
+     * Reads the replayed header.
+     *
+     * @param headers the record's headers
+     * @return whether the record was replayed from the producer's journal
+     */
+    public static boolean replayed(Headers headers) {
+        return Arrays.equals(TRUE, lastValue(headers, REPLAYED_HEADER));
+    }
+
+    /**
+     * Returns the epoch millisecond the event's user change was saved.
+     *
+     * @param event the event
+     * @return the event timestamp in epoch milliseconds, or {@code -1} if it has none
+     */
+    public static long committedAt(UserEvent event) {
+        if (event.getTimestamp() == null) {
+            return -1;
+        }
+        return event.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Reads the event type header.
+     *
+     * @param headers the record's headers
+     * @return the event type, or {@code null} if the header is missing or not a known type
+     */
+    public static EventType eventType(Headers headers) {
+        byte[] value = lastValue(headers, EVENT_TYPE_HEADER);
+        if (value == null) {
+            return null;
+        }
+        for (int i = 0; i < EVENT_TYPE_BYTES.length; i++) {
+            if (Arrays.equals(EVENT_TYPE_BYTES[i], value)) {
+                return EVENT_TYPES[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the self-initiated header.
+     *
+     * @param headers the record's headers
+     * @return the flag, or {@code null} if the header is missing
+     */
+    public static Boolean selfInitiated(Headers headers) {
+        byte[] value = lastValue(headers, SELF_INITIATED_HEADER);
+        return value == null ? null : Arrays.equals(TRUE, value);
+    }
+
+    /**
+     * Reads the changed-fields header.
+     *
+     * @param headers the record's headers
+     * @return the bitmask, or {@code null} if the header is missing or malformed
+     */
+    public static Integer changedFields(Headers headers) {
+        byte[] value = lastValue(headers, CHANGED_FIELDS_HEADER);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(new String(value, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads one of the stage timestamp headers.
+     *
+     * @param headers the record's headers
+     * @param key {@link #COMMITTED_AT_HEADER} or {@link #PUBLISHED_AT_HEADER}
+     * @return the epoch millisecond, or {@code -1} if the header is missing or malformed
+     */
+    public static long timestamp(Headers headers, String key) {
+        byte[] value = lastValue(headers, key);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(new String(value, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static byte[] lastValue(Headers headers, String key) {
+        if (headers == null) {
+            return null;
+        }
+        Header header = headers.lastHeader(key);
+        return header != null ? header.value() : null;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
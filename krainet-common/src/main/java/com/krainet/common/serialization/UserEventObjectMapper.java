@@ -0,0 +1,23 @@
+package com.krainet.common.serialization;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * Shared Jackson mapper for the JSON user event format, configured like Spring Kafka's
+ * {@code JsonSerializer} so JSON records stay byte-compatible with existing consumers.
+ */
+final class UserEventObjectMapper {
+
+    static final ObjectMapper INSTANCE = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private UserEventObjectMapper() {
+    }
+}
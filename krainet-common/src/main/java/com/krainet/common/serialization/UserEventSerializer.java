@@ -0,0 +1,75 @@
+package com.krainet.common.serialization;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.krainet.common.event.UserEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.Map;
+
+/**
+ * Kafka serializer for {@link UserEvent} that writes either JSON or the compact
+ * {@link UserEventBinaryCodec binary} format, selected with {@link #FORMAT_CONFIG}.
+ * Every record is stamped with a {@link UserEventFormat#CONTENT_TYPE_HEADER} header and the
+ * {@link UserEventHeaders routing and stage timing headers}, which consumers can read without
+ * decoding the value.
+ */
+public class UserEventSerializer implements Serializer<UserEvent> {
+
+    /**
+     * Producer property selecting the wire format: {@code json} (default) or {@code binary}.
+     */
+    public static final String FORMAT_CONFIG = "krainet.user-event.format";
+
+    private final ObjectMapper objectMapper = UserEventObjectMapper.INSTANCE;
+    private UserEventFormat format = UserEventFormat.JSON;
+
+    public UserEventSerializer() {
+    }
+
+    public UserEventSerializer(UserEventFormat format) {
+        this.format = format;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object configured = configs.get(FORMAT_CONFIG);
+        if (configured instanceof UserEventFormat userEventFormat) {
+            format = userEventFormat;
+        } else if (configured != null) {
+            format = UserEventFormat.fromName(configured.toString());
+        }
+    }
+
+    public UserEventFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, UserEvent data) {
+        if (data == null) {
+            return null;
+        }
+        headers.remove(UserEventFormat.CONTENT_TYPE_HEADER);
+        headers.add(UserEventFormat.CONTENT_TYPE_HEADER, format.contentTypeBytes());
+        UserEventHeaders.stamp(headers, data);
+        return serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, UserEvent data) {
+        if (data == null) {
+            return null;
+        }
+        if (format == UserEventFormat.BINARY) {
+            return UserEventBinaryCodec.encode(data);
+        }
+        try {
+            return objectMapper.writeValueAsBytes(data);
+        } catch (JsonProcessingException e) {
+            throw new SerializationException("Can't serialize user event " + data.getEventId(), e);
+        }
+    }
+}
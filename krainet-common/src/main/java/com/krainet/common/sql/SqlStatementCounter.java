@@ -0,0 +1,81 @@
+package com.krainet.common.sql;
+
+/**
+ * Thread-bound scopes in which the statements executed through a {@link CountingDataSource} are
+ * counted. Scopes nest: a statement counts towards every scope open on the thread, so a test can
+ * wrap a request that opens its own scope. Outside any scope, statements are not counted at all.
+ *
+ * <pre>{@code
+ * SqlStatistics statistics = SqlStatementCounter.begin();
+ * try {
+ *     ...
+ * } finally {
+ *     SqlStatementCounter.end(statistics);
+ * }
+ * }</pre>
+ */
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private SqlStatementCounter() {
+    }
+
+    /**
+     * Opens a scope on the current thread.
+     *
+     * @return the scope's statistics, updated until it is ended
+     */
+    public static SqlStatistics begin() {
+        SqlStatistics statistics = new SqlStatistics(CURRENT.get());
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * Ends a scope opened by {@link #begin()}, and any scope opened in it and not ended yet.
+     *
+     * @param statistics the scope's statistics
+     */
+    public static void end(SqlStatistics statistics) {
+        SqlStatistics current = CURRENT.get();
+        while (current != null && current != statistics) {
+            current = current.parent();
+        }
+        if (current == null) {
+            return;
+        }
+        if (statistics.parent() != null) {
+            CURRENT.set(statistics.parent());
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Returns the innermost scope of the current thread.
+     *
+     * @return the scope's statistics, or {@code null} outside any scope
+     */
+    public static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Counts an executed statement in every scope of the current thread.
+     */
+    static void record(String sql, long nanos) {
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics == null) {
+            return;
+        }
+        SqlStatementType type = SqlStatementType.of(sql);
+        for (; statistics != null; statistics = statistics.parent()) {
+            statistics.record(sql, type, nanos);
+        }
+    }
+
+    static boolean isCounting() {
+        return CURRENT.get() != null;
+    }
+}
@@ -0,0 +1,60 @@
+package com.krainet.common.sql;
+
+/**
+ * Kind of an executed SQL statement, taken from its leading keyword.
+ */
+public enum SqlStatementType {
+    SELECT,
+    INSERT,
+    UPDATE,
+    DELETE,
+    OTHER;
+
+    /**
+     * Classifies a statement by its first keyword, skipping whitespace, comments and opening
+     * parentheses. Common table expressions ({@code WITH ...}) count as selects.
+     *
+     * @param sql the statement, may be {@code null}
+     * @return the statement's type
+     */
+    public static SqlStatementType of(String sql) {
+        if (sql == null) {
+            return OTHER;
+        }
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c) || c == '(') {
+                i++;
+            } else if (sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else {
+                break;
+            }
+        }
+        if (startsWithKeyword(sql, i, "select") || startsWithKeyword(sql, i, "with")) {
+            return SELECT;
+        }
+        if (startsWithKeyword(sql, i, "insert")) {
+            return INSERT;
+        }
+        if (startsWithKeyword(sql, i, "update")) {
+            return UPDATE;
+        }
+        if (startsWithKeyword(sql, i, "delete")) {
+            return DELETE;
+        }
+        return OTHER;
+    }
+
+    private static boolean startsWithKeyword(String sql, int offset, String keyword) {
+        int end = offset + keyword.length();
+        return sql.regionMatches(true, offset, keyword, 0, keyword.length())
+                && (end == sql.length() || !Character.isLetterOrDigit(sql.charAt(end)));
+    }
+}
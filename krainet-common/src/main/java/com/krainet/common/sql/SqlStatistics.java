@@ -0,0 +1,112 @@
+package com.krainet.common.sql;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statements executed within one {@link SqlStatementCounter} scope, usually an HTTP request:
+ * how many of each {@link SqlStatementType}, how long they took, and how often each distinct
+ * statement ran.
+ *
+ * <p>Prepared statements keep their placeholders, so a statement that runs once per row of an
+ * earlier result (the N+1 pattern) shows up as one statement with a high count. A batch counts
+ * as one execution of its statement. Only the thread that owns the scope updates it.
+ */
+public final class SqlStatistics {
+
+    /**
+     * Distinct statements tracked per scope; later ones are still counted, just not by text.
+     */
+    static final int MAX_DISTINCT_STATEMENTS = 256;
+
+    private final SqlStatistics parent;
+    private final int[] counts = new int[SqlStatementType.values().length];
+    private final Map<String, Integer> executions = new LinkedHashMap<>();
+    private long timeNanos;
+
+    SqlStatistics(SqlStatistics parent) {
+        this.parent = parent;
+    }
+
+    SqlStatistics parent() {
+        return parent;
+    }
+
+    void record(String sql, SqlStatementType type, long nanos) {
+        counts[type.ordinal()]++;
+        timeNanos += nanos;
+        if (sql != null && (executions.size() < MAX_DISTINCT_STATEMENTS || executions.containsKey(sql))) {
+            executions.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Returns how many statements of a type were executed.
+     */
+    public int count(SqlStatementType type) {
+        return counts[type.ordinal()];
+    }
+
+    /**
+     * Returns how many statements were executed in total.
+     */
+    public int total() {
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the time spent executing statements, excluding reading their results.
+     */
+    public long time(TimeUnit unit) {
+        return unit.convert(timeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns how often each distinct statement was executed, in order of first execution.
+     */
+    public Map<String, Integer> executions() {
+        return Collections.unmodifiableMap(executions);
+    }
+
+    /**
+     * Returns the statements executed at least {@code threshold} times, the likely N+1 queries.
+     */
+    public Map<String, Integer> repeated(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> execution : executions.entrySet()) {
+            if (execution.getValue() >= threshold) {
+                repeated.put(execution.getKey(), execution.getValue());
+            }
+        }
+        return repeated;
+    }
+
+    /**
+     * Returns the statement counts by type.
+     */
+    public Map<SqlStatementType, Integer> counts() {
+        Map<SqlStatementType, Integer> byType = new EnumMap<>(SqlStatementType.class);
+        for (SqlStatementType type : SqlStatementType.values()) {
+            byType.put(type, counts[type.ordinal()]);
+        }
+        return byType;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(total()).append(" statements ").append(counts()).append(" in ")
+                .append(time(TimeUnit.MILLISECONDS)).append(" ms");
+        for (Map.Entry<String, Integer> execution : executions.entrySet()) {
+            text.append("\n  ").append(execution.getValue()).append("x ").append(execution.getKey());
+        }
+        return text.toString();
+    }
+}
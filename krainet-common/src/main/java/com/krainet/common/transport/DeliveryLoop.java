@@ -0,0 +1,152 @@
+package com.krainet.common.transport;
+
+import com.krainet.common.event.UserEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Base for the local subscribers: one daemon thread that delivers whatever is available and
+ * parks until a publisher {@link #wake() wakes} it, with a short timed park as a safety net.
+ *
+ * <p>An event whose handler throws is retried with exponential backoff, and later events wait
+ * behind it. After {@value #MAX_ATTEMPTS} failed attempts it is handed to {@link #deadLetter} and
+ * delivery moves on, so one event the handler can never accept does not block the transport.
+ */
+@Slf4j
+abstract class DeliveryLoop implements EventSubscriber {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long FAILURE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MIN_RETRY_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MAX_RETRY_PARK_NANOS = TimeUnit.SECONDS.toNanos(30);
+    // About 25 seconds of backoff in total before an event is dead-lettered
+    static final int MAX_ATTEMPTS = 9;
+
+    private final String threadName;
+    private final AtomicBoolean waiting = new AtomicBoolean();
+
+    private long minRetryParkNanos = MIN_RETRY_PARK_NANOS;
+    private volatile UserEventHandler handler;
+    private volatile boolean running;
+    private volatile Thread thread;
+
+    DeliveryLoop(String threadName) {
+        this.threadName = threadName;
+    }
+
+    /**
+     * Delivers the next batch of events.
+     *
+     * @return the number of events delivered, {@code 0} if there was nothing to deliver
+     */
+    abstract int deliverBatch(UserEventHandler handler);
+
+    /**
+     * Returns whether events are waiting to be delivered.
+     */
+    abstract boolean hasEvents();
+
+    /**
+     * Parks an event the handler kept failing on, so that delivery can move past it.
+     *
+     * @return {@code false} if the event could not be parked and must stay in place
+     */
+    abstract boolean deadLetter(UserEvent event);
+
+    @Override
+    public synchronized void subscribe(UserEventHandler handler) {
+        if (this.handler != null) {
+            throw new IllegalStateException("A handler is already subscribed to " + threadName);
+        }
+        this.handler = handler;
+        running = true;
+        Thread deliveryThread = new Thread(this::run, threadName);
+        deliveryThread.setDaemon(true);
+        thread = deliveryThread;
+        deliveryThread.start();
+    }
+
+    /**
+     * Sets the delay before the first retry of a failed event; must be called before
+     * {@link #subscribe}. Tests use a short one.
+     */
+    void initialRetryDelay(long nanos) {
+        this.minRetryParkNanos = nanos;
+    }
+
+    void wake() {
+        if (waiting.get() && waiting.compareAndSet(true, false)) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Hands an event to the handler, retrying until it succeeds or has failed
+     * {@value #MAX_ATTEMPTS} times, in which case it is dead-lettered.
+     *
+     * @return {@code false} if the event was neither handled nor dead-lettered, because the
+     *         subscriber was closed or the dead letter could not be stored
+     */
+    boolean deliver(UserEventHandler handler, UserEvent event) {
+        long retryParkNanos = minRetryParkNanos;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                handler.onEvent(event);
+                return true;
+            } catch (Exception e) {
+                if (!running) {
+                    log.error("Error handling {} event {} while closing, leaving it undelivered",
+                            event.getEventType(), event.getEventId(), e);
+                    return false;
+                }
+                if (attempt >= MAX_ATTEMPTS) {
+                    log.error("Error handling {} event {} (attempt {}), dead-lettering it",
+                            event.getEventType(), event.getEventId(), attempt, e);
+                    return deadLetter(event);
+                }
+                log.error("Error handling {} event {} (attempt {}), retrying in {} ms", event.getEventType(),
+                        event.getEventId(), attempt, TimeUnit.NANOSECONDS.toMillis(retryParkNanos), e);
+            }
+            LockSupport.parkNanos(this, retryParkNanos);
+            retryParkNanos = Math.min(retryParkNanos * 2, MAX_RETRY_PARK_NANOS);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            int delivered;
+            try {
+                delivered = deliverBatch(handler);
+            } catch (RuntimeException e) {
+                log.error("Event delivery on {} failed, retrying", threadName, e);
+                LockSupport.parkNanos(this, FAILURE_PARK_NANOS);
+                continue;
+            }
+            if (delivered == 0) {
+                waiting.set(true);
+                // Re-check after announcing the wait so a concurrent publish is never missed
+                if (!hasEvents()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                waiting.set(false);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        Thread deliveryThread = thread;
+        if (deliveryThread != null) {
+            LockSupport.unpark(deliveryThread);
+            try {
+                deliveryThread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.krainet.common.transport;
+
+import com.krainet.common.event.UserEvent;
+
+/**
+ * Sends user events to whichever {@link EventTransport} the deployment uses.
+ */
+public interface EventPublisher {
+
+    /**
+     * Hands an event over for asynchronous delivery. Implementations must not block the caller
+     * for longer than their configured back-pressure timeout.
+     *
+     * @param event the event to publish
+     * @return {@code false} if the event was rejected and will not be delivered
+     */
+    boolean publish(UserEvent event);
+}
@@ -0,0 +1,28 @@
+package com.krainet.common.transport;
+
+/**
+ * Delivers user events from a local {@link EventTransport}, {@code in-memory} or {@code journal},
+ * to a {@link UserEventHandler}.
+ *
+ * <p>There is deliberately no Kafka subscriber. A Kafka consumer commits offsets per partition,
+ * rewinds after a failure, hands failed records to retry topics and reads routing headers, none
+ * of which fit a one-event-at-a-time handler. Kafka consumers use Spring Kafka listener
+ * containers and call the same handler for every record.
+ */
+public interface EventSubscriber extends AutoCloseable {
+
+    /**
+     * Starts delivering events to the handler on a transport-owned thread. Events are delivered
+     * one at a time and in publish order.
+     *
+     * @param handler the handler to call for each event
+     * @throws IllegalStateException if a handler is already subscribed
+     */
+    void subscribe(UserEventHandler handler);
+
+    /**
+     * Stops delivery and waits for the event currently being handled, if any.
+     */
+    @Override
+    void close();
+}
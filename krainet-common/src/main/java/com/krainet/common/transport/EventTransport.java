@@ -0,0 +1,44 @@
+package com.krainet.common.transport;
+
+import java.util.Arrays;
+
+/**
+ * How user events travel from the auth service to the notification service.
+ */
+public enum EventTransport {
+
+    /**
+     * Through the Kafka {@code user-events} topic. The default for multi-node deployments.
+     * Events are published through an {@link EventPublisher} but consumed by Kafka listeners,
+     * not through an {@link EventSubscriber}.
+     */
+    KAFKA("kafka"),
+
+    /**
+     * Through an {@link InMemoryEventTransport} channel, when both services run in one JVM.
+     */
+    IN_MEMORY("in-memory"),
+
+    /**
+     * Through a {@link JournalEventTransport} on the local disk, when both services run in one
+     * JVM and events must survive a restart.
+     */
+    JOURNAL("journal");
+
+    private final String transportName;
+
+    EventTransport(String transportName) {
+        this.transportName = transportName;
+    }
+
+    public String getTransportName() {
+        return transportName;
+    }
+
+    public static EventTransport fromName(String name) {
+        return Arrays.stream(values())
+                .filter(transport -> transport.transportName.equalsIgnoreCase(name) || transport.name().equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown event transport: " + name));
+    }
+}
@@ -0,0 +1,133 @@
+package com.krainet.common.transport;
+
+import com.krainet.common.concurrent.RingBuffer;
+import com.krainet.common.event.UserEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-JVM event channel backed by a lock-free {@link RingBuffer}, for deployments that run the
+ * auth and notification services in one process.
+ *
+ * <p>Channels are looked up by name so that separate application contexts in the same JVM
+ * share one instance. Publishing never blocks: if the buffer is full, or nobody has subscribed
+ * yet and it has filled up, the event is rejected. Events are not persisted, so an event still
+ * being retried when the subscriber closes is lost, and one dead-lettered after its last attempt
+ * is only logged.
+ */
+public final class InMemoryEventTransport {
+
+    private static final Map<String, InMemoryEventTransport> CHANNELS = new ConcurrentHashMap<>();
+    private static final int BATCH_SIZE = 256;
+
+    private final String name;
+    private final RingBuffer<UserEvent> ringBuffer;
+    private final EventPublisher publisher = this::offer;
+
+    private volatile Subscriber subscriber;
+
+    private InMemoryEventTransport(String name, int capacity) {
+        this.name = name;
+        this.ringBuffer = new RingBuffer<>(capacity);
+    }
+
+    /**
+     * Returns the channel with the given name, creating it on first use.
+     *
+     * @param name the channel name, normally the topic name
+     * @param capacity the buffer capacity; ignored if the channel already exists
+     * @return the channel
+     */
+    public static InMemoryEventTransport channel(String name, int capacity) {
+        return CHANNELS.computeIfAbsent(name, key -> new InMemoryEventTransport(key, capacity));
+    }
+
+    public EventPublisher publisher() {
+        return publisher;
+    }
+
+    /**
+     * Returns a subscriber for this channel. Only one may be subscribed at a time; closing it
+     * lets a new one take over the events still in the buffer.
+     */
+    public EventSubscriber subscriber() {
+        return new Subscriber();
+    }
+
+    public int size() {
+        return ringBuffer.size();
+    }
+
+    public int capacity() {
+        return ringBuffer.capacity();
+    }
+
+    private boolean offer(UserEvent event) {
+        if (!ringBuffer.offer(event)) {
+            return false;
+        }
+        Subscriber current = subscriber;
+        if (current != null) {
+            current.wake();
+        }
+        return true;
+    }
+
+    private final class Subscriber extends DeliveryLoop {
+
+        private final List<UserEvent> batch = new ArrayList<>(BATCH_SIZE);
+
+        Subscriber() {
+            super("in-memory-events-" + name);
+        }
+
+        @Override
+        public synchronized void subscribe(UserEventHandler handler) {
+            synchronized (InMemoryEventTransport.this) {
+                if (subscriber != null) {
+                    throw new IllegalStateException("Channel " + name + " already has a subscriber");
+                }
+                subscriber = this;
+            }
+            super.subscribe(handler);
+        }
+
+        @Override
+        int deliverBatch(UserEventHandler handler) {
+            batch.clear();
+            ringBuffer.drainTo(batch, BATCH_SIZE);
+            int delivered = 0;
+            for (UserEvent event : batch) {
+                if (!deliver(handler, event)) {
+                    break;
+                }
+                delivered++;
+            }
+            return delivered;
+        }
+
+        @Override
+        boolean hasEvents() {
+            return !ringBuffer.isEmpty();
+        }
+
+        @Override
+        boolean deadLetter(UserEvent event) {
+            // Nothing to park it in: the delivery loop has logged the event and its failure
+            return true;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            synchronized (InMemoryEventTransport.this) {
+                if (subscriber == this) {
+                    subscriber = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.krainet.common.transport;
+
+import com.krainet.common.event.UserEvent;
+import com.krainet.common.journal.EventJournal;
+import com.krainet.common.journal.JournalCorruptionException;
+import com.krainet.common.journal.JournalRecord;
+import com.krainet.common.serialization.UserEventBinaryCodec;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Event channel backed by an {@link EventJournal} on the local disk, for single-process
+ * deployments that need events to survive a restart.
+ *
+ * <p>Events are stored in the binary {@link UserEventBinaryCodec} format and the subscriber
+ * commits the journal past the events it handled after each batch, so after a crash, or a close
+ * during a retry, delivery resumes from the first unhandled event. Events the handler still
+ * fails on after the last attempt, and records that cannot be decoded, are moved to a dead-letter
+ * journal in the {@value #DEAD_LETTER_DIRECTORY} subdirectory, from which
+ * {@link #redriveDeadLetters()} publishes them again. The journal is not safe for use by several
+ * processes, so instances are shared per directory within the JVM and reference counted: every
+ * {@link #open} must be paired with a {@link #close}.
+ */
+@Slf4j
+public final class JournalEventTransport implements AutoCloseable {
+
+    private static final Map<Path, JournalEventTransport> OPEN_TRANSPORTS = new HashMap<>();
+    private static final int BATCH_SIZE = 256;
+    static final String DEAD_LETTER_DIRECTORY = "dead-letter";
+
+    private final Path directory;
+    private final EventJournal journal;
+    private final EventJournal deadLetters;
+    private final EventPublisher publisher = this::append;
+
+    private int references;
+    private volatile Subscriber subscriber;
+
+    private JournalEventTransport(Path directory, EventJournal journal, EventJournal deadLetters) {
+        this.directory = directory;
+        this.journal = journal;
+        this.deadLetters = deadLetters;
+    }
+
+    /**
+     * Opens the journal in the given directory, or returns the instance already open in this JVM.
+     *
+     * @param directory the journal directory
+     * @param segmentSize the segment size in bytes; ignored if the journal is already open
+     * @param fsync whether every append is forced to disk; ignored if the journal is already open
+     * @return the transport
+     * @throws IOException if the journal cannot be opened
+     */
+    public static JournalEventTransport open(Path directory, int segmentSize, boolean fsync) throws IOException {
+        Path key = directory.toAbsolutePath().normalize();
+        synchronized (OPEN_TRANSPORTS) {
+            JournalEventTransport transport = OPEN_TRANSPORTS.get(key);
+            if (transport == null) {
+                EventJournal journal = EventJournal.open(key, segmentSize, fsync);
+                EventJournal deadLetters;
+                try {
+                    deadLetters = EventJournal.open(key.resolve(DEAD_LETTER_DIRECTORY), segmentSize, fsync);
+                } catch (IOException | RuntimeException e) {
+                    journal.close();
+                    throw e;
+                }
+                transport = new JournalEventTransport(key, journal, deadLetters);
+                OPEN_TRANSPORTS.put(key, transport);
+            }
+            transport.references++;
+            return transport;
+        }
+    }
+
+    public EventPublisher publisher() {
+        return publisher;
+    }
+
+    /**
+     * Returns a subscriber for this journal. Only one may be subscribed at a time.
+     */
+    public EventSubscriber subscriber() {
+        return new Subscriber();
+    }
+
+    public long pendingBytes() {
+        return journal.pendingBytes();
+    }
+
+    public long deadLetterBytes() {
+        return deadLetters.pendingBytes();
+    }
+
+    /**
+     * Moves every dead-lettered event back to the end of the journal for another round of
+     * delivery.
+     *
+     * @return the number of events moved
+     * @throws IOException if the journals cannot be written
+     */
+    public int redriveDeadLetters() throws IOException {
+        int redriven = 0;
+        synchronized (deadLetters) {
+            List<JournalRecord> records;
+            while (!(records = deadLetters.read(deadLetters.committedPosition(), BATCH_SIZE)).isEmpty()) {
+                for (JournalRecord record : records) {
+                    journal.append(record.payload());
+                }
+                deadLetters.commit(records.get(records.size() - 1).nextPosition());
+                redriven += records.size();
+            }
+        }
+        Subscriber current = subscriber;
+        if (redriven > 0 && current != null) {
+            current.wake();
+        }
+        return redriven;
+    }
+
+    private boolean append(UserEvent event) {
+        try {
+            journal.append(UserEventBinaryCodec.encode(event));
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to journal {} event {}", event.getEventType(), event.getEventId(), e);
+            return false;
+        }
+        Subscriber current = subscriber;
+        if (current != null) {
+            current.wake();
+        }
+        return true;
+    }
+
+    /**
+     * Releases this reference and closes the journal once no references are left.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (OPEN_TRANSPORTS) {
+            if (--references > 0) {
+                return;
+            }
+            OPEN_TRANSPORTS.remove(directory);
+        }
+        journal.close();
+        deadLetters.close();
+    }
+
+    private final class Subscriber extends DeliveryLoop {
+
+        Subscriber() {
+            super("journal-events-" + directory.getFileName());
+        }
+
+        @Override
+        public synchronized void subscribe(UserEventHandler handler) {
+            synchronized (JournalEventTransport.this) {
+                if (subscriber != null) {
+                    throw new IllegalStateException("Journal " + directory + " already has a subscriber");
+                }
+                subscriber = this;
+            }
+            super.subscribe(handler);
+        }
+
+        @Override
+        int deliverBatch(UserEventHandler handler) {
+            List<JournalRecord> records;
+            try {
+                records = journal.read(journal.committedPosition(), BATCH_SIZE);
+            } catch (JournalCorruptionException e) {
+                log.error("Skipping corrupt records in event journal {} from position {} to {}",
+                        directory, e.position(), e.resumePosition(), e);
+                commit(e.resumePosition());
+                return 0;
+            }
+            if (records.isEmpty()) {
+                return 0;
+            }
+            int delivered = 0;
+            for (JournalRecord record : records) {
+                UserEvent event;
+                try {
+                    event = UserEventBinaryCodec.decode(record.payload());
+                } catch (IllegalArgumentException e) {
+                    log.error("Dead-lettering undecodable record at position {} of event journal {}",
+                            record.position(), directory, e);
+                    if (!park(record.payload())) {
+                        break;
+                    }
+                    delivered++;
+                    continue;
+                }
+                if (!deliver(handler, event)) {
+                    break;
+                }
+                delivered++;
+            }
+            if (delivered == 0) {
+                return 0;
+            }
+            // If the commit fails the batch is delivered again on the next pass
+            return commit(records.get(delivered - 1).nextPosition()) ? delivered : 0;
+        }
+
+        @Override
+        boolean hasEvents() {
+            return journal.hasPending();
+        }
+
+        @Override
+        boolean deadLetter(UserEvent event) {
+            return park(UserEventBinaryCodec.encode(event));
+        }
+
+        private boolean park(byte[] payload) {
+            try {
+                deadLetters.append(payload);
+                return true;
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to dead-letter a record of event journal {}", directory, e);
+                return false;
+            }
+        }
+
+        private boolean commit(long position) {
+            try {
+                journal.commit(position);
+                return true;
+            } catch (IOException e) {
+                log.error("Failed to commit event journal {}", directory, e);
+                return false;
+            }
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            synchronized (JournalEventTransport.this) {
+                if (subscriber == this) {
+                    subscriber = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.krainet.common.transport;
+
+import com.krainet.common.event.UserEvent;
+
+/**
+ * Receives user events from an {@link EventSubscriber}.
+ */
+@FunctionalInterface
+public interface UserEventHandler {
+
+    /**
+     * Handles one event. If it throws, the subscriber retries the same event with backoff before
+     * delivering any later one.
+     *
+     * @param event the event
+     */
+    void onEvent(UserEvent event);
+}
@@ -0,0 +1,144 @@
+package com.krainet.common.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferTest {
+
+    @Test
+    void offer_Full_RejectsUntilPolled() {
+        // Given
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+
+        // When
+        for (int i = 0; i < buffer.capacity(); i++) {
+            assertTrue(buffer.offer(i));
+        }
+
+        // Then
+        assertEquals(4, buffer.capacity());
+        assertFalse(buffer.offer(99));
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(4, buffer.drainTo(drained, 10));
+        assertEquals(List.of(1, 2, 3, 4), drained);
+        assertTrue(buffer.isEmpty());
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    void offer_ManyProducersOneConsumer_EveryElementOnceInPerProducerOrder() throws Exception {
+        // Given
+        int producers = 8;
+        int perProducer = 50_000;
+        RingBuffer<Long> buffer = new RingBuffer<>(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> sends = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            sends.add(executor.submit(() -> {
+                start.await();
+                for (long i = 0; i < perProducer; i++) {
+                    Long element = producer << 32 | i;
+                    while (!buffer.offer(element)) {
+                        Thread.yield();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        // When
+        start.countDown();
+        long[] next = new long[producers];
+        long received = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received < (long) producers * perProducer && System.nanoTime() < deadline) {
+            Long element = buffer.poll();
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+            int producer = (int) (element >>> 32);
+            assertEquals(next[producer], element & 0xFFFFFFFFL, "Out of order or duplicate from producer " + producer);
+            next[producer]++;
+            received++;
+        }
+        for (Future<?> send : sends) {
+            send.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals((long) producers * perProducer, received);
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void poll_ManyConsumers_EveryElementTakenExactlyOnce() throws Exception {
+        // Given
+        int consumers = 4;
+        int elements = 200_000;
+        RingBuffer<Integer> buffer = new RingBuffer<>(256);
+        boolean[] seen = new boolean[elements];
+        ExecutorService executor = Executors.newFixedThreadPool(consumers);
+        List<Future<Integer>> takes = new ArrayList<>();
+        for (int c = 0; c < consumers; c++) {
+            takes.add(executor.submit(() -> {
+                int taken = 0;
+                while (true) {
+                    Integer element = buffer.poll();
+                    if (element == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    if (element < 0) {
+                        return taken;
+                    }
+                    synchronized (seen) {
+                        assertFalse(seen[element], "Element taken twice: " + element);
+                        seen[element] = true;
+                    }
+                    taken++;
+                }
+            }));
+        }
+
+        // When
+        for (int i = 0; i < elements; i++) {
+            while (!buffer.offer(i)) {
+                Thread.yield();
+            }
+        }
+        for (int c = 0; c < consumers; c++) {
+            while (!buffer.offer(-1)) {
+                Thread.yield();
+            }
+        }
+        int taken = 0;
+        for (Future<Integer> take : takes) {
+            taken += take.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(elements, taken);
+    }
+
+    @Test
+    void constructor_CapacityOutOfRange_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(1));
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>((1 << 30) + 1));
+    }
+}
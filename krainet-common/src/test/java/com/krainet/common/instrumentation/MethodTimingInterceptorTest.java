@@ -0,0 +1,88 @@
+package com.krainet.common.instrumentation;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MethodTimingInterceptorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void invoke_SuccessAndFailure_RecordedPerMethodAndOutcome() {
+        // Given
+        Greeter greeter = proxy(new MethodTimingInterceptor(() -> meterRegistry, 0, 60_000));
+
+        // When
+        greeter.greet("alice");
+        greeter.greet("bob");
+        assertThrows(IllegalArgumentException.class, () -> greeter.greet(null));
+
+        // Then
+        assertEquals(2, timer("success").count());
+        assertEquals(1, timer("failure").count());
+    }
+
+    @Test
+    void invoke_ReturnsResultOfTarget() {
+        // Given
+        Greeter greeter = proxy(new MethodTimingInterceptor(() -> meterRegistry, 1, 0));
+
+        // When / Then
+        assertEquals("Hello, alice", greeter.greet("alice"));
+    }
+
+    @Test
+    void describe_MasksCredentialsAndShowsObjectsByType() {
+        // Given
+        UUID id = UUID.randomUUID();
+        Object[] args = {id, "alice", "s3cret", new StringBuilder("x").append("y"), new Object[0], null};
+        String[] names = {"id", "username", "newPassword", "note", "payload", "accessToken"};
+
+        // When
+        String description = MethodTimingInterceptor.describe(names, args);
+
+        // Then
+        assertEquals("id=" + id + ", username=alice, newPassword=****, note=xy, payload=<Object[]>, accessToken=null",
+                description);
+    }
+
+    @Test
+    void describe_LongValuesTruncated() {
+        // When
+        String description = MethodTimingInterceptor.describe(null, new Object[]{"a".repeat(100)});
+
+        // Then
+        assertEquals("arg0=" + "a".repeat(64) + "...", description);
+    }
+
+    private Timer timer(String outcome) {
+        return meterRegistry.get(MethodTimingInterceptor.TIMER_NAME)
+                .tag("class", "Greeter")
+                .tag("method", "greet")
+                .tag("outcome", outcome)
+                .timer();
+    }
+
+    private static Greeter proxy(MethodTimingInterceptor interceptor) {
+        ProxyFactory proxyFactory = new ProxyFactory(new Greeter());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(interceptor);
+        return (Greeter) proxyFactory.getProxy();
+    }
+
+    public static class Greeter {
+
+        public String greet(String name) {
+            if (name == null) {
+                throw new IllegalArgumentException("name is required");
+            }
+            return "Hello, " + name;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.krainet.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Name;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecordingEndpointTest {
+
+    private final FlightRecordings recordings = new FlightRecordings();
+    private final FlightRecordingEndpoint endpoint = new FlightRecordingEndpoint(recordings);
+
+    @AfterEach
+    void tearDown() {
+        recordings.close();
+    }
+
+    @Test
+    void start_ListedUntilStopped() {
+        // Given
+        long id = endpoint.start("incident", null, 60L).getBody().id();
+
+        // When
+        List<FlightRecordings.Summary> listed = endpoint.recordings();
+        WebEndpointResponse<Void> stopped = endpoint.stop(id);
+
+        // Then
+        assertEquals(List.of("incident"), listed.stream().map(FlightRecordings.Summary::name).toList());
+        assertEquals(WebEndpointResponse.STATUS_NO_CONTENT, stopped.getStatus());
+        assertTrue(endpoint.recordings().isEmpty());
+        assertEquals(WebEndpointResponse.STATUS_NOT_FOUND, endpoint.stop(id).getStatus());
+    }
+
+    @Test
+    void start_UnknownSettings_BadRequest() {
+        // When
+        WebEndpointResponse<FlightRecordings.Summary> response = endpoint.start(null, "no-such-settings", null);
+
+        // Then
+        assertEquals(WebEndpointResponse.STATUS_BAD_REQUEST, response.getStatus());
+        assertTrue(endpoint.recordings().isEmpty());
+    }
+
+    @Test
+    void dump_ContainsApplicationEventsAndIsDeletedAfterReading() throws Exception {
+        // Given
+        long id = endpoint.start(null, null, null).getBody().id();
+        TestEvent event = new TestEvent();
+        event.begin();
+        event.count = 2;
+        event.commit();
+
+        // When
+        Resource dump = endpoint.dump(id).getBody();
+        Path copy = Files.createTempFile("dump-copy-", ".jfr");
+        try (InputStream in = dump.getInputStream()) {
+            Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        // Then
+        try {
+            assertFalse(dump.exists());
+            List<RecordedEvent> testEvents = RecordingFile.readAllEvents(copy).stream()
+                    .filter(e -> e.getEventType().getName().equals("com.krainet.test.FlightRecordingEndpoint"))
+                    .toList();
+            assertEquals(1, testEvents.size());
+            assertEquals(2, testEvents.get(0).getInt("count"));
+        } finally {
+            Files.deleteIfExists(copy);
+        }
+    }
+
+    @Test
+    void dump_UnknownRecording_NotFound() throws Exception {
+        // When / Then
+        assertEquals(WebEndpointResponse.STATUS_NOT_FOUND, endpoint.dump(42).getStatus());
+    }
+
+    @Name("com.krainet.test.FlightRecordingEndpoint")
+    @Category("Krainet")
+    static class TestEvent extends Event {
+
+        int count;
+    }
+}
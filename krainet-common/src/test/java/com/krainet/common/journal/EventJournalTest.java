@@ -0,0 +1,159 @@
+package com.krainet.common.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventJournalTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void append_ReadBackInOrderAndCommitSurvivesReopen() throws IOException {
+        // Given
+        try (EventJournal journal = EventJournal.open(directory, SEGMENT_SIZE, false)) {
+            journal.append(bytes("first"));
+            journal.append(bytes("second"));
+            journal.append(bytes("third"));
+
+            // When
+            List<JournalRecord> records = journal.read(journal.committedPosition(), 2);
+            journal.commit(records.get(1).nextPosition());
+
+            // Then
+            assertEquals(List.of("first", "second"), strings(records));
+            assertTrue(journal.hasPending());
+        }
+        try (EventJournal reopened = EventJournal.open(directory, SEGMENT_SIZE, false)) {
+            assertEquals(List.of("third"), strings(reopened.read(reopened.committedPosition(), 10)));
+        }
+    }
+
+    @Test
+    void append_RecordDoesNotFit_RollsToNewSegmentAndDeletesCommittedOnes() throws IOException {
+        // Given
+        try (EventJournal journal = EventJournal.open(directory, SEGMENT_SIZE, false)) {
+            byte[] payload = new byte[300];
+            for (int i = 0; i < 4; i++) {
+                journal.append(payload);
+            }
+
+            // When
+            List<JournalRecord> records = journal.read(journal.committedPosition(), 10);
+
+            // Then: three 308-byte records fit in a 1024-byte segment, the fourth starts the next one
+            assertEquals(4, records.size());
+            assertEquals(SEGMENT_SIZE, records.get(3).position());
+            assertEquals(2, segmentFiles());
+
+            journal.commit(records.get(3).nextPosition());
+            assertEquals(1, segmentFiles());
+            assertFalse(journal.hasPending());
+        }
+    }
+
+    @Test
+    void open_TornTail_RecoversUpToLastCompleteRecordAndOverwritesRest() throws IOException {
+        // Given: the last record's header was written but not all of its payload
+        long endOfComplete;
+        try (EventJournal journal = EventJournal.open(directory, SEGMENT_SIZE, false)) {
+            journal.append(bytes("first"));
+            endOfComplete = journal.append(bytes("second"));
+            journal.append(bytes("torn"));
+        }
+        corrupt(endOfComplete + 8, new byte[]{'X'});
+
+        // When
+        try (EventJournal recovered = EventJournal.open(directory, SEGMENT_SIZE, false)) {
+            long writtenTo = recovered.append(bytes("after restart"));
+
+            // Then
+            assertEquals(endOfComplete + 8 + "after restart".length(), writtenTo);
+            assertEquals(List.of("first", "second", "after restart"),
+                    strings(recovered.read(recovered.committedPosition(), 10)));
+        }
+    }
+
+    @Test
+    void read_CorruptedCommittedRegion_FailsCrcCheck() throws IOException {
+        // Given
+        try (EventJournal journal = EventJournal.open(directory, SEGMENT_SIZE, false)) {
+            journal.append(bytes("payload"));
+
+            // When: written through the file, which shares the page cache with the journal's mapping
+            corrupt(8, new byte[]{'Q'});
+
+            // Then
+            IllegalStateException failure = assertThrows(IllegalStateException.class,
+                    () -> journal.read(0, 10));
+            assertTrue(failure.getMessage().contains("CRC"));
+        }
+    }
+
+    @Test
+    void read_CorruptRecordAfterGoodOnes_StopsShortThenReportsWhereToResume() throws IOException {
+        // Given
+        try (EventJournal journal = EventJournal.open(directory, SEGMENT_SIZE, false)) {
+            long corruptStart = journal.append(bytes("good"));
+            long corruptEnd = journal.append(bytes("corrupt"));
+            journal.append(bytes("after"));
+            corrupt(corruptStart + 8, new byte[]{'X'});
+
+            // When
+            List<JournalRecord> beforeCorruption = journal.read(0, 10);
+            JournalCorruptionException corruption = assertThrows(JournalCorruptionException.class,
+                    () -> journal.read(corruptStart, 10));
+
+            // Then
+            assertEquals(List.of("good"), strings(beforeCorruption));
+            assertEquals(corruptStart, corruption.position());
+            assertEquals(corruptEnd, corruption.resumePosition());
+            assertEquals(List.of("after"), strings(journal.read(corruption.resumePosition(), 10)));
+        }
+    }
+
+    @Test
+    void open_SegmentSizeTooSmall_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> EventJournal.open(directory, 512, false));
+    }
+
+    private void corrupt(long position, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), position);
+        }
+    }
+
+    private Path segment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".seg")).sorted().findFirst().orElseThrow();
+        }
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".seg")).count();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> strings(List<JournalRecord> records) {
+        return records.stream().map(record -> new String(record.payload(), StandardCharsets.UTF_8)).toList();
+    }
+}
@@ -0,0 +1,188 @@
+package com.krainet.common.serialization;
+
+import com.krainet.common.event.ChangedField;
+import com.krainet.common.event.EventType;
+import com.krainet.common.event.UserEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserEventBinaryCodecTest {
+
+    @Test
+    void encode_EveryField_RoundTrips() {
+        // Given
+        UserEvent event = fullEvent();
+
+        // When
+        byte[] encoded = UserEventBinaryCodec.encode(event);
+        UserEvent decoded = UserEventBinaryCodec.decode(encoded);
+
+        // Then
+        assertEquals(UserEventBinaryCodec.CURRENT_VERSION, encoded[0]);
+        assertEquals(event, decoded);
+    }
+
+    @Test
+    void encode_OnlyRequiredFields_RoundTripsWithAbsentFieldsNull() {
+        // Given
+        UserEvent event = new UserEvent();
+        event.setEventType(EventType.USER_DELETED);
+        event.setUserId(UUID.randomUUID());
+
+        // When
+        UserEvent decoded = UserEventBinaryCodec.decode(UserEventBinaryCodec.encode(event));
+
+        // Then
+        assertEquals(event, decoded);
+        assertNull(decoded.getEnabled());
+        assertNull(decoded.getSequence());
+    }
+
+    @Test
+    void encode_NonUuidEventIdAndMetadataTypes_DecodeAsDocumented() {
+        // Given
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("source", "admin-panel");
+        metadata.put("attempt", 3);
+        metadata.put("ratio", 0.5f);
+        metadata.put("bulk", true);
+        metadata.put("missing", null);
+        metadata.put("tags", List.of("a", "b"));
+        UserEvent event = new UserEvent();
+        event.setEventId("legacy-42");
+        event.setEnabled(false);
+        event.setMetadata(metadata);
+
+        // When
+        UserEvent decoded = UserEventBinaryCodec.decode(UserEventBinaryCodec.encode(event));
+
+        // Then
+        assertEquals("legacy-42", decoded.getEventId());
+        assertEquals(Boolean.FALSE, decoded.getEnabled());
+        assertEquals("admin-panel", decoded.getMetadata().get("source"));
+        assertEquals(3L, decoded.getMetadata().get("attempt"));
+        assertEquals(0.5, decoded.getMetadata().get("ratio"));
+        assertEquals(true, decoded.getMetadata().get("bulk"));
+        assertTrue(decoded.getMetadata().containsKey("missing"));
+        assertNull(decoded.getMetadata().get("missing"));
+        assertEquals("[a, b]", decoded.getMetadata().get("tags"));
+    }
+
+    @Test
+    void decode_Version1Record_ReadsFieldsItHad() {
+        // Given: version 1, flags EVENT_ID_STRING | EVENT_TYPE | USERNAME, "e1", USER_CREATED, "bob"
+        byte[] version1 = {1, 0x00, 0x26, 2, 'e', '1', 0, 3, 'b', 'o', 'b'};
+
+        // When
+        UserEvent decoded = UserEventBinaryCodec.decode(version1);
+
+        // Then
+        assertEquals("e1", decoded.getEventId());
+        assertEquals(EventType.USER_CREATED, decoded.getEventType());
+        assertEquals("bob", decoded.getUsername());
+        assertNull(decoded.getEnabled());
+        assertNull(decoded.getChangedFields());
+        assertNull(decoded.getPreviousValues());
+        assertNull(decoded.getSequence());
+    }
+
+    @Test
+    void decode_Version2Record_ReadsEverythingButSequence() {
+        // Given: a version 3 record without a sequence is byte for byte a version 2 record
+        UserEvent event = fullEvent();
+        event.setSequence(null);
+        byte[] version2 = UserEventBinaryCodec.encode(event);
+        version2[0] = UserEventBinaryCodec.VERSION_2;
+
+        // When
+        UserEvent decoded = UserEventBinaryCodec.decode(version2);
+
+        // Then
+        assertEquals(event, decoded);
+    }
+
+    @Test
+    void encode_Version3Layout_IsStable() {
+        // Given
+        UserEvent event = new UserEvent();
+        event.setEventId("e1");
+        event.setEventType(EventType.USER_CREATED);
+        event.setUsername("bob");
+        event.setSequence(300L);
+
+        // When
+        byte[] encoded = UserEventBinaryCodec.encode(event);
+
+        // Then: flags EVENT_ID_STRING | EVENT_TYPE | USERNAME | SEQUENCE, sequence as varlong 0xAC 0x02
+        assertArrayEquals(new byte[]{3, (byte) 0x80, 0x26, 2, 'e', '1', 0, 3, 'b', 'o', 'b', (byte) 0xAC, 0x02},
+                encoded);
+    }
+
+    @Test
+    void decode_UnknownEventTypeOrdinal_DecodesAsUnknown() {
+        // Given
+        byte[] record = {1, 0x00, 0x04, 120};
+
+        // When
+        UserEvent decoded = UserEventBinaryCodec.decode(record);
+
+        // Then
+        assertEquals(EventType.UNKNOWN, decoded.getEventType());
+    }
+
+    @Test
+    void decode_UnsupportedVersionOrTruncated_Rejected() {
+        // Given
+        byte[] future = {(byte) (UserEventBinaryCodec.CURRENT_VERSION + 1), 0, 0};
+        byte[] encoded = UserEventBinaryCodec.encode(fullEvent());
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 3);
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> UserEventBinaryCodec.decode(future));
+        assertThrows(IllegalArgumentException.class, () -> UserEventBinaryCodec.decode(truncated));
+        assertFalse(UserEventBinaryCodec.isBinary(future));
+        assertFalse(UserEventBinaryCodec.isBinary("{\"eventId\":\"e1\"}".getBytes()));
+        assertTrue(UserEventBinaryCodec.isBinary(encoded));
+    }
+
+    @Test
+    void decode_NegativeOrOversizedLengthsAndCounts_Rejected() {
+        // Given: flags EVENT_ID_STRING with a string length of -1 as a five-byte varint
+        byte[] negativeLength = {1, 0x00, 0x02, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+        // flags METADATA claiming 2^28 entries in a record with no bytes left for them
+        byte[] oversizedMetadata = {1, 0x04, 0x00, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01};
+        // flags PREVIOUS_VALUES with a count of -1
+        byte[] negativeMapCount = {2, 0x40, 0x00, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> UserEventBinaryCodec.decode(negativeLength));
+        assertThrows(IllegalArgumentException.class, () -> UserEventBinaryCodec.decode(oversizedMetadata));
+        assertThrows(IllegalArgumentException.class, () -> UserEventBinaryCodec.decode(negativeMapCount));
+    }
+
+    private static UserEvent fullEvent() {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("source", "admin-panel");
+        metadata.put("attempt", 3L);
+        Map<String, String> previousValues = new LinkedHashMap<>();
+        previousValues.put(ChangedField.EMAIL.name(), "old@example.com");
+        previousValues.put(ChangedField.ENABLED.name(), "true");
+        return UserEvent.builder(EventType.USER_UPDATED, UUID.randomUUID(), "alice", "alice@example.com", "ADMIN",
+                        UUID.randomUUID(), "root")
+                .timestamp(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000))
+                .enabled(true)
+                .changedFields(ChangedField.mask(ChangedField.EMAIL, ChangedField.ENABLED))
+                .previousValues(previousValues)
+                .metadata(metadata)
+                .sequence(1L << 40)
+                .build();
+    }
+}
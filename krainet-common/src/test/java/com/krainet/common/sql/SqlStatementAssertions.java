@@ -0,0 +1,99 @@
+package com.krainet.common.sql;
+
+/**
+ * Query budgets for tests. {@link #reset()} starts counting on the test's thread; the assertions
+ * then compare what was executed since, and fail with the list of executed statements:
+ *
+ * <pre>{@code
+ * SqlStatementAssertions.reset();
+ * mockMvc.perform(get("/api/v1/users/me"));
+ * SqlStatementAssertions.assertSelectCount(1);
+ * }</pre>
+ *
+ * Only statements executed on the test's own thread are counted, which covers
+ * {@code MockMvc} and direct service calls. Call {@link #stop()} when done, e.g. in an
+ * {@code @AfterEach} method.
+ */
+public final class SqlStatementAssertions {
+
+    private static final ThreadLocal<SqlStatistics> SCOPE = new ThreadLocal<>();
+
+    private SqlStatementAssertions() {
+    }
+
+    /**
+     * Starts counting afresh on the current thread.
+     */
+    public static void reset() {
+        stop();
+        SCOPE.set(SqlStatementCounter.begin());
+    }
+
+    /**
+     * Stops counting on the current thread.
+     */
+    public static void stop() {
+        SqlStatistics statistics = SCOPE.get();
+        if (statistics != null) {
+            SqlStatementCounter.end(statistics);
+            SCOPE.remove();
+        }
+    }
+
+    /**
+     * Returns what was executed since the last {@link #reset()}.
+     *
+     * @throws IllegalStateException if counting was not started
+     */
+    public static SqlStatistics statistics() {
+        SqlStatistics statistics = SCOPE.get();
+        if (statistics == null) {
+            throw new IllegalStateException("SqlStatementAssertions.reset() was not called on this thread");
+        }
+        return statistics;
+    }
+
+    public static void assertSelectCount(int expected) {
+        assertCount(SqlStatementType.SELECT, expected);
+    }
+
+    public static void assertInsertCount(int expected) {
+        assertCount(SqlStatementType.INSERT, expected);
+    }
+
+    public static void assertUpdateCount(int expected) {
+        assertCount(SqlStatementType.UPDATE, expected);
+    }
+
+    public static void assertDeleteCount(int expected) {
+        assertCount(SqlStatementType.DELETE, expected);
+    }
+
+    /**
+     * Asserts the number of statements of every type together.
+     */
+    public static void assertTotalCount(int expected) {
+        SqlStatistics statistics = statistics();
+        if (statistics.total() != expected) {
+            throw new AssertionError("Expected " + expected + " statements but got " + statistics);
+        }
+    }
+
+    /**
+     * Asserts that no statement was executed {@code threshold} times or more.
+     */
+    public static void assertNoRepeatedStatements(int threshold) {
+        SqlStatistics statistics = statistics();
+        if (!statistics.repeated(threshold).isEmpty()) {
+            throw new AssertionError("Expected no statement executed " + threshold + " times or more but got "
+                    + statistics);
+        }
+    }
+
+    private static void assertCount(SqlStatementType type, int expected) {
+        SqlStatistics statistics = statistics();
+        if (statistics.count(type) != expected) {
+            throw new AssertionError("Expected " + expected + " " + type + " statements but got " + statistics);
+        }
+    }
+}
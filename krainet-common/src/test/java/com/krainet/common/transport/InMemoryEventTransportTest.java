@@ -0,0 +1,136 @@
+package com.krainet.common.transport;
+
+import com.krainet.common.event.EventType;
+import com.krainet.common.event.UserEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryEventTransportTest {
+
+    private final InMemoryEventTransport channel =
+            InMemoryEventTransport.channel("test-" + UUID.randomUUID(), 16);
+    private final EventSubscriber subscriber = channel.subscriber();
+
+    @AfterEach
+    void tearDown() {
+        subscriber.close();
+    }
+
+    @Test
+    void subscribe_HandlerFailsOnce_EventRetriedBeforeLaterEvents() throws InterruptedException {
+        // Given
+        UserEvent first = event();
+        UserEvent second = event();
+        List<String> handled = new CopyOnWriteArrayList<>();
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(2);
+        channel.publisher().publish(first);
+        channel.publisher().publish(second);
+
+        // When
+        subscriber.subscribe(event -> {
+            if (event == first && attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("Mail server down");
+            }
+            handled.add(event.getEventId());
+            done.countDown();
+        });
+
+        // Then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, attempts.get());
+        assertEquals(List.of(first.getEventId(), second.getEventId()), handled);
+    }
+
+    @Test
+    void publish_BufferFull_RejectsEvent() {
+        // Given
+        InMemoryEventTransport small = InMemoryEventTransport.channel("test-" + UUID.randomUUID(), 2);
+
+        // When
+        boolean first = small.publisher().publish(event());
+        boolean second = small.publisher().publish(event());
+        boolean third = small.publisher().publish(event());
+
+        // Then
+        assertTrue(first && second);
+        assertFalse(third);
+        assertEquals(2, small.size());
+    }
+
+    @Test
+    void subscribe_SecondSubscriber_RejectedUntilFirstCloses() throws InterruptedException {
+        // Given
+        subscriber.subscribe(event -> { });
+        EventSubscriber second = channel.subscriber();
+        assertThrows(IllegalStateException.class, () -> second.subscribe(event -> { }));
+        subscriber.close();
+        UserEvent event = event();
+        CountDownLatch received = new CountDownLatch(1);
+
+        // When
+        EventSubscriber takeover = channel.subscriber();
+        takeover.subscribe(delivered -> received.countDown());
+        channel.publisher().publish(event);
+
+        // Then
+        try {
+            assertTrue(received.await(5, TimeUnit.SECONDS));
+        } finally {
+            takeover.close();
+        }
+    }
+
+    @Test
+    void subscribe_ManyPublishers_DeliversEveryEventOnce() throws InterruptedException {
+        // Given
+        InMemoryEventTransport large = InMemoryEventTransport.channel("test-" + UUID.randomUUID(), 1 << 16);
+        EventSubscriber largeSubscriber = large.subscriber();
+        Set<String> received = ConcurrentHashMap.newKeySet();
+        int publishers = 4;
+        int perPublisher = 5_000;
+        CountDownLatch done = new CountDownLatch(publishers * perPublisher);
+        largeSubscriber.subscribe(event -> {
+            received.add(event.getEventId());
+            done.countDown();
+        });
+
+        // When
+        Thread[] threads = new Thread[publishers];
+        for (int p = 0; p < publishers; p++) {
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perPublisher; i++) {
+                    assertTrue(large.publisher().publish(event()));
+                }
+            });
+            threads[p].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        try {
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(publishers * perPublisher, received.size());
+        } finally {
+            largeSubscriber.close();
+        }
+    }
+
+    private static UserEvent event() {
+        return UserEvent.builder(EventType.USER_CREATED, UUID.randomUUID(), "alice", "alice@example.com", "USER")
+                .build();
+    }
+}
@@ -0,0 +1,194 @@
+package com.krainet.common.transport;
+
+import com.krainet.common.event.EventType;
+import com.krainet.common.event.UserEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalEventTransportTest {
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void subscribe_DeliversPublishedEventsInOrderAndCommits() throws Exception {
+        // Given
+        List<UserEvent> events = List.of(event(1), event(2), event(3));
+        List<UserEvent> received = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(events.size());
+        try (JournalEventTransport transport = JournalEventTransport.open(directory, SEGMENT_SIZE, false)) {
+            EventSubscriber subscriber = transport.subscriber();
+
+            // When
+            subscriber.subscribe(event -> {
+                received.add(event);
+                done.countDown();
+            });
+            events.forEach(transport.publisher()::publish);
+
+            // Then
+            try {
+                assertTrue(done.await(5, TimeUnit.SECONDS));
+            } finally {
+                subscriber.close();
+            }
+            assertEquals(ids(events), ids(received));
+            assertEquals(0, transport.pendingBytes());
+        }
+    }
+
+    @Test
+    void subscribe_UnhandledEvents_RedeliveredAfterReopen() throws Exception {
+        // Given: the handler keeps failing on the second event until the subscriber closes
+        UserEvent first = event(1);
+        UserEvent second = event(2);
+        CountDownLatch failing = new CountDownLatch(1);
+        try (JournalEventTransport transport = JournalEventTransport.open(directory, SEGMENT_SIZE, false)) {
+            transport.publisher().publish(first);
+            transport.publisher().publish(second);
+            EventSubscriber subscriber = transport.subscriber();
+            subscriber.subscribe(event -> {
+                if (event.getSequence() == 2) {
+                    failing.countDown();
+                    throw new IllegalStateException("Handler down");
+                }
+            });
+            assertTrue(failing.await(5, TimeUnit.SECONDS));
+            subscriber.close();
+            assertTrue(transport.pendingBytes() > 0);
+        }
+        List<UserEvent> redelivered = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        // When
+        try (JournalEventTransport reopened = JournalEventTransport.open(directory, SEGMENT_SIZE, false)) {
+            EventSubscriber subscriber = reopened.subscriber();
+            subscriber.subscribe(event -> {
+                redelivered.add(event);
+                done.countDown();
+            });
+
+            // Then
+            try {
+                assertTrue(done.await(5, TimeUnit.SECONDS));
+            } finally {
+                subscriber.close();
+            }
+            assertEquals(ids(List.of(second)), ids(redelivered));
+        }
+    }
+
+    @Test
+    void subscribe_HandlerKeepsFailing_DeadLettersEventAndMovesOnUntilRedriven() throws Exception {
+        // Given: the handler rejects the second event until it is told otherwise
+        UserEvent first = event(1);
+        UserEvent second = event(2);
+        UserEvent third = event(3);
+        AtomicBoolean rejectSecond = new AtomicBoolean(true);
+        AtomicInteger attempts = new AtomicInteger();
+        List<UserEvent> received = new CopyOnWriteArrayList<>();
+        try (JournalEventTransport transport = JournalEventTransport.open(directory, SEGMENT_SIZE, false)) {
+            DeliveryLoop subscriber = (DeliveryLoop) transport.subscriber();
+            subscriber.initialRetryDelay(TimeUnit.MILLISECONDS.toNanos(1));
+            subscriber.subscribe(event -> {
+                if (event.getSequence() == 2 && rejectSecond.get()) {
+                    attempts.incrementAndGet();
+                    throw new IllegalStateException("Handler rejects it");
+                }
+                received.add(event);
+            });
+            try {
+                // When
+                List.of(first, second, third).forEach(transport.publisher()::publish);
+                await(() -> received.size() == 2);
+
+                // Then
+                assertEquals(ids(List.of(first, third)), ids(received));
+                assertEquals(DeliveryLoop.MAX_ATTEMPTS, attempts.get());
+                assertEquals(0, transport.pendingBytes());
+                assertTrue(transport.deadLetterBytes() > 0);
+
+                rejectSecond.set(false);
+                assertEquals(1, transport.redriveDeadLetters());
+                await(() -> received.size() == 3);
+                assertEquals(ids(List.of(first, third, second)), ids(received));
+                assertEquals(0, transport.deadLetterBytes());
+            } finally {
+                subscriber.close();
+            }
+        }
+    }
+
+    @Test
+    void open_SameDirectory_SharesOneJournalUntilLastClose() throws IOException {
+        // Given
+        JournalEventTransport first = JournalEventTransport.open(directory, SEGMENT_SIZE, false);
+        JournalEventTransport second = JournalEventTransport.open(directory.resolve("..").resolve(directory.getFileName()),
+                SEGMENT_SIZE, false);
+
+        // When
+        first.close();
+        boolean published = second.publisher().publish(event(1));
+
+        // Then
+        assertSame(first, second);
+        assertTrue(published);
+        second.close();
+        JournalEventTransport reopened = JournalEventTransport.open(directory, SEGMENT_SIZE, false);
+        try {
+            assertNotSame(first, reopened);
+            assertTrue(reopened.pendingBytes() > 0);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void subscribe_SecondSubscriber_Rejected() throws IOException {
+        // Given
+        try (JournalEventTransport transport = JournalEventTransport.open(directory, SEGMENT_SIZE, false)) {
+            EventSubscriber subscriber = transport.subscriber();
+            subscriber.subscribe(event -> { });
+
+            // When / Then
+            try {
+                assertThrows(IllegalStateException.class, () -> transport.subscriber().subscribe(event -> { }));
+            } finally {
+                subscriber.close();
+            }
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for delivery");
+            Thread.sleep(5);
+        }
+    }
+
+    private static List<String> ids(List<UserEvent> events) {
+        return events.stream().map(UserEvent::getEventId).toList();
+    }
+
+    private static UserEvent event(long sequence) {
+        return UserEvent.builder(EventType.USER_UPDATED, UUID.randomUUID(), "alice", "alice@example.com", "USER")
+                .sequence(sequence)
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package com.krainet.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Boots both services in one JVM against embedded Kafka, H2 and an SMTP sink, drives them with
+ * virtual users and reports throughput and p50/p99/p999 latency per operation and from request to
+ * delivered email. Run with {@code -Dbenchmark=true}; see the README for the other settings.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class EndToEndLoadTest {
+
+    private static final int USERS = Integer.getInteger("loadtest.users", 50);
+    private static final int WARMUP_SECONDS = Integer.getInteger("loadtest.warmup-seconds", 10);
+    private static final int DURATION_SECONDS = Integer.getInteger("loadtest.duration-seconds", 60);
+    private static final long THINK_TIME_MS = Long.getLong("loadtest.think-time-ms", 0);
+    private static final int PARTITIONS = Integer.getInteger("loadtest.partitions", 6);
+    private static final int DELIVERY_TIMEOUT_SECONDS = Integer.getInteger("loadtest.delivery-timeout-seconds", 120);
+    private static final TrafficMix MIX = TrafficMix.parse(
+            System.getProperty("loadtest.mix", "register:10,login:60,update:20,password:10"));
+
+    @Test
+    void registerLoginUpdateMix() throws Exception {
+        LoadMetrics metrics = new LoadMetrics();
+        try (LoadTestEnvironment environment = new LoadTestEnvironment(PARTITIONS, metrics)) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            String adminToken = adminToken(httpClient, environment.authServiceUrl());
+
+            long start = System.nanoTime();
+            long deadline = start + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS + DURATION_SECONDS);
+            ExecutorService users = Executors.newFixedThreadPool(USERS);
+            for (int i = 0; i < USERS; i++) {
+                users.execute(new VirtualUser(i, environment.authServiceUrl(), adminToken, httpClient, MIX, metrics,
+                        deadline, THINK_TIME_MS));
+            }
+
+            TimeUnit.SECONDS.sleep(WARMUP_SECONDS);
+            metrics.startMeasuring();
+            long measureStart = System.nanoTime();
+            users.shutdown();
+            assertTrue(users.awaitTermination(DURATION_SECONDS + 60L, TimeUnit.SECONDS), "Virtual users did not finish");
+            metrics.stopMeasuring();
+            Duration measured = Duration.ofNanos(System.nanoTime() - measureStart);
+
+            long deliveryDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DELIVERY_TIMEOUT_SECONDS);
+            while (metrics.pendingEmails() > 0 && System.nanoTime() < deliveryDeadline) {
+                TimeUnit.MILLISECONDS.sleep(200);
+            }
+
+            System.out.printf("%nEnd-to-end load test: %d virtual users, %d s measured after %d s warm-up, mix %s, %d partitions%n",
+                    USERS, DURATION_SECONDS, WARMUP_SECONDS, MIX, PARTITIONS);
+            metrics.report(System.out, measured);
+            Timer endToEnd = environment.notificationMeterRegistry().find("krainet.events.end-to-end.latency").timer();
+            if (endToEnd != null) {
+                System.out.printf("notification-service end-to-end (user change to sent email): %,d emails, mean %.1f ms, max %.1f ms%n",
+                        endToEnd.count(), endToEnd.mean(TimeUnit.MILLISECONDS), endToEnd.max(TimeUnit.MILLISECONDS));
+            }
+
+            assertTrue(metrics.requests() > 0, "No request succeeded");
+            assertEquals(0, metrics.pendingEmails(), "Emails still undelivered after " + DELIVERY_TIMEOUT_SECONDS + " s");
+        }
+    }
+
+    private static String adminToken(HttpClient httpClient, String baseUrl) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(Map.of(
+                        "username", LoadTestEnvironment.ADMIN_USERNAME,
+                        "password", LoadTestEnvironment.ADMIN_PASSWORD))))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), "Admin login failed: " + response.body());
+        return objectMapper.readTree(response.body()).get("accessToken").asText();
+    }
+}
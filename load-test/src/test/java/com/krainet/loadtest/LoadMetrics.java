@@ -0,0 +1,175 @@
+package com.krainet.loadtest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencies and outcomes of a load test run: one timer per {@link TrafficMix.Operation} and one for
+ * the time from a request until the email it caused reached the SMTP sink.
+ *
+ * <p>Nothing is recorded until {@link #startMeasuring}, so the warm-up does not skew the
+ * percentiles. Emails are matched to requests per recipient in the order they were requested;
+ * emails nobody waits for, such as admin digests, are only counted.
+ */
+class LoadMetrics {
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final Map<TrafficMix.Operation, Timer> requests = new EnumMap<>(TrafficMix.Operation.class);
+    private final Map<TrafficMix.Operation, Counter> failures = new EnumMap<>(TrafficMix.Operation.class);
+    private final Timer delivery;
+    private final Map<String, Deque<ExpectedEmail>> expectedEmails = new ConcurrentHashMap<>();
+    private final AtomicLong pendingEmails = new AtomicLong();
+    private final AtomicLong unexpectedEmails = new AtomicLong();
+
+    private volatile boolean measuring;
+
+    LoadMetrics() {
+        for (TrafficMix.Operation operation : TrafficMix.Operation.values()) {
+            requests.put(operation, timer("loadtest.request.latency").tag("operation", operation.tag()).register(registry));
+            failures.put(operation, Counter.builder("loadtest.request.failures").tag("operation", operation.tag()).register(registry));
+        }
+        delivery = timer("loadtest.email.delivery.latency").register(registry);
+    }
+
+    private static Timer.Builder timer(String name) {
+        // Keep every sample of the run in one window and resolve percentiles to three digits
+        return Timer.builder(name)
+                .publishPercentiles(PERCENTILES)
+                .percentilePrecision(3)
+                .distributionStatisticExpiry(Duration.ofDays(1))
+                .distributionStatisticBufferLength(1);
+    }
+
+    void startMeasuring() {
+        measuring = true;
+    }
+
+    void stopMeasuring() {
+        measuring = false;
+    }
+
+    void request(TrafficMix.Operation operation, long elapsedNanos, boolean succeeded) {
+        if (!measuring) {
+            return;
+        }
+        if (succeeded) {
+            requests.get(operation).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        } else {
+            failures.get(operation).increment();
+        }
+    }
+
+    /**
+     * Registers an email that a request about to be sent should cause.
+     *
+     * @param recipient   the address the email goes to
+     * @param requestedAt the epoch millisecond the request is sent
+     */
+    void expectEmail(String recipient, long requestedAt) {
+        Deque<ExpectedEmail> queue = expectedEmails.computeIfAbsent(recipient.toLowerCase(Locale.ROOT), key -> new ArrayDeque<>());
+        synchronized (queue) {
+            queue.addLast(new ExpectedEmail(requestedAt, measuring));
+        }
+        pendingEmails.incrementAndGet();
+    }
+
+    /**
+     * Withdraws the most recent expectation for a recipient after its request failed.
+     */
+    void cancelEmail(String recipient) {
+        Deque<ExpectedEmail> queue = expectedEmails.get(recipient.toLowerCase(Locale.ROOT));
+        if (queue != null) {
+            synchronized (queue) {
+                if (queue.pollLast() != null) {
+                    pendingEmails.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    void delivered(String recipient, long receivedAt) {
+        Deque<ExpectedEmail> queue = expectedEmails.get(recipient);
+        ExpectedEmail expected = null;
+        if (queue != null) {
+            synchronized (queue) {
+                expected = queue.pollFirst();
+            }
+        }
+        if (expected == null) {
+            unexpectedEmails.incrementAndGet();
+            return;
+        }
+        pendingEmails.decrementAndGet();
+        if (expected.measured) {
+            delivery.record(Math.max(0, receivedAt - expected.requestedAt), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    long pendingEmails() {
+        return pendingEmails.get();
+    }
+
+    long requests() {
+        return requests.values().stream().mapToLong(Timer::count).sum();
+    }
+
+    long deliveredEmails() {
+        return delivery.count();
+    }
+
+    /**
+     * Prints throughput and latency percentiles of the measured part of the run.
+     *
+     * @param out      where to print
+     * @param measured how long the measured part of the run took
+     */
+    void report(PrintStream out, Duration measured) {
+        double seconds = measured.toMillis() / 1000.0;
+        out.printf("%n%-10s %9s %9s %10s %10s %10s %10s%n", "operation", "ok", "failed", "req/sec", "p50 ms", "p99 ms", "p999 ms");
+        for (TrafficMix.Operation operation : TrafficMix.Operation.values()) {
+            Timer timer = requests.get(operation);
+            long failed = (long) failures.get(operation).count();
+            if (timer.count() == 0 && failed == 0) {
+                continue;
+            }
+            printRow(out, operation.tag(), timer, failed, seconds);
+        }
+        printRow(out, "email", delivery, pendingEmails.get(), seconds);
+        out.printf("(email: time from the request until the SMTP sink received the email; 'failed' = still pending;"
+                + " %d other emails such as admin digests)%n%n", unexpectedEmails.get());
+    }
+
+    private static void printRow(PrintStream out, String label, Timer timer, long failed, double seconds) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        double[] values = new double[PERCENTILES.length];
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                if (percentile.percentile() == PERCENTILES[i]) {
+                    values[i] = percentile.value(TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        out.printf("%-10s %,9d %,9d %,10.1f %,10.1f %,10.1f %,10.1f%n", label, snapshot.count(), failed,
+                snapshot.count() / seconds, values[0], values[1], values[2]);
+    }
+
+    private record ExpectedEmail(long requestedAt, boolean measured) {
+    }
+}
@@ -0,0 +1,117 @@
+package com.krainet.loadtest;
+
+import com.krainet.authservice.AuthServiceApplication;
+import com.krainet.authservice.model.Role;
+import com.krainet.authservice.model.User;
+import com.krainet.authservice.repository.UserRepository;
+import com.krainet.common.instrumentation.InstrumentationConfig;
+import com.krainet.common.jfr.FlightRecordingConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Both services running in this JVM against an embedded single-node KRaft Kafka, an in-memory H2
+ * database in PostgreSQL mode and an {@link SmtpSink}, with their on-disk state in a temporary
+ * directory.
+ *
+ * <p>Each service reads only its {@code loadtest/*.yml} from the test classpath instead of its own
+ * {@code application.yml}, since both of those sit on the same classpath.
+ */
+class LoadTestEnvironment implements AutoCloseable {
+
+    static final String USER_EVENTS_TOPIC = "user-events";
+    static final String ADMIN_USERNAME = "loadtest-admin";
+    static final String ADMIN_PASSWORD = "loadtest-admin-password";
+
+    private final Path dataDir;
+    private final EmbeddedKafkaBroker broker;
+    private final SmtpSink smtpSink;
+    private final ConfigurableApplicationContext notificationService;
+    private final ConfigurableApplicationContext authService;
+
+    LoadTestEnvironment(int partitions, LoadMetrics metrics) throws IOException {
+        dataDir = Files.createTempDirectory("krainet-load-test");
+        broker = new EmbeddedKafkaKraftBroker(1, partitions, USER_EVENTS_TOPIC);
+        broker.afterPropertiesSet();
+        smtpSink = new SmtpSink(metrics::delivered);
+
+        // The consumer goes first so it is assigned its partitions before the first event is published
+        notificationService = new SpringApplicationBuilder(NotificationServiceHarness.class)
+                .properties(
+                        "spring.config.location=classpath:/loadtest/notification-service.yml",
+                        "loadtest.data-dir=" + dataDir.resolve("notification-service"),
+                        "loadtest.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                        "loadtest.smtp.port=" + smtpSink.port())
+                .run();
+        authService = new SpringApplicationBuilder(AuthServiceApplication.class)
+                .properties(
+                        "spring.config.location=classpath:/loadtest/auth-service.yml",
+                        "loadtest.data-dir=" + dataDir.resolve("auth-service"),
+                        "loadtest.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                        "loadtest.kafka.partitions=" + partitions)
+                .run();
+        createAdmin();
+    }
+
+    /**
+     * Adds the admin the virtual users' accounts are created by. Creating users needs an
+     * authenticated caller, and the H2 schema starts empty.
+     */
+    private void createAdmin() {
+        PasswordEncoder passwordEncoder = authService.getBean(PasswordEncoder.class);
+        authService.getBean(UserRepository.class).save(User.builder()
+                .username(ADMIN_USERNAME)
+                .password(passwordEncoder.encode(ADMIN_PASSWORD))
+                .email(ADMIN_USERNAME + "@loadtest.local")
+                .firstName("Load")
+                .lastName("Test")
+                .role(Role.ADMIN)
+                .enabled(true)
+                .build());
+    }
+
+    String authServiceUrl() {
+        return "http://localhost:" + ((WebServerApplicationContext) authService).getWebServer().getPort();
+    }
+
+    MeterRegistry notificationMeterRegistry() {
+        return notificationService.getBean(MeterRegistry.class);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            authService.close();
+            notificationService.close();
+        } finally {
+            smtpSink.close();
+            broker.destroy();
+            FileSystemUtils.deleteRecursively(dataDir);
+        }
+    }
+
+    /**
+     * Boots the notification service. Its own application class sits in a sub-package and would
+     * only scan that package, so the harness scans the service and repeats the class's imports.
+     */
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @ComponentScan("com.krainet.notificationservice")
+@Import({InstrumentationConfig.class, FlightRecordingConfig.class})
+    static class NotificationServiceHarness {
+    }
+}
@@ -0,0 +1,107 @@
+package com.krainet.loadtest;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Weighted mix of the {@link Operation operations} virtual users perform, parsed from a spec like
+ * {@code register:10,login:60,update:20,password:10}. Operations left out of the spec are never
+ * picked.
+ */
+class TrafficMix {
+
+    /**
+     * Requests a virtual user can make against the auth service.
+     */
+    enum Operation {
+        /** An admin creates a new user; the user is sent a welcome email. */
+        REGISTER(true),
+        /** The virtual user logs in with its own account. */
+        LOGIN(false),
+        /** The virtual user changes its own name; no email is sent. */
+        UPDATE(false),
+        /** The virtual user changes its own password; it is sent a password-changed email. */
+        PASSWORD(true);
+
+        private final boolean sendsEmail;
+
+        Operation(boolean sendsEmail) {
+            this.sendsEmail = sendsEmail;
+        }
+
+        boolean sendsEmail() {
+            return sendsEmail;
+        }
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final int totalWeight;
+
+    private TrafficMix(Map<Operation, Integer> weights) {
+        operations = weights.keySet().toArray(new Operation[0]);
+        cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += weights.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Traffic mix needs at least one operation with a positive weight");
+        }
+        totalWeight = total;
+    }
+
+    /**
+     * Parses a mix spec of comma-separated {@code operation:weight} pairs.
+     *
+     * @param spec the spec, e.g. {@code register:10,login:60,update:20,password:10}
+     * @return the mix
+     * @throws IllegalArgumentException if an operation or weight is not recognised
+     */
+    static TrafficMix parse(String spec) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight but got '" + entry + "'");
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + parts[0]);
+            }
+            weights.merge(Operation.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), weight, Integer::sum);
+        }
+        return new TrafficMix(weights);
+    }
+
+    Operation next(Random random) {
+        int pick = random.nextInt(totalWeight);
+        for (int i = 0; i < operations.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder spec = new StringBuilder();
+        int previous = 0;
+        for (int i = 0; i < operations.length; i++) {
+            if (i > 0) {
+                spec.append(',');
+            }
+            spec.append(operations[i].tag()).append(':').append(cumulativeWeights[i] - previous);
+            previous = cumulativeWeights[i];
+        }
+        return spec.toString();
+    }
+}
@@ -0,0 +1,175 @@
+package com.krainet.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * One simulated client of the auth service. It gets an account of its own, then performs
+ * operations picked from the {@link TrafficMix} until the deadline, recording each request and
+ * the emails it should cause in {@link LoadMetrics}.
+ */
+class VirtualUser implements Runnable {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final int number;
+    private final String baseUrl;
+    private final String adminToken;
+    private final HttpClient httpClient;
+    private final TrafficMix mix;
+    private final LoadMetrics metrics;
+    private final long deadlineNanos;
+    private final long thinkTimeMs;
+    private final Random random;
+
+    private String username;
+    private String email;
+    private String password;
+    private UUID userId;
+    private String token;
+    private int sequence;
+
+    VirtualUser(int number, String baseUrl, String adminToken, HttpClient httpClient, TrafficMix mix,
+                LoadMetrics metrics, long deadlineNanos, long thinkTimeMs) {
+        this.number = number;
+        this.baseUrl = baseUrl;
+        this.adminToken = adminToken;
+        this.httpClient = httpClient;
+        this.mix = mix;
+        this.metrics = metrics;
+        this.deadlineNanos = deadlineNanos;
+        this.thinkTimeMs = thinkTimeMs;
+        this.random = new Random(number);
+    }
+
+    @Override
+    public void run() {
+        try {
+            username = nextUsername();
+            email = username + "@loadtest.local";
+            password = "password-" + UUID.randomUUID();
+            JsonNode account = register(username, email, password);
+            if (account == null || !login()) {
+                return;
+            }
+            userId = UUID.fromString(account.get("id").asText());
+            while (System.nanoTime() < deadlineNanos && !Thread.currentThread().isInterrupted()) {
+                perform(mix.next(random));
+                if (thinkTimeMs > 0) {
+                    Thread.sleep(thinkTimeMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void perform(TrafficMix.Operation operation) throws InterruptedException {
+        switch (operation) {
+            case REGISTER -> {
+                String newUsername = nextUsername();
+                register(newUsername, newUsername + "@loadtest.local", "password-" + UUID.randomUUID());
+            }
+            case LOGIN -> login();
+            case UPDATE -> update(TrafficMix.Operation.UPDATE, Map.of("firstName", "Virtual" + sequence++));
+            case PASSWORD -> {
+                String newPassword = "password-" + UUID.randomUUID();
+                metrics.expectEmail(email, System.currentTimeMillis());
+                if (update(TrafficMix.Operation.PASSWORD, Map.of("password", newPassword))) {
+                    password = newPassword;
+                } else {
+                    metrics.cancelEmail(email);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a user through the admin API; plain registration needs an authenticated caller too.
+     */
+    private JsonNode register(String newUsername, String newEmail, String newPassword) throws InterruptedException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("username", newUsername);
+        body.put("password", newPassword);
+        body.put("email", newEmail);
+        body.put("firstName", "Virtual");
+        body.put("lastName", "User" + number);
+        body.put("role", "USER");
+        metrics.expectEmail(newEmail, System.currentTimeMillis());
+        HttpResponse<String> response = send(TrafficMix.Operation.REGISTER,
+                request("/api/v1/users", adminToken).POST(json(body)), 201);
+        if (response == null) {
+            metrics.cancelEmail(newEmail);
+            return null;
+        }
+        return parse(response);
+    }
+
+    private boolean login() throws InterruptedException {
+        HttpResponse<String> response = send(TrafficMix.Operation.LOGIN,
+                request("/api/v1/auth/login", null).POST(json(Map.of("username", username, "password", password))), 200);
+        JsonNode tokenResponse = response != null ? parse(response) : null;
+        if (tokenResponse == null) {
+            return false;
+        }
+        token = tokenResponse.get("accessToken").asText();
+        return true;
+    }
+
+    private boolean update(TrafficMix.Operation operation, Map<String, Object> changes) throws InterruptedException {
+        return send(operation, request("/api/v1/users/" + userId, token).PUT(json(changes)), 200) != null;
+    }
+
+    private HttpRequest.Builder request(String path, String bearerToken) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json");
+        if (bearerToken != null) {
+            builder.header("Authorization", "Bearer " + bearerToken);
+        }
+        return builder;
+    }
+
+    private HttpResponse<String> send(TrafficMix.Operation operation, HttpRequest.Builder request, int expectedStatus)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            boolean succeeded = response.statusCode() == expectedStatus;
+            metrics.request(operation, System.nanoTime() - start, succeeded);
+            return succeeded ? response : null;
+        } catch (IOException e) {
+            metrics.request(operation, System.nanoTime() - start, false);
+            return null;
+        }
+    }
+
+    private String nextUsername() {
+        return "lt-" + number + "-" + sequence++;
+    }
+
+    private static HttpRequest.BodyPublisher json(Map<String, Object> body) {
+        try {
+            return HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(body));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write request body", e);
+        }
+    }
+
+    private static JsonNode parse(HttpResponse<String> response) {
+        try {
+            return OBJECT_MAPPER.readTree(response.body());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -1,9 +1,13 @@
-package com.krainet.notificationservice.aspect;
+package com.krainet.notificationservice;
 
+import com.krainet.common.instrumentation.InstrumentationConfig;
+import com.krainet.common.jfr.FlightRecordingConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 
 @SpringBootApplication
+@Import({InstrumentationConfig.class, FlightRecordingConfig.class})
 public class NotificationServiceApplication {
 
 	public static void main(String[] args) {
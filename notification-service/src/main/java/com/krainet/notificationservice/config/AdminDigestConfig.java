@@ -0,0 +1,20 @@
+package com.krainet.notificationservice.config;
+
+import com.krainet.notificationservice.digest.AdminDigest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Wiring for admin notification digests. When enabled, the digest is the
+ * {@link com.krainet.notificationservice.digest.AdminDigestBuffer} component.
+ */
+@Configuration
+public class AdminDigestConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.notifications.digest.enabled", havingValue = "false")
+    public AdminDigest adminDigest() {
+        return AdminDigest.NONE;
+    }
+}
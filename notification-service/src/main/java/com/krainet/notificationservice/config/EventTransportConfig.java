@@ -0,0 +1,56 @@
+package com.krainet.notificationservice.config;
+
+import com.krainet.common.transport.EventSubscriber;
+import com.krainet.common.transport.InMemoryEventTransport;
+import com.krainet.common.transport.JournalEventTransport;
+import com.krainet.notificationservice.consumer.UserEventConsumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Local {@link EventSubscriber}s for deployments that run the auth service in the same JVM.
+ * With the default {@code kafka} transport, events arrive through the Kafka listeners instead,
+ * which own offset commits, retry topics and the DLT; there is no Kafka {@link EventSubscriber}.
+ */
+@Slf4j
+@Configuration
+public class EventTransportConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.events.transport", havingValue = "in-memory")
+    public EventSubscriber inMemoryEventSubscriber(
+            String userEventsTopic,
+            UserEventConsumer userEventConsumer,
+            @Value("${app.events.in-memory.capacity:8192}") int capacity) {
+        EventSubscriber subscriber = InMemoryEventTransport.channel(userEventsTopic, capacity).subscriber();
+        subscriber.subscribe(userEventConsumer);
+        log.info("Receiving user events from in-memory channel '{}'", userEventsTopic);
+        return subscriber;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.events.transport", havingValue = "journal")
+    public JournalEventTransport journalEventTransport(
+            @Value("${app.events.journal.directory:./data/event-transport}") String directory,
+            @Value("${app.events.journal.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${app.events.journal.fsync:false}") boolean fsync) throws IOException {
+        return JournalEventTransport.open(Path.of(directory), segmentSizeMb * 1024 * 1024, fsync);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.events.transport", havingValue = "journal")
+    public EventSubscriber journalEventSubscriber(
+            JournalEventTransport journalEventTransport,
+            UserEventConsumer userEventConsumer) {
+        EventSubscriber subscriber = journalEventTransport.subscriber();
+        subscriber.subscribe(userEventConsumer);
+        log.info("Receiving user events from local journal");
+        return subscriber;
+    }
+}
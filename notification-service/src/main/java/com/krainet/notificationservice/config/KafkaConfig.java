@@ -1,17 +1,41 @@
 package com.krainet.notificationservice.config;
 
 import com.krainet.common.event.UserEvent;
+import com.krainet.common.logging.LogContext;
+import com.krainet.common.serialization.UserEventDeserializer;
+import com.krainet.common.serialization.UserEventSerializer;
+import com.krainet.notificationservice.consumer.HeaderFilteringUserEventDeserializer;
+import com.krainet.notificationservice.consumer.UserEventRecordFilter;
+import com.krainet.notificationservice.latency.EventLatency;
+import com.krainet.notificationservice.retry.RetryTopics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.CompositeRecordInterceptor;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.RecordInterceptor;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Configuration
@@ -26,37 +50,153 @@ public class KafkaConfig {
     @Value("${kafka.topic.user-events:user-events}")
     private String userEventsTopic;
 
+    @Value("${kafka.consumer.concurrency:1}")
+    private int concurrency;
+
+    @Value("${kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${kafka.consumer.header-filter.enabled:true}")
+    private boolean headerFilterEnabled;
+
+    @Value("${app.logging.debug-sample-rate:0.01}")
+    private double debugSampleRate;
+
     @Bean
     public Map<String, Object> consumerConfigs() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        props.put(JsonDeserializer.TRUSTED_PACKAGES, "com.krainet.common.event");
-        props.put(JsonDeserializer.TYPE_MAPPINGS, "userEvent:com.krainet.common.event.UserEvent");
-        props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, UserEventDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
         return props;
     }
 
+    /**
+     * Drops user events that send no notification from their headers, before they are decoded.
+     */
     @Bean
-    public ConsumerFactory<String, UserEvent> consumerFactory() {
-        return new DefaultKafkaConsumerFactory<>(
+    public UserEventRecordFilter userEventRecordFilter(MeterRegistry meterRegistry) {
+        return new UserEventRecordFilter(meterRegistry);
+    }
+
+    /**
+     * Consumer factory for user events. The Kafka client metrics of every consumer, among them the
+     * per-partition {@code records-lag}, are bound to the meter registry.
+     */
+    @Bean
+    public ConsumerFactory<String, UserEvent> consumerFactory(UserEventRecordFilter recordFilter,
+                                                              MeterRegistry meterRegistry) {
+        DefaultKafkaConsumerFactory<String, UserEvent> factory = new DefaultKafkaConsumerFactory<>(
                 consumerConfigs(),
                 new StringDeserializer(),
-                new JsonDeserializer<>(UserEvent.class, false)
+                headerFilterEnabled ? new HeaderFilteringUserEventDeserializer(recordFilter) : new UserEventDeserializer()
         );
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, UserEvent> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, UserEvent> kafkaListenerContainerFactory(
+            ConsumerFactory<String, UserEvent> consumerFactory, UserEventRecordFilter recordFilter,
+            EventLatency eventLatency) {
         ConcurrentKafkaListenerContainerFactory<String, UserEvent> factory = 
                 new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
+        factory.setConsumerFactory(consumerFactory);
+        factory.setConcurrency(concurrency);
+        factory.setRecordInterceptor(new CompositeRecordInterceptor<>(
+                eventLatency.recordInterceptor(), logContextInterceptor()));
+        applyHeaderFilter(factory, recordFilter);
         return factory;
     }
 
+    /**
+     * Container factory for {@link com.krainet.notificationservice.consumer.BatchUserEventConsumer},
+     * which commits offsets itself once a batch has been processed.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, UserEvent> batchKafkaListenerContainerFactory(
+            ConsumerFactory<String, UserEvent> consumerFactory, UserEventRecordFilter recordFilter) {
+        ConcurrentKafkaListenerContainerFactory<String, UserEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        applyHeaderFilter(factory, recordFilter);
+        return factory;
+    }
+
+    /**
+     * Continues the trace of the request that caused each event in the listener's log lines.
+     */
+    private RecordInterceptor<String, UserEvent> logContextInterceptor() {
+        return new RecordInterceptor<>() {
+
+            @Override
+            public ConsumerRecord<String, UserEvent> intercept(ConsumerRecord<String, UserEvent> record,
+                                                               Consumer<String, UserEvent> consumer) {
+                UserEvent event = record.value();
+                if (event != null) {
+                    LogContext.beginEvent(event.getEventId(), event.getMetadata(), debugSampleRate);
+                }
+                return record;
+            }
+
+            @Override
+            public void afterRecord(ConsumerRecord<String, UserEvent> record, Consumer<String, UserEvent> consumer) {
+                LogContext.end();
+            }
+        };
+    }
+
+    /**
+     * Removes the records the {@link HeaderFilteringUserEventDeserializer} left undecoded before
+     * they reach the listener, acknowledging them like handled records.
+     */
+    private void applyHeaderFilter(ConcurrentKafkaListenerContainerFactory<String, UserEvent> factory,
+                                   UserEventRecordFilter recordFilter) {
+        if (headerFilterEnabled) {
+            factory.setRecordFilterStrategy(recordFilter);
+            factory.setAckDiscarded(true);
+        }
+    }
+
+    /**
+     * Producer for forwarding failed user events to the retry and dead-letter topics.
+     */
+    @Bean
+    public ProducerFactory<String, UserEvent> producerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, UserEventSerializer.class);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+
+    @Bean
+    public KafkaTemplate<String, UserEvent> kafkaTemplate() {
+        return new KafkaTemplate<>(producerFactory());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "kafka.retry.enabled", havingValue = "true", matchIfMissing = true)
+    public KafkaAdmin.NewTopics retryTopicDefinitions(
+            RetryTopics retryTopics,
+            @Value("${kafka.retry.partitions:3}") int partitions,
+            @Value("${kafka.retry.replicas:1}") short replicas) {
+        List<NewTopic> topics = new ArrayList<>();
+        for (RetryTopics.Tier tier : retryTopics.tiers()) {
+            topics.add(TopicBuilder.name(tier.topic()).partitions(partitions).replicas(replicas).build());
+        }
+        topics.add(TopicBuilder.name(retryTopics.deadLetterTopic()).partitions(partitions).replicas(replicas).build());
+        return new KafkaAdmin.NewTopics(topics.toArray(NewTopic[]::new));
+    }
+
     @Bean
     public String userEventsTopic() {
         return userEventsTopic;
@@ -1,5 +1,6 @@
 package com.krainet.notificationservice.config;
 
+import com.krainet.notificationservice.mail.PooledJavaMailSender;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -35,9 +36,34 @@ public class MailConfig {
     @Value("${app.email.from}")
     private String from;
 
+    @Value("${app.mail.pool.enabled:true}")
+    private boolean poolEnabled;
+
+    @Value("${app.mail.pool.max-connections:4}")
+    private int poolMaxConnections;
+
+    @Value("${app.mail.pool.max-messages-per-connection:100}")
+    private int poolMaxMessagesPerConnection;
+
+    @Value("${app.mail.pool.max-connection-age-ms:300000}")
+    private long poolMaxConnectionAgeMs;
+
+    @Value("${app.mail.pool.validate-after-idle-ms:5000}")
+    private long poolValidateAfterIdleMs;
+
+    @Value("${app.mail.pool.borrow-timeout-ms:30000}")
+    private long poolBorrowTimeoutMs;
+
+    /**
+     * Creates the mail sender. By default SMTP connections are pooled and reused across sends;
+     * with {@code app.mail.pool.enabled=false} every send opens its own connection.
+     */
     @Bean
     public JavaMailSender javaMailSender() {
-        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        JavaMailSenderImpl mailSender = poolEnabled
+                ? new PooledJavaMailSender(poolMaxConnections, poolMaxMessagesPerConnection,
+                        poolMaxConnectionAgeMs, poolValidateAfterIdleMs, poolBorrowTimeoutMs)
+                : new JavaMailSenderImpl();
         mailSender.setHost(host);
         mailSender.setPort(port);
         mailSender.setUsername(username);
@@ -0,0 +1,20 @@
+package com.krainet.notificationservice.config;
+
+import com.krainet.notificationservice.dedup.ProcessedEventLog;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Wiring for event-ID deduplication of notifications. When enabled, the log is the
+ * {@link com.krainet.notificationservice.dedup.ProcessedEventStore} component.
+ */
+@Configuration
+public class ProcessedEventConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.dedup.enabled", havingValue = "false")
+    public ProcessedEventLog processedEventLog() {
+        return ProcessedEventLog.NONE;
+    }
+}
@@ -0,0 +1,167 @@
+package com.krainet.notificationservice.consumer;
+
+import com.krainet.common.event.UserEvent;
+import com.krainet.common.logging.LogContext;
+import com.krainet.common.serialization.UserEventHeaders;
+import com.krainet.notificationservice.latency.EventLatency;
+import com.krainet.notificationservice.retry.FailedEventRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Batch Kafka listener that processes a whole poll in parallel on a {@link KeyOrderedExecutor}.
+ *
+ * <p>Records are routed to a worker lane by key (the user ID), so events for one user are still
+ * handled in order while different users run in parallel. Once the batch has finished, each
+ * partition's offset is committed up to its highest contiguous successfully handled record.
+ * A failed record is handed to the retry topics by the {@link FailedEventRouter} and counts as
+ * handled; only if that is not possible is the partition rewound to it, so it and everything
+ * after it is redelivered. The later records of the same key in that batch are then skipped rather
+ * than run ahead of it, so a user's events are still handled in order once redelivered. Redelivered records that did succeed are dropped by the
+ * {@link com.krainet.notificationservice.dedup.ProcessedEventLog}. Records the {@link UserEventRecordFilter} drops never reach this
+ * listener; their offsets are committed along with the next handled record of their partition.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kafka.consumer.mode", havingValue = "batch", matchIfMissing = true)
+public class BatchUserEventConsumer {
+
+    private final UserEventConsumer userEventConsumer;
+    private final FailedEventRouter failedEventRouter;
+    private final EventLatency eventLatency;
+    private final KeyOrderedExecutor workers;
+    private final double debugSampleRate;
+
+    public BatchUserEventConsumer(
+            UserEventConsumer userEventConsumer,
+            FailedEventRouter failedEventRouter,
+            EventLatency eventLatency,
+            @Value("${kafka.consumer.workers:8}") int workerCount,
+            @Value("${app.logging.debug-sample-rate:0.01}") double debugSampleRate) {
+        this.userEventConsumer = userEventConsumer;
+        this.failedEventRouter = failedEventRouter;
+        this.eventLatency = eventLatency;
+        this.debugSampleRate = debugSampleRate;
+        this.workers = new KeyOrderedExecutor("user-event-worker", workerCount);
+    }
+
+    /**
+     * Processes one poll's worth of user events.
+     *
+     * @param records the polled records, in partition order
+     * @param consumer the listener container's consumer, used to commit and rewind partitions
+     */
+    @KafkaListener(
+            topics = "#{@userEventsTopic}",
+            groupId = "#{'${kafka.consumer.group-id:notification-service}'}",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "#{'${app.events.transport:kafka}' == 'kafka'}"
+    )
+    public void consumeUserEvents(List<ConsumerRecord<String, UserEvent>> records, Consumer<?, ?> consumer) {
+        Map<TopicPartition, List<ConsumerRecord<String, UserEvent>>> byPartition = new LinkedHashMap<>();
+        Map<ConsumerRecord<String, UserEvent>, CompletableFuture<Void>> results = new IdentityHashMap<>(records.size());
+        Set<Object> failedKeys = ConcurrentHashMap.newKeySet();
+        for (ConsumerRecord<String, UserEvent> record : records) {
+            byPartition.computeIfAbsent(new TopicPartition(record.topic(), record.partition()), tp -> new ArrayList<>())
+                    .add(record);
+            Object key = record.key() != null ? record.key() : record.partition();
+            results.put(record, workers.submit(key, () -> handle(record, key, failedKeys)));
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        for (Map.Entry<TopicPartition, List<ConsumerRecord<String, UserEvent>>> entry : byPartition.entrySet()) {
+            TopicPartition partition = entry.getKey();
+            Long nextOffset = null;
+            for (ConsumerRecord<String, UserEvent> record : entry.getValue()) {
+                if (!succeeded(results.get(record))) {
+                    log.warn("Rewinding {} to offset {} after a failed user event", partition, record.offset());
+                    consumer.seek(partition, record.offset());
+                    break;
+                }
+                nextOffset = record.offset() + 1;
+            }
+            if (nextOffset != null) {
+                commits.put(partition, new OffsetAndMetadata(nextOffset));
+            }
+        }
+        if (!commits.isEmpty()) {
+            consumer.commitSync(commits);
+        }
+        log.debug("Processed batch of {} user events across {} partitions", records.size(), byPartition.size());
+    }
+
+    /**
+     * Handles one record on its key's lane. Lanes run a key's records in submission order, so once
+     * a record of the key has failed without being routed, every later one in the batch is skipped
+     * and left to the redelivery that follows the rewind.
+     */
+    private void handle(ConsumerRecord<String, UserEvent> record, Object key, Set<Object> failedKeys) {
+        if (failedKeys.contains(key)) {
+            throw new SkippedAfterFailure();
+        }
+        UserEvent event = record.value();
+        if (event == null) {
+            log.warn("Skipping empty user event record at {}-{}@{}", record.topic(), record.partition(), record.offset());
+            return;
+        }
+        eventLatency.consumed(record.headers());
+        LogContext.beginEvent(event.getEventId(), event.getMetadata(), debugSampleRate);
+        try {
+            userEventConsumer.onEvent(event, UserEventHeaders.replayed(record.headers()));
+        } catch (RuntimeException e) {
+            if (!failedEventRouter.route(record, e)) {
+                failedKeys.add(key);
+                throw e;
+            }
+        } finally {
+            eventLatency.clear();
+            LogContext.end();
+        }
+    }
+
+    private static boolean succeeded(CompletableFuture<Void> result) {
+        try {
+            result.join();
+            return true;
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (!(cause instanceof SkippedAfterFailure)) {
+                log.error("Error processing user event", cause);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Fails a record that was not run because an earlier record of its key failed.
+     */
+    private static final class SkippedAfterFailure extends RuntimeException {
+
+        SkippedAfterFailure() {
+            super("Skipped after an earlier event of the same key failed", null, false, false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.close();
+    }
+}
@@ -0,0 +1,138 @@
+package com.krainet.notificationservice.consumer;
+
+import com.krainet.common.event.UserEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Keeps the highest event sequence handled per user so that a redelivery of the newest one can be
+ * dropped with a single comparison, without a lookup in the
+ * {@link com.krainet.notificationservice.dedup.ProcessedEventLog}. Older events arriving out of
+ * order are not dropped: each event carries its own notifications, which must still be sent.
+ *
+ * <p>Marks are held in a fixed-size table of primitive longs, so memory stays bounded however many
+ * users there are. The table is four-way set associative: a user maps to one set of four entries,
+ * and when all four are taken the least recently advanced one is evicted. Marks live in memory
+ * only. An evicted or restarted user's redeliveries are left to the
+ * {@link com.krainet.notificationservice.dedup.ProcessedEventLog}.
+ */
+@Component
+public class EventSequenceTracker {
+
+    private static final int WAYS = 4;
+    private static final int LOCK_STRIPES = 256;
+    // Per entry: user ID high bits, user ID low bits, sequence, last advanced
+    private static final int FIELDS = 4;
+    private static final long EMPTY = -1;
+
+    private final long[] entries;
+    private final int setMask;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * @param maxUsers how many users' marks to keep; rounded up to a power of two
+     */
+    public EventSequenceTracker(@Value("${app.sequence-tracker.max-users:262144}") int maxUsers) {
+        int sets = Integer.highestOneBit(Math.max(1, (maxUsers + WAYS - 1) / WAYS - 1)) << 1;
+        this.setMask = sets - 1;
+        this.entries = new long[sets * WAYS * FIELDS];
+        for (int i = 0; i < entries.length; i += FIELDS) {
+            entries[i + 2] = EMPTY;
+        }
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Returns whether the event is the newest event already handled for its user, delivered again.
+     * Older events are not redeliveries by this measure, and events without a sequence or user ID
+     * never are.
+     */
+    public boolean isRedelivery(UserEvent event) {
+        Long sequence = event.getSequence();
+        UUID userId = event.getUserId();
+        return sequence != null && userId != null && sequence == highWaterMark(userId);
+    }
+
+    /**
+     * Records the event's sequence if it is newer than anything seen for its user.
+     *
+     * @param event the incoming event
+     * @return {@code false} if the event is not newer than the user's mark;
+     *         events without a sequence or user ID are always accepted
+     */
+    public boolean advance(UserEvent event) {
+        Long sequence = event.getSequence();
+        UUID userId = event.getUserId();
+        if (sequence == null || userId == null) {
+            return true;
+        }
+        long high = userId.getMostSignificantBits();
+        long low = userId.getLeastSignificantBits();
+        int set = set(high, low);
+        synchronized (lock(set)) {
+            int entry = find(set, high, low);
+            if (entry < 0) {
+                entry = victim(set);
+                entries[entry] = high;
+                entries[entry + 1] = low;
+                entries[entry + 2] = EMPTY;
+            }
+            entries[entry + 3] = System.nanoTime();
+            if (sequence > entries[entry + 2]) {
+                entries[entry + 2] = sequence;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Returns the highest sequence handled for the user, or {@code -1} if none is known.
+     */
+    public long highWaterMark(UUID userId) {
+        long high = userId.getMostSignificantBits();
+        long low = userId.getLeastSignificantBits();
+        int set = set(high, low);
+        synchronized (lock(set)) {
+            int entry = find(set, high, low);
+            return entry < 0 ? EMPTY : entries[entry + 2];
+        }
+    }
+
+    private int set(long high, long low) {
+        long hash = (high ^ low) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & setMask;
+    }
+
+    private Object lock(int set) {
+        return locks[set & (LOCK_STRIPES - 1)];
+    }
+
+    private int find(int set, long high, long low) {
+        int first = set * WAYS * FIELDS;
+        for (int entry = first; entry < first + WAYS * FIELDS; entry += FIELDS) {
+            if (entries[entry + 2] != EMPTY && entries[entry] == high && entries[entry + 1] == low) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    private int victim(int set) {
+        int first = set * WAYS * FIELDS;
+        int oldest = first;
+        for (int entry = first; entry < first + WAYS * FIELDS; entry += FIELDS) {
+            if (entries[entry + 2] == EMPTY) {
+                return entry;
+            }
+            if (entries[entry + 3] - entries[oldest + 3] < 0) {
+                oldest = entry;
+            }
+        }
+        return oldest;
+    }
+}
@@ -0,0 +1,34 @@
+package com.krainet.notificationservice.consumer;
+
+import com.krainet.common.event.UserEvent;
+import com.krainet.common.serialization.UserEventDeserializer;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * {@link UserEventDeserializer} that skips decoding records the {@link UserEventRecordFilter}
+ * will drop anyway, returning {@code null} for them. The listener container's record filter then
+ * removes them before they reach a listener, so they are never mistaken for empty records.
+ */
+public class HeaderFilteringUserEventDeserializer implements Deserializer<UserEvent> {
+
+    private final UserEventDeserializer delegate = new UserEventDeserializer();
+    private final UserEventRecordFilter filter;
+
+    public HeaderFilteringUserEventDeserializer(UserEventRecordFilter filter) {
+        this.filter = filter;
+    }
+
+    @Override
+    public UserEvent deserialize(String topic, Headers headers, byte[] data) {
+        if (headers != null && filter.isIrrelevant(headers)) {
+            return null;
+        }
+        return delegate.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public UserEvent deserialize(String topic, byte[] data) {
+        return delegate.deserialize(topic, data);
+    }
+}
@@ -1,51 +1,120 @@
 package com.krainet.notificationservice.consumer;
 
 import com.krainet.common.event.UserEvent;
+import com.krainet.common.serialization.UserEventHeaders;
+import com.krainet.common.transport.UserEventHandler;
+import com.krainet.notificationservice.dedup.ProcessedEventLog;
+import com.krainet.notificationservice.jfr.UserEventProcessEvent;
+import com.krainet.notificationservice.retry.FailedEventRouter;
 import com.krainet.notificationservice.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
-import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
 /**
- * Kafka consumer for user-related events.
+ * Consumer for user-related events. Receives them from the Kafka listener, or from a local
+ * {@link com.krainet.common.transport.EventSubscriber} when both services share a JVM.
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class UserEventConsumer {
+public class UserEventConsumer implements UserEventHandler {
 
     private final NotificationService notificationService;
+    private final EventSequenceTracker sequenceTracker;
+    private final FailedEventRouter failedEventRouter;
+    private final ProcessedEventLog processedEventLog;
 
     /**
-     * Listens for user events from Kafka and processes them.
+     * Listens for user events from Kafka one record at a time and processes them. Only started
+     * with {@code kafka.consumer.mode=record}; the default batch mode uses {@link BatchUserEventConsumer}.
+     * Failed events are handed to the retry topics and acknowledged.
      *
-     * @param event the user event
+     * @param record the user event record
      * @param ack the acknowledgment to commit the offset
      */
     @KafkaListener(
             topics = "#{@userEventsTopic}",
             groupId = "#{'${kafka.consumer.group-id:notification-service}'}",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "#{'${app.events.transport:kafka}' == 'kafka' and '${kafka.consumer.mode:batch}' == 'record'}"
     )
-    public void consumeUserEvent(@Payload UserEvent event, Acknowledgment ack) {
+    public void consumeUserEvent(ConsumerRecord<String, UserEvent> record, Acknowledgment ack) {
+        UserEvent event = record.value();
         try {
             log.debug("Received user event: {} for user {}", event.getEventType(), event.getUsername());
-            
-            // Process the event
-            notificationService.processUserEvent(event);
-            
-            // Acknowledge the message
-            ack.acknowledge();
+            onEvent(event, UserEventHeaders.replayed(record.headers()));
             log.debug("Successfully processed user event: {}", event.getEventId());
-            
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
             log.error("Error processing user event: {}", event.getEventId(), e);
-            // The message will be retried based on the retry policy
-            // Consider implementing dead-letter queue for failed messages
-            throw e;
+            // Without retry topics the record is redelivered by the container
+            if (!failedEventRouter.route(record, e)) {
+                throw e;
+            }
+        }
+        ack.acknowledge();
+    }
+
+    /**
+     * Processes a user event, whichever transport delivered it. The event only counts as handled
+     * for the {@link EventSequenceTracker} and the {@link ProcessedEventLog} once its notifications
+     * were sent, so a failed event is not mistaken for a duplicate when it is redelivered. Each
+     * call is recorded as a {@link UserEventProcessEvent}.
+     *
+     * @param event the user event
+     */
+    @Override
+    public void onEvent(UserEvent event) {
+        onEvent(event, false);
+    }
+
+    /**
+     * Processes a user event that may have been replayed from the producer's journal. Replayed
+     * events skip the {@link EventSequenceTracker} check and are only dropped by the
+     * {@link ProcessedEventLog}, if they were delivered before.
+     *
+     * @param event the user event
+     * @param replayed whether the record carried the {@link UserEventHeaders#REPLAYED_HEADER} header
+     */
+    public void onEvent(UserEvent event, boolean replayed) {
+        UserEventProcessEvent processEvent = new UserEventProcessEvent();
+        processEvent.begin();
+        processEvent.outcome = "failed";
+        try {
+            processEvent.outcome = process(event, replayed);
+        } finally {
+            processEvent.end();
+            if (processEvent.shouldCommit()) {
+                processEvent.eventType = String.valueOf(event.getEventType());
+                processEvent.eventId = event.getEventId();
+                processEvent.sequence = event.getSequence() != null ? event.getSequence() : -1;
+                processEvent.commit();
+            }
+        }
+    }
+
+    /**
+     * Processes a user event unless it was already handled. Events older than the newest one
+     * handled for the user are still processed, since each carries its own notifications.
+     *
+     * @return the outcome recorded in the {@link UserEventProcessEvent}
+     */
+    private String process(UserEvent event, boolean replayed) {
+        if (!replayed && sequenceTracker.isRedelivery(event)) {
+            log.debug("Skipping redelivered {} event {} for user {} (sequence {})",
+                    event.getEventType(), event.getEventId(), event.getUserId(), event.getSequence());
+            return "duplicate";
+        }
+        if (processedEventLog.isProcessed(event.getEventId())) {
+            log.debug("Skipping {} event {} whose notifications were already sent", event.getEventType(), event.getEventId());
+            return "duplicate";
         }
+        notificationService.processUserEvent(event);
+        processedEventLog.markProcessed(event.getEventId());
+        sequenceTracker.advance(event);
+        return "processed";
     }
 }
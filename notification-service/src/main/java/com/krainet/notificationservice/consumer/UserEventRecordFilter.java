@@ -0,0 +1,73 @@
+package com.krainet.notificationservice.consumer;
+
+import com.krainet.common.event.ChangedField;
+import com.krainet.common.event.EventType;
+import com.krainet.common.event.UserEvent;
+import com.krainet.common.serialization.UserEventHeaders;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.kafka.listener.adapter.RecordFilterStrategy;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Drops user event records that cannot lead to a notification, judging only by their
+ * {@link UserEventHeaders routing headers}.
+ *
+ * <p>The rules mirror {@link com.krainet.notificationservice.service.NotificationService}: an
+ * update or deletion the user made themselves sends nothing, unless the update changed the
+ * password or the account status. Records without the headers, from producers that predate them,
+ * are always kept. The same check runs in the {@link HeaderFilteringUserEventDeserializer}, so
+ * dropped records are never decoded.
+ */
+public class UserEventRecordFilter implements RecordFilterStrategy<String, UserEvent> {
+
+    private static final int NOTIFYING_CHANGES = ChangedField.mask(ChangedField.PASSWORD, ChangedField.ENABLED);
+
+    private final Map<EventType, Counter> filtered = new EnumMap<>(EventType.class);
+
+    public UserEventRecordFilter(MeterRegistry meterRegistry) {
+        for (EventType eventType : new EventType[]{EventType.USER_UPDATED, EventType.USER_DELETED}) {
+            filtered.put(eventType, Counter.builder("krainet.events.filtered")
+                    .description("User events dropped from their headers without being decoded")
+                    .tag("type", eventType.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public boolean filter(ConsumerRecord<String, UserEvent> record) {
+        if (!isIrrelevant(record.headers())) {
+            return false;
+        }
+        filtered.get(UserEventHeaders.eventType(record.headers())).increment();
+        return true;
+    }
+
+    /**
+     * Tells whether a record's headers show that it sends no notification.
+     *
+     * @param headers the record's headers
+     * @return {@code true} if the record can be dropped without decoding it
+     */
+    public boolean isIrrelevant(Headers headers) {
+        if (!Boolean.TRUE.equals(UserEventHeaders.selfInitiated(headers))) {
+            return false;
+        }
+        EventType eventType = UserEventHeaders.eventType(headers);
+        if (eventType == EventType.USER_DELETED) {
+            return true;
+        }
+        if (eventType != EventType.USER_UPDATED) {
+            return false;
+        }
+        if (headers.lastHeader(UserEventHeaders.CHANGED_FIELDS_HEADER) == null) {
+            return true;
+        }
+        Integer changedFields = UserEventHeaders.changedFields(headers);
+        return changedFields != null && (changedFields & NOTIFYING_CHANGES) == 0;
+    }
+}
@@ -0,0 +1,28 @@
+package com.krainet.notificationservice.controller;
+
+import com.krainet.notificationservice.dto.DeadLetterReplayResponse;
+import com.krainet.notificationservice.retry.DeadLetterReplayService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/notifications/dead-letters")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "kafka.retry.enabled", havingValue = "true", matchIfMissing = true)
+public class DeadLetterController {
+
+    private final DeadLetterReplayService deadLetterReplayService;
+
+    @PostMapping("/replay")
+    public ResponseEntity<DeadLetterReplayResponse> replay(@RequestParam(defaultValue = "1000") int max) {
+        log.info("Received request to replay up to {} dead-lettered user events", max);
+        return ResponseEntity.ok(deadLetterReplayService.replay(max));
+    }
+}
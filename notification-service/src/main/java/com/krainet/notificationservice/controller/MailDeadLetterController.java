@@ -0,0 +1,31 @@
+package com.krainet.notificationservice.controller;
+
+import com.krainet.notificationservice.dto.DeadLetterReplayResponse;
+import com.krainet.notificationservice.mail.MailSpool;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/notifications/dead-letters/mail")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.mail.spool.enabled", havingValue = "true", matchIfMissing = true)
+public class MailDeadLetterController {
+
+    private final MailSpool mailSpool;
+
+    @PostMapping("/replay")
+    public ResponseEntity<DeadLetterReplayResponse> replay(@RequestParam(defaultValue = "1000") int max) throws IOException {
+        log.info("Received request to redrive up to {} dead-lettered emails", max);
+        MailSpool.Redrive redrive = mailSpool.redriveDeadLetters(max);
+        return ResponseEntity.ok(new DeadLetterReplayResponse(redrive.redriven(), redrive.skipped()));
+    }
+}
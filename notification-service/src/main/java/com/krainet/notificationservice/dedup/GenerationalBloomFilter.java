@@ -0,0 +1,138 @@
+package com.krainet.notificationservice.dedup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter split into time generations, so that old entries age out without a rebuild.
+ *
+ * <p>Keys are added to the generation covering the time they were recorded. A lookup checks
+ * every generation inside the window, and when time moves into a new generation, the slot of
+ * the oldest one is cleared and reused. A negative answer is definite; a positive answer may be
+ * a false positive at roughly the configured rate and must be confirmed elsewhere.
+ *
+ * <p>The window of {@code generations} full generations straddles one more generation boundary
+ * than it has generations, so one extra slot is kept: a key recorded at the start of the window
+ * falls into the generation that is {@code generations} behind the current one.
+ */
+class GenerationalBloomFilter {
+
+    private final long generationMillis;
+    private final int bitCount;
+    private final int hashCount;
+    private final AtomicLongArray[] slots;
+    private final AtomicLongArray slotGenerations;
+
+    /**
+     * Creates the filter.
+     *
+     * @param generations the number of generations in the window; one more slot is allocated
+     * @param generationMillis the time span of one generation
+     * @param expectedKeysPerGeneration the expected number of keys added per generation
+     * @param falsePositiveRate the target false positive rate of one generation
+     */
+    GenerationalBloomFilter(int generations, long generationMillis, long expectedKeysPerGeneration,
+                            double falsePositiveRate) {
+        if (generations < 1 || generationMillis < 1 || expectedKeysPerGeneration < 1) {
+            throw new IllegalArgumentException("Generations, generation length and expected keys must be positive");
+        }
+        long bits = (long) Math.ceil(-expectedKeysPerGeneration * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.min(Math.max(bits, Long.SIZE), Integer.MAX_VALUE - Long.SIZE);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedKeysPerGeneration * Math.log(2)));
+        this.generationMillis = generationMillis;
+        this.slots = new AtomicLongArray[generations + 1];
+        this.slotGenerations = new AtomicLongArray(slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new AtomicLongArray((bitCount + Long.SIZE - 1) / Long.SIZE);
+            slotGenerations.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Adds a key recorded at the given time. Keys older than the window are ignored.
+     */
+    void put(String key, long timestampMillis) {
+        long generation = Math.floorDiv(timestampMillis, generationMillis);
+        AtomicLongArray bits = slotFor(generation, Math.floorDiv(System.currentTimeMillis(), generationMillis));
+        if (bits == null) {
+            return;
+        }
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << bit;
+            int word = bit >>> 6;
+            bits.getAndUpdate(word, value -> value | mask);
+        }
+    }
+
+    /**
+     * Returns {@code false} if the key was definitely not added within the window.
+     */
+    boolean mightContain(String key) {
+        long current = Math.floorDiv(System.currentTimeMillis(), generationMillis);
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int slot = 0; slot < slots.length; slot++) {
+            long generation = slotGenerations.get(slot);
+            if (generation == Long.MIN_VALUE || current - generation >= slots.length) {
+                continue;
+            }
+            if (contains(slots[slot], h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean contains(AtomicLongArray bits, int h1, int h2) {
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private synchronized AtomicLongArray slotFor(long generation, long current) {
+        generation = Math.min(generation, current);
+        if (current - generation >= slots.length) {
+            return null;
+        }
+        int slot = (int) Math.floorMod(generation, (long) slots.length);
+        long slotGeneration = slotGenerations.get(slot);
+        if (slotGeneration != generation) {
+            if (slotGeneration > generation) {
+                // The slot already belongs to a newer generation; this key is too old to keep
+                return null;
+            }
+            AtomicLongArray bits = slots[slot];
+            for (int i = 0; i < bits.length(); i++) {
+                bits.set(i, 0);
+            }
+            slotGenerations.set(slot, generation);
+        }
+        return slots[slot];
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer.
+     */
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,39 @@
+package com.krainet.notificationservice.dedup;
+
+/**
+ * Remembers which user events have already had their notifications sent, so that an event
+ * redelivered after a rebalance, crash or replay does not send the same emails again. The
+ * {@link com.krainet.notificationservice.service.NotificationService} also records each email of
+ * an event here, under {@code <event ID>/<template>}.
+ */
+public interface ProcessedEventLog {
+
+    /**
+     * Log used when deduplication is disabled: remembers nothing.
+     */
+    ProcessedEventLog NONE = new ProcessedEventLog() {
+        @Override
+        public boolean isProcessed(String eventId) {
+            return false;
+        }
+
+        @Override
+        public void markProcessed(String eventId) {
+        }
+    };
+
+    /**
+     * Returns whether the event's notifications have already been sent.
+     *
+     * @param eventId the event ID, may be {@code null}
+     * @return {@code true} only for a known event ID
+     */
+    boolean isProcessed(String eventId);
+
+    /**
+     * Records that the event's notifications have been sent.
+     *
+     * @param eventId the event ID; ignored if {@code null}
+     */
+    void markProcessed(String eventId);
+}
@@ -0,0 +1,156 @@
+package com.krainet.notificationservice.dedup;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.TtlDB;
+import org.rocksdb.WriteOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * {@link ProcessedEventLog} kept in an embedded RocksDB database with a time-to-live, fronted by
+ * a {@link GenerationalBloomFilter} covering the same retention window.
+ *
+ * <p>Almost every event is new, and for those the filter answers without touching the disk; only
+ * a possible hit is confirmed with a point lookup. Each processed event ID is stored compactly
+ * with the time it was processed, which is used to place it back into the right filter generation
+ * when the filter is rebuilt from the database on startup. RocksDB drops entries older than the
+ * retention during compaction.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.dedup.enabled", havingValue = "true", matchIfMissing = true)
+public class ProcessedEventStore implements ProcessedEventLog {
+
+    private static final byte UUID_KEY = 1;
+    private static final byte TEXT_KEY = 2;
+
+    private final TtlDB db;
+    private final Options options;
+    private final WriteOptions writeOptions;
+    private final GenerationalBloomFilter filter;
+
+    public ProcessedEventStore(
+            @Value("${app.dedup.directory:./data/processed-events}") String directory,
+            @Value("${app.dedup.retention:7d}") String retention,
+            @Value("${app.dedup.generations:7}") int generations,
+            @Value("${app.dedup.expected-events-per-generation:1000000}") long expectedEventsPerGeneration,
+            @Value("${app.dedup.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${app.dedup.fsync:true}") boolean fsync) {
+        long retentionMillis = DurationStyle.detectAndParse(retention).toMillis();
+        this.filter = new GenerationalBloomFilter(generations, Math.max(1, retentionMillis / generations),
+                expectedEventsPerGeneration, falsePositiveRate);
+        RocksDB.loadLibrary();
+        try {
+            Path path = Path.of(directory);
+            Files.createDirectories(path);
+            this.options = new Options().setCreateIfMissing(true).optimizeForPointLookup(16);
+            this.db = TtlDB.open(options, path.toAbsolutePath().toString(),
+                    (int) Math.min(Integer.MAX_VALUE, retentionMillis / 1000), false);
+            this.writeOptions = new WriteOptions().setSync(fsync);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create processed event directory " + directory, e);
+        } catch (RocksDBException e) {
+            throw new IllegalStateException("Cannot open processed event store in " + directory, e);
+        }
+        log.info("Opened processed event store in {} with {} recent event IDs", directory, rebuildFilter(retentionMillis));
+    }
+
+    @Override
+    public boolean isProcessed(String eventId) {
+        if (eventId == null || !filter.mightContain(eventId)) {
+            return false;
+        }
+        try {
+            return db.get(key(eventId)) != null;
+        } catch (RocksDBException e) {
+            throw new IllegalStateException("Cannot look up processed event " + eventId, e);
+        }
+    }
+
+    @Override
+    public void markProcessed(String eventId) {
+        if (eventId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            db.put(writeOptions, key(eventId), ByteBuffer.allocate(Long.BYTES).putLong(now).array());
+        } catch (RocksDBException e) {
+            throw new IllegalStateException("Cannot record processed event " + eventId, e);
+        }
+        filter.put(eventId, now);
+    }
+
+    private long rebuildFilter(long retentionMillis) {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        long loaded = 0;
+        try (RocksIterator iterator = db.newIterator()) {
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                byte[] value = iterator.value();
+                long processedAt = value.length >= Long.BYTES ? ByteBuffer.wrap(value).getLong() : System.currentTimeMillis();
+                if (processedAt >= cutoff) {
+                    filter.put(eventId(iterator.key()), processedAt);
+                    loaded++;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Event IDs are normally UUIDs, stored as a marker byte and their 16 raw bytes; anything else
+     * is stored as a different marker byte and UTF-8.
+     */
+    private static byte[] key(String eventId) {
+        UUID uuid = parseUuid(eventId);
+        if (uuid != null) {
+            return ByteBuffer.allocate(17)
+                    .put(UUID_KEY)
+                    .putLong(uuid.getMostSignificantBits())
+                    .putLong(uuid.getLeastSignificantBits())
+                    .array();
+        }
+        byte[] text = eventId.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + text.length).put(TEXT_KEY).put(text).array();
+    }
+
+    private static String eventId(byte[] key) {
+        ByteBuffer buffer = ByteBuffer.wrap(key);
+        if (buffer.get() == UUID_KEY) {
+            return new UUID(buffer.getLong(), buffer.getLong()).toString();
+        }
+        return new String(key, 1, key.length - 1, StandardCharsets.UTF_8);
+    }
+
+    private static UUID parseUuid(String eventId) {
+        try {
+            UUID uuid = UUID.fromString(eventId);
+            // Only canonical forms, so that the ID read back on startup is the same string
+            return uuid.toString().equals(eventId) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        db.close();
+        writeOptions.close();
+        options.close();
+    }
+}
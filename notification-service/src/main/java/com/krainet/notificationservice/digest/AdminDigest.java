@@ -0,0 +1,29 @@
+package com.krainet.notificationservice.digest;
+
+import com.krainet.notificationservice.template.RenderedNotification;
+
+/**
+ * Collects notifications addressed to administrators so a burst of them, such as a bulk
+ * onboarding, is sent as one digest email per time window instead of one email each.
+ */
+public interface AdminDigest {
+
+    /**
+     * Digest used when aggregation is disabled: buffers nothing, so every notification is sent
+     * on its own.
+     */
+    AdminDigest NONE = (recipient, entryId, notification) -> false;
+
+    /**
+     * Offers a notification for the recipient's current digest window.
+     *
+     * @param recipient the administrator's email address
+     * @param entryId identifies the notification, so the same event redelivered while its window is
+     *                still open is not listed twice; may be {@code null}
+     * @param notification the rendered notification
+     * @return {@code true} if the notification was stored and will be sent with the digest,
+     *         {@code false} if the caller has to send it itself
+     * @throws RuntimeException if the notification could not be stored
+     */
+    boolean offer(String recipient, String entryId, RenderedNotification notification);
+}
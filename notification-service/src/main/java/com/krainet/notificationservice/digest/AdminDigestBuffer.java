@@ -0,0 +1,442 @@
+package com.krainet.notificationservice.digest;
+
+import com.krainet.common.journal.EventJournal;
+import com.krainet.common.journal.JournalRecord;
+import com.krainet.notificationservice.mail.MailOutbox;
+import com.krainet.notificationservice.template.NotificationTemplates;
+import com.krainet.notificationservice.template.RenderedNotification;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers admin notifications per recipient in tumbling windows and sends one digest per window.
+ *
+ * <p>A window opens with the first notification for a recipient and closes once it is
+ * {@code window} old or holds {@code max-entries} notifications, whichever comes first; the next
+ * notification opens a new window. A window with a single notification is sent as that
+ * notification, anything larger as an {@code admin-digest} email listing them all.
+ *
+ * <p>Every notification is appended to an {@link EventJournal} before {@link #offer} returns, and a
+ * marker is appended once its window has been handed to the {@link MailOutbox}, so after a restart
+ * the open windows are rebuilt exactly as they were and windows already sent are not sent again.
+ * The journal is committed up to the oldest notification that is still waiting.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.notifications.digest.enabled", havingValue = "true", matchIfMissing = true)
+public class AdminDigestBuffer implements AdminDigest, SmartLifecycle {
+
+    private static final byte ENTRY_RECORD = 1;
+    private static final byte SENT_RECORD = 2;
+    private static final int REPLAY_BATCH = 1024;
+
+    private final MailOutbox mailOutbox;
+    private final NotificationTemplates templates;
+    private final EventJournal journal;
+    private final long windowMs;
+    private final int maxEntries;
+    private final long flushCheckMs;
+
+    /** Open windows by recipient. */
+    private final Map<String, Window> open = new HashMap<>();
+    /** Closed windows in the order they are to be sent. */
+    private final Deque<Window> closed = new ArrayDeque<>();
+
+    private ScheduledExecutorService flusher;
+    private volatile boolean running;
+
+    public AdminDigestBuffer(
+            MailOutbox mailOutbox,
+            NotificationTemplates templates,
+            @Value("${app.notifications.digest.directory:./data/admin-digest}") String directory,
+            @Value("${app.notifications.digest.window:5m}") String window,
+            @Value("${app.notifications.digest.max-entries:100}") int maxEntries,
+            @Value("${app.notifications.digest.segment-size-mb:4}") int segmentSizeMb,
+            @Value("${app.notifications.digest.fsync:true}") boolean fsync) throws IOException {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Digest max entries must be positive: " + maxEntries);
+        }
+        this.mailOutbox = mailOutbox;
+        this.templates = templates;
+        this.windowMs = DurationStyle.detectAndParse(window).toMillis();
+        this.maxEntries = maxEntries;
+        this.flushCheckMs = Math.max(10, Math.min(1000, windowMs / 4));
+        this.journal = EventJournal.open(Path.of(directory), segmentSizeMb * 1024 * 1024, fsync);
+        replay();
+    }
+
+    @Override
+    public boolean offer(String recipient, String entryId, RenderedNotification notification) {
+        long now = System.currentTimeMillis();
+        boolean full;
+        synchronized (this) {
+            Window window = open.get(recipient);
+            if (window != null && entryId != null && window.entryIds.contains(entryId)) {
+                log.debug("Admin notification {} for {} is already in the open digest window", entryId, recipient);
+                return true;
+            }
+            long position = journal.writePosition();
+            long nextPosition;
+            try {
+                nextPosition = journal.append(encodeEntry(recipient, entryId, now, notification));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to store admin notification for " + recipient, e);
+            }
+            if (window == null) {
+                window = new Window(recipient, now, position);
+                open.put(recipient, window);
+            }
+            window.add(new Entry(entryId, notification.subject(), notification.text(), nextPosition));
+            full = window.entries.size() >= maxEntries;
+            if (full) {
+                open.remove(recipient);
+                closed.add(window);
+            }
+        }
+        if (full && running) {
+            try {
+                flusher.execute(this::flushDue);
+            } catch (RejectedExecutionException e) {
+                // Stopping; the window is sent after the restart
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Closes every window that is older than the window size at {@code now} and sends the closed
+     * windows in order. Stops at the first window that cannot be handed to the outbox, so it is
+     * retried on the next pass.
+     *
+     * @param now the current epoch millisecond
+     */
+    void flush(long now) {
+        synchronized (this) {
+            Iterator<Window> windows = open.values().iterator();
+            while (windows.hasNext()) {
+                Window window = windows.next();
+                if (now - window.openedAt >= windowMs) {
+                    windows.remove();
+                    closed.add(window);
+                }
+            }
+        }
+        Window window;
+        while ((window = nextClosed()) != null) {
+            try {
+                mailOutbox.submit(message(window));
+            } catch (RuntimeException e) {
+                log.error("Failed to send admin digest to {}, retrying in {} ms", window.recipient, flushCheckMs, e);
+                return;
+            }
+            synchronized (this) {
+                try {
+                    journal.append(encodeSent(window.recipient, window.lastPosition()));
+                    closed.removeFirst();
+                    journal.commit(firstWaitingPosition());
+                } catch (IOException e) {
+                    log.error("Failed to record admin digest to {} as sent", window.recipient, e);
+                    return;
+                }
+            }
+            log.debug("Sent admin digest of {} notifications to {}", window.entries.size(), window.recipient);
+        }
+    }
+
+    private void flushDue() {
+        try {
+            flush(System.currentTimeMillis());
+        } catch (Exception e) {
+            log.error("Admin digest flush failed, retrying in {} ms", flushCheckMs, e);
+        }
+    }
+
+    private synchronized Window nextClosed() {
+        return closed.peekFirst();
+    }
+
+    /**
+     * Returns the journal position of the oldest notification not yet sent, or the write position
+     * if there is none, i.e. how far the journal can be committed.
+     */
+    private long firstWaitingPosition() {
+        long position = journal.writePosition();
+        for (Window window : closed) {
+            position = Math.min(position, window.firstPosition);
+        }
+        for (Window window : open.values()) {
+            position = Math.min(position, window.firstPosition);
+        }
+        return position;
+    }
+
+    private SimpleMailMessage message(Window window) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(window.recipient);
+        if (window.entries.size() == 1) {
+            Entry entry = window.entries.get(0);
+            message.setSubject(entry.subject);
+            message.setText(entry.text);
+            return message;
+        }
+        StringBuilder entries = new StringBuilder(window.entries.size() * 256);
+        for (int i = 0; i < window.entries.size(); i++) {
+            Entry entry = window.entries.get(i);
+            if (i > 0) {
+                entries.append("\n\n");
+            }
+            entries.append(i + 1).append(". ").append(entry.subject).append('\n').append(entry.text);
+        }
+        Map<String, Object> model = new HashMap<>(8);
+        model.put("count", window.entries.size());
+        model.put("from", utcTime(window.openedAt));
+        model.put("to", utcTime(window.openedAt + windowMs));
+        model.put("entries", entries);
+        RenderedNotification digest = templates.render("admin-digest", model);
+        message.setSubject(digest.subject());
+        message.setText(digest.text());
+        return message;
+    }
+
+    private static LocalDateTime utcTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC)
+                .truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    /**
+     * Rebuilds the windows from the notifications in the journal that were not marked as sent.
+     */
+    private void replay() {
+        Map<String, List<ReplayedEntry>> byRecipient = new LinkedHashMap<>();
+        long position = journal.committedPosition();
+        List<JournalRecord> records;
+        while (!(records = journal.read(position, REPLAY_BATCH)).isEmpty()) {
+            for (JournalRecord record : records) {
+                try {
+                    replay(record, byRecipient);
+                } catch (IllegalArgumentException e) {
+                    log.error("Skipping unreadable admin digest record at position {}", record.position(), e);
+                }
+            }
+            position = records.get(records.size() - 1).nextPosition();
+        }
+
+        int restored = 0;
+        for (Map.Entry<String, List<ReplayedEntry>> recipient : byRecipient.entrySet()) {
+            Window window = null;
+            for (ReplayedEntry replayed : recipient.getValue()) {
+                if (window == null) {
+                    window = new Window(recipient.getKey(), replayed.timestamp, replayed.position);
+                }
+                window.add(replayed.entry);
+                restored++;
+                if (window.entries.size() >= maxEntries) {
+                    closed.add(window);
+                    window = null;
+                }
+            }
+            if (window != null) {
+                open.put(recipient.getKey(), window);
+            }
+        }
+        List<Window> ordered = new ArrayList<>(closed);
+        ordered.sort(Comparator.comparingLong(window -> window.firstPosition));
+        closed.clear();
+        closed.addAll(ordered);
+        if (restored > 0) {
+            log.info("Restored {} unsent admin notifications in {} digest windows", restored, open.size() + closed.size());
+        }
+    }
+
+    private static void replay(JournalRecord record, Map<String, List<ReplayedEntry>> byRecipient) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record.payload()))) {
+            byte type = in.readByte();
+            String recipient = readString(in);
+            if (type == ENTRY_RECORD) {
+                String entryId = readString(in);
+                long timestamp = in.readLong();
+                Entry entry = new Entry(entryId, readString(in), readString(in), record.nextPosition());
+                byRecipient.computeIfAbsent(recipient, r -> new ArrayList<>())
+                        .add(new ReplayedEntry(entry, timestamp, record.position()));
+            } else if (type == SENT_RECORD) {
+                long sentUpTo = in.readLong();
+                List<ReplayedEntry> entries = byRecipient.get(recipient);
+                if (entries != null) {
+                    entries.removeIf(replayed -> replayed.entry.nextPosition <= sentUpTo);
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown admin digest record type " + type);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupt admin digest record", e);
+        }
+    }
+
+    static byte[] encodeEntry(String recipient, String entryId, long timestamp, RenderedNotification notification) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(ENTRY_RECORD);
+            writeString(out, recipient);
+            writeString(out, entryId);
+            out.writeLong(timestamp);
+            writeString(out, notification.subject());
+            writeString(out, notification.text());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] encodeSent(String recipient, long sentUpTo) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(SENT_RECORD);
+            writeString(out, recipient);
+            out.writeLong(sentUpTo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new IOException("Truncated string");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the number of notifications waiting in open or closed windows.
+     */
+    public synchronized int pendingNotifications() {
+        int pending = 0;
+        for (Window window : closed) {
+            pending += window.entries.size();
+        }
+        for (Window window : open.values()) {
+            pending += window.entries.size();
+        }
+        return pending;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "admin-digest-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushDue, 0, flushCheckMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int pending = pendingNotifications();
+        if (pending > 0) {
+            log.info("{} admin notifications wait in digest windows, sending resumes on restart", pending);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    private static final class Window {
+
+        final String recipient;
+        final long openedAt;
+        final long firstPosition;
+        final List<Entry> entries = new ArrayList<>();
+        final Set<String> entryIds = new HashSet<>();
+
+        Window(String recipient, long openedAt, long firstPosition) {
+            this.recipient = recipient;
+            this.openedAt = openedAt;
+            this.firstPosition = firstPosition;
+        }
+
+        void add(Entry entry) {
+            entries.add(entry);
+            if (entry.entryId != null) {
+                entryIds.add(entry.entryId);
+            }
+        }
+
+        long lastPosition() {
+            return entries.get(entries.size() - 1).nextPosition;
+        }
+    }
+
+    private record Entry(String entryId, String subject, String text, long nextPosition) {
+    }
+
+    private record ReplayedEntry(Entry entry, long timestamp, long position) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.krainet.notificationservice.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for sending one message to the SMTP server.
+ */
+@Name("com.krainet.notification.MailSend")
+@Label("Mail Send")
+@Category({"Krainet", "Mail"})
+@StackTrace(false)
+public class MailSendEvent extends jdk.jfr.Event {
+
+    @Label("Recipients")
+    public int recipients;
+
+    @Label("HTML")
+    public boolean html;
+
+    @Label("Failed")
+    public boolean failed;
+}
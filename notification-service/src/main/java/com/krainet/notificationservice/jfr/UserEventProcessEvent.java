@@ -0,0 +1,30 @@
+package com.krainet.notificationservice.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for processing one user event, whichever transport delivered it.
+ */
+@Name("com.krainet.notification.UserEventProcess")
+@Label("User Event Process")
+@Category({"Krainet", "Kafka"})
+@StackTrace(false)
+public class UserEventProcessEvent extends jdk.jfr.Event {
+
+    @Label("Event Type")
+    public String eventType;
+
+    @Label("Event ID")
+    public String eventId;
+
+    @Label("Sequence")
+    public long sequence;
+
+    @Label("Outcome")
+    @Description("processed, duplicate or failed")
+    public String outcome;
+}
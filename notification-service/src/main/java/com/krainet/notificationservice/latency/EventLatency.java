@@ -0,0 +1,190 @@
+package com.krainet.notificationservice.latency;
+
+import com.krainet.common.event.UserEvent;
+import com.krainet.common.serialization.UserEventHeaders;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.kafka.listener.RecordInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long user events take from the user change in the auth service until their emails
+ * are sent, split into {@link Stage stages}.
+ *
+ * <p>The auth service stamps every record with the time the change was saved and the time it was
+ * published ({@link UserEventHeaders}). When a listener takes a record, {@link #consumed} reads
+ * them and keeps the event's timestamps for the current thread until {@link #clear}, so the
+ * rendering and sending code on that thread can record its stages without the timestamps being
+ * passed through. Spooled mail carries the change time in the spool record and reports it to
+ * {@link #sent(long, long)} from the sender thread. Events that arrive without the headers, by
+ * another transport or from older producers, are only timed from when they were consumed.
+ */
+@Component
+public class EventLatency {
+
+    /**
+     * Consecutive stages of an event, each timed from the end of the previous one.
+     */
+    public enum Stage {
+        /** From saving the user change until the event was handed to the producer. */
+        PUBLISHED,
+        /** From publishing until a listener took the record. */
+        CONSUMED,
+        /** From consuming until an email was rendered. */
+        RENDERED,
+        /** From rendering, or spooling, until the email was sent or given up on. */
+        SENT;
+
+        public String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+    private final Timer endToEnd;
+    private final ThreadLocal<Stamps> current = new ThreadLocal<>();
+
+    public EventLatency(MeterRegistry meterRegistry) {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, Timer.builder("krainet.events.stage.latency")
+                    .description("Time user events spend in each stage from the user change to the email")
+                    .tag("stage", stage.tag())
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        endToEnd = Timer.builder("krainet.events.end-to-end.latency")
+                .description("Time from the user change in the auth service until its email was sent")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records the stages up to consuming a record and remembers its timestamps for the current
+     * thread.
+     *
+     * @param headers the record's headers
+     */
+    public void consumed(Headers headers) {
+        long now = System.currentTimeMillis();
+        long committedAt = UserEventHeaders.timestamp(headers, UserEventHeaders.COMMITTED_AT_HEADER);
+        long publishedAt = UserEventHeaders.timestamp(headers, UserEventHeaders.PUBLISHED_AT_HEADER);
+        if (committedAt >= 0 && publishedAt >= 0) {
+            record(Stage.PUBLISHED, publishedAt - committedAt);
+        }
+        if (publishedAt >= 0) {
+            record(Stage.CONSUMED, now - publishedAt);
+        }
+        current.set(new Stamps(committedAt, now));
+    }
+
+    /**
+     * Forgets the current thread's event once its listener has returned.
+     */
+    public void clear() {
+        current.remove();
+    }
+
+    /**
+     * Records that an email for the current thread's event has been rendered.
+     */
+    public void rendered() {
+        Stamps stamps = current.get();
+        if (stamps != null) {
+            long now = System.currentTimeMillis();
+            record(Stage.RENDERED, now - stamps.consumedAt);
+            stamps.renderedAt = now;
+        }
+    }
+
+    /**
+     * Records that an email for the current thread's event was sent on this thread.
+     */
+    public void sent() {
+        Stamps stamps = current.get();
+        if (stamps != null) {
+            sent(stamps.committedAt, stamps.renderedAt >= 0 ? stamps.renderedAt : stamps.consumedAt);
+        }
+    }
+
+    /**
+     * Records that an email was sent.
+     *
+     * @param committedAt the epoch millisecond of the user change, or {@code -1} if unknown
+     * @param readyAt the epoch millisecond the email was rendered or spooled, or {@code -1} if unknown
+     */
+    public void sent(long committedAt, long readyAt) {
+        long now = System.currentTimeMillis();
+        if (readyAt >= 0) {
+            record(Stage.SENT, now - readyAt);
+        }
+        if (committedAt >= 0) {
+            endToEnd.record(Math.max(0, now - committedAt), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Returns when the current thread's event changed the user, to be stored with spooled mail.
+     *
+     * @return the epoch millisecond, or {@code -1} if there is no current event or it is unknown
+     */
+    public long committedAt() {
+        Stamps stamps = current.get();
+        return stamps != null ? stamps.committedAt : -1;
+    }
+
+    /**
+     * Returns an interceptor that brackets each record of a single-record listener with
+     * {@link #consumed} and {@link #clear}.
+     */
+    public RecordInterceptor<String, UserEvent> recordInterceptor() {
+        return new RecordInterceptor<>() {
+
+            @Override
+            public ConsumerRecord<String, UserEvent> intercept(ConsumerRecord<String, UserEvent> record,
+                                                               Consumer<String, UserEvent> consumer) {
+                consumed(record.headers());
+                return record;
+            }
+
+            @Override
+            public void afterRecord(ConsumerRecord<String, UserEvent> record, Consumer<String, UserEvent> consumer) {
+                clear();
+            }
+        };
+    }
+
+    Map<Stage, Timer> stageTimers() {
+        return Collections.unmodifiableMap(stages);
+    }
+
+    Timer endToEndTimer() {
+        return endToEnd;
+    }
+
+    private void record(Stage stage, long millis) {
+        stages.get(stage).record(Math.max(0, millis), TimeUnit.MILLISECONDS);
+    }
+
+    private static final class Stamps {
+
+        final long committedAt;
+        final long consumedAt;
+        long renderedAt = -1;
+
+        Stamps(long committedAt, long consumedAt) {
+            this.committedAt = committedAt;
+            this.consumedAt = consumedAt;
+        }
+    }
+}
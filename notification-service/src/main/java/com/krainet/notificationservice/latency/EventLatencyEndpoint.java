@@ -0,0 +1,80 @@
+package com.krainet.notificationservice.latency;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Actuator endpoint ({@code /actuator/eventlatency}) putting the {@link EventLatency} stages, the
+ * end-to-end latency and the consumer lag of every assigned partition side by side, so it is
+ * visible at a glance where the time between a user change and its email goes.
+ *
+ * <p>Latencies are in milliseconds. The lag comes from the Kafka consumer's own
+ * {@code records-lag} metric, bound to the registry by the consumer factory.
+ */
+@Component
+@Endpoint(id = "eventlatency")
+@RequiredArgsConstructor
+public class EventLatencyEndpoint {
+
+    static final String RECORDS_LAG_METER = "kafka.consumer.fetch.manager.records.lag";
+
+    private final EventLatency eventLatency;
+    private final MeterRegistry meterRegistry;
+
+    @ReadOperation
+    public Map<String, Object> latency() {
+        Map<String, Object> stages = new LinkedHashMap<>();
+        for (Map.Entry<EventLatency.Stage, Timer> stage : eventLatency.stageTimers().entrySet()) {
+            stages.put(stage.getKey().tag(), summary(stage.getValue()));
+        }
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("stages", stages);
+        view.put("endToEnd", summary(eventLatency.endToEndTimer()));
+        view.put("consumerLag", consumerLag());
+        return view;
+    }
+
+    private static Map<String, Object> summary(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", snapshot.count());
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            summary.put("p" + Math.round(percentile.percentile() * 100), percentile.value(TimeUnit.MILLISECONDS));
+        }
+        summary.put("max", snapshot.max(TimeUnit.MILLISECONDS));
+        return summary;
+    }
+
+    private List<Map<String, Object>> consumerLag() {
+        List<Map<String, Object>> partitions = new ArrayList<>();
+        for (Gauge gauge : meterRegistry.find(RECORDS_LAG_METER).gauges()) {
+            String partition = gauge.getId().getTag("partition");
+            if (partition == null) {
+                // The per-client maximum, not a partition
+                continue;
+            }
+            Map<String, Object> lag = new LinkedHashMap<>();
+            lag.put("topic", gauge.getId().getTag("topic"));
+            lag.put("partition", Integer.parseInt(partition));
+            lag.put("lag", (long) gauge.value());
+            partitions.add(lag);
+        }
+        partitions.sort(Comparator.comparing((Map<String, Object> lag) -> (String) lag.get("topic"))
+                .thenComparing(lag -> (Integer) lag.get("partition")));
+        return partitions;
+    }
+}
@@ -0,0 +1,45 @@
+package com.krainet.notificationservice.mail;
+
+import com.krainet.common.event.EventType;
+import com.krainet.notificationservice.latency.EventLatency;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends every message synchronously on the calling thread. Used when the mail spool is disabled.
+ * A message over the {@link MailRateLimiter} quota holds the calling thread until a permit is
+ * free, which slows consumption down instead of failing the event. There are no separate lanes
+ * here; the priority only decides whether the rate limit's reserved share may be used.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.mail.spool.enabled", havingValue = "false")
+public class DirectMailOutbox implements MailOutbox {
+
+    private final JavaMailSender mailSender;
+    private final MailRateLimiter rateLimiter;
+    private final MailLanes mailLanes;
+    private final EventLatency eventLatency;
+
+    @Override
+    public void submit(SimpleMailMessage message, String html, EventType eventType) {
+        MailPriority priority = mailLanes.priorityOf(eventType);
+        long waitNanos;
+        while ((waitNanos = rateLimiter.tryAcquire(message.getTo(), priority)) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MailSendException("Interrupted while waiting for a mail rate limit permit");
+            }
+        }
+        MailMessages.send(mailSender, message, html);
+        eventLatency.sent();
+    }
+}
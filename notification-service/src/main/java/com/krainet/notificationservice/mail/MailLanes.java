@@ -0,0 +1,36 @@
+package com.krainet.notificationservice.mail;
+
+import com.krainet.common.event.EventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Decides which {@link MailPriority} lane a notification travels in, by the type of event it
+ * notifies about ({@code app.mail.lanes.high-priority-events}).
+ */
+@Component
+public class MailLanes {
+
+    private final Set<EventType> highPriorityEvents = EnumSet.noneOf(EventType.class);
+
+    public MailLanes(
+            @Value("${app.mail.lanes.high-priority-events:USER_PASSWORD_CHANGED,USER_ACCOUNT_DISABLED}")
+            String[] highPriorityEvents) {
+        for (String eventType : highPriorityEvents) {
+            if (!eventType.isBlank()) {
+                this.highPriorityEvents.add(EventType.valueOf(eventType.trim()));
+            }
+        }
+    }
+
+    /**
+     * Returns the lane for a notification about the given event type; {@code null} means a
+     * notification not tied to one event, such as an admin digest, and goes in the normal lane.
+     */
+    public MailPriority priorityOf(EventType eventType) {
+        return eventType != null && highPriorityEvents.contains(eventType) ? MailPriority.HIGH : MailPriority.NORMAL;
+    }
+}
@@ -0,0 +1,71 @@
+package com.krainet.notificationservice.mail;
+
+import com.krainet.notificationservice.jfr.MailSendEvent;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sends outbound messages that may carry an HTML body next to the plain-text one, recording a
+ * {@link MailSendEvent} for each.
+ */
+final class MailMessages {
+
+    private MailMessages() {
+    }
+
+    /**
+     * Sends a message, as {@code multipart/alternative} with both bodies when an HTML body is
+     * given and as a plain {@link SimpleMailMessage} otherwise.
+     *
+     * @throws MailPreparationException if the MIME message cannot be built
+     * @throws org.springframework.mail.MailException if sending fails
+     */
+    static void send(JavaMailSender mailSender, SimpleMailMessage message, String html) {
+        MailSendEvent event = new MailSendEvent();
+        event.begin();
+        try {
+            sendMessage(mailSender, message, html);
+        } catch (RuntimeException e) {
+            event.failed = true;
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.recipients = message.getTo() != null ? message.getTo().length : 0;
+                event.html = html != null;
+                event.commit();
+            }
+        }
+    }
+
+    private static void sendMessage(JavaMailSender mailSender, SimpleMailMessage message, String html) {
+        if (html == null) {
+            mailSender.send(message);
+            return;
+        }
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        try {
+            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, StandardCharsets.UTF_8.name());
+            if (message.getFrom() != null) {
+                helper.setFrom(message.getFrom());
+            }
+            if (message.getTo() != null) {
+                helper.setTo(message.getTo());
+            }
+            if (message.getSubject() != null) {
+                helper.setSubject(message.getSubject());
+            }
+            helper.setText(message.getText() != null ? message.getText() : "", html);
+        } catch (MessagingException e) {
+            throw new MailPreparationException("Cannot build email to " + String.join(", ",
+                    message.getTo() != null ? message.getTo() : new String[0]), e);
+        }
+        mailSender.send(mimeMessage);
+    }
+}
@@ -0,0 +1,31 @@
+package com.krainet.notificationservice.mail;
+
+import com.krainet.common.event.EventType;
+import org.springframework.mail.SimpleMailMessage;
+
+/**
+ * Hands rendered notification emails over for delivery.
+ */
+public interface MailOutbox {
+
+    /**
+     * Accepts a plain-text message that is not about a single event for delivery in the normal lane.
+     *
+     * @see #submit(SimpleMailMessage, String, EventType)
+     */
+    default void submit(SimpleMailMessage message) {
+        submit(message, null, null);
+    }
+
+    /**
+     * Accepts a message for delivery. Depending on the implementation the message is sent before
+     * this returns or only stored durably, to be sent later.
+     *
+     * @param message the message, with the plain-text body
+     * @param html an alternative HTML body, or {@code null} for a plain-text message
+     * @param eventType the type of event the message notifies about, which selects its
+     *                  {@link MailPriority} lane; may be {@code null}
+     * @throws RuntimeException if the message could not be sent or stored
+     */
+    void submit(SimpleMailMessage message, String html, EventType eventType);
+}
@@ -0,0 +1,27 @@
+package com.krainet.notificationservice.mail;
+
+import java.util.Locale;
+
+/**
+ * Delivery lanes for outbound email. Each lane has its own spool and senders, so a backlog in
+ * one never delays the other.
+ */
+public enum MailPriority {
+
+    /**
+     * Security-relevant notifications, such as a changed password or a disabled account.
+     */
+    HIGH,
+
+    /**
+     * Everything else, including bulk welcome mail.
+     */
+    NORMAL;
+
+    /**
+     * Returns the lane name used in metric tags and thread names.
+     */
+    public String tag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
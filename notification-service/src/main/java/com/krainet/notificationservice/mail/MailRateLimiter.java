@@ -0,0 +1,186 @@
+package com.krainet.notificationservice.mail;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outbound email rate limits: a token bucket per recipient domain and one for the mail provider
+ * as a whole.
+ *
+ * <p>A message needs a permit from the bucket of every recipient domain and from the provider
+ * bucket. When one of them is exhausted the permits already taken are returned and the caller
+ * gets the time until it should try again, so an over-quota message is deferred instead of being
+ * sent into the provider's throttling. Buckets are lock-free and the granted and throttled counts
+ * are {@link LongAdder}s, so concurrent senders never contend on a lock.
+ *
+ * <p>The last {@code provider-reserved} permits of the provider burst are only handed to
+ * {@link MailPriority#HIGH} mail, so a flood of normal mail cannot use up the quota that
+ * security notifications need.
+ *
+ * <p>Domains beyond {@code max-domains} share one bucket, which keeps the memory use and the
+ * number of exported meters bounded.
+ */
+@Slf4j
+@Component
+public class MailRateLimiter {
+
+    private static final String OVERFLOW_DOMAIN = "other";
+
+    private final boolean enabled;
+    private final double domainPermitsPerSecond;
+    private final int domainBurst;
+    private final int maxDomains;
+    private final int providerReserved;
+    private final MeterRegistry meterRegistry;
+    private final Limit provider;
+    private final ConcurrentMap<String, Limit> domains = new ConcurrentHashMap<>();
+
+    public MailRateLimiter(
+            @Value("${app.mail.rate-limit.enabled:true}") boolean enabled,
+            @Value("${app.mail.rate-limit.provider-per-second:20}") double providerPermitsPerSecond,
+            @Value("${app.mail.rate-limit.provider-burst:40}") int providerBurst,
+            @Value("${app.mail.rate-limit.provider-reserved:5}") int providerReserved,
+            @Value("${app.mail.rate-limit.domain-per-second:5}") double domainPermitsPerSecond,
+            @Value("${app.mail.rate-limit.domain-burst:10}") int domainBurst,
+            @Value("${app.mail.rate-limit.max-domains:1000}") int maxDomains,
+            MeterRegistry meterRegistry) {
+        if (enabled && (providerReserved < 0 || providerReserved >= providerBurst)) {
+            throw new IllegalArgumentException("Reserved provider permits must be below the burst: " + providerReserved);
+        }
+        this.enabled = enabled;
+        this.providerReserved = providerReserved;
+        this.domainPermitsPerSecond = domainPermitsPerSecond;
+        this.domainBurst = domainBurst;
+        this.maxDomains = maxDomains;
+        this.meterRegistry = meterRegistry;
+        this.provider = enabled ? register("provider", null, new TokenBucket(providerPermitsPerSecond, providerBurst)) : null;
+        if (enabled) {
+            log.info("Outbound mail limited to {}/s (burst {}, {} reserved for high priority) overall "
+                            + "and {}/s (burst {}) per recipient domain",
+                    providerPermitsPerSecond, providerBurst, providerReserved, domainPermitsPerSecond, domainBurst);
+        }
+    }
+
+    /**
+     * Returns a limiter that lets every message through.
+     */
+    public static MailRateLimiter unlimited() {
+        return new MailRateLimiter(false, 0, 0, 0, 0, 0, 0, null);
+    }
+
+    /**
+     * Takes the permits needed to send one message.
+     *
+     * @param recipients the message's recipients
+     * @param priority the message's lane; only {@link MailPriority#HIGH} may use the reserved permits
+     * @return {@code 0} if the message may be sent now, otherwise the nanoseconds to wait before
+     *         trying again; no permits are held in that case
+     */
+    public long tryAcquire(String[] recipients, MailPriority priority) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        int reserved = priority == MailPriority.HIGH ? 0 : providerReserved;
+        List<Limit> taken = new ArrayList<>(2);
+        for (Limit limit : limitsFor(recipients)) {
+            long waitNanos = limit.tryAcquire(now, limit == provider ? reserved : 0);
+            if (waitNanos > 0) {
+                for (Limit acquired : taken) {
+                    acquired.refund();
+                }
+                return waitNanos;
+            }
+            taken.add(limit);
+        }
+        return 0;
+    }
+
+    private List<Limit> limitsFor(String[] recipients) {
+        List<Limit> limits = new ArrayList<>(2);
+        if (recipients != null) {
+            for (String recipient : recipients) {
+                Limit limit = domainLimit(domainOf(recipient));
+                if (!limits.contains(limit)) {
+                    limits.add(limit);
+                }
+            }
+        }
+        limits.add(provider);
+        return limits;
+    }
+
+    private Limit domainLimit(String domain) {
+        Limit limit = domains.get(domain);
+        if (limit != null) {
+            return limit;
+        }
+        String key = domains.size() < maxDomains ? domain : OVERFLOW_DOMAIN;
+        return domains.computeIfAbsent(key,
+                d -> register("domain", d, new TokenBucket(domainPermitsPerSecond, domainBurst)));
+    }
+
+    static String domainOf(String recipient) {
+        if (recipient == null) {
+            return OVERFLOW_DOMAIN;
+        }
+        int at = recipient.lastIndexOf('@');
+        String domain = recipient.substring(at + 1).trim();
+        if (domain.endsWith(">")) {
+            domain = domain.substring(0, domain.length() - 1);
+        }
+        return domain.isEmpty() ? OVERFLOW_DOMAIN : domain.toLowerCase(Locale.ROOT);
+    }
+
+    private Limit register(String scope, String domain, TokenBucket bucket) {
+        Limit limit = new Limit(bucket);
+        String domainTag = domain != null ? domain : "";
+        FunctionCounter.builder("krainet.mail.rate-limit.granted", limit.granted, LongAdder::sum)
+                .description("Outbound emails let through by the rate limit")
+                .tag("scope", scope)
+                .tag("domain", domainTag)
+                .register(meterRegistry);
+        FunctionCounter.builder("krainet.mail.rate-limit.throttled", limit.throttled, LongAdder::sum)
+                .description("Outbound emails deferred because the rate limit was exhausted")
+                .tag("scope", scope)
+                .tag("domain", domainTag)
+                .register(meterRegistry);
+        return limit;
+    }
+
+    private static final class Limit {
+
+        final TokenBucket bucket;
+        final LongAdder granted = new LongAdder();
+        final LongAdder throttled = new LongAdder();
+
+        Limit(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+
+        long tryAcquire(long now, int reservedPermits) {
+            long waitNanos = bucket.tryAcquire(now, reservedPermits);
+            if (waitNanos > 0) {
+                throttled.increment();
+            } else {
+                granted.increment();
+            }
+            return waitNanos;
+        }
+
+        void refund() {
+            bucket.refund();
+            granted.decrement();
+        }
+    }
+}
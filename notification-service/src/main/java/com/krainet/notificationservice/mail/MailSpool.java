@@ -0,0 +1,285 @@
+package com.krainet.notificationservice.mail;
+
+import com.krainet.common.event.EventType;
+import com.krainet.common.journal.EventJournal;
+import com.krainet.common.journal.JournalRecord;
+import com.krainet.notificationservice.latency.EventLatency;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durable outbound mail queue on the local disk, stored in {@link EventJournal}s.
+ *
+ * <p>{@link #submit} returns as soon as the message has been appended to the journal, so the
+ * Kafka offset of the event that produced it can be committed without waiting for the SMTP
+ * server. The {@link MailSpoolSender} drains the spool and commits it past each delivered batch.
+ * Each {@link MailPriority} lane has a journal of its own, so high-priority mail never queues
+ * behind a backlog of normal mail. Records keep the time of the user change that caused them, so
+ * the sender can report the {@link EventLatency end-to-end latency}.
+ *
+ * <p>Messages the sender gives up on are moved to a dead-letter journal with the lane they came
+ * from, and stay there until {@link #redriveDeadLetters redriven} back into their lane.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.mail.spool.enabled", havingValue = "true", matchIfMissing = true)
+public class MailSpool implements MailOutbox {
+
+    private static final byte FORMAT_VERSION = 4;
+    private static final byte SPOOL_TIMED_FORMAT_VERSION = 3;
+    private static final byte UNTIMED_FORMAT_VERSION = 2;
+    private static final byte TEXT_ONLY_FORMAT_VERSION = 1;
+
+    private final MailLanes mailLanes;
+    private final EventLatency eventLatency;
+    private final Map<MailPriority, EventJournal> journals = new EnumMap<>(MailPriority.class);
+    private final EventJournal deadLetters;
+
+    public MailSpool(
+            MailLanes mailLanes,
+            EventLatency eventLatency,
+            @Value("${app.mail.spool.directory:./data/mail-spool}") String directory,
+            @Value("${app.mail.spool.priority-directory:./data/mail-spool-priority}") String priorityDirectory,
+            @Value("${app.mail.spool.dead-letter-directory:./data/mail-spool-dead}") String deadLetterDirectory,
+            @Value("${app.mail.spool.segment-size-mb:16}") int segmentSizeMb,
+            @Value("${app.mail.spool.fsync:true}") boolean fsync) throws IOException {
+        this.mailLanes = mailLanes;
+        this.eventLatency = eventLatency;
+        journals.put(MailPriority.HIGH, open(priorityDirectory, segmentSizeMb, fsync));
+        journals.put(MailPriority.NORMAL, open(directory, segmentSizeMb, fsync));
+        this.deadLetters = EventJournal.open(Path.of(deadLetterDirectory), segmentSizeMb * 1024 * 1024, fsync);
+        if (deadLetters.hasPending()) {
+            log.warn("Mail spool dead-letter journal in {} holds {} bytes of undelivered messages",
+                    deadLetterDirectory, deadLetters.pendingBytes());
+        }
+    }
+
+    private static EventJournal open(String directory, int segmentSizeMb, boolean fsync) throws IOException {
+        EventJournal journal = EventJournal.open(Path.of(directory), segmentSizeMb * 1024 * 1024, fsync);
+        if (journal.hasPending()) {
+            log.info("Mail spool in {} holds {} bytes of unsent messages", directory, journal.pendingBytes());
+        }
+        return journal;
+    }
+
+    @Override
+    public void submit(SimpleMailMessage message, String html, EventType eventType) {
+        try {
+            journals.get(mailLanes.priorityOf(eventType)).append(
+                    encode(message, html, System.currentTimeMillis(), eventLatency.committedAt()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spool email to " + String.join(", ", recipients(message)), e);
+        }
+    }
+
+    /**
+     * Reads the oldest unsent messages of a lane.
+     *
+     * @param priority the lane
+     * @param maxRecords the maximum number of messages to return
+     * @return the spooled records, decodable with {@link #decode}
+     */
+    List<JournalRecord> read(MailPriority priority, int maxRecords) {
+        EventJournal journal = journals.get(priority);
+        return journal.read(journal.committedPosition(), maxRecords);
+    }
+
+    /**
+     * Marks every message of a lane before the given position as sent.
+     */
+    void commit(MailPriority priority, long position) throws IOException {
+        journals.get(priority).commit(position);
+    }
+
+    /**
+     * Moves a message the sender gave up on to the dead-letter journal.
+     *
+     * @param priority the lane the message was spooled in
+     * @param mail the message
+     */
+    void deadLetter(MailPriority priority, SpooledMail mail) throws IOException {
+        byte[] payload = encode(mail.message(), mail.html(), mail.spooledAt(), mail.committedAt());
+        byte[] record = new byte[payload.length + 1];
+        record[0] = (byte) priority.ordinal();
+        System.arraycopy(payload, 0, record, 1, payload.length);
+        deadLetters.append(record);
+    }
+
+    /**
+     * Appends the oldest dead-lettered messages back to the lanes they came from, where the
+     * sender picks them up again with a fresh set of attempts.
+     *
+     * @param maxRecords the maximum number of messages to redrive
+     * @return how many messages were redriven and how many were skipped as unreadable
+     * @throws IOException if a lane or the dead-letter journal cannot be written
+     */
+    public synchronized Redrive redriveDeadLetters(int maxRecords) throws IOException {
+        List<JournalRecord> records = deadLetters.read(deadLetters.committedPosition(), maxRecords);
+        int redriven = 0;
+        int skipped = 0;
+        MailPriority[] lanes = MailPriority.values();
+        for (JournalRecord record : records) {
+            byte[] payload = record.payload();
+            if (payload.length < 2 || payload[0] < 0 || payload[0] >= lanes.length) {
+                log.error("Skipping unreadable mail dead letter at position {}", record.position());
+                skipped++;
+                continue;
+            }
+            journals.get(lanes[payload[0]]).append(Arrays.copyOfRange(payload, 1, payload.length));
+            redriven++;
+        }
+        if (!records.isEmpty()) {
+            deadLetters.commit(records.get(records.size() - 1).nextPosition());
+        }
+        return new Redrive(redriven, skipped);
+    }
+
+    /**
+     * Returns the number of bytes of dead-lettered messages not yet redriven.
+     */
+    public long deadLetterBytes() {
+        return deadLetters.pendingBytes();
+    }
+
+    public boolean hasPending() {
+        for (EventJournal journal : journals.values()) {
+            if (journal.hasPending()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long pendingBytes() {
+        long pending = 0;
+        for (EventJournal journal : journals.values()) {
+            pending += journal.pendingBytes();
+        }
+        return pending;
+    }
+
+    public long pendingBytes(MailPriority priority) {
+        return journals.get(priority).pendingBytes();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        for (EventJournal journal : journals.values()) {
+            journal.close();
+        }
+        deadLetters.close();
+    }
+
+    static byte[] encode(SimpleMailMessage message, String html, long spooledAt, long committedAt) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            writeString(out, message.getFrom());
+            String[] to = recipients(message);
+            out.writeShort(to.length);
+            for (String recipient : to) {
+                writeString(out, recipient);
+            }
+            writeString(out, message.getSubject());
+            writeString(out, message.getText());
+            writeString(out, html);
+            out.writeLong(spooledAt);
+            out.writeLong(committedAt);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a spooled message. Records written by older versions decode with a {@code null}
+     * HTML body and unknown ({@code -1}) spool and change times.
+     */
+    static SpooledMail decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            byte version = in.readByte();
+            if (version < TEXT_ONLY_FORMAT_VERSION || version > FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported mail spool format version " + version);
+            }
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(readString(in));
+            String[] to = new String[in.readUnsignedShort()];
+            for (int i = 0; i < to.length; i++) {
+                to[i] = readString(in);
+            }
+            message.setTo(to);
+            message.setSubject(readString(in));
+            message.setText(readString(in));
+            String html = version >= UNTIMED_FORMAT_VERSION ? readString(in) : null;
+            long spooledAt = version >= SPOOL_TIMED_FORMAT_VERSION ? in.readLong() : -1;
+            long committedAt = version >= FORMAT_VERSION ? in.readLong() : -1;
+            return new SpooledMail(message, html, spooledAt, committedAt);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupt mail spool record", e);
+        }
+    }
+
+    /**
+     * A decoded spool record.
+     *
+     * @param message the message with its plain-text body
+     * @param html the HTML body, or {@code null}
+     * @param spooledAt the epoch millisecond the message was spooled at, or {@code -1} if unknown
+     * @param committedAt the epoch millisecond of the user change the message is about, or
+     *                    {@code -1} if unknown
+     */
+    record SpooledMail(SimpleMailMessage message, String html, long spooledAt, long committedAt) {
+    }
+
+    /**
+     * The outcome of {@link #redriveDeadLetters}.
+     *
+     * @param redriven messages appended back to their lane
+     * @param skipped unreadable dead letters that were discarded
+     */
+    public record Redrive(int redriven, int skipped) {
+    }
+
+    private static String[] recipients(SimpleMailMessage message) {
+        return message.getTo() != null ? message.getTo() : new String[0];
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new IOException("Truncated string");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,395 @@
+package com.krainet.notificationservice.mail;
+
+import com.krainet.common.journal.JournalRecord;
+import com.krainet.notificationservice.latency.EventLatency;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains the {@link MailSpool} to the SMTP server.
+ *
+ * <p>Each pass reads a batch from the spool, sends its messages in parallel on a pool of sender
+ * threads and commits the spool past the batch once every message has been sent or given up on.
+ * Transient failures are retried with exponential backoff up to {@code max-attempts}; messages
+ * that cannot be built, or still fail after the last attempt, are moved to the spool's
+ * dead-letter journal, to be redriven once the cause is fixed. A batch interrupted by shutdown is
+ * not committed and is sent again after the restart.
+ *
+ * <p>Every {@link MailPriority} lane has its own drainer and sender pool, so the
+ * {@code priority-senders} threads are reserved for high-priority mail however long the normal
+ * lane's backlog is. The time from spooling to sending is recorded per lane, and every sent message
+ * reports its stage and end-to-end times to {@link EventLatency}.
+ *
+ * <p>Before a message is sent it needs permits from the {@link MailRateLimiter}. A message over
+ * quota does not occupy a sender thread: it waits in a delay queue until the limiter expects a
+ * permit to be free and is then dispatched again.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.mail.spool.enabled", havingValue = "true", matchIfMissing = true)
+public class MailSpoolSender implements SmartLifecycle {
+
+    private final MailSpool mailSpool;
+    private final JavaMailSender mailSender;
+    private final MailRateLimiter rateLimiter;
+    private final EventLatency eventLatency;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final long maxRetryBackoffMs;
+
+    private final Map<MailPriority, Lane> lanes = new EnumMap<>(MailPriority.class);
+    private final DelayQueue<DeferredMail> deferred = new DelayQueue<>();
+
+    private ExecutorService deferrer;
+    private volatile boolean running;
+
+    public MailSpoolSender(
+            MailSpool mailSpool,
+            JavaMailSender mailSender,
+            MailRateLimiter rateLimiter,
+            EventLatency eventLatency,
+            MeterRegistry meterRegistry,
+            @Value("${app.mail.spool.senders:4}") int senderCount,
+            @Value("${app.mail.spool.priority-senders:2}") int prioritySenderCount,
+            @Value("${app.mail.spool.batch-size:64}") int batchSize,
+            @Value("${app.mail.spool.poll-interval-ms:200}") long pollIntervalMs,
+            @Value("${app.mail.spool.max-attempts:5}") int maxAttempts,
+            @Value("${app.mail.spool.retry-backoff-ms:1000}") long retryBackoffMs,
+            @Value("${app.mail.spool.max-retry-backoff-ms:30000}") long maxRetryBackoffMs) {
+        this.mailSpool = mailSpool;
+        this.mailSender = mailSender;
+        this.rateLimiter = rateLimiter;
+        this.eventLatency = eventLatency;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+        this.maxRetryBackoffMs = maxRetryBackoffMs;
+        lanes.put(MailPriority.HIGH, new Lane(MailPriority.HIGH, prioritySenderCount, meterRegistry));
+        lanes.put(MailPriority.NORMAL, new Lane(MailPriority.NORMAL, senderCount, meterRegistry));
+        Gauge.builder("krainet.mail.rate-limit.deferred", deferred, DelayQueue::size)
+                .description("Spooled emails waiting for a rate limit permit")
+                .register(meterRegistry);
+        Gauge.builder("krainet.mail.dead-letter.pending", mailSpool, MailSpool::deadLetterBytes)
+                .description("Bytes of dead-lettered emails waiting to be redriven")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Drains every lane once, the high-priority lane first.
+     */
+    void drain() {
+        for (Lane lane : lanes.values()) {
+            drain(lane);
+        }
+    }
+
+    private void drain(Lane lane) {
+        try {
+            List<JournalRecord> records;
+            while (running && !(records = mailSpool.read(lane.priority, batchSize)).isEmpty()) {
+                List<CompletableFuture<Boolean>> sends = new ArrayList<>(records.size());
+                for (JournalRecord record : records) {
+                    MailSpool.SpooledMail mail;
+                    try {
+                        mail = MailSpool.decode(record.payload());
+                    } catch (IllegalArgumentException e) {
+                        log.error("Dropping unreadable mail spool record at position {}", record.position(), e);
+                        continue;
+                    }
+                    CompletableFuture<Boolean> send = new CompletableFuture<>();
+                    dispatch(new DeferredMail(lane, mail, send));
+                    sends.add(send);
+                }
+                for (CompletableFuture<Boolean> send : sends) {
+                    if (!send.join()) {
+                        return;
+                    }
+                }
+                mailSpool.commit(lane.priority, records.get(records.size() - 1).nextPosition());
+                log.debug("Sent batch of {} spooled {} priority emails", records.size(), lane.priority.tag());
+            }
+        } catch (Exception e) {
+            log.error("Mail spool drain failed, retrying in {} ms", pollIntervalMs, e);
+        }
+    }
+
+    /**
+     * Hands a message to a sender thread of its lane if the rate limit allows it, or defers it
+     * until the limiter expects a permit to be free.
+     */
+    private void dispatch(DeferredMail mail) {
+        if (!running) {
+            mail.result.complete(false);
+            return;
+        }
+        long waitNanos = rateLimiter.tryAcquire(mail.spooled.message().getTo(), mail.lane.priority);
+        if (waitNanos > 0) {
+            mail.dueAtNanos = System.nanoTime() + waitNanos;
+            deferred.add(mail);
+            if (!running && deferred.remove(mail)) {
+                mail.result.complete(false);
+            }
+            return;
+        }
+        try {
+            mail.lane.senders.execute(new SendTask(mail));
+        } catch (RejectedExecutionException e) {
+            mail.result.complete(false);
+        }
+    }
+
+    private void dispatchDeferred() {
+        try {
+            while (running) {
+                dispatch(deferred.take());
+            }
+        } catch (InterruptedException e) {
+            // Stopping
+        }
+    }
+
+    /**
+     * Sends one message, retrying transient failures, and dead-letters it if it cannot be sent.
+     *
+     * @param priority the lane the message was spooled in
+     * @param mail the message
+     * @return {@code true} once the message is sent or dead-lettered, {@code false} if shutdown
+     *         interrupted the retries and the message must stay in the spool
+     */
+    boolean deliver(MailPriority priority, MailSpool.SpooledMail mail) {
+        SimpleMailMessage message = mail.message();
+        long backoff = retryBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                MailMessages.send(mailSender, message, mail.html());
+                log.debug("Email sent to {} with subject: {}", Arrays.toString(message.getTo()), message.getSubject());
+                return true;
+            } catch (MailParseException | MailPreparationException e) {
+                log.error("Dead-lettering email to {} that cannot be built: {}",
+                        Arrays.toString(message.getTo()), e.getMessage());
+                deadLetter(priority, mail);
+                return true;
+            } catch (MailException e) {
+                if (attempt >= maxAttempts) {
+                    log.error("Dead-lettering email to {} after {} attempts: {}",
+                            Arrays.toString(message.getTo()), attempt, e.getMessage());
+                    deadLetter(priority, mail);
+                    return true;
+                }
+                log.warn("Failed to send email to {} (attempt {} of {}), retrying in {} ms: {}",
+                        Arrays.toString(message.getTo()), attempt, maxAttempts, backoff, e.getMessage());
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            if (!running) {
+                return false;
+            }
+            backoff = Math.min(backoff * 2, maxRetryBackoffMs);
+        }
+    }
+
+    private void deadLetter(MailPriority priority, MailSpool.SpooledMail mail) {
+        try {
+            mailSpool.deadLetter(priority, mail);
+            lanes.get(priority).deadLettered.increment();
+        } catch (IOException e) {
+            log.error("Failed to dead-letter email to {}, dropping it", Arrays.toString(mail.message().getTo()), e);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        deferrer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mail-spool-deferrer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        deferrer.execute(this::dispatchDeferred);
+        for (Lane lane : lanes.values()) {
+            lane.start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (deferrer == null) {
+            return;
+        }
+        for (Lane lane : lanes.values()) {
+            lane.shutdown();
+        }
+        deferrer.shutdownNow();
+        DeferredMail mail;
+        while ((mail = deferred.poll()) != null) {
+            mail.result.complete(false);
+        }
+        try {
+            for (Lane lane : lanes.values()) {
+                lane.awaitTermination();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (mailSpool.hasPending()) {
+            log.info("Mail spool holds {} bytes of unsent messages, sending resumes on restart", mailSpool.pendingBytes());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * A priority lane: its own drainer thread, sender pool and latency timer.
+     */
+    private final class Lane {
+
+        final MailPriority priority;
+        final int senderCount;
+        final Timer latency;
+        final Counter deadLettered;
+        ScheduledExecutorService drainer;
+        ExecutorService senders;
+
+        Lane(MailPriority priority, int senderCount, MeterRegistry meterRegistry) {
+            if (senderCount < 1) {
+                throw new IllegalArgumentException("Sender count must be positive: " + senderCount);
+            }
+            this.priority = priority;
+            this.senderCount = senderCount;
+            this.latency = Timer.builder("krainet.mail.delivery.latency")
+                    .description("Time from spooling an email until it was sent or given up on")
+                    .tag("lane", priority.tag())
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.deadLettered = Counter.builder("krainet.mail.dead-lettered")
+                    .description("Emails moved to the dead-letter journal after they could not be sent")
+                    .tag("lane", priority.tag())
+                    .register(meterRegistry);
+        }
+
+        void start() {
+            String name = "mail-spool-" + priority.tag();
+            AtomicInteger senderIds = new AtomicInteger();
+            senders = Executors.newFixedThreadPool(senderCount, runnable -> {
+                Thread thread = new Thread(runnable, name + "-sender-" + senderIds.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+            drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name + "-drainer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            drainer.scheduleWithFixedDelay(() -> drain(this), 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+        }
+
+        void shutdown() {
+            drainer.shutdown();
+            // Wakes senders waiting out a retry backoff; their batch stays in the spool
+            for (Runnable unsent : senders.shutdownNow()) {
+                if (unsent instanceof SendTask task) {
+                    task.mail.result.complete(false);
+                }
+            }
+        }
+
+        void awaitTermination() throws InterruptedException {
+            drainer.awaitTermination(30, TimeUnit.SECONDS);
+            senders.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private final class SendTask implements Runnable {
+
+        final DeferredMail mail;
+
+        SendTask(DeferredMail mail) {
+            this.mail = mail;
+        }
+
+        @Override
+        public void run() {
+            try {
+                boolean done = deliver(mail.lane.priority, mail.spooled);
+                if (done && mail.spooled.spooledAt() >= 0) {
+                    mail.lane.latency.record(Math.max(0, System.currentTimeMillis() - mail.spooled.spooledAt()),
+                            TimeUnit.MILLISECONDS);
+                }
+                if (done) {
+                    eventLatency.sent(mail.spooled.committedAt(), mail.spooled.spooledAt());
+                }
+                mail.result.complete(done);
+            } catch (RuntimeException e) {
+                mail.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * A spooled message waiting for its send, possibly deferred by the rate limit.
+     */
+    private static final class DeferredMail implements Delayed {
+
+        final Lane lane;
+        final MailSpool.SpooledMail spooled;
+        final CompletableFuture<Boolean> result;
+        long dueAtNanos;
+
+        DeferredMail(Lane lane, MailSpool.SpooledMail spooled, CompletableFuture<Boolean> result) {
+            this.lane = lane;
+            this.spooled = spooled;
+            this.result = result;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAtNanos, ((DeferredMail) other).dueAtNanos);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.krainet.notificationservice.mail;
+
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JavaMailSenderImpl} that keeps connected, authenticated SMTP {@link Transport}s open
+ * between sends instead of paying the TCP, STARTTLS and AUTH handshake for every message.
+ *
+ * <p>At most {@code maxConnections} transports exist at a time; callers beyond that wait up to
+ * {@code borrowTimeoutMs} for one to be returned. A transport is closed and replaced once it has
+ * sent {@code maxMessagesPerConnection} messages or is older than {@code maxConnectionAgeMs}, so
+ * server-side session limits are never hit. Idle transports are checked with an SMTP
+ * {@code NOOP} before reuse when they have been idle longer than {@code validateAfterIdleMs}, and
+ * any transport that fails a send with anything but a recipient rejection is discarded.
+ */
+@Slf4j
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private static final String HEADER_MESSAGE_ID = "Message-ID";
+
+    private final int maxMessagesPerConnection;
+    private final long maxConnectionAgeMs;
+    private final long validateAfterIdleMs;
+    private final long borrowTimeoutMs;
+    private final Semaphore permits;
+    private final BlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+
+    private volatile boolean closed;
+
+    public PooledJavaMailSender(int maxConnections, int maxMessagesPerConnection, long maxConnectionAgeMs,
+                                long validateAfterIdleMs, long borrowTimeoutMs) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("Max connections must be positive: " + maxConnections);
+        }
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.maxConnectionAgeMs = maxConnectionAgeMs;
+        this.validateAfterIdleMs = validateAfterIdleMs;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.permits = new Semaphore(maxConnections, true);
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        acquirePermit();
+        PooledTransport pooled = null;
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                if (pooled == null) {
+                    try {
+                        pooled = borrow();
+                    } catch (AuthenticationFailedException ex) {
+                        throw new MailAuthenticationException(ex);
+                    } catch (Exception ex) {
+                        // Effectively, all remaining messages failed
+                        for (int j = i; j < mimeMessages.length; j++) {
+                            failedMessages.put(original(mimeMessages, originalMessages, j), ex);
+                        }
+                        throw new MailSendException("Mail server connection failed", ex, failedMessages);
+                    }
+                }
+
+                MimeMessage mimeMessage = mimeMessages[i];
+                try {
+                    if (mimeMessage.getSentDate() == null) {
+                        mimeMessage.setSentDate(new Date());
+                    }
+                    String messageId = mimeMessage.getMessageID();
+                    mimeMessage.saveChanges();
+                    if (messageId != null) {
+                        // Preserve explicitly specified message id...
+                        mimeMessage.setHeader(HEADER_MESSAGE_ID, messageId);
+                    }
+                    Address[] addresses = mimeMessage.getAllRecipients();
+                    pooled.transport.sendMessage(mimeMessage, addresses != null ? addresses : new Address[0]);
+                    pooled.messagesSent++;
+                } catch (Exception ex) {
+                    failedMessages.put(original(mimeMessages, originalMessages, i), ex);
+                    if (!(ex instanceof SendFailedException)) {
+                        // The session may be broken; the next message gets a fresh one
+                        discard(pooled);
+                        pooled = null;
+                        continue;
+                    }
+                }
+                if (isExpired(pooled, System.currentTimeMillis())) {
+                    discard(pooled);
+                    pooled = null;
+                }
+            }
+        } finally {
+            if (pooled != null) {
+                release(pooled);
+            }
+            permits.release();
+        }
+
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    /**
+     * Returns the number of open transports waiting to be reused.
+     */
+    public int idleConnections() {
+        return idle.size();
+    }
+
+    /**
+     * Closes all idle transports; transports in use are closed when they are returned.
+     */
+    @Override
+    public void destroy() {
+        closed = true;
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    private void acquirePermit() {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new MailSendException("No SMTP connection became available within " + borrowTimeoutMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted while waiting for an SMTP connection", e);
+        }
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        long now = System.currentTimeMillis();
+        PooledTransport pooled;
+        // Most recently used first: it is the most likely to still be open on the server side
+        while ((pooled = idle.pollFirst()) != null) {
+            if (isExpired(pooled, now)) {
+                discard(pooled);
+            } else if (now - pooled.lastUsedAt > validateAfterIdleMs && !pooled.transport.isConnected()) {
+                log.debug("Discarding stale SMTP connection idle for {} ms", now - pooled.lastUsedAt);
+                discard(pooled);
+            } else {
+                return pooled;
+            }
+        }
+        log.debug("Opening SMTP connection to {}:{}", getHost(), getPort());
+        return new PooledTransport(connectTransport(), now);
+    }
+
+    private void release(PooledTransport pooled) {
+        pooled.lastUsedAt = System.currentTimeMillis();
+        if (closed) {
+            discard(pooled);
+        } else {
+            idle.offerFirst(pooled);
+        }
+    }
+
+    private boolean isExpired(PooledTransport pooled, long now) {
+        return pooled.messagesSent >= maxMessagesPerConnection || now - pooled.createdAt >= maxConnectionAgeMs;
+    }
+
+    private static void discard(PooledTransport pooled) {
+        try {
+            pooled.transport.close();
+        } catch (Exception ex) {
+            log.debug("Failed to close SMTP connection: {}", ex.getMessage());
+        }
+    }
+
+    private static Object original(MimeMessage[] mimeMessages, Object[] originalMessages, int index) {
+        return originalMessages != null ? originalMessages[index] : mimeMessages[index];
+    }
+
+    private static final class PooledTransport {
+
+        final Transport transport;
+        final long createdAt;
+        long lastUsedAt;
+        int messagesSent;
+
+        PooledTransport(Transport transport, long createdAt) {
+            this.transport = transport;
+            this.createdAt = createdAt;
+            this.lastUsedAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.krainet.notificationservice.mail;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, kept as a single "theoretical arrival time" in an {@link AtomicLong}
+ * (the generic cell rate algorithm): every permit moves it one interval into the future, and a
+ * permit is refused while it is more than {@code burst} intervals ahead of now. Acquiring is one
+ * compare-and-set, with no refill thread and no lock.
+ *
+ * <p>Part of the burst can be held back for priority traffic: a caller that passes
+ * {@code reservedPermits} is refused while fewer than that many permits would remain.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * @param permitsPerSecond the sustained rate
+     * @param burst how many permits can be taken at once after the bucket has been idle
+     */
+    TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive: " + permitsPerSecond + "/s, " + burst);
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.burstNanos = intervalNanos * burst;
+    }
+
+    /**
+     * Takes a permit if one is available.
+     *
+     * @param nowNanos the current {@link System#nanoTime()}
+     * @param reservedPermits how many permits of the burst this caller must leave for others
+     * @return {@code 0} if the permit was taken, otherwise how many nanoseconds until one is free
+     */
+    long tryAcquire(long nowNanos, int reservedPermits) {
+        long toleranceNanos = burstNanos - reservedPermits * intervalNanos;
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long next = Math.max(arrival, nowNanos) + intervalNanos;
+            long waitNanos = next - nowNanos - toleranceNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Returns a permit taken with {@link #tryAcquire} that ended up unused.
+     */
+    void refund() {
+        theoreticalArrival.addAndGet(-intervalNanos);
+    }
+}
@@ -0,0 +1,103 @@
+package com.krainet.notificationservice.retry;
+
+import com.krainet.common.event.UserEvent;
+import com.krainet.notificationservice.dto.DeadLetterReplayResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Re-drives dead-lettered user events through the retry tiers.
+ *
+ * <p>The dead-letter topic is read under its own consumer group, whose committed offsets mark
+ * what has already been replayed, so consecutive replays pick up where the previous one stopped.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "kafka.retry.enabled", havingValue = "true", matchIfMissing = true)
+public class DeadLetterReplayService {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+
+    private final ConsumerFactory<String, UserEvent> consumerFactory;
+    private final RetryTopics retryTopics;
+    private final FailedEventRouter failedEventRouter;
+    private final String replayGroupId;
+
+    public DeadLetterReplayService(
+            ConsumerFactory<String, UserEvent> consumerFactory,
+            RetryTopics retryTopics,
+            FailedEventRouter failedEventRouter,
+            @Value("${kafka.consumer.group-id:notification-service}") String groupId) {
+        this.consumerFactory = consumerFactory;
+        this.retryTopics = retryTopics;
+        this.failedEventRouter = failedEventRouter;
+        this.replayGroupId = groupId + "-dlt-replay";
+    }
+
+    /**
+     * Sends up to {@code maxRecords} dead-lettered events back to the first retry tier.
+     *
+     * @param maxRecords the maximum number of records to replay
+     * @return how many records were replayed and how many were skipped as unreadable
+     */
+    public synchronized DeadLetterReplayResponse replay(int maxRecords) {
+        String topic = retryTopics.deadLetterTopic();
+        int replayed = 0;
+        int skipped = 0;
+        try (Consumer<String, UserEvent> consumer = consumerFactory.createConsumer(replayGroupId, "dlt-replay")) {
+            List<PartitionInfo> partitions = consumer.partitionsFor(topic);
+            if (partitions == null || partitions.isEmpty()) {
+                return new DeadLetterReplayResponse(0, 0);
+            }
+            consumer.assign(partitions.stream().map(p -> new TopicPartition(p.topic(), p.partition())).toList());
+
+            while (replayed + skipped < maxRecords) {
+                ConsumerRecords<String, UserEvent> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) {
+                    break;
+                }
+                Map<TopicPartition, OffsetAndMetadata> processed = new HashMap<>();
+                for (ConsumerRecord<String, UserEvent> record : records) {
+                    if (replayed + skipped >= maxRecords) {
+                        break;
+                    }
+                    if (record.value() == null) {
+                        log.warn("Skipping unreadable dead-letter record at {}-{}@{}", record.topic(), record.partition(), record.offset());
+                        skipped++;
+                    } else if (failedEventRouter.redrive(record)) {
+                        replayed++;
+                    } else {
+                        // Stop at the first record that could not be sent; it is retried by the next replay
+                        commit(consumer, processed);
+                        return new DeadLetterReplayResponse(replayed, skipped);
+                    }
+                    processed.put(new TopicPartition(record.topic(), record.partition()),
+                            new OffsetAndMetadata(record.offset() + 1));
+                }
+                commit(consumer, processed);
+            }
+        }
+        log.info("Replayed {} dead-lettered user events from {} ({} skipped)", replayed, topic, skipped);
+        return new DeadLetterReplayResponse(replayed, skipped);
+    }
+
+    private static void commit(Consumer<String, UserEvent> consumer, Map<TopicPartition, OffsetAndMetadata> offsets) {
+        if (!offsets.isEmpty()) {
+            consumer.commitSync(offsets);
+        }
+    }
+}
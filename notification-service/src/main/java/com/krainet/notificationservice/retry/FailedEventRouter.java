@@ -0,0 +1,174 @@
+package com.krainet.notificationservice.retry;
+
+import com.krainet.common.event.UserEvent;
+import com.krainet.common.serialization.UserEventHeaders;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves user events whose notifications failed off the main topic, so the partition they came
+ * from keeps flowing.
+ *
+ * <p>A failed event is written to the next {@link RetryTopics retry tier} with the attempt number
+ * and due time in headers, or to the dead-letter topic once every tier has been tried. Every
+ * forwarded record carries the original topic, partition and offset plus the class, message and
+ * stack trace of the latest failure in the standard Spring Kafka {@code kafka_dlt-*} headers, and
+ * keeps the {@link UserEventHeaders#REPLAYED_HEADER} header of events replayed by the producer.
+ */
+@Slf4j
+@Component
+public class FailedEventRouter {
+
+    private static final int MAX_STACKTRACE_LENGTH = 16 * 1024;
+
+    private final KafkaTemplate<String, UserEvent> kafkaTemplate;
+    private final RetryTopics retryTopics;
+    private final boolean enabled;
+    private final long sendTimeoutMs;
+
+    public FailedEventRouter(
+            KafkaTemplate<String, UserEvent> kafkaTemplate,
+            RetryTopics retryTopics,
+            @Value("${kafka.retry.enabled:true}") boolean enabled,
+            @Value("${kafka.retry.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.retryTopics = retryTopics;
+        this.enabled = enabled;
+        this.sendTimeoutMs = sendTimeoutMs;
+    }
+
+    /**
+     * Forwards a failed record to the next retry tier or the dead-letter topic and waits for the
+     * broker to accept it.
+     *
+     * @param record the record whose processing failed
+     * @param cause the failure
+     * @return {@code true} if the record was forwarded and its offset may be committed;
+     *         {@code false} if retry topics are disabled or the forward failed, in which case the
+     *         caller must handle the failure itself
+     */
+    public boolean route(ConsumerRecord<String, UserEvent> record, Exception cause) {
+        Headers headers = new RecordHeaders();
+        copyOrSet(record.headers(), headers, KafkaHeaders.DLT_ORIGINAL_TOPIC,
+                record.topic().getBytes(StandardCharsets.UTF_8));
+        copyOrSet(record.headers(), headers, KafkaHeaders.DLT_ORIGINAL_PARTITION,
+                ByteBuffer.allocate(Integer.BYTES).putInt(record.partition()).array());
+        copyOrSet(record.headers(), headers, KafkaHeaders.DLT_ORIGINAL_OFFSET,
+                ByteBuffer.allocate(Long.BYTES).putLong(record.offset()).array());
+        if (UserEventHeaders.replayed(record.headers())) {
+            UserEventHeaders.markReplayed(headers);
+        }
+        int attempt = headerAsInt(record.headers(), RetryTopics.ATTEMPT_HEADER, 0) + 1;
+        return forward(record.key(), record.value(), headers, attempt, cause);
+    }
+
+    /**
+     * Sends a dead-lettered record back to the first retry tier, due immediately, keeping its
+     * original-record and failure headers.
+     *
+     * @param record the record read from the dead-letter topic
+     * @return {@code true} if the broker accepted the record
+     */
+    public boolean redrive(ConsumerRecord<String, UserEvent> record) {
+        Headers headers = new RecordHeaders();
+        for (Header header : record.headers()) {
+            if (!RetryTopics.ATTEMPT_HEADER.equals(header.key()) && !RetryTopics.DUE_AT_HEADER.equals(header.key())) {
+                headers.add(header);
+            }
+        }
+        RetryTopics.Tier tier = retryTopics.tierForAttempt(1);
+        if (tier == null) {
+            log.warn("No retry tiers configured, cannot replay dead-lettered event at offset {}", record.offset());
+            return false;
+        }
+        headers.add(RetryTopics.ATTEMPT_HEADER, intBytes(1));
+        headers.add(RetryTopics.DUE_AT_HEADER, longBytes(System.currentTimeMillis()));
+        return send(new ProducerRecord<>(tier.topic(), null, record.key(), record.value(), headers));
+    }
+
+    private boolean forward(String key, UserEvent event, Headers headers, int attempt, Exception cause) {
+        if (!enabled) {
+            return false;
+        }
+        headers.add(KafkaHeaders.DLT_EXCEPTION_FQCN, cause.getClass().getName().getBytes(StandardCharsets.UTF_8));
+        headers.add(KafkaHeaders.DLT_EXCEPTION_MESSAGE,
+                String.valueOf(cause.getMessage()).getBytes(StandardCharsets.UTF_8));
+        headers.add(KafkaHeaders.DLT_EXCEPTION_STACKTRACE, stackTrace(cause).getBytes(StandardCharsets.UTF_8));
+
+        RetryTopics.Tier tier = retryTopics.tierForAttempt(attempt);
+        String topic;
+        if (tier != null) {
+            headers.add(RetryTopics.ATTEMPT_HEADER, intBytes(attempt));
+            headers.add(RetryTopics.DUE_AT_HEADER, longBytes(System.currentTimeMillis() + tier.delay().toMillis()));
+            topic = tier.topic();
+            log.warn("Retrying {} event {} for user {} in {} (attempt {}): {}", event.getEventType(),
+                    event.getEventId(), event.getUserId(), tier.delay(), attempt, cause.getMessage());
+        } else {
+            topic = retryTopics.deadLetterTopic();
+            log.error("Dead-lettering {} event {} for user {} after {} attempts: {}", event.getEventType(),
+                    event.getEventId(), event.getUserId(), attempt, cause.getMessage());
+        }
+        return send(new ProducerRecord<>(topic, null, key, event, headers));
+    }
+
+    private boolean send(ProducerRecord<String, UserEvent> record) {
+        try {
+            kafkaTemplate.send(record).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.error("Failed to forward user event to {}: {}", record.topic(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static void copyOrSet(Headers source, Headers target, String key, byte[] value) {
+        Header existing = source.lastHeader(key);
+        target.add(key, existing != null ? existing.value() : value);
+    }
+
+    static int headerAsInt(Headers headers, String key, int defaultValue) {
+        Header header = headers.lastHeader(key);
+        return header != null && header.value().length == Integer.BYTES
+                ? ByteBuffer.wrap(header.value()).getInt()
+                : defaultValue;
+    }
+
+    static long headerAsLong(Headers headers, String key, long defaultValue) {
+        Header header = headers.lastHeader(key);
+        return header != null && header.value().length == Long.BYTES
+                ? ByteBuffer.wrap(header.value()).getLong()
+                : defaultValue;
+    }
+
+    private static byte[] intBytes(int value) {
+        return ByteBuffer.allocate(Integer.BYTES).putInt(value).array();
+    }
+
+    private static byte[] longBytes(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+
+    private static String stackTrace(Exception cause) {
+        StringWriter writer = new StringWriter();
+        cause.printStackTrace(new PrintWriter(writer));
+        String trace = writer.toString();
+        return trace.length() > MAX_STACKTRACE_LENGTH ? trace.substring(0, MAX_STACKTRACE_LENGTH) : trace;
+    }
+}
@@ -0,0 +1,137 @@
+package com.krainet.notificationservice.retry;
+
+import com.krainet.common.event.UserEvent;
+import com.krainet.notificationservice.dedup.ProcessedEventLog;
+import com.krainet.notificationservice.service.NotificationService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consumes the retry topics, one listener container per tier.
+ *
+ * <p>A record that is not yet due is negatively acknowledged with a sleep until its due time:
+ * the container pauses, keeps polling so the group does not rebalance, and redelivers the record
+ * afterwards. Because all records of a tier share the same delay, nothing behind the head of a
+ * partition can be due earlier. A retry is never dropped because a newer event for the same user
+ * succeeded while it waited: each event carries its own emails, so only the
+ * {@link ProcessedEventLog} decides what was already sent.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kafka.retry.enabled", havingValue = "true", matchIfMissing = true)
+public class RetryTierListeners implements SmartLifecycle {
+
+    private static final long MAX_PAUSE_MS = 30_000;
+
+    private final ConsumerFactory<String, UserEvent> consumerFactory;
+    private final RetryTopics retryTopics;
+    private final NotificationService notificationService;
+    private final FailedEventRouter failedEventRouter;
+    private final ProcessedEventLog processedEventLog;
+    private final String groupId;
+    private final boolean kafkaTransport;
+    private final List<ConcurrentMessageListenerContainer<String, UserEvent>> containers = new ArrayList<>();
+
+    private volatile boolean running;
+
+    public RetryTierListeners(
+            ConsumerFactory<String, UserEvent> consumerFactory,
+            RetryTopics retryTopics,
+            NotificationService notificationService,
+            FailedEventRouter failedEventRouter,
+            ProcessedEventLog processedEventLog,
+            @Value("${kafka.consumer.group-id:notification-service}") String groupId,
+            @Value("${app.events.transport:kafka}") String transport) {
+        this.consumerFactory = consumerFactory;
+        this.retryTopics = retryTopics;
+        this.notificationService = notificationService;
+        this.failedEventRouter = failedEventRouter;
+        this.processedEventLog = processedEventLog;
+        this.groupId = groupId;
+        this.kafkaTransport = "kafka".equals(transport);
+    }
+
+    /**
+     * Handles one record from a retry tier.
+     */
+    void onRetry(ConsumerRecord<String, UserEvent> record, Acknowledgment ack) {
+        long waitMs = FailedEventRouter.headerAsLong(record.headers(), RetryTopics.DUE_AT_HEADER, 0)
+                - System.currentTimeMillis();
+        if (waitMs > 0) {
+            ack.nack(Duration.ofMillis(Math.min(waitMs, MAX_PAUSE_MS)));
+            return;
+        }
+
+        UserEvent event = record.value();
+        if (event == null) {
+            log.warn("Skipping unreadable retry record at {}-{}@{}", record.topic(), record.partition(), record.offset());
+            ack.acknowledge();
+            return;
+        }
+        if (processedEventLog.isProcessed(event.getEventId())) {
+            log.debug("Skipping retry of {} event {} whose notifications were already sent",
+                    event.getEventType(), event.getEventId());
+            ack.acknowledge();
+            return;
+        }
+        try {
+            notificationService.processUserEvent(event);
+            processedEventLog.markProcessed(event.getEventId());
+            log.info("Retried {} event {} for user {} successfully from {}",
+                    event.getEventType(), event.getEventId(), event.getUserId(), record.topic());
+        } catch (RuntimeException e) {
+            if (!failedEventRouter.route(record, e)) {
+                // Left to the container's error handler, which redelivers the record
+                throw e;
+            }
+        }
+        ack.acknowledge();
+    }
+
+    @Override
+    public void start() {
+        for (RetryTopics.Tier tier : retryTopics.tiers()) {
+            ContainerProperties properties = new ContainerProperties(tier.topic());
+            properties.setGroupId(groupId);
+            properties.setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+            properties.setMessageListener((AcknowledgingMessageListener<String, UserEvent>) this::onRetry);
+            ConcurrentMessageListenerContainer<String, UserEvent> container =
+                    new ConcurrentMessageListenerContainer<>(consumerFactory, properties);
+            container.setBeanName("retry-tier-" + tier.attempt());
+            container.start();
+            containers.add(container);
+        }
+        running = true;
+        log.info("Consuming retry topics {}", retryTopics.tiers().stream().map(RetryTopics.Tier::topic).toList());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        containers.forEach(ConcurrentMessageListenerContainer::stop);
+        containers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return kafkaTransport;
+    }
+}
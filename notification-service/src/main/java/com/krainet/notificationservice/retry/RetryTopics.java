@@ -0,0 +1,74 @@
+package com.krainet.notificationservice.retry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Names and delays of the retry topics that failed user events move through before landing in
+ * the dead-letter topic.
+ *
+ * <p>Each configured delay gets its own topic, e.g. {@code user-events-retry-10s}, so the records
+ * of one topic all become due in the order they were written and a tier consumer only ever has
+ * to wait for the record at the head of a partition.
+ */
+@Component
+public class RetryTopics {
+
+    /**
+     * Header holding the number of the retry attempt a record is queued for, starting at 1.
+     */
+    public static final String ATTEMPT_HEADER = "krainet-retry-attempt";
+
+    /**
+     * Header holding the epoch millisecond at which a retry record becomes due.
+     */
+    public static final String DUE_AT_HEADER = "krainet-retry-due-at";
+
+    /**
+     * A retry tier.
+     *
+     * @param attempt the retry attempt handled by this tier, starting at 1
+     * @param topic the tier's topic
+     * @param delay how long records wait in this tier before they are retried
+     */
+    public record Tier(int attempt, String topic, Duration delay) {
+    }
+
+    private final List<Tier> tiers;
+    private final String deadLetterTopic;
+
+    public RetryTopics(
+            String userEventsTopic,
+            @Value("${kafka.retry.delays:10s,1m,10m}") String[] delays) {
+        List<Tier> configured = new ArrayList<>(delays.length);
+        for (String delay : delays) {
+            String label = delay.trim();
+            configured.add(new Tier(configured.size() + 1, userEventsTopic + "-retry-" + label,
+                    DurationStyle.detectAndParse(label)));
+        }
+        this.tiers = Collections.unmodifiableList(configured);
+        this.deadLetterTopic = userEventsTopic + "-dlt";
+    }
+
+    public List<Tier> tiers() {
+        return tiers;
+    }
+
+    /**
+     * Returns the tier for the given attempt, or {@code null} once the retries are exhausted and
+     * the record belongs in the dead-letter topic.
+     */
+    public Tier tierForAttempt(int attempt) {
+        return attempt >= 1 && attempt <= tiers.size() ? tiers.get(attempt - 1) : null;
+    }
+
+    public String deadLetterTopic() {
+        return deadLetterTopic;
+    }
+}
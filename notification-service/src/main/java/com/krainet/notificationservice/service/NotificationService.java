@@ -1,56 +1,92 @@
 package com.krainet.notificationservice.service;
 
+import com.krainet.common.event.ChangedField;
 import com.krainet.common.event.EventType;
 import com.krainet.common.event.UserEvent;
-import lombok.RequiredArgsConstructor;
+import com.krainet.common.event.UserState;
+import com.krainet.notificationservice.dedup.ProcessedEventLog;
+import com.krainet.notificationservice.digest.AdminDigest;
+import com.krainet.notificationservice.latency.EventLatency;
+import com.krainet.notificationservice.mail.MailOutbox;
+import com.krainet.notificationservice.template.NotificationTemplates;
+import com.krainet.notificationservice.template.RenderedNotification;
+import com.krainet.notificationservice.view.UserDirectory;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Service responsible for sending notifications based on user events.
+ *
+ * <p>Each email of an event is recorded in the {@link ProcessedEventLog} under the event ID and
+ * template name once it has been handed over, so an event retried after one of its emails failed
+ * only sends the emails it has not sent yet.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class NotificationService {
 
-    private final JavaMailSender mailSender;
-    private final String adminEmail = "admin@krainet.com"; // Should be configured in properties
+    private final MailOutbox mailOutbox;
+    private final UserDirectory userDirectory;
+    private final NotificationTemplates templates;
+    private final AdminDigest adminDigest;
+    private final EventLatency eventLatency;
+    private final ProcessedEventLog processedEventLog;
+    private final String adminEmail;
+
+    public NotificationService(
+            MailOutbox mailOutbox,
+            UserDirectory userDirectory,
+            NotificationTemplates templates,
+            AdminDigest adminDigest,
+            EventLatency eventLatency,
+            ProcessedEventLog processedEventLog,
+            @Value("${app.email.admin-email}") String adminEmail) {
+        this.mailOutbox = mailOutbox;
+        this.userDirectory = userDirectory;
+        this.templates = templates;
+        this.adminDigest = adminDigest;
+        this.eventLatency = eventLatency;
+        this.processedEventLog = processedEventLog;
+        this.adminEmail = adminEmail;
+    }
 
     /**
      * Processes a user event and sends appropriate notifications.
      *
      * @param event the user event to process
+     * @throws RuntimeException if a notification could not be sent; the caller retries the event
      */
     public void processUserEvent(UserEvent event) {
         log.info("Processing user event: {} for user {}", event.getEventType(), event.getUsername());
 
-        try {
-            switch (event.getEventType()) {
-                case USER_CREATED:
-                    sendUserCreatedNotifications(event);
-                    break;
-                case USER_UPDATED:
+        switch (event.getEventType()) {
+            case USER_CREATED:
+                sendUserCreatedNotifications(event);
+                break;
+            case USER_UPDATED:
+                if (event.getChangedFields() != null) {
+                    sendCompositeUpdateNotifications(event);
+                } else {
                     sendUserUpdatedNotification(event);
-                    break;
-                case USER_DELETED:
-                    sendUserDeletedNotification(event);
-                    break;
-                case USER_PASSWORD_CHANGED:
-                    sendPasswordChangedNotification(event);
-                    break;
-                case USER_ACCOUNT_ENABLED:
-                case USER_ACCOUNT_DISABLED:
-                    sendAccountStatusNotification(event);
-                    break;
-                default:
-                    log.warn("Unhandled event type: {}", event.getEventType());
-            }
-        } catch (Exception e) {
-            log.error("Error processing user event: {}", event.getEventId(), e);
-            // Consider implementing retry logic or dead-letter queue for failed notifications
+                }
+                break;
+            case USER_DELETED:
+                sendUserDeletedNotification(event);
+                break;
+            case USER_PASSWORD_CHANGED:
+                sendPasswordChangedNotification(event);
+                break;
+            case USER_ACCOUNT_ENABLED:
+            case USER_ACCOUNT_DISABLED:
+                sendAccountStatusNotification(event, event.getEventType() == EventType.USER_ACCOUNT_ENABLED);
+                break;
+            default:
+                log.warn("Unhandled event type: {}", event.getEventType());
         }
     }
 
@@ -59,36 +95,15 @@ public class NotificationService {
      */
     private void sendUserCreatedNotifications(UserEvent event) {
         // Send welcome email to the new user
-        String userSubject = "Welcome to Krainet Service";
-        String userMessage = String.format(
-                "Hello %s,\n\n" +
-                "Your account has been successfully created.\n" +
-                "Username: %s\n" +
-                "Email: %s\n\n" +
-                "Thank you for joining us!",
-                event.getUsername(),
-                event.getUsername(),
-                event.getEmail()
-        );
-        sendEmail(event.getEmail(), userSubject, userMessage);
+        Map<String, Object> userModel = model(event);
+        userModel.put("name", greetingName(event));
+        sendEmail(event, event.getEmail(), "user-created", userModel, EventType.USER_CREATED);
 
         // Notify admin about new user
         if (event.getInitiatorUserId() != null && !event.getInitiatorUserId().equals(event.getUserId())) {
-            String adminSubject = String.format("New User Registration: %s", event.getUsername());
-            String adminMessage = String.format(
-                    "A new user has been registered by %s.\n\n" +
-                    "User Details:\n" +
-                    "- Username: %s\n" +
-                    "- Email: %s\n" +
-                    "- Role: %s\n\n" +
-                    "Registration Time: %s",
-                    event.getInitiatorUsername() != null ? event.getInitiatorUsername() : "system",
-                    event.getUsername(),
-                    event.getEmail(),
-                    event.getUserRole(),
-                    event.getTimestamp()
-            );
-            sendEmail(adminEmail, adminSubject, adminMessage);
+            Map<String, Object> adminModel = model(event);
+            adminModel.put("initiator", event.getInitiatorUsername() != null ? event.getInitiatorUsername() : "system");
+            notifyAdmin(event, EventType.USER_CREATED, "user-created-admin", adminModel);
         }
     }
 
@@ -98,16 +113,26 @@ public class NotificationService {
     private void sendUserUpdatedNotification(UserEvent event) {
         // Only notify if the update was done by an admin
         if (event.getInitiatorUserId() != null && !event.getInitiatorUserId().equals(event.getUserId())) {
-            String subject = String.format("Your account has been updated by an administrator");
-            String message = String.format(
-                    "Hello %s,\n\n" +
-                    "Your account information has been updated by an administrator.\n\n" +
-                    "If you did not request these changes or believe this is an error, " +
-                    "please contact our support team immediately.\n\n" +
-                    "Best regards,\nThe Krainet Team",
-                    event.getUsername()
-            );
-            sendEmail(event.getEmail(), subject, message);
+            Map<String, Object> model = model(event);
+            model.put("name", greetingName(event));
+            sendEmail(event, event.getEmail(), "user-updated", model, EventType.USER_UPDATED);
+        }
+    }
+
+    /**
+     * Sends every notification for an update event that carries a changed-fields mask,
+     * replacing the separate updated, password-changed and account-status events.
+     */
+    private void sendCompositeUpdateNotifications(UserEvent event) {
+        int changedFields = event.getChangedFields();
+        if ((changedFields & ChangedField.PROFILE_FIELDS) != 0) {
+            sendUserUpdatedNotification(event);
+        }
+        if (ChangedField.PASSWORD.isSet(changedFields)) {
+            sendPasswordChangedNotification(event);
+        }
+        if (ChangedField.ENABLED.isSet(changedFields)) {
+            sendAccountStatusNotification(event, Boolean.TRUE.equals(event.getEnabled()));
         }
     }
 
@@ -117,22 +142,7 @@ public class NotificationService {
     private void sendUserDeletedNotification(UserEvent event) {
         // Only send notification if the user was deleted by someone else (admin)
         if (event.getInitiatorUserId() != null && !event.getInitiatorUserId().equals(event.getUserId())) {
-            String adminSubject = String.format("User Account Deleted: %s", event.getUsername());
-            String adminMessage = String.format(
-                    "The following user account has been deleted by %s.\n\n" +
-                    "User Details:\n" +
-                    "- Username: %s\n" +
-                    "- Email: %s\n" +
-                    "- Role: %s\n" +
-                    "- Deletion Time: %s\n\n" +
-                    "This action is irreversible.",
-                    event.getInitiatorUsername(),
-                    event.getUsername(),
-                    event.getEmail(),
-                    event.getUserRole(),
-                    event.getTimestamp()
-            );
-            sendEmail(adminEmail, adminSubject, adminMessage);
+            notifyAdmin(event, EventType.USER_DELETED, "user-deleted-admin", model(event));
         }
     }
 
@@ -140,76 +150,128 @@ public class NotificationService {
      * Sends a notification when a user's password is changed.
      */
     private void sendPasswordChangedNotification(UserEvent event) {
-        String subject = "Your password has been changed";
-        String message = String.format(
-                "Hello %s,\n\n" +
-                "Your password has been successfully changed.\n\n" +
-                "If you did not make this change, please contact our support team immediately.\n\n" +
-                "Best regards,\nThe Krainet Team",
-                event.getUsername()
-        );
-        sendEmail(event.getEmail(), subject, message);
+        Map<String, Object> model = model(event);
+        model.put("name", greetingName(event));
+        sendEmail(event, event.getEmail(), "password-changed", model, EventType.USER_PASSWORD_CHANGED);
     }
 
     /**
      * Sends a notification when a user's account status changes (enabled/disabled).
      */
-    private void sendAccountStatusNotification(UserEvent event) {
-        boolean isEnabled = event.getEventType() == EventType.USER_ACCOUNT_ENABLED;
-        String status = isEnabled ? "enabled" : "disabled";
-        
+    private void sendAccountStatusNotification(UserEvent event, boolean isEnabled) {
+        String template = isEnabled ? "account-enabled" : "account-disabled";
+        EventType eventType = isEnabled ? EventType.USER_ACCOUNT_ENABLED : EventType.USER_ACCOUNT_DISABLED;
+
         // Notify the user
-        String userSubject = String.format("Your account has been %s", status);
-        String userMessage = String.format(
-                "Hello %s,\n\n" +
-                "Your account has been %s by an administrator.\n\n" +
-                "%s\n\n" +
-                "If you believe this is an error, please contact our support team.\n\n" +
-                "Best regards,\nThe Krainet Team",
-                event.getUsername(),
-                status,
-                isEnabled ? "You can now log in to your account." 
-                         : "You will not be able to log in until an administrator re-enables your account."
-        );
-        sendEmail(event.getEmail(), userSubject, userMessage);
-        
+        Map<String, Object> userModel = model(event);
+        userModel.put("name", greetingName(event));
+        sendEmail(event, event.getEmail(), template, userModel, eventType);
+
         // Notify admin
         if (event.getInitiatorUserId() != null && !event.getInitiatorUserId().equals(event.getUserId())) {
-            String adminSubject = String.format("User Account %s: %s", 
-                    isEnabled ? "Enabled" : "Disabled", event.getUsername());
-            String adminMessage = String.format(
-                    "The following user account has been %s by %s.\n\n" +
-                    "User Details:\n" +
-                    "- Username: %s\n" +
-                    "- Email: %s\n" +
-                    "- Role: %s\n" +
-                    "- Time: %s\n\n" +
-                    "Action taken by: %s (%s)",
-                    status,
-                    event.getInitiatorUsername(),
-                    event.getUsername(),
-                    event.getEmail(),
-                    event.getUserRole(),
-                    event.getTimestamp(),
-                    event.getInitiatorUsername(),
-                    event.getInitiatorUserId()
-            );
-            sendEmail(adminEmail, adminSubject, adminMessage);
+            notifyAdmin(event, eventType, template + "-admin", model(event));
+        }
+    }
+
+    /**
+     * Sends an admin notification, or adds it to the admin's current digest window when digests
+     * are enabled.
+     */
+    private void notifyAdmin(UserEvent event, EventType eventType, String template, Map<String, Object> model) {
+        String notificationId = notificationId(event, template);
+        if (alreadySent(notificationId)) {
+            return;
         }
+        RenderedNotification notification = render(template, model);
+        if (!adminDigest.offer(adminEmail, notificationId, notification)) {
+            sendEmail(adminEmail, notification, eventType);
+        }
+        processedEventLog.markProcessed(notificationId);
     }
 
     /**
-     * Helper method to send an email.
+     * Renders and sends one of an event's emails, unless it was sent before the event was retried.
      */
-    private void sendEmail(String to, String subject, String text) {
+    private void sendEmail(UserEvent event, String to, String template, Map<String, Object> model,
+                           EventType eventType) {
+        String notificationId = notificationId(event, template);
+        if (alreadySent(notificationId)) {
+            return;
+        }
+        sendEmail(to, render(template, model), eventType);
+        processedEventLog.markProcessed(notificationId);
+    }
+
+    private boolean alreadySent(String notificationId) {
+        if (processedEventLog.isProcessed(notificationId)) {
+            log.debug("Skipping notification {} already sent for an earlier attempt", notificationId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the ID of one email of an event, or {@code null} if the event has no ID.
+     */
+    private static String notificationId(UserEvent event, String template) {
+        return event.getEventId() != null ? event.getEventId() + "/" + template : null;
+    }
+
+    /**
+     * Renders a notification and records the rendering stage of the current event's latency.
+     */
+    private RenderedNotification render(String template, Map<String, Object> model) {
+        RenderedNotification notification = templates.render(template, model);
+        eventLatency.rendered();
+        return notification;
+    }
+
+    /**
+     * Returns the template variables every notification can use.
+     */
+    private static Map<String, Object> model(UserEvent event) {
+        Map<String, Object> model = new HashMap<>(16);
+        model.put("username", event.getUsername());
+        model.put("email", event.getEmail());
+        model.put("role", event.getUserRole());
+        model.put("timestamp", event.getTimestamp());
+        model.put("initiator", event.getInitiatorUsername());
+        model.put("initiatorId", event.getInitiatorUserId());
+        return model;
+    }
+
+    /**
+     * Returns the name to greet the user with: the first name from the local user view when
+     * known, otherwise the username from the event.
+     */
+    private String greetingName(UserEvent event) {
+        if (event.getUserId() == null) {
+            return event.getUsername();
+        }
+        try {
+            return userDirectory.find(event.getUserId())
+                    .map(UserState::getFirstName)
+                    .filter(firstName -> !firstName.isBlank())
+                    .orElse(event.getUsername());
+        } catch (Exception e) {
+            log.warn("User view lookup failed for user {}: {}", event.getUserId(), e.getMessage());
+            return event.getUsername();
+        }
+    }
+
+    /**
+     * Helper method to send an email, or to spool it for sending when the mail spool is enabled.
+     * The event type picks the delivery lane.
+     */
+    private void sendEmail(String to, RenderedNotification notification, EventType eventType) {
         try {
             SimpleMailMessage message = new SimpleMailMessage();
             message.setTo(to);
-            message.setSubject(subject);
-            message.setText(text);
-            
-            mailSender.send(message);
-            log.debug("Email sent to {} with subject: {}", to, subject);
+            message.setSubject(notification.subject());
+            message.setText(notification.text());
+
+            mailOutbox.submit(message, notification.html(), eventType);
+            log.debug("Email to {} with subject: {} handed to the outbox", to, notification.subject());
         } catch (Exception e) {
             log.error("Failed to send email to {}: {}", to, e.getMessage(), e);
             throw new RuntimeException("Failed to send email", e);
@@ -0,0 +1,105 @@
+package com.krainet.notificationservice.template;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A notification template compiled into alternating literal and variable segments, so rendering
+ * is a single pass of appends with no parsing or format-string interpretation.
+ *
+ * <p>Variables are written as {@code {{name}}}. Text templates start with the subject line,
+ * followed by an empty line and the body; HTML templates are a body only, and their variable
+ * values are HTML-escaped.
+ */
+final class NotificationTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final Segments subject;
+    private final Segments body;
+
+    private NotificationTemplate(Segments subject, Segments body) {
+        this.subject = subject;
+        this.body = body;
+    }
+
+    /**
+     * Compiles a text template: the first line is the subject, the body starts after the empty
+     * line that follows it.
+     */
+    static NotificationTemplate compileText(String source) {
+        String normalized = stripTrailingNewline(source.replace("\r\n", "\n"));
+        int subjectEnd = normalized.indexOf('\n');
+        if (subjectEnd < 0) {
+            return new NotificationTemplate(Segments.compile(normalized, false), Segments.compile("", false));
+        }
+        String subject = normalized.substring(0, subjectEnd);
+        String body = normalized.substring(subjectEnd + 1);
+        if (body.startsWith("\n")) {
+            body = body.substring(1);
+        }
+        return new NotificationTemplate(Segments.compile(subject, false), Segments.compile(body, false));
+    }
+
+    static NotificationTemplate compileHtml(String source) {
+        return new NotificationTemplate(null, Segments.compile(source.replace("\r\n", "\n"), true));
+    }
+
+    void renderSubject(Map<String, ?> model, StringBuilder out) {
+        subject.render(model, out);
+    }
+
+    void renderBody(Map<String, ?> model, StringBuilder out) {
+        body.render(model, out);
+    }
+
+    private static String stripTrailingNewline(String source) {
+        return source.endsWith("\n") ? source.substring(0, source.length() - 1) : source;
+    }
+
+    private static final class Segments {
+
+        private final String[] literals;
+        private final String[] variables;
+        private final boolean escapeHtml;
+
+        private Segments(String[] literals, String[] variables, boolean escapeHtml) {
+            this.literals = literals;
+            this.variables = variables;
+            this.escapeHtml = escapeHtml;
+        }
+
+        static Segments compile(String source, boolean escapeHtml) {
+            List<String> literals = new ArrayList<>();
+            List<String> variables = new ArrayList<>();
+            int position = 0;
+            int open;
+            while ((open = source.indexOf(OPEN, position)) >= 0) {
+                int close = source.indexOf(CLOSE, open + OPEN.length());
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unclosed variable at index " + open);
+                }
+                literals.add(source.substring(position, open));
+                variables.add(source.substring(open + OPEN.length(), close).trim());
+                position = close + CLOSE.length();
+            }
+            literals.add(source.substring(position));
+            return new Segments(literals.toArray(String[]::new), variables.toArray(String[]::new), escapeHtml);
+        }
+
+        void render(Map<String, ?> model, StringBuilder out) {
+            for (int i = 0; i < variables.length; i++) {
+                out.append(literals[i]);
+                Object value = model.get(variables[i]);
+                if (value != null) {
+                    out.append(escapeHtml ? HtmlUtils.htmlEscape(value.toString()) : value);
+                }
+            }
+            out.append(literals[variables.length]);
+        }
+    }
+}
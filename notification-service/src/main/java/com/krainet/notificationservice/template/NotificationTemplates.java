@@ -0,0 +1,230 @@
+package com.krainet.notificationservice.template;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Notification templates, compiled once and kept in memory.
+ *
+ * <p>The defaults are loaded from {@code classpath:templates/notifications}. If
+ * {@code app.notifications.templates.directory} is set, templates found there replace the
+ * defaults of the same name, and the directory is watched so edited, added or removed templates
+ * take effect without a restart. Templates are named {@code <name>[_<locale>].txt} for the subject
+ * and plain-text body and {@code <name>[_<locale>].html} for an optional HTML body; the most
+ * specific locale with a text template wins, and its HTML body is used only from that same locale.
+ */
+@Slf4j
+@Component
+public class NotificationTemplates {
+
+    private static final String CLASSPATH_LOCATION = "classpath*:templates/notifications/*.*";
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    private final Map<String, NotificationTemplate> defaults = new ConcurrentHashMap<>();
+    private final Map<String, NotificationTemplate> templates = new ConcurrentHashMap<>();
+    private final Locale defaultLocale;
+    private final boolean htmlEnabled;
+    private final Path overrideDirectory;
+    private final WatchService watchService;
+
+    public NotificationTemplates(
+            @Value("${app.notifications.templates.directory:}") String overrideDirectory,
+            @Value("${app.notifications.locale:en}") String defaultLocale,
+            @Value("${app.notifications.html:true}") boolean htmlEnabled) {
+        this.defaultLocale = Locale.forLanguageTag(defaultLocale);
+        this.htmlEnabled = htmlEnabled;
+        loadDefaults();
+        templates.putAll(defaults);
+
+        if (overrideDirectory == null || overrideDirectory.isBlank()) {
+            this.overrideDirectory = null;
+            this.watchService = null;
+        } else {
+            this.overrideDirectory = Path.of(overrideDirectory);
+            this.watchService = watch(this.overrideDirectory);
+        }
+        log.info("Compiled {} notification templates", templates.size());
+    }
+
+    /**
+     * Renders a template in the default locale.
+     *
+     * @see #render(String, Locale, Map)
+     */
+    public RenderedNotification render(String name, Map<String, ?> model) {
+        return render(name, defaultLocale, model);
+    }
+
+    /**
+     * Renders a template.
+     *
+     * @param name the template name, e.g. {@code user-created}
+     * @param locale the preferred locale
+     * @param model the template variables; missing or {@code null} values render as empty
+     * @return the rendered subject and bodies
+     * @throws IllegalArgumentException if no text template exists for the name
+     */
+    public RenderedNotification render(String name, Locale locale, Map<String, ?> model) {
+        for (String key : candidates(name, locale)) {
+            NotificationTemplate text = templates.get(key + ".txt");
+            if (text == null) {
+                continue;
+            }
+            NotificationTemplate html = htmlEnabled ? templates.get(key + ".html") : null;
+            StringBuilder buffer = BUFFER.get();
+            try {
+                text.renderSubject(model, buffer);
+                String subject = buffer.toString();
+                buffer.setLength(0);
+                text.renderBody(model, buffer);
+                String textBody = buffer.toString();
+                String htmlBody = null;
+                if (html != null) {
+                    buffer.setLength(0);
+                    html.renderBody(model, buffer);
+                    htmlBody = buffer.toString();
+                }
+                return new RenderedNotification(subject, textBody, htmlBody);
+            } finally {
+                release(buffer);
+            }
+        }
+        throw new IllegalArgumentException("No notification template named " + name);
+    }
+
+    private static String[] candidates(String name, Locale locale) {
+        if (locale == null || locale.getLanguage().isEmpty()) {
+            return new String[]{name};
+        }
+        if (locale.getCountry().isEmpty()) {
+            return new String[]{name + "_" + locale.getLanguage(), name};
+        }
+        return new String[]{name + "_" + locale.getLanguage() + "_" + locale.getCountry(),
+                name + "_" + locale.getLanguage(), name};
+    }
+
+    private static void release(StringBuilder buffer) {
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        } else {
+            buffer.setLength(0);
+        }
+    }
+
+    private void loadDefaults() {
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(CLASSPATH_LOCATION)) {
+                String fileName = resource.getFilename();
+                if (fileName != null && isTemplate(fileName)) {
+                    defaults.put(fileName, compile(fileName, resource.getContentAsString(StandardCharsets.UTF_8)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load notification templates", e);
+        }
+    }
+
+    private WatchService watch(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    reload(file.getFileName().toString());
+                }
+            }
+            WatchService service = directory.getFileSystem().newWatchService();
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            Thread watcher = new Thread(() -> watchLoop(service), "notification-template-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+            log.info("Watching {} for notification template changes", directory);
+            return service;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot watch notification template directory " + directory, e);
+        }
+    }
+
+    private void watchLoop(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path file) {
+                        reload(file.getFileName().toString());
+                    }
+                }
+                if (!key.reset()) {
+                    log.warn("Notification template directory {} is no longer watched", overrideDirectory);
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    /**
+     * Recompiles one template from the override directory, or restores its default if the file
+     * is gone. A template that fails to compile is logged and the previous version kept.
+     */
+    void reload(String fileName) {
+        if (!isTemplate(fileName)) {
+            return;
+        }
+        Path file = overrideDirectory.resolve(fileName);
+        try {
+            if (Files.isRegularFile(file)) {
+                templates.put(fileName, compile(fileName, Files.readString(file, StandardCharsets.UTF_8)));
+                log.info("Reloaded notification template {}", fileName);
+            } else {
+                NotificationTemplate fallback = defaults.get(fileName);
+                if (fallback != null) {
+                    templates.put(fileName, fallback);
+                } else {
+                    templates.remove(fileName);
+                }
+                log.info("Notification template {} removed from {}", fileName, overrideDirectory);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Keeping previous version of notification template {}: {}", fileName, e.getMessage());
+        }
+    }
+
+    private static boolean isTemplate(String fileName) {
+        return fileName.endsWith(".txt") || fileName.endsWith(".html");
+    }
+
+    private static NotificationTemplate compile(String fileName, String source) {
+        return fileName.endsWith(".html")
+                ? NotificationTemplate.compileHtml(source)
+                : NotificationTemplate.compileText(source);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.krainet.notificationservice.template;
+
+/**
+ * A rendered notification.
+ *
+ * @param subject the email subject
+ * @param text the plain-text body
+ * @param html the HTML body, or {@code null} to send plain text only
+ */
+public record RenderedNotification(String subject, String text, String html) {
+}
@@ -0,0 +1,27 @@
+package com.krainet.notificationservice.view;
+
+import com.krainet.common.event.UserState;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Local lookup of the current state of a user, used to enrich notifications beyond the fields
+ * carried by each event.
+ */
+@FunctionalInterface
+public interface UserDirectory {
+
+    /**
+     * Directory used when the local user view is disabled.
+     */
+    UserDirectory EMPTY = userId -> Optional.empty();
+
+    /**
+     * Looks up a user.
+     *
+     * @param userId the user ID
+     * @return the latest known state, or empty if the user is unknown or deleted
+     */
+    Optional<UserState> find(UUID userId);
+}
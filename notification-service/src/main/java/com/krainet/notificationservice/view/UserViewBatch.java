@@ -0,0 +1,60 @@
+package com.krainet.notificationservice.view;
+
+import com.krainet.common.event.UserState;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Changes from one poll of the {@code user-state} topic, collapsed to the last change per user,
+ * together with the offset to resume each partition from.
+ */
+public class UserViewBatch {
+
+    /**
+     * The new state of a user, or a {@code null} state for a deleted user.
+     */
+    public record Change(UUID userId, UserState state) {
+    }
+
+    private final Map<UUID, Change> changes = new LinkedHashMap<>();
+    private final Map<Integer, Long> nextOffsets = new HashMap<>();
+
+    /**
+     * Adds one record of the topic.
+     *
+     * @param partition the record's partition
+     * @param offset the record's offset
+     * @param userId the record key
+     * @param state the record value, {@code null} for a tombstone
+     */
+    public void add(int partition, long offset, UUID userId, UserState state) {
+        changes.merge(userId, new Change(userId, state), (current, next) ->
+                current.state() != null && next.state() != null
+                        && next.state().getSequence() < current.state().getSequence() ? current : next);
+        nextOffsets.merge(partition, offset + 1, Math::max);
+    }
+
+    /**
+     * Records that a partition has been read up to the given offset without adding a change,
+     * e.g. for a record that could not be deserialized.
+     */
+    public void skip(int partition, long offset) {
+        nextOffsets.merge(partition, offset + 1, Math::max);
+    }
+
+    public Collection<Change> changes() {
+        return changes.values();
+    }
+
+    public Map<Integer, Long> nextOffsets() {
+        return nextOffsets;
+    }
+
+    public boolean isEmpty() {
+        return nextOffsets.isEmpty();
+    }
+}
@@ -0,0 +1,204 @@
+package com.krainet.notificationservice.view;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.krainet.common.event.UserState;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.DBOptions;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Materialized view of the {@code user-state} topic in an embedded RocksDB database, with a
+ * Caffeine cache in front as the hot tier.
+ *
+ * <p>The next offset to read for each partition is stored in its own column family and written
+ * in the same atomic batch as the user records, so after a restart the view resumes exactly where
+ * it stopped instead of replaying the topic. The same column family holds an instance ID created
+ * with the store, which names this view's consumer group so that it survives restarts.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.user-view.enabled", havingValue = "true", matchIfMissing = true)
+public class UserViewStore {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final byte[] OFFSETS_FAMILY = "offsets".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] INSTANCE_ID_KEY = "instance-id".getBytes(StandardCharsets.UTF_8);
+
+    private final RocksDB db;
+    private final ColumnFamilyHandle users;
+    private final ColumnFamilyHandle offsets;
+    private final List<ColumnFamilyHandle> handles;
+    private final DBOptions dbOptions;
+    private final ColumnFamilyOptions familyOptions;
+    private final WriteOptions writeOptions;
+    private final Cache<UUID, UserState> hotTier;
+    private final String instanceId;
+
+    public UserViewStore(
+            @Value("${app.user-view.directory:./data/user-view}") String directory,
+            @Value("${app.user-view.hot-tier-size:100000}") long hotTierSize) {
+        RocksDB.loadLibrary();
+        try {
+            Path path = Path.of(directory);
+            Files.createDirectories(path);
+            this.dbOptions = new DBOptions()
+                    .setCreateIfMissing(true)
+                    .setCreateMissingColumnFamilies(true);
+            this.familyOptions = new ColumnFamilyOptions().optimizeForPointLookup(64);
+            List<ColumnFamilyDescriptor> descriptors = List.of(
+                    new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, familyOptions),
+                    new ColumnFamilyDescriptor(OFFSETS_FAMILY, familyOptions));
+            this.handles = new ArrayList<>();
+            this.db = RocksDB.open(dbOptions, path.toAbsolutePath().toString(), descriptors, handles);
+            this.users = handles.get(0);
+            this.offsets = handles.get(1);
+            this.writeOptions = new WriteOptions();
+            this.instanceId = loadOrCreateInstanceId();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create user view directory " + directory, e);
+        } catch (RocksDBException e) {
+            throw new IllegalStateException("Cannot open user view in " + directory, e);
+        }
+        this.hotTier = Caffeine.newBuilder()
+                .maximumSize(hotTierSize)
+                .build();
+        log.info("Opened local user view in {}", directory);
+    }
+
+    /**
+     * Looks up a user, from the hot tier if possible.
+     *
+     * @param userId the user ID
+     * @return the latest known state, or empty if the user is unknown or deleted
+     */
+    public Optional<UserState> find(UUID userId) {
+        return Optional.ofNullable(hotTier.get(userId, this::load));
+    }
+
+    /**
+     * Returns the offset to resume reading the given partition from.
+     *
+     * @param partition the {@code user-state} partition
+     * @return the next offset, or empty if nothing from the partition has been applied yet
+     */
+    public OptionalLong nextOffset(int partition) {
+        try {
+            byte[] value = db.get(offsets, partitionKey(partition));
+            return value != null ? OptionalLong.of(ByteBuffer.wrap(value).getLong()) : OptionalLong.empty();
+        } catch (RocksDBException e) {
+            throw new IllegalStateException("Cannot read user view offset for partition " + partition, e);
+        }
+    }
+
+    /**
+     * Returns the ID created with this store and kept across restarts, for naming its consumer group.
+     */
+    public String instanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Applies a batch of snapshots and records the next offset of each partition, atomically.
+     * A snapshot older than the stored one (by sequence) is ignored.
+     *
+     * @param batch the changes to apply
+     */
+    public void apply(UserViewBatch batch) {
+        try (WriteBatch writeBatch = new WriteBatch()) {
+            for (UserViewBatch.Change change : batch.changes()) {
+                byte[] key = userKey(change.userId());
+                if (change.state() == null) {
+                    writeBatch.delete(users, key);
+                } else if (isNewer(change.state())) {
+                    writeBatch.put(users, key, OBJECT_MAPPER.writeValueAsBytes(change.state()));
+                }
+            }
+            for (Map.Entry<Integer, Long> nextOffset : batch.nextOffsets().entrySet()) {
+                writeBatch.put(offsets, partitionKey(nextOffset.getKey()),
+                        ByteBuffer.allocate(Long.BYTES).putLong(nextOffset.getValue()).array());
+            }
+            db.write(writeOptions, writeBatch);
+        } catch (RocksDBException | IOException e) {
+            throw new IllegalStateException("Cannot apply user view batch", e);
+        }
+        for (UserViewBatch.Change change : batch.changes()) {
+            hotTier.invalidate(change.userId());
+        }
+    }
+
+    private boolean isNewer(UserState state) {
+        UserState current = hotTier.getIfPresent(state.getUserId());
+        if (current == null) {
+            current = load(state.getUserId());
+        }
+        return current == null || state.getSequence() >= current.getSequence();
+    }
+
+    private UserState load(UUID userId) {
+        try {
+            byte[] value = db.get(users, userKey(userId));
+            return value != null ? OBJECT_MAPPER.readValue(value, UserState.class) : null;
+        } catch (RocksDBException | IOException e) {
+            throw new IllegalStateException("Cannot read user " + userId + " from the user view", e);
+        }
+    }
+
+    private String loadOrCreateInstanceId() throws RocksDBException {
+        byte[] value = db.get(offsets, INSTANCE_ID_KEY);
+        if (value != null) {
+            return new String(value, StandardCharsets.UTF_8);
+        }
+        String created = UUID.randomUUID().toString();
+        try (WriteOptions syncWrite = new WriteOptions().setSync(true)) {
+            db.put(offsets, syncWrite, INSTANCE_ID_KEY, created.getBytes(StandardCharsets.UTF_8));
+        }
+        return created;
+    }
+
+    private static byte[] userKey(UUID userId) {
+        return ByteBuffer.allocate(16)
+                .putLong(userId.getMostSignificantBits())
+                .putLong(userId.getLeastSignificantBits())
+                .array();
+    }
+
+    private static byte[] partitionKey(int partition) {
+        return ByteBuffer.allocate(Integer.BYTES).putInt(partition).array();
+    }
+
+    @PreDestroy
+    public void close() {
+        for (ColumnFamilyHandle handle : handles) {
+            handle.close();
+        }
+        db.close();
+        writeOptions.close();
+        familyOptions.close();
+        dbOptions.close();
+    }
+}
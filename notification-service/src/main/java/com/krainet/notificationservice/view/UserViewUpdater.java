@@ -0,0 +1,77 @@
+package com.krainet.notificationservice.view;
+
+import com.krainet.common.event.UserState;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Feeds the {@link UserViewStore} from the compacted {@code user-state} topic.
+ *
+ * <p>Every instance keeps its own full view, so it reads all partitions under a group ID of its
+ * own, named after the store's {@link UserViewStore#instanceId() instance ID} so a restart rejoins
+ * the same group instead of leaving one behind, and never commits offsets to Kafka. On assignment it seeks each partition to the offset
+ * checkpointed in the store, or to the beginning for a new store.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.user-view.enabled", havingValue = "true", matchIfMissing = true)
+public class UserViewUpdater implements ConsumerSeekAware {
+
+    private final UserViewStore userViewStore;
+
+    @KafkaListener(
+            topics = "${kafka.topic.user-state:user-state}",
+            groupId = "#{'${spring.application.name:notification-service}-user-view-' + @userViewStore.instanceId()}",
+            containerFactory = "userViewListenerContainerFactory",
+            autoStartup = "#{'${app.events.transport:kafka}' == 'kafka'}"
+    )
+    public void onUserStates(List<ConsumerRecord<String, UserState>> records) {
+        UserViewBatch batch = new UserViewBatch();
+        for (ConsumerRecord<String, UserState> record : records) {
+            UUID userId = parseUserId(record.key());
+            if (userId == null
+                    || record.headers().lastHeader(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER) != null) {
+                log.warn("Skipping unreadable user state record at {}-{}@{}", record.topic(), record.partition(), record.offset());
+                batch.skip(record.partition(), record.offset());
+                continue;
+            }
+            batch.add(record.partition(), record.offset(), userId, record.value());
+        }
+        userViewStore.apply(batch);
+        log.debug("Applied {} user state records to the local view", records.size());
+    }
+
+    private static UUID parseUserId(String key) {
+        try {
+            return key != null ? UUID.fromString(key) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        for (TopicPartition partition : assignments.keySet()) {
+            OptionalLong nextOffset = userViewStore.nextOffset(partition.partition());
+            if (nextOffset.isPresent()) {
+                callback.seek(partition.topic(), partition.partition(), nextOffset.getAsLong());
+            } else {
+                callback.seekToBeginning(partition.topic(), partition.partition());
+            }
+        }
+        log.info("Resuming local user view for partitions {}", assignments.keySet());
+    }
+}
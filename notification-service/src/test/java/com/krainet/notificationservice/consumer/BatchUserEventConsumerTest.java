@@ -0,0 +1,201 @@
+package com.krainet.notificationservice.consumer;
+
+import com.krainet.common.event.EventType;
+import com.krainet.common.event.UserEvent;
+import com.krainet.common.logging.LogContext;
+import com.krainet.common.serialization.UserEventHeaders;
+import com.krainet.notificationservice.latency.EventLatency;
+import com.krainet.notificationservice.retry.FailedEventRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchUserEventConsumerTest {
+
+    private static final String TOPIC = "user-events";
+
+    @Mock
+    private UserEventConsumer userEventConsumer;
+
+    @Mock
+    private FailedEventRouter failedEventRouter;
+
+    @Mock
+    private Consumer<String, UserEvent> kafkaConsumer;
+
+    private BatchUserEventConsumer batchConsumer;
+
+    @BeforeEach
+    void setUp() {
+        batchConsumer = new BatchUserEventConsumer(userEventConsumer, failedEventRouter,
+                new EventLatency(new SimpleMeterRegistry()), 4, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchConsumer.shutdown();
+    }
+
+    @Test
+    void consumeUserEvents_AllSucceed_CommitsEveryPartition() {
+        // Given
+        List<ConsumerRecord<String, UserEvent>> records = List.of(
+                record(0, 10, UUID.randomUUID()),
+                record(0, 11, UUID.randomUUID()),
+                record(1, 5, UUID.randomUUID()));
+
+        // When
+        batchConsumer.consumeUserEvents(records, kafkaConsumer);
+
+        // Then
+        verify(userEventConsumer, times(3)).onEvent(any(), anyBoolean());
+        verify(kafkaConsumer).commitSync(Map.of(
+                new TopicPartition(TOPIC, 0), new OffsetAndMetadata(12),
+                new TopicPartition(TOPIC, 1), new OffsetAndMetadata(6)));
+        verify(kafkaConsumer, never()).seek(any(TopicPartition.class), anyLong());
+    }
+
+    @Test
+    void consumeUserEvents_RecordFails_CommitsContiguousPrefixAndRewinds() {
+        // Given
+        ConsumerRecord<String, UserEvent> failing = record(0, 11, UUID.randomUUID());
+        List<ConsumerRecord<String, UserEvent>> records = List.of(
+                record(0, 10, UUID.randomUUID()),
+                failing,
+                record(0, 12, UUID.randomUUID()),
+                record(1, 5, UUID.randomUUID()));
+        lenient().doThrow(new RuntimeException("SMTP down")).when(userEventConsumer).onEvent(eq(failing.value()), anyBoolean());
+
+        // When
+        batchConsumer.consumeUserEvents(records, kafkaConsumer);
+
+        // Then
+        verify(kafkaConsumer).seek(new TopicPartition(TOPIC, 0), 11);
+        verify(kafkaConsumer).commitSync(Map.of(
+                new TopicPartition(TOPIC, 0), new OffsetAndMetadata(11),
+                new TopicPartition(TOPIC, 1), new OffsetAndMetadata(6)));
+    }
+
+    @Test
+    void consumeUserEvents_RecordFailsWithoutRouting_LaterEventsOfSameUserNotRunAhead() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        ConsumerRecord<String, UserEvent> failing = record(0, 10, userId);
+        ConsumerRecord<String, UserEvent> later = record(0, 11, userId);
+        ConsumerRecord<String, UserEvent> otherUser = record(0, 12, otherUserId);
+        lenient().doThrow(new RuntimeException("SMTP down")).when(userEventConsumer).onEvent(eq(failing.value()), anyBoolean());
+
+        // When
+        batchConsumer.consumeUserEvents(List.of(failing, later, otherUser), kafkaConsumer);
+
+        // Then
+        verify(userEventConsumer, timeout(1_000)).onEvent(otherUser.value(), false);
+        verify(userEventConsumer, never()).onEvent(eq(later.value()), anyBoolean());
+        verify(kafkaConsumer).seek(new TopicPartition(TOPIC, 0), 10);
+        verify(kafkaConsumer, never()).commitSync(anyMap());
+    }
+
+    @Test
+    void consumeUserEvents_RecordFailsAndIsRouted_CommitsPastItWithoutRewinding() {
+        // Given
+        ConsumerRecord<String, UserEvent> failing = record(0, 11, UUID.randomUUID());
+        List<ConsumerRecord<String, UserEvent>> records = List.of(
+                record(0, 10, UUID.randomUUID()),
+                failing,
+                record(0, 12, UUID.randomUUID()));
+        RuntimeException failure = new RuntimeException("SMTP down");
+        lenient().doThrow(failure).when(userEventConsumer).onEvent(eq(failing.value()), anyBoolean());
+        lenient().when(failedEventRouter.route(failing, failure)).thenReturn(true);
+
+        // When
+        batchConsumer.consumeUserEvents(records, kafkaConsumer);
+
+        // Then
+        verify(kafkaConsumer).commitSync(Map.of(new TopicPartition(TOPIC, 0), new OffsetAndMetadata(13)));
+        verify(kafkaConsumer, never()).seek(any(TopicPartition.class), anyLong());
+    }
+
+    @Test
+    void consumeUserEvents_SameUser_ProcessedInOffsetOrder() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        List<ConsumerRecord<String, UserEvent>> records = new ArrayList<>();
+        for (int offset = 0; offset < 50; offset++) {
+            records.add(record(0, offset, userId));
+        }
+        List<Long> handled = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> handled.add(((UserEvent) invocation.getArgument(0)).getSequence()))
+                .when(userEventConsumer).onEvent(any(), anyBoolean());
+
+        // When
+        batchConsumer.consumeUserEvents(records, kafkaConsumer);
+
+        // Then
+        assertEquals(records.stream().map(r -> r.value().getSequence()).toList(), handled);
+    }
+
+    @Test
+    void consumeUserEvents_EventFromSampledRequest_LogsUnderItsTraceId() {
+        // Given
+        ConsumerRecord<String, UserEvent> record = record(0, 10, UUID.randomUUID());
+        record.value().setMetadata(Map.of(LogContext.TRACE_ID, "4bf92f3577b34da6a3ce929d0e0e4736", LogContext.SAMPLED, true));
+        List<String> traceIds = Collections.synchronizedList(new ArrayList<>());
+        List<Boolean> sampled = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            traceIds.add(MDC.get(LogContext.TRACE_ID));
+            sampled.add(LogContext.isSampled());
+            return null;
+        }).when(userEventConsumer).onEvent(any(), anyBoolean());
+
+        // When
+        batchConsumer.consumeUserEvents(List.of(record), kafkaConsumer);
+
+        // Then
+        assertEquals(List.of("4bf92f3577b34da6a3ce929d0e0e4736"), traceIds);
+        assertTrue(sampled.get(0));
+    }
+
+    @Test
+    void consumeUserEvents_ReplayedRecord_FlaggedAsReplayed() {
+        // Given
+        ConsumerRecord<String, UserEvent> live = record(0, 10, UUID.randomUUID());
+        ConsumerRecord<String, UserEvent> replayed = record(0, 11, UUID.randomUUID());
+        UserEventHeaders.markReplayed(replayed.headers());
+
+        // When
+        batchConsumer.consumeUserEvents(List.of(live, replayed), kafkaConsumer);
+
+        // Then
+        verify(userEventConsumer).onEvent(live.value(), false);
+        verify(userEventConsumer).onEvent(replayed.value(), true);
+    }
+
+    private static ConsumerRecord<String, UserEvent> record(int partition, long offset, UUID userId) {
+        UserEvent event = UserEvent.builder(EventType.USER_UPDATED, userId, "testuser", "test@example.com", "USER")
+                .sequence(offset)
+                .build();
+        return new ConsumerRecord<>(TOPIC, partition, offset, userId.toString(), event);
+    }
+}
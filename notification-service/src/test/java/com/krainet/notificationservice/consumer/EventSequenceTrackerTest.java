@@ -0,0 +1,74 @@
+package com.krainet.notificationservice.consumer;
+
+import com.krainet.common.event.EventType;
+import com.krainet.common.event.UserEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventSequenceTrackerTest {
+
+    @Test
+    void advance_NewerSequence_RaisesMarkAndOnlyItsRedeliveryIsRecognized() {
+        // Given
+        EventSequenceTracker tracker = new EventSequenceTracker(1024);
+        UUID userId = UUID.randomUUID();
+
+        // When
+        boolean first = tracker.advance(event(userId, 3));
+        boolean older = tracker.advance(event(userId, 2));
+
+        // Then
+        assertTrue(first);
+        assertFalse(older);
+        assertEquals(3, tracker.highWaterMark(userId));
+        assertTrue(tracker.isRedelivery(event(userId, 3)));
+        assertFalse(tracker.isRedelivery(event(userId, 2)));
+        assertFalse(tracker.isRedelivery(event(userId, 4)));
+    }
+
+    @Test
+    void isRedelivery_UnknownUserOrNoSequence_NeverRedelivery() {
+        // Given
+        EventSequenceTracker tracker = new EventSequenceTracker(1024);
+        UUID userId = UUID.randomUUID();
+        UserEvent withoutSequence = UserEvent.builder(EventType.USER_UPDATED, userId, "u", "u@example.com", "USER")
+                .build();
+
+        // When / Then
+        assertEquals(-1, tracker.highWaterMark(userId));
+        assertFalse(tracker.isRedelivery(event(userId, 0)));
+        assertTrue(tracker.advance(withoutSequence));
+        assertFalse(tracker.isRedelivery(withoutSequence));
+    }
+
+    @Test
+    void advance_MoreUsersThanCapacity_KeepsAtMostCapacityAndTheMostRecent() {
+        // Given
+        EventSequenceTracker tracker = new EventSequenceTracker(8);
+        List<UUID> users = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            users.add(UUID.randomUUID());
+        }
+
+        // When
+        for (UUID userId : users) {
+            tracker.advance(event(userId, 1));
+        }
+
+        // Then
+        long tracked = users.stream().filter(userId -> tracker.highWaterMark(userId) == 1).count();
+        assertTrue(tracked <= 8, "tracked " + tracked);
+        assertEquals(1, tracker.highWaterMark(users.get(users.size() - 1)));
+    }
+
+    private static UserEvent event(UUID userId, long sequence) {
+        return UserEvent.builder(EventType.USER_UPDATED, userId, "testuser", "test@example.com", "USER")
+                .sequence(sequence)
+                .build();
+    }
+}
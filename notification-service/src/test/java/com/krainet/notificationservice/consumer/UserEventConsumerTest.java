@@ -2,17 +2,24 @@ package com.krainet.notificationservice.consumer;
 
 import com.krainet.common.event.EventType;
 import com.krainet.common.event.UserEvent;
+import com.krainet.common.serialization.UserEventHeaders;
+import com.krainet.notificationservice.dedup.ProcessedEventLog;
+import com.krainet.notificationservice.retry.FailedEventRouter;
 import com.krainet.notificationservice.service.NotificationService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.support.Acknowledgment;
 
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,6 +31,15 @@ class UserEventConsumerTest {
     @Mock
     private Acknowledgment acknowledgment;
 
+    @Spy
+    private EventSequenceTracker sequenceTracker = new EventSequenceTracker(1024);
+
+    @Mock
+    private FailedEventRouter failedEventRouter;
+
+    @Mock
+    private ProcessedEventLog processedEventLog;
+
     @InjectMocks
     private UserEventConsumer userEventConsumer;
 
@@ -45,7 +61,7 @@ class UserEventConsumerTest {
     @Test
     void consumeUserEvent_ValidEvent_ProcessesAndAcknowledges() {
         // When
-        userEventConsumer.consumeUserEvent(testEvent, acknowledgment);
+        userEventConsumer.consumeUserEvent(record(testEvent), acknowledgment);
 
         // Then
         verify(notificationService, times(1)).processUserEvent(testEvent);
@@ -55,18 +71,139 @@ class UserEventConsumerTest {
     @Test
     void consumeUserEvent_ServiceThrowsException_StillAcknowledges() {
         // Given
-        doThrow(new RuntimeException("Test exception"))
-                .when(notificationService).processUserEvent(any());
+        RuntimeException failure = new RuntimeException("Test exception");
+        doThrow(failure).when(notificationService).processUserEvent(any());
+        ConsumerRecord<String, UserEvent> record = record(testEvent);
+        when(failedEventRouter.route(record, failure)).thenReturn(true);
 
         // When
         try {
-            userEventConsumer.consumeUserEvent(testEvent, acknowledgment);
+            userEventConsumer.consumeUserEvent(record, acknowledgment);
         } catch (Exception e) {
             // Expected exception
         }
 
         // Then
         verify(notificationService, times(1)).processUserEvent(testEvent);
+        verify(failedEventRouter, times(1)).route(record, failure);
+        verify(acknowledgment, times(1)).acknowledge();
+    }
+
+    @Test
+    void consumeUserEvent_RetryTopicsUnavailable_RethrowsWithoutAcknowledging() {
+        // Given
+        doThrow(new RuntimeException("Test exception"))
+                .when(notificationService).processUserEvent(any());
+
+        // When / Then
+        assertThrows(RuntimeException.class, () -> userEventConsumer.consumeUserEvent(record(testEvent), acknowledgment));
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void consumeUserEvent_FailedEventRedelivered_IsProcessedAgain() {
+        // Given
+        UserEvent event = UserEvent.builder(EventType.USER_UPDATED, UUID.randomUUID(), "testuser", "test@example.com", "USER")
+                .sequence(5L)
+                .build();
+        doThrow(new RuntimeException("SMTP down"))
+                .doNothing()
+                .when(notificationService).processUserEvent(event);
+
+        // When
+        assertThrows(RuntimeException.class, () -> userEventConsumer.consumeUserEvent(record(event), acknowledgment));
+        userEventConsumer.consumeUserEvent(record(event), acknowledgment);
+
+        // Then
+        verify(notificationService, times(2)).processUserEvent(event);
+        verify(acknowledgment, times(1)).acknowledge();
+    }
+
+    @Test
+    void consumeUserEvent_AlreadyProcessedEventId_SkipsProcessingAndAcknowledges() {
+        // Given
+        when(processedEventLog.isProcessed(testEvent.getEventId())).thenReturn(true);
+
+        // When
+        userEventConsumer.consumeUserEvent(record(testEvent), acknowledgment);
+
+        // Then
+        verify(notificationService, never()).processUserEvent(any());
         verify(acknowledgment, times(1)).acknowledge();
     }
+
+    @Test
+    void consumeUserEvent_Processed_RecordsEventId() {
+        // When
+        userEventConsumer.consumeUserEvent(record(testEvent), acknowledgment);
+
+        // Then
+        verify(processedEventLog).markProcessed(testEvent.getEventId());
+    }
+
+    @Test
+    void consumeUserEvent_OlderSequence_StillProcessedButNewestRedeliverySkipped() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        UserEvent newer = UserEvent.builder(EventType.USER_UPDATED, userId, "testuser", "test@example.com", "USER")
+                .sequence(3L)
+                .build();
+        UserEvent older = UserEvent.builder(EventType.USER_UPDATED, userId, "testuser", "old@example.com", "USER")
+                .sequence(2L)
+                .build();
+
+        // When
+        userEventConsumer.consumeUserEvent(record(newer), acknowledgment);
+        userEventConsumer.consumeUserEvent(record(older), acknowledgment);
+        userEventConsumer.consumeUserEvent(record(newer), acknowledgment);
+
+        // Then
+        verify(notificationService, times(1)).processUserEvent(newer);
+        verify(notificationService, times(1)).processUserEvent(older);
+        verify(acknowledgment, times(3)).acknowledge();
+        assertEquals(3L, sequenceTracker.highWaterMark(userId));
+    }
+
+    @Test
+    void consumeUserEvent_ReplayedAfterNewerEvent_IsProcessed() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        UserEvent newer = UserEvent.builder(EventType.USER_UPDATED, userId, "testuser", "test@example.com", "USER")
+                .sequence(3L)
+                .build();
+        UserEvent journaled = UserEvent.builder(EventType.USER_UPDATED, userId, "testuser", "old@example.com", "USER")
+                .sequence(2L)
+                .build();
+        ConsumerRecord<String, UserEvent> replay = record(journaled);
+        UserEventHeaders.markReplayed(replay.headers());
+
+        // When
+        userEventConsumer.consumeUserEvent(record(newer), acknowledgment);
+        userEventConsumer.consumeUserEvent(replay, acknowledgment);
+
+        // Then
+        verify(notificationService).processUserEvent(newer);
+        verify(notificationService).processUserEvent(journaled);
+        verify(acknowledgment, times(2)).acknowledge();
+        assertEquals(3L, sequenceTracker.highWaterMark(userId));
+    }
+
+    @Test
+    void consumeUserEvent_ReplayAlreadyDelivered_SkipsProcessing() {
+        // Given
+        ConsumerRecord<String, UserEvent> replay = record(testEvent);
+        UserEventHeaders.markReplayed(replay.headers());
+        when(processedEventLog.isProcessed(testEvent.getEventId())).thenReturn(true);
+
+        // When
+        userEventConsumer.consumeUserEvent(replay, acknowledgment);
+
+        // Then
+        verify(notificationService, never()).processUserEvent(any());
+        verify(acknowledgment).acknowledge();
+    }
+
+    private static ConsumerRecord<String, UserEvent> record(UserEvent event) {
+        return new ConsumerRecord<>("user-events", 0, 0, event.getUserId().toString(), event);
+    }
 }
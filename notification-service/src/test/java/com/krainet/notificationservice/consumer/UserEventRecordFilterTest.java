@@ -0,0 +1,120 @@
+package com.krainet.notificationservice.consumer;
+
+import com.krainet.common.event.ChangedField;
+import com.krainet.common.event.EventType;
+import com.krainet.common.event.UserEvent;
+import com.krainet.common.serialization.UserEventSerializer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserEventRecordFilterTest {
+
+    private static final String TOPIC = "user-events";
+    private static final UUID USER_ID = UUID.randomUUID();
+    private static final UUID ADMIN_ID = UUID.randomUUID();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserEventRecordFilter filter = new UserEventRecordFilter(meterRegistry);
+    private final UserEventSerializer serializer = new UserEventSerializer();
+
+    @Test
+    void isIrrelevant_SelfInitiatedUpdate_Dropped() {
+        // Given
+        Headers headers = stamp(event(EventType.USER_UPDATED, USER_ID, null));
+
+        // When / Then
+        assertTrue(filter.isIrrelevant(headers));
+    }
+
+    @Test
+    void isIrrelevant_SelfInitiatedDeletion_Dropped() {
+        // Given
+        Headers headers = stamp(event(EventType.USER_DELETED, null, null));
+
+        // When / Then
+        assertTrue(filter.isIrrelevant(headers));
+    }
+
+    @Test
+    void isIrrelevant_AdminInitiatedUpdate_Kept() {
+        // Given
+        Headers headers = stamp(event(EventType.USER_UPDATED, ADMIN_ID, null));
+
+        // When / Then
+        assertFalse(filter.isIrrelevant(headers));
+    }
+
+    @Test
+    void isIrrelevant_SelfInitiatedPasswordChange_Kept() {
+        // Given
+        Headers composite = stamp(event(EventType.USER_UPDATED, USER_ID,
+                ChangedField.mask(ChangedField.FIRST_NAME, ChangedField.PASSWORD)));
+        Headers profileOnly = stamp(event(EventType.USER_UPDATED, USER_ID, ChangedField.mask(ChangedField.FIRST_NAME)));
+
+        // When / Then
+        assertFalse(filter.isIrrelevant(composite));
+        assertTrue(filter.isIrrelevant(profileOnly));
+        assertFalse(filter.isIrrelevant(stamp(event(EventType.USER_PASSWORD_CHANGED, USER_ID, null))));
+        assertFalse(filter.isIrrelevant(stamp(event(EventType.USER_CREATED, null, null))));
+    }
+
+    @Test
+    void isIrrelevant_NoHeaders_Kept() {
+        // When / Then
+        assertFalse(filter.isIrrelevant(new RecordHeaders()));
+    }
+
+    @Test
+    void deserialize_IrrelevantRecord_SkipsDecodingAndIsFiltered() {
+        // Given
+        Headers headers = stamp(event(EventType.USER_UPDATED, USER_ID, null));
+        byte[] undecodable = "{not json".getBytes(StandardCharsets.UTF_8);
+        HeaderFilteringUserEventDeserializer deserializer = new HeaderFilteringUserEventDeserializer(filter);
+
+        // When
+        UserEvent value = deserializer.deserialize(TOPIC, headers, undecodable);
+        ConsumerRecord<String, UserEvent> record = new ConsumerRecord<>(TOPIC, 0, 0, USER_ID.toString(), value);
+        headers.forEach(header -> record.headers().add(header));
+        boolean dropped = filter.filter(record);
+
+        // Then
+        assertNull(value);
+        assertTrue(dropped);
+        assertEquals(1, meterRegistry.get("krainet.events.filtered").tag("type", "USER_UPDATED").counter().count());
+    }
+
+    @Test
+    void deserialize_RelevantRecord_Decoded() {
+        // Given
+        UserEvent event = event(EventType.USER_UPDATED, ADMIN_ID, null);
+        Headers headers = new RecordHeaders();
+        byte[] data = serializer.serialize(TOPIC, headers, event);
+        HeaderFilteringUserEventDeserializer deserializer = new HeaderFilteringUserEventDeserializer(filter);
+
+        // When
+        UserEvent value = deserializer.deserialize(TOPIC, headers, data);
+
+        // Then
+        assertEquals(event.getEventId(), value.getEventId());
+    }
+
+    private Headers stamp(UserEvent event) {
+        Headers headers = new RecordHeaders();
+        serializer.serialize(TOPIC, headers, event);
+        return headers;
+    }
+
+    private static UserEvent event(EventType eventType, UUID initiatorId, Integer changedFields) {
+        return UserEvent.builder(eventType, USER_ID, "testuser", "test@example.com", "USER", initiatorId, null)
+                .changedFields(changedFields)
+                .build();
+    }
+}
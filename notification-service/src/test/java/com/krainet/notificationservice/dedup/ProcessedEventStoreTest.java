@@ -0,0 +1,114 @@
+package com.krainet.notificationservice.dedup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessedEventStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void isProcessed_AfterMarkProcessed_ReturnsTrue() {
+        // Given
+        ProcessedEventStore store = open();
+        String eventId = UUID.randomUUID().toString();
+
+        // When
+        boolean before = store.isProcessed(eventId);
+        store.markProcessed(eventId);
+
+        // Then
+        assertFalse(before);
+        assertTrue(store.isProcessed(eventId));
+        assertFalse(store.isProcessed(UUID.randomUUID().toString()));
+        assertFalse(store.isProcessed(null));
+        store.close();
+    }
+
+    @Test
+    void isProcessed_AfterRestart_RemembersEventIds() {
+        // Given
+        List<String> eventIds = new ArrayList<>();
+        ProcessedEventStore store = open();
+        for (int i = 0; i < 1_000; i++) {
+            String eventId = i % 10 == 0 ? "legacy-event-" + i : UUID.randomUUID().toString();
+            store.markProcessed(eventId);
+            eventIds.add(eventId);
+        }
+        store.close();
+
+        // When
+        ProcessedEventStore reopened = open();
+
+        // Then
+        for (String eventId : eventIds) {
+            assertTrue(reopened.isProcessed(eventId), eventId);
+        }
+        assertFalse(reopened.isProcessed(UUID.randomUUID().toString()));
+        reopened.close();
+    }
+
+    @Test
+    void mightContain_NoFalseNegativesAndFewFalsePositives() {
+        // Given
+        GenerationalBloomFilter filter = new GenerationalBloomFilter(4, 60_000, 10_000, 0.01);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("event-" + i, now);
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("event-" + i));
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void mightContain_KeyOlderThanWindow_IsIgnored() {
+        // Given
+        GenerationalBloomFilter filter = new GenerationalBloomFilter(4, 60_000, 1_000, 0.01);
+
+        // When
+        filter.put("expired", System.currentTimeMillis() - 10 * 60_000);
+
+        // Then
+        assertFalse(filter.mightContain("expired"));
+    }
+
+    @Test
+    void mightContain_KeyRecordedAtStartOfWindow_StillContained() {
+        // Given: the start of a four-generation window always lies four generations back
+        GenerationalBloomFilter filter = new GenerationalBloomFilter(4, 60_000, 1_000, 0.01);
+        long now = System.currentTimeMillis();
+        filter.put("oldest", now - 4 * 60_000);
+
+        // When
+        for (int i = 1; i <= 3; i++) {
+            filter.put("newer-" + i, now - i * 60_000);
+        }
+        filter.put("newest", now);
+
+        // Then
+        assertTrue(filter.mightContain("oldest"));
+        assertTrue(filter.mightContain("newest"));
+    }
+
+    private ProcessedEventStore open() {
+        return new ProcessedEventStore(directory.toString(), "7d", 7, 10_000, 0.01, false);
+    }
+}
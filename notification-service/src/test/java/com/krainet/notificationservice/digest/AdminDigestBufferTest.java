@@ -0,0 +1,171 @@
+package com.krainet.notificationservice.digest;
+
+import com.krainet.notificationservice.mail.MailOutbox;
+import com.krainet.notificationservice.template.NotificationTemplates;
+import com.krainet.notificationservice.template.RenderedNotification;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdminDigestBufferTest {
+
+    private static final NotificationTemplates TEMPLATES = new NotificationTemplates("", "en", false);
+    private static final String ADMIN_EMAIL = "admin@krainet.com";
+    private static final long AFTER_WINDOW = Duration.ofMinutes(2).toMillis();
+
+    @TempDir
+    Path digestDirectory;
+
+    @Mock
+    private MailOutbox mailOutbox;
+
+    private AdminDigestBuffer digest;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        digest.close();
+    }
+
+    @Test
+    void flush_WindowExpired_SendsOneDigestForAllNotifications() {
+        // Given
+        digest = open(100);
+        for (int i = 1; i <= 3; i++) {
+            digest.offer(ADMIN_EMAIL, "event-" + i, notification("User Account Deleted: user" + i));
+        }
+
+        // When
+        digest.flush(System.currentTimeMillis());
+        verify(mailOutbox, never()).submit(any(SimpleMailMessage.class));
+        digest.flush(System.currentTimeMillis() + AFTER_WINDOW);
+
+        // Then
+        ArgumentCaptor<SimpleMailMessage> sent = ArgumentCaptor.forClass(SimpleMailMessage.class);
+        verify(mailOutbox).submit(sent.capture());
+        assertArrayEquals(new String[]{ADMIN_EMAIL}, sent.getValue().getTo());
+        assertEquals("Admin digest: 3 notifications", sent.getValue().getSubject());
+        assertTrue(sent.getValue().getText().contains("1. User Account Deleted: user1\n"));
+        assertTrue(sent.getValue().getText().contains("3. User Account Deleted: user3\n"));
+        assertEquals(0, digest.pendingNotifications());
+    }
+
+    @Test
+    void offer_MaxEntriesReached_ClosesWindowWithoutWaiting() {
+        // Given
+        digest = open(2);
+
+        // When
+        digest.offer(ADMIN_EMAIL, "event-1", notification("First"));
+        digest.offer(ADMIN_EMAIL, "event-2", notification("Second"));
+        digest.offer(ADMIN_EMAIL, "event-3", notification("Third"));
+        digest.flush(System.currentTimeMillis());
+
+        // Then
+        ArgumentCaptor<SimpleMailMessage> sent = ArgumentCaptor.forClass(SimpleMailMessage.class);
+        verify(mailOutbox).submit(sent.capture());
+        assertEquals("Admin digest: 2 notifications", sent.getValue().getSubject());
+        assertEquals(1, digest.pendingNotifications());
+    }
+
+    @Test
+    void flush_SingleNotification_SentUnchanged() {
+        // Given
+        digest = open(100);
+        digest.offer(ADMIN_EMAIL, "event-1", notification("New User Registration: bob"));
+
+        // When
+        digest.flush(System.currentTimeMillis() + AFTER_WINDOW);
+
+        // Then
+        ArgumentCaptor<SimpleMailMessage> sent = ArgumentCaptor.forClass(SimpleMailMessage.class);
+        verify(mailOutbox).submit(sent.capture());
+        assertEquals("New User Registration: bob", sent.getValue().getSubject());
+        assertEquals("Body of New User Registration: bob", sent.getValue().getText());
+    }
+
+    @Test
+    void offer_SameEntryRedelivered_ListedOnce() {
+        // Given
+        digest = open(100);
+
+        // When
+        digest.offer(ADMIN_EMAIL, "event-1", notification("First"));
+        digest.offer(ADMIN_EMAIL, "event-1", notification("First"));
+
+        // Then
+        assertEquals(1, digest.pendingNotifications());
+    }
+
+    @Test
+    void restart_RestoresOpenWindowsAndDoesNotResendSentOnes() throws IOException {
+        // Given
+        digest = open(100);
+        digest.offer(ADMIN_EMAIL, "event-1", notification("First"));
+        digest.offer(ADMIN_EMAIL, "event-2", notification("Second"));
+        digest.close();
+
+        // When
+        digest = open(100);
+
+        // Then
+        assertEquals(2, digest.pendingNotifications());
+        digest.offer(ADMIN_EMAIL, "event-2", notification("Second"));
+        digest.flush(System.currentTimeMillis() + AFTER_WINDOW);
+        ArgumentCaptor<SimpleMailMessage> sent = ArgumentCaptor.forClass(SimpleMailMessage.class);
+        verify(mailOutbox).submit(sent.capture());
+        assertEquals("Admin digest: 2 notifications", sent.getValue().getSubject());
+
+        // When
+        digest.close();
+        digest = open(100);
+        digest.flush(System.currentTimeMillis() + AFTER_WINDOW);
+
+        // Then
+        assertEquals(0, digest.pendingNotifications());
+        verifyNoMoreInteractions(mailOutbox);
+    }
+
+    @Test
+    void flush_OutboxFails_KeepsWindowForNextPass() {
+        // Given
+        digest = open(100);
+        digest.offer(ADMIN_EMAIL, "event-1", notification("First"));
+        doThrow(new MailSendException("SMTP down")).doNothing().when(mailOutbox).submit(any(SimpleMailMessage.class));
+
+        // When
+        digest.flush(System.currentTimeMillis() + AFTER_WINDOW);
+
+        // Then
+        assertEquals(1, digest.pendingNotifications());
+        digest.flush(System.currentTimeMillis() + AFTER_WINDOW);
+        verify(mailOutbox, times(2)).submit(any(SimpleMailMessage.class));
+        assertEquals(0, digest.pendingNotifications());
+    }
+
+    private AdminDigestBuffer open(int maxEntries) {
+        try {
+            return new AdminDigestBuffer(mailOutbox, TEMPLATES, digestDirectory.toString(), "1m", maxEntries, 1, false);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static RenderedNotification notification(String subject) {
+        return new RenderedNotification(subject, "Body of " + subject, null);
+    }
+}
@@ -0,0 +1,92 @@
+package com.krainet.notificationservice.mail;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MailRateLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void tryAcquire_DomainBurstExhausted_DefersOnlyThatDomain() {
+        // Given
+        MailRateLimiter rateLimiter = new MailRateLimiter(true, 1000, 1000, 0, 1, 2, 100, meterRegistry);
+
+        // When
+        long first = rateLimiter.tryAcquire(new String[]{"a@gmail.com"}, MailPriority.NORMAL);
+        long second = rateLimiter.tryAcquire(new String[]{"b@GMAIL.com"}, MailPriority.NORMAL);
+        long third = rateLimiter.tryAcquire(new String[]{"c@gmail.com"}, MailPriority.NORMAL);
+        long otherDomain = rateLimiter.tryAcquire(new String[]{"d@example.com"}, MailPriority.NORMAL);
+
+        // Then
+        assertEquals(0, first);
+        assertEquals(0, second);
+        assertTrue(third > 0 && third <= 1_000_000_000L, "Expected a wait of up to 1 s, was " + third);
+        assertEquals(0, otherDomain);
+        assertEquals(1, meterRegistry.get("krainet.mail.rate-limit.throttled")
+                .tag("domain", "gmail.com").functionCounter().count());
+    }
+
+    @Test
+    void tryAcquire_ProviderQuotaExhausted_ReturnsDomainPermit() {
+        // Given
+        MailRateLimiter rateLimiter = new MailRateLimiter(true, 1, 1, 0, 1, 1, 100, meterRegistry);
+        assertEquals(0, rateLimiter.tryAcquire(new String[]{"a@example.com"}, MailPriority.NORMAL));
+
+        // When
+        long deferred = rateLimiter.tryAcquire(new String[]{"b@krainet.com"}, MailPriority.NORMAL);
+
+        // Then
+        assertTrue(deferred > 0);
+        assertEquals(0, meterRegistry.get("krainet.mail.rate-limit.granted")
+                .tag("domain", "krainet.com").functionCounter().count());
+        assertEquals(1, meterRegistry.get("krainet.mail.rate-limit.throttled")
+                .tag("scope", "provider").functionCounter().count());
+    }
+
+    @Test
+    void tryAcquire_MaxDomainsReached_SharesOverflowBucket() {
+        // Given
+        MailRateLimiter rateLimiter = new MailRateLimiter(true, 1000, 1000, 0, 1, 1, 1, meterRegistry);
+        assertEquals(0, rateLimiter.tryAcquire(new String[]{"a@first.com"}, MailPriority.NORMAL));
+
+        // When
+        long second = rateLimiter.tryAcquire(new String[]{"b@second.com"}, MailPriority.NORMAL);
+        long third = rateLimiter.tryAcquire(new String[]{"c@third.com"}, MailPriority.NORMAL);
+
+        // Then
+        assertEquals(0, second);
+        assertTrue(third > 0);
+        assertNotNull(meterRegistry.find("krainet.mail.rate-limit.granted").tag("domain", "other").functionCounter());
+    }
+
+    @Test
+    void tryAcquire_ReservedProviderPermits_OnlyForHighPriority() {
+        // Given
+        MailRateLimiter rateLimiter = new MailRateLimiter(true, 1, 3, 1, 1000, 1000, 100, meterRegistry);
+        assertEquals(0, rateLimiter.tryAcquire(new String[]{"a@example.com"}, MailPriority.NORMAL));
+        assertEquals(0, rateLimiter.tryAcquire(new String[]{"b@example.com"}, MailPriority.NORMAL));
+
+        // When
+        long normal = rateLimiter.tryAcquire(new String[]{"c@example.com"}, MailPriority.NORMAL);
+        long high = rateLimiter.tryAcquire(new String[]{"d@example.com"}, MailPriority.HIGH);
+
+        // Then
+        assertTrue(normal > 0);
+        assertEquals(0, high);
+        assertTrue(rateLimiter.tryAcquire(new String[]{"e@example.com"}, MailPriority.HIGH) > 0);
+    }
+
+    @Test
+    void tryAcquire_Disabled_AlwaysAllows() {
+        // Given
+        MailRateLimiter rateLimiter = MailRateLimiter.unlimited();
+
+        // When / Then
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, rateLimiter.tryAcquire(new String[]{"a@example.com"}, MailPriority.NORMAL));
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.krainet.notificationservice.mail;
+
+import com.krainet.common.event.EventType;
+import com.krainet.common.serialization.UserEventHeaders;
+import com.krainet.notificationservice.latency.EventLatency;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MailSpoolSenderTest {
+
+    @TempDir
+    Path spoolDirectory;
+
+    @Mock
+    private JavaMailSender mailSender;
+
+    private final SimpleMeterRegistry latencyRegistry = new SimpleMeterRegistry();
+    private final EventLatency eventLatency = new EventLatency(latencyRegistry);
+
+    private MailSpool mailSpool;
+    private MailSpoolSender spoolSender;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mailSpool = new MailSpool(new MailLanes(new String[]{"USER_PASSWORD_CHANGED"}), eventLatency,
+                spoolDirectory.resolve("normal").toString(), spoolDirectory.resolve("high").toString(),
+                spoolDirectory.resolve("dead").toString(), 1, false);
+        spoolSender = new MailSpoolSender(mailSpool, mailSender, MailRateLimiter.unlimited(), eventLatency,
+                new SimpleMeterRegistry(), 2, 1, 16, 50, 3, 1, 10);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        spoolSender.stop();
+        mailSpool.close();
+    }
+
+    @Test
+    void encode_RoundTripsMessage() {
+        // Given
+        SimpleMailMessage message = message("test@example.com", "Привет");
+        message.setFrom("no-reply@krainet.com");
+
+        // When
+        MailSpool.SpooledMail decoded = MailSpool.decode(MailSpool.encode(message, null, 1_700_000_000_000L, -1));
+
+        // Then
+        assertEquals(message, decoded.message());
+        assertNull(decoded.html());
+    }
+
+    @Test
+    void encode_RoundTripsHtmlBody() {
+        // Given
+        SimpleMailMessage message = message("test@example.com", "Welcome");
+        String html = "<p>Hello, <strong>Иван</strong></p>";
+
+        // When
+        MailSpool.SpooledMail decoded = MailSpool.decode(
+                MailSpool.encode(message, html, 1_700_000_000_000L, 1_699_999_999_000L));
+
+        // Then
+        assertEquals(message, decoded.message());
+        assertEquals(html, decoded.html());
+        assertEquals(1_700_000_000_000L, decoded.spooledAt());
+        assertEquals(1_699_999_999_000L, decoded.committedAt());
+    }
+
+    @Test
+    void drain_SendsSpooledMessagesAndCommits() {
+        // Given
+        mailSpool.submit(message("first@example.com", "First"));
+        mailSpool.submit(message("second@example.com", "Second"));
+        assertTrue(mailSpool.hasPending());
+
+        // When
+        spoolSender.start();
+        spoolSender.drain();
+
+        // Then
+        ArgumentCaptor<SimpleMailMessage> sent = ArgumentCaptor.forClass(SimpleMailMessage.class);
+        verify(mailSender, atLeast(2)).send(sent.capture());
+        assertTrue(sent.getAllValues().stream().anyMatch(m -> "First".equals(m.getSubject())));
+        assertTrue(sent.getAllValues().stream().anyMatch(m -> "Second".equals(m.getSubject())));
+        assertFalse(mailSpool.hasPending());
+    }
+
+    @Test
+    void start_OverRateLimit_DefersInsteadOfFailing() throws InterruptedException {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MailRateLimiter rateLimiter = new MailRateLimiter(true, 20, 1, 0, 1000, 100, 10, meterRegistry);
+        spoolSender = new MailSpoolSender(mailSpool, mailSender, rateLimiter, eventLatency, meterRegistry,
+                2, 1, 16, 50, 3, 1, 10);
+        for (int i = 0; i < 4; i++) {
+            mailSpool.submit(message("user" + i + "@example.com", "Message " + i));
+        }
+
+        // When
+        long start = System.nanoTime();
+        spoolSender.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (mailSpool.hasPending() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // Then
+        assertFalse(mailSpool.hasPending());
+        verify(mailSender, times(4)).send(any(SimpleMailMessage.class));
+        assertTrue(elapsedMs >= 100, "Three of four messages should wait ~50 ms each, took " + elapsedMs + " ms");
+        assertTrue(meterRegistry.get("krainet.mail.rate-limit.throttled").tag("scope", "provider")
+                .functionCounter().count() >= 3);
+    }
+
+    @Test
+    void start_NormalBacklog_DoesNotDelayHighPriorityLane() throws InterruptedException {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        spoolSender = new MailSpoolSender(mailSpool, mailSender, MailRateLimiter.unlimited(), eventLatency,
+                meterRegistry, 1, 1, 16, 50, 3, 1, 10);
+        AtomicInteger bulkSent = new AtomicInteger();
+        CountDownLatch securitySent = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            SimpleMailMessage message = invocation.getArgument(0);
+            if ("Security".equals(message.getSubject())) {
+                securitySent.countDown();
+                return null;
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MailSendException("Interrupted");
+            }
+            bulkSent.incrementAndGet();
+            return null;
+        }).when(mailSender).send(any(SimpleMailMessage.class));
+        for (int i = 0; i < 20; i++) {
+            mailSpool.submit(message("user" + i + "@example.com", "Welcome " + i), null, EventType.USER_CREATED);
+        }
+        mailSpool.submit(message("victim@example.com", "Security"), null, EventType.USER_PASSWORD_CHANGED);
+
+        // When
+        spoolSender.start();
+
+        // Then
+        assertTrue(securitySent.await(1, TimeUnit.SECONDS));
+        assertTrue(bulkSent.get() < 20, "High-priority mail waited for the whole backlog");
+        Timer highLatency = meterRegistry.get("krainet.mail.delivery.latency").tag("lane", "high").timer();
+        long deadline = System.currentTimeMillis() + 1000;
+        while (highLatency.count() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, highLatency.count());
+    }
+
+    @Test
+    void start_EventMail_RecordsEndToEndLatencyFromUserChange() throws InterruptedException {
+        // Given
+        Headers headers = new RecordHeaders();
+        long committedAt = System.currentTimeMillis() - 250;
+        headers.add(UserEventHeaders.COMMITTED_AT_HEADER, Long.toString(committedAt).getBytes(StandardCharsets.US_ASCII));
+        eventLatency.consumed(headers);
+        try {
+            mailSpool.submit(message("test@example.com", "Welcome"), null, EventType.USER_CREATED);
+        } finally {
+            eventLatency.clear();
+        }
+        Timer endToEnd = latencyRegistry.get("krainet.events.end-to-end.latency").timer();
+
+        // When
+        spoolSender.start();
+        long deadline = System.currentTimeMillis() + 2000;
+        while (endToEnd.count() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // Then
+        assertEquals(1, endToEnd.count());
+        assertTrue(endToEnd.max(TimeUnit.MILLISECONDS) >= 250);
+        assertEquals(1, latencyRegistry.get("krainet.events.stage.latency").tag("stage", "sent").timer().count());
+    }
+
+    @Test
+    void deliver_TransientFailure_RetriesUntilSent() {
+        // Given
+        spoolSender.start();
+        doThrow(new MailSendException("Connection timed out"))
+                .doNothing()
+                .when(mailSender).send(any(SimpleMailMessage.class));
+
+        // When
+        boolean done = spoolSender.deliver(MailPriority.NORMAL, spooled(message("test@example.com", "Retry")));
+
+        // Then
+        assertTrue(done);
+        verify(mailSender, times(2)).send(any(SimpleMailMessage.class));
+        assertEquals(0, mailSpool.deadLetterBytes());
+    }
+
+    @Test
+    void deliver_PermanentFailure_DeadLettersWithoutRetry() {
+        // Given
+        spoolSender.start();
+        doThrow(new MailParseException("Bad address")).when(mailSender).send(any(SimpleMailMessage.class));
+
+        // When
+        boolean done = spoolSender.deliver(MailPriority.NORMAL, spooled(message("not an address", "Dropped")));
+
+        // Then
+        assertTrue(done);
+        verify(mailSender, times(1)).send(any(SimpleMailMessage.class));
+        assertTrue(mailSpool.deadLetterBytes() > 0);
+    }
+
+    @Test
+    void deliver_AttemptsExhausted_DeadLettersAndRedrivesIntoSameLane() throws IOException {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        spoolSender = new MailSpoolSender(mailSpool, mailSender, MailRateLimiter.unlimited(), eventLatency,
+                meterRegistry, 2, 1, 16, 50, 3, 1, 10);
+        spoolSender.start();
+        doThrow(new MailSendException("Connection refused")).when(mailSender).send(any(SimpleMailMessage.class));
+
+        // When
+        boolean done = spoolSender.deliver(MailPriority.HIGH, spooled(message("test@example.com", "Security")));
+        MailSpool.Redrive redrive = mailSpool.redriveDeadLetters(10);
+
+        // Then
+        assertTrue(done);
+        verify(mailSender, times(3)).send(any(SimpleMailMessage.class));
+        assertEquals(1, meterRegistry.get("krainet.mail.dead-lettered").tag("lane", "high").counter().count());
+        assertEquals(new MailSpool.Redrive(1, 0), redrive);
+        assertEquals(0, mailSpool.deadLetterBytes());
+        assertTrue(mailSpool.pendingBytes(MailPriority.HIGH) > 0);
+        assertEquals(0, mailSpool.pendingBytes(MailPriority.NORMAL));
+    }
+
+    private static MailSpool.SpooledMail spooled(SimpleMailMessage message) {
+        return new MailSpool.SpooledMail(message, null, System.currentTimeMillis(), -1);
+    }
+
+    private static SimpleMailMessage message(String to, String subject) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(to);
+        message.setSubject(subject);
+        message.setText("Hello,\n\nbody");
+        return message;
+    }
+}
@@ -0,0 +1,79 @@
+package com.krainet.notificationservice.mail;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sends a fixed number of messages to a local {@link SmtpStandInServer} with and without
+ * connection pooling and reports messages/sec. Run with {@code -Dbenchmark=true}; the simulated
+ * TLS and AUTH handshake cost is set with {@code -Dbenchmark.smtp.handshake-ms}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PooledJavaMailSenderBenchmarkTest {
+
+    private static final int SENDERS = 4;
+    private static final int WARMUP_MESSAGES = 200;
+    private static final int MEASURED_MESSAGES = Integer.getInteger("benchmark.messages", 2_000);
+
+    private static SmtpStandInServer smtpServer;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        smtpServer = new SmtpStandInServer(Long.getLong("benchmark.smtp.handshake-ms", 20));
+    }
+
+    @AfterAll
+    static void stopServer() throws IOException {
+        smtpServer.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void sendThroughput(boolean pooled) throws Exception {
+        JavaMailSenderImpl mailSender = pooled
+                ? new PooledJavaMailSender(SENDERS, 100, 300_000, 5_000, 30_000)
+                : new JavaMailSenderImpl();
+        PooledJavaMailSenderTest.configure(mailSender, smtpServer.port());
+        ExecutorService senders = Executors.newFixedThreadPool(SENDERS);
+        try {
+            send(mailSender, senders, WARMUP_MESSAGES);
+
+            int connectionsBefore = smtpServer.connections();
+            long start = System.nanoTime();
+            send(mailSender, senders, MEASURED_MESSAGES);
+            long elapsedNanos = System.nanoTime() - start;
+
+            double messagesPerSecond = MEASURED_MESSAGES / (elapsedNanos / 1_000_000_000.0);
+            System.out.printf("Mail sender %-8s %,8d messages over %,6d connections in %,6d ms -> %,10.0f messages/sec%n",
+                    pooled ? "pooled" : "direct", MEASURED_MESSAGES, smtpServer.connections() - connectionsBefore,
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), messagesPerSecond);
+            assertTrue(messagesPerSecond > 0);
+        } finally {
+            senders.shutdown();
+            if (mailSender instanceof PooledJavaMailSender pool) {
+                pool.destroy();
+            }
+        }
+    }
+
+    private static void send(JavaMailSenderImpl mailSender, ExecutorService senders, int count) {
+        CompletableFuture<?>[] sends = new CompletableFuture<?>[count];
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            sends[i] = CompletableFuture.runAsync(() -> mailSender.send(PooledJavaMailSenderTest.message(index)), senders);
+        }
+        CompletableFuture.allOf(sends).join();
+    }
+}
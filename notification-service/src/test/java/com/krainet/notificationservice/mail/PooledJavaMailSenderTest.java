@@ -0,0 +1,97 @@
+package com.krainet.notificationservice.mail;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PooledJavaMailSenderTest {
+
+    private SmtpStandInServer smtpServer;
+    private PooledJavaMailSender mailSender;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtpServer = new SmtpStandInServer(0);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (mailSender != null) {
+            mailSender.destroy();
+        }
+        smtpServer.close();
+    }
+
+    @Test
+    void send_ReusesConnectionAcrossSends() {
+        // Given
+        mailSender = pooledSender(100, 300_000);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            mailSender.send(message(i));
+        }
+
+        // Then
+        assertEquals(10, smtpServer.messages());
+        assertEquals(1, smtpServer.connections());
+        assertEquals(1, mailSender.idleConnections());
+    }
+
+    @Test
+    void send_MessageLimitReached_RecyclesConnection() {
+        // Given
+        mailSender = pooledSender(3, 300_000);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            mailSender.send(message(i));
+        }
+
+        // Then
+        assertEquals(10, smtpServer.messages());
+        assertEquals(4, smtpServer.connections());
+    }
+
+    @Test
+    void send_ConnectionTooOld_RecyclesConnection() {
+        // Given
+        mailSender = pooledSender(100, 0);
+
+        // When
+        mailSender.send(message(1));
+        mailSender.send(message(2));
+
+        // Then
+        assertEquals(2, smtpServer.connections());
+        assertEquals(0, mailSender.idleConnections());
+    }
+
+    private PooledJavaMailSender pooledSender(int maxMessagesPerConnection, long maxConnectionAgeMs) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(2, maxMessagesPerConnection, maxConnectionAgeMs, 5_000, 5_000);
+        configure(sender, smtpServer.port());
+        return sender;
+    }
+
+    static void configure(JavaMailSenderImpl sender, int port) {
+        sender.setHost("localhost");
+        sender.setPort(port);
+        sender.getJavaMailProperties().put("mail.smtp.connectiontimeout", 5000);
+        sender.getJavaMailProperties().put("mail.smtp.timeout", 5000);
+    }
+
+    static SimpleMailMessage message(int i) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("no-reply@krainet.com");
+        message.setTo("user" + i + "@example.com");
+        message.setSubject("Message " + i);
+        message.setText("Hello,\n\nthis is message " + i);
+        return message;
+    }
+}
@@ -0,0 +1,124 @@
+package com.krainet.notificationservice.retry;
+
+import com.krainet.common.event.EventType;
+import com.krainet.common.event.UserEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FailedEventRouterTest {
+
+    private static final String TOPIC = "user-events";
+
+    @Mock
+    private KafkaTemplate<String, UserEvent> kafkaTemplate;
+
+    private final RetryTopics retryTopics = new RetryTopics(TOPIC, new String[]{"10s", "1m", "10m"});
+
+    private FailedEventRouter router;
+
+    @BeforeEach
+    void setUp() {
+        router = new FailedEventRouter(kafkaTemplate, retryTopics, true, 1_000);
+    }
+
+    @Test
+    void route_FirstFailure_SendsToFirstTierWithOriginAndCause() {
+        // Given
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        ConsumerRecord<String, UserEvent> record = record(TOPIC, 2, 42);
+        long before = System.currentTimeMillis();
+
+        // When
+        boolean routed = router.route(record, new IllegalStateException("SMTP down"));
+
+        // Then
+        assertTrue(routed);
+        ProducerRecord<String, UserEvent> sent = sentRecord();
+        assertEquals("user-events-retry-10s", sent.topic());
+        assertEquals(record.key(), sent.key());
+        assertEquals(1, FailedEventRouter.headerAsInt(sent.headers(), RetryTopics.ATTEMPT_HEADER, 0));
+        assertTrue(FailedEventRouter.headerAsLong(sent.headers(), RetryTopics.DUE_AT_HEADER, 0) >= before + 10_000);
+        assertEquals(TOPIC, header(sent, KafkaHeaders.DLT_ORIGINAL_TOPIC));
+        assertEquals(IllegalStateException.class.getName(), header(sent, KafkaHeaders.DLT_EXCEPTION_FQCN));
+        assertEquals("SMTP down", header(sent, KafkaHeaders.DLT_EXCEPTION_MESSAGE));
+    }
+
+    @Test
+    void route_LastTierFails_SendsToDeadLetterTopicKeepingOrigin() {
+        // Given
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        ConsumerRecord<String, UserEvent> record = record("user-events-retry-10m", 0, 7);
+        record.headers().add(RetryTopics.ATTEMPT_HEADER, new byte[]{0, 0, 0, 3});
+        record.headers().add(KafkaHeaders.DLT_ORIGINAL_TOPIC, TOPIC.getBytes(StandardCharsets.UTF_8));
+
+        // When
+        boolean routed = router.route(record, new RuntimeException("Still down"));
+
+        // Then
+        assertTrue(routed);
+        ProducerRecord<String, UserEvent> sent = sentRecord();
+        assertEquals("user-events-dlt", sent.topic());
+        assertEquals(TOPIC, header(sent, KafkaHeaders.DLT_ORIGINAL_TOPIC));
+        assertNull(sent.headers().lastHeader(RetryTopics.DUE_AT_HEADER));
+    }
+
+    @Test
+    void route_RetriesDisabled_ReturnsFalseWithoutSending() {
+        // Given
+        router = new FailedEventRouter(kafkaTemplate, retryTopics, false, 1_000);
+
+        // When
+        boolean routed = router.route(record(TOPIC, 0, 1), new RuntimeException("SMTP down"));
+
+        // Then
+        assertFalse(routed);
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void route_BrokerRejectsSend_ReturnsFalse() {
+        // Given
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Broker unavailable")));
+
+        // When
+        boolean routed = router.route(record(TOPIC, 0, 1), new RuntimeException("SMTP down"));
+
+        // Then
+        assertFalse(routed);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ProducerRecord<String, UserEvent> sentRecord() {
+        ArgumentCaptor<ProducerRecord<String, UserEvent>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(captor.capture());
+        return captor.getValue();
+    }
+
+    private static String header(ProducerRecord<String, UserEvent> record, String key) {
+        return new String(record.headers().lastHeader(key).value(), StandardCharsets.UTF_8);
+    }
+
+    private static ConsumerRecord<String, UserEvent> record(String topic, int partition, long offset) {
+        UUID userId = UUID.randomUUID();
+        UserEvent event = UserEvent.builder(EventType.USER_CREATED, userId, "testuser", "test@example.com", "USER").build();
+        return new ConsumerRecord<>(topic, partition, offset, userId.toString(), event);
+    }
+}
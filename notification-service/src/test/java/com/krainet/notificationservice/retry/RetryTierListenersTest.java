@@ -0,0 +1,171 @@
+package com.krainet.notificationservice.retry;
+
+import com.krainet.common.event.EventType;
+import com.krainet.common.event.UserEvent;
+import com.krainet.notificationservice.consumer.EventSequenceTracker;
+import com.krainet.notificationservice.consumer.UserEventConsumer;
+import com.krainet.notificationservice.dedup.ProcessedEventLog;
+import com.krainet.notificationservice.service.NotificationService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RetryTierListenersTest {
+
+    @Mock
+    private ConsumerFactory<String, UserEvent> consumerFactory;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private FailedEventRouter failedEventRouter;
+
+    @Mock
+    private Acknowledgment ack;
+
+    private final ProcessedEventLog processedEventLog = new InMemoryProcessedEventLog();
+
+    private RetryTierListeners listeners;
+
+    @BeforeEach
+    void setUp() {
+        RetryTopics retryTopics = new RetryTopics("user-events", new String[]{"10s", "1m"});
+        listeners = new RetryTierListeners(consumerFactory, retryTopics, notificationService,
+                failedEventRouter, processedEventLog, "notification-service", "kafka");
+    }
+
+    @Test
+    void onRetry_NotYetDue_NacksUntilDue() {
+        // Given
+        ConsumerRecord<String, UserEvent> record = retryRecord(System.currentTimeMillis() + 5_000, 1L);
+
+        // When
+        listeners.onRetry(record, ack);
+
+        // Then
+        ArgumentCaptor<Duration> sleep = ArgumentCaptor.forClass(Duration.class);
+        verify(ack).nack(sleep.capture());
+        assertTrue(sleep.getValue().toMillis() > 0 && sleep.getValue().toMillis() <= 5_000);
+        verify(ack, never()).acknowledge();
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void onRetry_Due_ProcessesAndRecordsEvent() {
+        // Given
+        ConsumerRecord<String, UserEvent> record = retryRecord(System.currentTimeMillis() - 1, 1L);
+
+        // When
+        listeners.onRetry(record, ack);
+
+        // Then
+        verify(notificationService).processUserEvent(record.value());
+        verify(ack).acknowledge();
+        assertTrue(processedEventLog.isProcessed(record.value().getEventId()));
+    }
+
+    @Test
+    void onRetry_AlreadyProcessed_Skips() {
+        // Given
+        ConsumerRecord<String, UserEvent> record = retryRecord(System.currentTimeMillis() - 1, 1L);
+        processedEventLog.markProcessed(record.value().getEventId());
+
+        // When
+        listeners.onRetry(record, ack);
+
+        // Then
+        verifyNoInteractions(notificationService);
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void onRetry_NewerEventSucceededMeanwhile_StillSendsItsEmails() {
+        // Given: event N fails on the main topic and goes to a retry tier, then N + 1 succeeds
+        UserEventConsumer mainConsumer = new UserEventConsumer(notificationService, new EventSequenceTracker(1024),
+                failedEventRouter, processedEventLog);
+        ConsumerRecord<String, UserEvent> retry = retryRecord(System.currentTimeMillis() - 1, 1L);
+        UserEvent failed = retry.value();
+        UserEvent succeeded = newer(retry);
+        RuntimeException failure = new RuntimeException("SMTP down");
+        doThrow(failure).doNothing().when(notificationService).processUserEvent(failed);
+        when(failedEventRouter.route(any(), eq(failure))).thenReturn(true);
+        mainConsumer.consumeUserEvent(new ConsumerRecord<>("user-events", 0, 0, retry.key(), failed), ack);
+        mainConsumer.consumeUserEvent(new ConsumerRecord<>("user-events", 0, 1, retry.key(), succeeded), ack);
+
+        // When
+        listeners.onRetry(retry, ack);
+
+        // Then
+        verify(notificationService, times(2)).processUserEvent(failed);
+        verify(notificationService).processUserEvent(succeeded);
+        assertTrue(processedEventLog.isProcessed(failed.getEventId()));
+    }
+
+    @Test
+    void onRetry_FailsAgain_RoutesToNextTierAndAcknowledges() {
+        // Given
+        ConsumerRecord<String, UserEvent> record = retryRecord(System.currentTimeMillis() - 1, 1L);
+        RuntimeException failure = new RuntimeException("SMTP down");
+        doThrow(failure).when(notificationService).processUserEvent(any());
+        when(failedEventRouter.route(record, failure)).thenReturn(true);
+
+        // When
+        listeners.onRetry(record, ack);
+
+        // Then
+        verify(failedEventRouter).route(record, failure);
+        verify(ack).acknowledge();
+    }
+
+    private static final class InMemoryProcessedEventLog implements ProcessedEventLog {
+
+        private final Set<String> processed = new HashSet<>();
+
+        @Override
+        public boolean isProcessed(String eventId) {
+            return processed.contains(eventId);
+        }
+
+        @Override
+        public void markProcessed(String eventId) {
+            processed.add(eventId);
+        }
+    }
+
+    private static UserEvent newer(ConsumerRecord<String, UserEvent> record) {
+        return UserEvent.builder(EventType.USER_UPDATED, record.value().getUserId(), "testuser", "test@example.com", "USER")
+                .sequence(record.value().getSequence() + 1)
+                .build();
+    }
+
+    private static ConsumerRecord<String, UserEvent> retryRecord(long dueAt, long sequence) {
+        UUID userId = UUID.randomUUID();
+        UserEvent event = UserEvent.builder(EventType.USER_CREATED, userId, "testuser", "test@example.com", "USER")
+                .sequence(sequence)
+                .build();
+        ConsumerRecord<String, UserEvent> record =
+                new ConsumerRecord<>("user-events-retry-10s", 0, 0, userId.toString(), event);
+        record.headers().add(RetryTopics.ATTEMPT_HEADER, ByteBuffer.allocate(Integer.BYTES).putInt(1).array());
+        record.headers().add(RetryTopics.DUE_AT_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(dueAt).array());
+        return record;
+    }
+}
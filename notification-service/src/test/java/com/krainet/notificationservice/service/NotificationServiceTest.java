@@ -1,19 +1,34 @@
 package com.krainet.notificationservice.service;
 
+import com.krainet.common.event.ChangedField;
 import com.krainet.common.event.EventType;
 import com.krainet.common.event.UserEvent;
+import com.krainet.common.event.UserState;
+import com.krainet.notificationservice.dedup.ProcessedEventLog;
+import com.krainet.notificationservice.digest.AdminDigest;
+import com.krainet.notificationservice.latency.EventLatency;
+import com.krainet.notificationservice.mail.DirectMailOutbox;
+import com.krainet.notificationservice.mail.MailLanes;
+import com.krainet.notificationservice.mail.MailRateLimiter;
+import com.krainet.notificationservice.template.NotificationTemplates;
+import com.krainet.notificationservice.view.UserDirectory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
-import com.krainet.common.event.EventType;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -22,6 +37,9 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class NotificationServiceTest {
 
+    private static final NotificationTemplates TEMPLATES = new NotificationTemplates("", "en", false);
+    private static final MailLanes LANES = new MailLanes(new String[0]);
+
     @Mock
     private JavaMailSender mailSender;
 
@@ -33,7 +51,11 @@ class NotificationServiceTest {
 
     @BeforeEach
     void setUp() {
-        notificationService = new NotificationService(mailSender);
+        EventLatency eventLatency = new EventLatency(new SimpleMeterRegistry());
+        notificationService = new NotificationService(
+                new DirectMailOutbox(mailSender, MailRateLimiter.unlimited(), LANES, eventLatency),
+                UserDirectory.EMPTY, TEMPLATES, AdminDigest.NONE, eventLatency,
+                ProcessedEventLog.NONE, ADMIN_EMAIL);
     }
 
     @Test
@@ -43,11 +65,13 @@ class NotificationServiceTest {
         UUID initiatorId = UUID.randomUUID();
 
         UserEvent event = UserEvent.builder(
-                        EventType.USER_PASSWORD_CHANGED,  // eventType
+                        EventType.USER_CREATED,           // eventType
                         userId,                           // userId
                         "testuser",                       // username
                         "test@example.com",               // email
-                        "USER"                            // userRole
+                        "USER",                           // userRole
+                        initiatorId,                      // initiatorUserId
+                        "admin"                           // initiatorUsername
                 )
                 .eventId(UUID.randomUUID().toString())  // This will be set automatically by the builder
                 .build();
@@ -77,11 +101,13 @@ class NotificationServiceTest {
         UUID adminId = UUID.randomUUID();
 
         UserEvent event = UserEvent.builder(
-                        EventType.USER_PASSWORD_CHANGED,  // eventType
+                        EventType.USER_UPDATED,           // eventType
                         userId,                           // userId
                         "testuser",                       // username
                         "test@example.com",               // email
-                        "USER"                            // userRole
+                        "USER",                           // userRole
+                        adminId,                          // initiatorUserId
+                        "admin"                           // initiatorUsername
                 )
                 .eventId(UUID.randomUUID().toString())  // This will be set automatically by the builder
                 .build();
@@ -104,11 +130,13 @@ class NotificationServiceTest {
         UUID adminId = UUID.randomUUID();
 
         UserEvent event = UserEvent.builder(
-                        EventType.USER_PASSWORD_CHANGED,  // eventType
+                        EventType.USER_DELETED,           // eventType
                         userId,                           // userId
                         "testuser",                       // username
                         "test@example.com",               // email
-                        "USER"                            // userRole
+                        "USER",                           // userRole
+                        adminId,                          // initiatorUserId
+                        "admin"                           // initiatorUsername
                 )
                 .eventId(UUID.randomUUID().toString())  // This will be set automatically by the builder
                 .build();
@@ -159,11 +187,13 @@ class NotificationServiceTest {
         UUID adminId = UUID.randomUUID();
 
         UserEvent event = UserEvent.builder(
-                        EventType.USER_PASSWORD_CHANGED,  // eventType
+                        EventType.USER_ACCOUNT_ENABLED,   // eventType
                         userId,                           // userId
                         "testuser",                       // username
                         "test@example.com",               // email
-                        "USER"                            // userRole
+                        "USER",                           // userRole
+                        adminId,                          // initiatorUserId
+                        "admin"                           // initiatorUsername
                 )
                 .eventId(UUID.randomUUID().toString())  // This will be set automatically by the builder
                 .build();
@@ -192,11 +222,13 @@ class NotificationServiceTest {
         UUID adminId = UUID.randomUUID();
 
         UserEvent event = UserEvent.builder(
-                        EventType.USER_PASSWORD_CHANGED,  // eventType
+                        EventType.USER_ACCOUNT_DISABLED,  // eventType
                         userId,                           // userId
                         "testuser",                       // username
                         "test@example.com",               // email
-                        "USER"                            // userRole
+                        "USER",                           // userRole
+                        adminId,                          // initiatorUserId
+                        "admin"                           // initiatorUsername
                 )
                 .eventId(UUID.randomUUID().toString())  // This will be set automatically by the builder
                 .build();
@@ -219,11 +251,113 @@ class NotificationServiceTest {
         assertTrue(adminEmail.getSubject().contains("User Account Disabled"));
     }
 
+    @Test
+    void processUserEvent_CompositeUpdate_SendsNotificationForEachChange() {
+        // Given
+        UserEvent event = UserEvent.builder(
+                        EventType.USER_UPDATED,
+                        UUID.randomUUID(),
+                        "testuser",
+                        "test@example.com",
+                        "USER")
+                .enabled(false)
+                .changedFields(ChangedField.mask(ChangedField.PASSWORD, ChangedField.ENABLED))
+                .build();
+
+        // When
+        notificationService.processUserEvent(event);
+
+        // Then
+        verify(mailSender, times(2)).send(emailCaptor.capture());
+
+        SimpleMailMessage passwordEmail = emailCaptor.getAllValues().get(0);
+        assertEquals("test@example.com", passwordEmail.getTo()[0]);
+        assertEquals("Your password has been changed", passwordEmail.getSubject());
+
+        SimpleMailMessage statusEmail = emailCaptor.getAllValues().get(1);
+        assertEquals("test@example.com", statusEmail.getTo()[0]);
+        assertEquals("Your account has been disabled", statusEmail.getSubject());
+    }
+
+    @Test
+    void processUserEvent_RetriedAfterPartialFailure_SendsOnlyMissingEmails() {
+        // Given
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+        ProcessedEventLog processedEventLog = new ProcessedEventLog() {
+            @Override
+            public boolean isProcessed(String eventId) {
+                return eventId != null && processed.contains(eventId);
+            }
+
+            @Override
+            public void markProcessed(String eventId) {
+                processed.add(eventId);
+            }
+        };
+        EventLatency eventLatency = new EventLatency(new SimpleMeterRegistry());
+        notificationService = new NotificationService(
+                new DirectMailOutbox(mailSender, MailRateLimiter.unlimited(), LANES, eventLatency),
+                UserDirectory.EMPTY, TEMPLATES, AdminDigest.NONE, eventLatency, processedEventLog, ADMIN_EMAIL);
+        UserEvent event = UserEvent.builder(
+                        EventType.USER_UPDATED,
+                        UUID.randomUUID(),
+                        "testuser",
+                        "test@example.com",
+                        "USER")
+                .enabled(false)
+                .changedFields(ChangedField.mask(ChangedField.PASSWORD, ChangedField.ENABLED))
+                .build();
+        doNothing()
+                .doThrow(new MailSendException("Connection reset"))
+                .doNothing()
+                .when(mailSender).send(any(SimpleMailMessage.class));
+        assertThrows(RuntimeException.class, () -> notificationService.processUserEvent(event));
+
+        // When
+        notificationService.processUserEvent(event);
+
+        // Then
+        verify(mailSender, times(3)).send(emailCaptor.capture());
+        assertEquals(List.of("Your password has been changed", "Your account has been disabled",
+                        "Your account has been disabled"),
+                emailCaptor.getAllValues().stream().map(SimpleMailMessage::getSubject).toList());
+    }
+
+    @Test
+    void processUserEvent_UserKnownToLocalView_GreetsByFirstName() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        UserState state = UserState.builder()
+                .userId(userId)
+                .username("testuser")
+                .firstName("Anna")
+                .build();
+        EventLatency eventLatency = new EventLatency(new SimpleMeterRegistry());
+        notificationService = new NotificationService(
+                new DirectMailOutbox(mailSender, MailRateLimiter.unlimited(), LANES, eventLatency),
+                id -> id.equals(userId) ? Optional.of(state) : Optional.empty(), TEMPLATES, AdminDigest.NONE, eventLatency,
+                ProcessedEventLog.NONE, ADMIN_EMAIL);
+        UserEvent event = UserEvent.builder(
+                        EventType.USER_PASSWORD_CHANGED,
+                        userId,
+                        "testuser",
+                        "test@example.com",
+                        "USER")
+                .build();
+
+        // When
+        notificationService.processUserEvent(event);
+
+        // Then
+        verify(mailSender).send(emailCaptor.capture());
+        assertTrue(emailCaptor.getValue().getText().startsWith("Hello Anna,"));
+    }
+
     @Test
     void processUserEvent_UnknownEventType_LogsWarning() {
         // Given
         UserEvent event = UserEvent.builder(
-                EventType.USER_PASSWORD_CHANGED,
+                EventType.UNKNOWN,
                 UUID.randomUUID(),
                 "testuser",
                 "test@example.com",
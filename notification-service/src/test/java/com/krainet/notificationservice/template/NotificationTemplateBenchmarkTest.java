@@ -0,0 +1,75 @@
+package com.krainet.notificationservice.template;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Renders the account-disabled notification, the longest user-facing one, with the former
+ * {@code String.format} code and with the compiled template, and reports renders/sec and
+ * allocated bytes per render. Run with {@code -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class NotificationTemplateBenchmarkTest {
+
+    private static final int WARMUP_RENDERS = 200_000;
+    private static final int MEASURED_RENDERS = Integer.getInteger("benchmark.renders", 1_000_000);
+
+    private final NotificationTemplates templates = new NotificationTemplates("", "en", false);
+
+    @Test
+    void renderThroughput() {
+        assertEquals(formatted(0), templates.render("account-disabled", model(0)).text());
+
+        run("String.format", i -> formatted(i));
+        run("compiled", i -> templates.render("account-disabled", model(i)).text());
+    }
+
+    private static void run(String label, IntFunction<String> render) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_RENDERS; i++) {
+            sink += render.apply(i).length();
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RENDERS; i++) {
+            sink += render.apply(i).length();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("Template %-14s %,10d renders in %,6d ms -> %,12.0f renders/sec, %,6d bytes/render (%d)%n",
+                label, MEASURED_RENDERS, elapsedNanos / 1_000_000,
+                MEASURED_RENDERS / (elapsedNanos / 1_000_000_000.0), allocated / MEASURED_RENDERS, sink % 10);
+    }
+
+    private static Map<String, Object> model(int i) {
+        Map<String, Object> model = new HashMap<>(16);
+        model.put("name", "user" + (i & 1023));
+        model.put("username", "user" + (i & 1023));
+        model.put("email", "user@example.com");
+        model.put("timestamp", LocalDateTime.of(2024, 1, 1, 0, 0));
+        return model;
+    }
+
+    private static String formatted(int i) {
+        return String.format(
+                "Hello %s,\n\n" +
+                "Your account has been %s by an administrator.\n\n" +
+                "%s\n\n" +
+                "If you believe this is an error, please contact our support team.\n\n" +
+                "Best regards,\nThe Krainet Team",
+                "user" + (i & 1023),
+                "disabled",
+                "You will not be able to log in until an administrator re-enables your account.");
+    }
+}
@@ -0,0 +1,133 @@
+package com.krainet.notificationservice.template;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationTemplatesTest {
+
+    @TempDir
+    Path templateDirectory;
+
+    private NotificationTemplates templates;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (templates != null) {
+            templates.close();
+        }
+    }
+
+    @Test
+    void render_BundledTemplate_MatchesPlainTextNotification() {
+        // Given
+        templates = new NotificationTemplates("", "en", true);
+
+        // When
+        RenderedNotification rendered = templates.render("password-changed", Map.of("name", "Anna"));
+
+        // Then
+        assertEquals("Your password has been changed", rendered.subject());
+        assertEquals("Hello Anna,\n\n" +
+                "Your password has been successfully changed.\n\n" +
+                "If you did not make this change, please contact our support team immediately.\n\n" +
+                "Best regards,\nThe Krainet Team", rendered.text());
+        assertNotNull(rendered.html());
+        assertTrue(rendered.html().contains("Hello Anna,"));
+    }
+
+    @Test
+    void render_LocaleFallsBackToLanguageThenDefault() {
+        // Given
+        templates = new NotificationTemplates("", "en", false);
+        Map<String, Object> model = Map.of("name", "Иван", "username", "ivan");
+
+        // When
+        RenderedNotification russian = templates.render("password-changed", Locale.forLanguageTag("ru-BY"), model);
+        RenderedNotification adminFallback = templates.render("user-deleted-admin", Locale.forLanguageTag("ru"), model);
+
+        // Then
+        assertEquals("Ваш пароль изменён", russian.subject());
+        assertNull(russian.html());
+        assertEquals("User Account Deleted: ivan", adminFallback.subject());
+    }
+
+    @Test
+    void render_HtmlBody_EscapesValuesAndMissingValuesRenderEmpty() {
+        // Given
+        templates = new NotificationTemplates("", "en", true);
+        Map<String, Object> model = new HashMap<>();
+        model.put("name", "<script>alert(1)</script>");
+        model.put("email", null);
+
+        // When
+        RenderedNotification rendered = templates.render("user-created", model);
+
+        // Then
+        assertTrue(rendered.html().contains("&lt;script&gt;alert(1)&lt;/script&gt;"));
+        assertFalse(rendered.html().contains("<script>"));
+        assertTrue(rendered.text().contains("Hello <script>alert(1)</script>,"));
+        assertTrue(rendered.text().contains("Email: \n"));
+    }
+
+    @Test
+    void render_UnknownTemplate_Throws() {
+        // Given
+        templates = new NotificationTemplates("", "en", true);
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> templates.render("no-such-template", Map.of()));
+    }
+
+    @Test
+    void render_OverrideDirectory_ReplacesDefaultsAndReloadsEdits() throws Exception {
+        // Given
+        Path override = templateDirectory.resolve("password-changed.txt");
+        Files.writeString(override, "Password changed\n\nHi {{name}}\n", StandardCharsets.UTF_8);
+        templates = new NotificationTemplates(templateDirectory.toString(), "en", true);
+        assertEquals("Hi Anna", templates.render("password-changed", Map.of("name", "Anna")).text());
+
+        // When
+        Files.writeString(override, "Password changed\n\nHello again {{name}}\n", StandardCharsets.UTF_8);
+
+        // Then
+        assertEquals("Hello again Anna", awaitText("password-changed", "Hello again Anna"));
+
+        // When
+        Files.delete(override);
+
+        // Then
+        assertEquals("Your password has been changed",
+                awaitSubject("password-changed", "Your password has been changed"));
+    }
+
+    private String awaitText(String name, String expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        String text;
+        while (!(text = templates.render(name, Map.of("name", "Anna")).text()).equals(expected)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        return text;
+    }
+
+    private String awaitSubject(String name, String expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        String subject;
+        while (!(subject = templates.render(name, Map.of()).subject()).equals(expected)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        return subject;
+    }
+}
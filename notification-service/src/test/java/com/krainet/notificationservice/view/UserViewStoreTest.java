@@ -0,0 +1,150 @@
+package com.krainet.notificationservice.view;
+
+import com.krainet.common.event.UserState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserViewStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void apply_Snapshot_FoundWithNextOffsetRecorded() {
+        // Given
+        UserViewStore store = open();
+        UUID userId = UUID.randomUUID();
+        UserViewBatch batch = new UserViewBatch();
+        batch.add(0, 41, userId, state(userId, "Anna", 1));
+
+        // When
+        store.apply(batch);
+
+        // Then
+        assertEquals("Anna", store.find(userId).map(UserState::getFirstName).orElseThrow());
+        assertEquals(OptionalLong.of(42), store.nextOffset(0));
+        assertEquals(OptionalLong.empty(), store.nextOffset(1));
+        assertEquals(Optional.empty(), store.find(UUID.randomUUID()));
+        store.close();
+    }
+
+    @Test
+    void apply_NewerSnapshot_ReplacesCachedState() {
+        // Given
+        UserViewStore store = open();
+        UUID userId = UUID.randomUUID();
+        store.apply(batch(0, 0, userId, state(userId, "Anna", 1)));
+        assertEquals("Anna", store.find(userId).orElseThrow().getFirstName());
+
+        // When
+        store.apply(batch(0, 1, userId, state(userId, "Hanna", 2)));
+
+        // Then
+        assertEquals("Hanna", store.find(userId).orElseThrow().getFirstName());
+        store.close();
+    }
+
+    @Test
+    void apply_OlderSnapshot_Ignored() {
+        // Given
+        UserViewStore store = open();
+        UUID userId = UUID.randomUUID();
+        store.apply(batch(0, 0, userId, state(userId, "Hanna", 5)));
+
+        // When
+        store.apply(batch(1, 7, userId, state(userId, "Anna", 4)));
+
+        // Then
+        assertEquals("Hanna", store.find(userId).orElseThrow().getFirstName());
+        assertEquals(OptionalLong.of(8), store.nextOffset(1));
+        store.close();
+    }
+
+    @Test
+    void apply_Tombstone_DeletesUser() {
+        // Given
+        UserViewStore store = open();
+        UUID userId = UUID.randomUUID();
+        store.apply(batch(0, 0, userId, state(userId, "Anna", 1)));
+        assertTrue(store.find(userId).isPresent());
+
+        // When
+        store.apply(batch(0, 1, userId, null));
+
+        // Then
+        assertEquals(Optional.empty(), store.find(userId));
+        assertEquals(OptionalLong.of(2), store.nextOffset(0));
+        store.close();
+    }
+
+    @Test
+    void open_AfterRestart_ResumesFromStoredOffsetsWithUsers() {
+        // Given
+        UUID kept = UUID.randomUUID();
+        UUID deleted = UUID.randomUUID();
+        UserViewStore store = open();
+        UserViewBatch batch = new UserViewBatch();
+        batch.add(0, 10, kept, state(kept, "Anna", 3));
+        batch.add(1, 20, deleted, state(deleted, "Boris", 1));
+        batch.add(1, 21, deleted, null);
+        batch.skip(2, 30);
+        store.apply(batch);
+        store.close();
+
+        // When
+        UserViewStore reopened = open();
+
+        // Then
+        assertEquals("Anna", reopened.find(kept).orElseThrow().getFirstName());
+        assertEquals(Optional.empty(), reopened.find(deleted));
+        assertEquals(OptionalLong.of(11), reopened.nextOffset(0));
+        assertEquals(OptionalLong.of(22), reopened.nextOffset(1));
+        assertEquals(OptionalLong.of(31), reopened.nextOffset(2));
+        reopened.close();
+    }
+
+    @Test
+    void instanceId_AfterRestart_Unchanged() {
+        // Given
+        UserViewStore store = open();
+        String instanceId = store.instanceId();
+        store.close();
+
+        // When
+        UserViewStore reopened = open();
+
+        // Then
+        assertEquals(instanceId, reopened.instanceId());
+        assertEquals(OptionalLong.empty(), reopened.nextOffset(0));
+        reopened.close();
+    }
+
+    private UserViewStore open() {
+        return new UserViewStore(directory.toString(), 100);
+    }
+
+    private static UserViewBatch batch(int partition, long offset, UUID userId, UserState state) {
+        UserViewBatch batch = new UserViewBatch();
+        batch.add(partition, offset, userId, state);
+        return batch;
+    }
+
+    private static UserState state(UUID userId, String firstName, long sequence) {
+        return UserState.builder()
+                .userId(userId)
+                .username("user-" + userId)
+                .email("user@example.com")
+                .firstName(firstName)
+                .userRole("USER")
+                .enabled(true)
+                .sequence(sequence)
+                .build();
+    }
+}